@@ -0,0 +1,88 @@
+package benchmark;
+
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import model.InHouse;
+import model.Inventory;
+import model.InventoryTransaction;
+import model.Outsourced;
+import model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a mass price adjustment made with one updatePart() call per part, each reported to list listeners on its own, against the same adjustment committed as one InventoryTransaction. Parts are watched by a filtered, sorted view like the one behind the main menu's parts table after a column header has been clicked.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class BatchUpdateBenchmark {
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"1000", "10000"})
+    private int batchSize;
+
+    @Param({"object", "columnar"})
+    private String storage;
+
+    private Random random;
+    private SortedList<Part> tableItems; // held so the view's weak listeners stay registered
+
+    @Setup(Level.Trial)
+    public void loadCatalog() {
+        System.setProperty(Inventory.STORAGE_PROPERTY, storage); // read when Inventory is first used, which is after this in a fresh fork
+        Catalog.load(catalogSize, catalogSize / 10, 5, 42);
+        random = new Random(7);
+        tableItems = new SortedList<>(new FilteredList<>(Inventory.getAllParts()), Comparator.comparingDouble(Part::getPrice));
+    }
+
+    @Benchmark
+    public List<Part> updatePartsOneByOne() {
+        List<Part> allParts = Inventory.getAllParts();
+        int first = random.nextInt(catalogSize - batchSize);
+        for(int index = first; index < first + batchSize; index++) {
+            Inventory.updatePart(index, repriced(allParts.get(index)));
+        }
+        return allParts;
+    }
+
+    @Benchmark
+    public List<Part> updatePartsInTransaction() {
+        List<Part> allParts = Inventory.getAllParts();
+        int first = random.nextInt(catalogSize - batchSize);
+        InventoryTransaction transaction = Inventory.beginTransaction();
+        for(int index = first; index < first + batchSize; index++) {
+            Part part = allParts.get(index);
+            transaction.updatePart(part, repriced(part));
+        }
+        transaction.commit();
+        return allParts;
+    }
+
+    private Part repriced(Part part) {
+        double price = Math.round(random.nextDouble() * 10000) / 100.0;
+        if(part instanceof InHouse) {
+            return new InHouse(part.getId(), part.getName(), price, part.getStock(), part.getMin(), part.getMax(), ((InHouse) part).getMachineId());
+        }
+        return new Outsourced(part.getId(), part.getName(), price, part.getStock(), part.getMin(), part.getMax(), ((Outsourced) part).getCompanyName());
+    }
+}
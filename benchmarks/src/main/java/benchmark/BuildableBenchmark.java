@@ -0,0 +1,72 @@
+package benchmark;
+
+import model.BuildableQuantity;
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks counting how many units of every product can be built from part stock, in a catalog of 100k products. Compares counting from scratch on the common fork/join pool against the same count run on the calling thread alone, and measures the incremental recount that follows a change in one part's stock.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class BuildableBenchmark {
+    @Param({"100000"})
+    private int products;
+
+    @Param({"10000", "1000000"})
+    private int parts;
+
+    @Param({"5", "50"})
+    private int associatedPartsPerProduct;
+
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() {
+        Catalog.load(parts, products, associatedPartsPerProduct, 42);
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public List<BuildableQuantity> countAllInParallel() {
+        return Inventory.computeBuildableQuantities();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g", "-Djava.util.concurrent.ForkJoinPool.common.parallelism=0"}) // common pool without workers runs every task on the calling thread
+    public List<BuildableQuantity> countAllOnCallingThread() {
+        return Inventory.computeBuildableQuantities();
+    }
+
+    @Benchmark
+    public boolean restockOnePart() {
+        Part part = Inventory.getAllParts().get(random.nextInt(parts));
+        int stock = part.getMin() + random.nextInt(part.getMax() - part.getMin() + 1);
+        Part values = part instanceof InHouse
+                ? new InHouse(part.getId(), part.getName(), part.getPrice(), stock, part.getMin(), part.getMax(), ((InHouse) part).getMachineId())
+                : new Outsourced(part.getId(), part.getName(), part.getPrice(), stock, part.getMin(), part.getMax(), ((Outsourced) part).getCompanyName());
+        return Inventory.editPart(part, values);
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+import model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates sample catalogs of parts and products for benchmarks.
+ */
+final class Catalog {
+    private static final String[] WORDS = {"Wheel", "Brake", "Seat", "Chain", "Gear", "Bolt", "Nut", "Frame", "Pedal", "Spoke", "Tire", "Tube", "Lever", "Cable", "Bearing", "Crank"};
+    private static final String[] COMPANIES = {"Brakes-R-Us", "Seats and Things", "Acme Supply", "Global Parts", "Precision Works"};
+
+    private Catalog() {
+    }
+
+    /**
+     * Clears inventory and fills it with generated parts and products. Every product has associatedPartsPerProduct parts picked at random.
+     * @param parts number of parts to generate
+     * @param products number of products to generate
+     * @param associatedPartsPerProduct number of associated parts per product
+     * @param seed random seed, so every fork loads the same catalog
+     */
+    static void load(int parts, int products, int associatedPartsPerProduct, long seed) {
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().clear();
+        Random random = new Random(seed);
+        List<Part> generatedParts = new ArrayList<>(parts);
+        for(int i = 0; i < parts; i++) {
+            generatedParts.add(part(random, Inventory.generatePartId()));
+        }
+        Inventory.getAllParts().addAll(generatedParts);
+        List<Product> generatedProducts = new ArrayList<>(products);
+        for(int i = 0; i < products; i++) {
+            ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+            for(int j = 0; j < associatedPartsPerProduct && parts > 0; j++) {
+                associatedParts.add(generatedParts.get(random.nextInt(parts)));
+            }
+            generatedProducts.add(product(random, Inventory.generateProductId(), associatedParts));
+        }
+        Inventory.getAllProducts().addAll(generatedProducts);
+    }
+
+    /**
+     * @return randomly generated in-house or outsourced part
+     */
+    static Part part(Random random, int id) {
+        String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(100_000);
+        double price = 1 + random.nextInt(10_000) / 100.0;
+        int min = random.nextInt(10);
+        int max = min + random.nextInt(100);
+        int stock = min + random.nextInt(max - min + 1);
+        if(random.nextBoolean()) {
+            return new InHouse(id, name, price, stock, min, max, random.nextInt(1000));
+        }
+        return new Outsourced(id, name, price, stock, min, max, COMPANIES[random.nextInt(COMPANIES.length)]);
+    }
+
+    /**
+     * @return randomly generated product
+     */
+    static Product product(Random random, int id, ObservableList<Part> associatedParts) {
+        String name = WORDS[random.nextInt(WORDS.length)] + " Assembly " + random.nextInt(100_000);
+        int min = random.nextInt(10);
+        int max = min + random.nextInt(100);
+        int stock = min + random.nextInt(max - min + 1);
+        return new Product(associatedParts, id, name, 10 + random.nextInt(100_000) / 100.0, stock, min, max);
+    }
+}
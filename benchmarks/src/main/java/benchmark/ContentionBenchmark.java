@@ -0,0 +1,88 @@
+package benchmark;
+
+import model.Inventory;
+import model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Inventory under concurrent access. Read benchmarks should scale with the number of threads passed with -t; the grouped benchmarks run lookups on several threads while one thread keeps changing inventory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class ContentionBenchmark {
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"object", "columnar"})
+    private String storage;
+
+    private int firstPartId;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() {
+        System.setProperty(Inventory.STORAGE_PROPERTY, storage); // read when Inventory is first used, which is after this in a fresh fork
+        Catalog.load(catalogSize, catalogSize / 10, 5, 42);
+        firstPartId = Inventory.getAllParts().get(0).getId();
+    }
+
+    @Benchmark
+    public Part lookupPartById() {
+        return Inventory.lookupPart(firstPartId + ThreadLocalRandom.current().nextInt(catalogSize));
+    }
+
+    @Benchmark
+    public List<Part> lookupPartByName() {
+        return Inventory.lookupPart("gear 12");
+    }
+
+    @Benchmark
+    public int generatePartId() {
+        return Inventory.generatePartId();
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public Part readerLookupPartById() {
+        return Inventory.lookupPart(firstPartId + ThreadLocalRandom.current().nextInt(catalogSize));
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public boolean writerAddAndDeletePart() {
+        Part part = Catalog.part(ThreadLocalRandom.current(), Inventory.generatePartId());
+        Inventory.addPart(part);
+        return Inventory.deletePart(part); // keep catalog size constant
+    }
+
+    @Benchmark
+    @Group("writeWhileWriting")
+    @GroupThreads(4)
+    public boolean concurrentAddAndDeletePart() {
+        Part part = Catalog.part(ThreadLocalRandom.current(), Inventory.generatePartId());
+        Inventory.addPart(part);
+        return Inventory.deletePart(part);
+    }
+}
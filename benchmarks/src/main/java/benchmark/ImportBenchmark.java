@@ -0,0 +1,84 @@
+package benchmark;
+
+import model.Inventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import persistence.CsvImporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures bulk CSV import into an empty inventory. One in ten rows is a product with five associated parts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class ImportBenchmark {
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param({"object", "columnar"})
+    private String storage;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        System.setProperty(Inventory.STORAGE_PROPERTY, storage); // read when Inventory is first used, which is after this in a fresh fork
+        file = Files.createTempFile("inventory-import", ".csv");
+        Random random = new Random(42);
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("type,id,name,price,stock,min,max,machineId/companyName,associatedPartIds\n");
+            int parts = 0;
+            for(int row = 0; row < rows; row++) {
+                if(row % 10 == 9) {
+                    StringBuilder associatedPartIds = new StringBuilder();
+                    for(int i = 0; i < 5; i++) {
+                        associatedPartIds.append(i == 0 ? "" : ";").append(1 + random.nextInt(parts));
+                    }
+                    writer.write("Product," + (1000 + row) + ",Assembly " + row + ",199.99,3,1,5,," + associatedPartIds + "\n");
+                }
+                else {
+                    parts++;
+                    writer.write((row % 2 == 0 ? "InHouse" : "Outsourced") + "," + parts + ",\"Part " + row + ", size " + random.nextInt(50) + "\",12.50,10,1,20," + (row % 2 == 0 ? "42" : "Acme Supply") + ",\n");
+                }
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearInventory() {
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public CsvImporter.Result importCsv() throws IOException {
+        return new CsvImporter().importFrom(file);
+    }
+}
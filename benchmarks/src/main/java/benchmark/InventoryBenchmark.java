@@ -0,0 +1,143 @@
+package benchmark;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Inventory;
+import model.Part;
+import model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks every public method of Inventory against catalogs of 1k to 10M parts, with parts stored as objects and in columns. Mutating benchmarks restore the catalog size in the same invocation so results do not drift as iterations run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class InventoryBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int catalogSize;
+
+    @Param({"wheel", "gear 12", "brake brake 4"})
+    private String query;
+
+    @Param({"object", "columnar"})
+    private String storage;
+
+    private Random random;
+    private int firstPartId;
+    private int firstProductId;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() {
+        System.setProperty(Inventory.STORAGE_PROPERTY, storage); // read when Inventory is first used, which is after this in a fresh fork
+        Catalog.load(catalogSize, catalogSize / 10, 5, 42);
+        firstPartId = Inventory.getAllParts().get(0).getId();
+        firstProductId = Inventory.getAllProducts().get(0).getId();
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public Part lookupPartById() {
+        return Inventory.lookupPart(firstPartId + random.nextInt(catalogSize));
+    }
+
+    @Benchmark
+    public Product lookupProductById() {
+        return Inventory.lookupProduct(firstProductId + random.nextInt(catalogSize / 10));
+    }
+
+    @Benchmark
+    public ObservableList<Part> lookupPartByName() {
+        return Inventory.lookupPart(query);
+    }
+
+    @Benchmark
+    public ObservableList<Product> lookupProductByName() {
+        return Inventory.lookupProduct(query);
+    }
+
+    @Benchmark
+    public ObservableList<Part> addPart() {
+        ObservableList<Part> allParts = Inventory.getAllParts();
+        Inventory.addPart(Catalog.part(random, Inventory.generatePartId()));
+        allParts.remove(allParts.size() - 1); // keep catalog size constant
+        return allParts;
+    }
+
+    @Benchmark
+    public ObservableList<Product> addProduct() {
+        ObservableList<Product> allProducts = Inventory.getAllProducts();
+        Inventory.addProduct(Catalog.product(random, Inventory.generateProductId(), FXCollections.observableArrayList()));
+        allProducts.remove(allProducts.size() - 1); // keep catalog size constant
+        return allProducts;
+    }
+
+    @Benchmark
+    public ObservableList<Part> updatePart() {
+        int index = random.nextInt(catalogSize);
+        Part part = Inventory.getAllParts().get(index);
+        Inventory.updatePart(index, Catalog.part(random, part.getId()));
+        return Inventory.getAllParts();
+    }
+
+    @Benchmark
+    public ObservableList<Product> updateProduct() {
+        int index = random.nextInt(catalogSize / 10);
+        Product product = Inventory.getAllProducts().get(index);
+        Inventory.updateProduct(index, Catalog.product(random, product.getId(), product.getAllAssociatedParts()));
+        return Inventory.getAllProducts();
+    }
+
+    @Benchmark
+    public boolean deletePart() {
+        Part part = Inventory.getAllParts().get(random.nextInt(catalogSize));
+        boolean deleted = Inventory.deletePart(part);
+        Inventory.addPart(part); // keep catalog size constant
+        return deleted;
+    }
+
+    @Benchmark
+    public boolean deleteProduct() {
+        Product product = Inventory.getAllProducts().get(random.nextInt(catalogSize / 10));
+        boolean deleted = Inventory.deleteProduct(product);
+        Inventory.addProduct(product); // keep catalog size constant
+        return deleted;
+    }
+
+    @Benchmark
+    public ObservableList<Part> getAllParts() {
+        return Inventory.getAllParts();
+    }
+
+    @Benchmark
+    public ObservableList<Product> getAllProducts() {
+        return Inventory.getAllProducts();
+    }
+
+    @Benchmark
+    public int generatePartId() {
+        return Inventory.generatePartId();
+    }
+
+    @Benchmark
+    public int generateProductId() {
+        return Inventory.generateProductId();
+    }
+}
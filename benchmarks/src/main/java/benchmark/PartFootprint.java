@@ -0,0 +1,47 @@
+package benchmark;
+
+import model.Inventory;
+import model.Part;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reports heap used per part for the storage mode selected with -Dinventory.partStorage. Parts are added in batches so generated part objects do not stay reachable, and heap is measured after garbage collection.
+ * Run with: java -cp benchmarks.jar [-Dinventory.partStorage=columnar] benchmark.PartFootprint [parts]
+ */
+public final class PartFootprint {
+    private static final int BATCH_SIZE = 10_000;
+
+    private PartFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int parts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Inventory.getAllParts(); // initialize inventory and its indexes before taking baseline
+        long before = usedHeap();
+        Random random = new Random(42);
+        List<Part> batch = new ArrayList<>(BATCH_SIZE);
+        for(int i = 0; i < parts; i++) {
+            batch.add(Catalog.part(random, Inventory.generatePartId()));
+            if(batch.size() == BATCH_SIZE || i == parts - 1) {
+                Inventory.getAllParts().addAll(batch);
+                batch.clear();
+            }
+        }
+        long after = usedHeap();
+        System.out.printf("storage=%s parts=%d heap=%d bytes (%.1f bytes/part)%n", Inventory.isColumnarStorage() ? "columnar" : "object", parts, after - before, (after - before) / (double) parts);
+        if(Inventory.isColumnarStorage()) {
+            System.out.printf("estimated columnar storage=%.1f bytes/part%n", Inventory.estimatePartStorageBytes() / (double) parts);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
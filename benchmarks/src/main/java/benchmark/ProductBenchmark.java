@@ -0,0 +1,74 @@
+package benchmark;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Inventory;
+import model.Part;
+import model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks adding and deleting associated parts on a product with a varying number of associated parts, drawn from catalogs of 1k to 10M parts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class ProductBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int catalogSize;
+
+    @Param({"10", "1000", "100000"})
+    private int associatedParts;
+
+    private Random random;
+    private Product product;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() {
+        Catalog.load(catalogSize, 0, 0, 42);
+        random = new Random(7);
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        for(int i = 0; i < associatedParts; i++) {
+            parts.add(randomPart());
+        }
+        product = Catalog.product(random, Inventory.generateProductId(), parts);
+        Inventory.addProduct(product);
+    }
+
+    @Benchmark
+    public boolean addThenDeleteAssociatedPart() {
+        Part part = randomPart();
+        product.addAssociatedPart(part);
+        return product.deleteAssociatedPart(part);
+    }
+
+    @Benchmark
+    public boolean deleteThenAddAssociatedPart() {
+        ObservableList<Part> parts = product.getAllAssociatedParts();
+        Part part = parts.get(random.nextInt(parts.size()));
+        boolean deleted = product.deleteAssociatedPart(part);
+        product.addAssociatedPart(part); // keep associated part count constant
+        return deleted;
+    }
+
+    private Part randomPart() {
+        return Inventory.getAllParts().get(random.nextInt(catalogSize));
+    }
+}
@@ -0,0 +1,167 @@
+package benchmark;
+
+import model.Inventory;
+import server.InventoryServer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for the HTTP API. Starts an InventoryServer on loopback over a generated catalog, then sends requests from several client threads for a fixed time and reports requests per second and latency percentiles. Each client sends one request at a time over its own kept-alive connection: mostly part lookups by ID, with some product lookups, page reads and part edits.
+ * Clients write requests and parse responses on plain sockets, as load generators such as wrk do, so that the client takes as little CPU from the server as possible when both share a machine.
+ * Run with: java -cp benchmarks.jar benchmark.ServerLoadTest [clients] [seconds] [parts]
+ */
+public final class ServerLoadTest {
+    private static final int MAX_SAMPLES = 1 << 16; // latencies kept per client for percentiles; later requests are counted but not sampled
+
+    private ServerLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int parts = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        Catalog.load(parts, parts / 10, 5, 42);
+        int firstPartId = Inventory.getAllParts().get(0).getId();
+        int firstProductId = Inventory.getAllProducts().get(0).getId();
+        try(InventoryServer server = InventoryServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+            run(address, clients, 2, firstPartId, parts, firstProductId, new long[clients][]); // warm up
+            long[][] latencies = new long[clients][];
+            long start = System.nanoTime();
+            long requests = run(address, clients, seconds, firstPartId, parts, firstProductId, latencies);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("clients=%d parts=%d requests=%d throughput=%.0f req/s p50=%.2f ms p99=%.2f ms p99.9=%.2f ms%n", clients, parts, requests, requests / elapsed, percentile(all, 0.5), percentile(all, 0.99), percentile(all, 0.999));
+        }
+    }
+
+    /**
+     * Sends requests from clients threads until seconds have passed.
+     * @param latencies receives latencies of each client, in nanoseconds
+     * @return number of requests answered
+     */
+    private static long run(InetSocketAddress address, int clients, int seconds, int firstPartId, int parts, int firstProductId, long[][] latencies) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong requests = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        Thread[] threads = new Thread[clients];
+        for(int c = 0; c < clients; c++) {
+            int clientIndex = c;
+            threads[c] = new Thread(() -> {
+                long[] samples = new long[MAX_SAMPLES];
+                int count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try(Socket socket = new Socket(address.getAddress(), address.getPort())) {
+                    socket.setTcpNoDelay(true);
+                    OutputStream out = socket.getOutputStream();
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    while(System.nanoTime() < deadline) {
+                        byte[] request = request(random, firstPartId, parts, firstProductId);
+                        long sent = System.nanoTime();
+                        out.write(request);
+                        if(readResponse(in) >= 400) {
+                            failures.incrementAndGet();
+                        }
+                        if(count < samples.length) {
+                            samples[count++] = System.nanoTime() - sent;
+                        }
+                        requests.incrementAndGet();
+                    }
+                }
+                catch (IOException e) {
+                    failures.incrementAndGet();
+                }
+                latencies[clientIndex] = Arrays.copyOf(samples, count);
+            }, "load-client-" + c);
+            threads[c].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        if(failures.get() > 0) {
+            System.out.println(failures.get() + " requests failed");
+        }
+        return requests.get();
+    }
+
+    /**
+     * @return 80% part lookups, 10% product lookups, 5% pages of 20 parts and 5% stock edits of a part
+     */
+    private static byte[] request(ThreadLocalRandom random, int firstPartId, int parts, int firstProductId) {
+        int roll = random.nextInt(100);
+        int partId = firstPartId + random.nextInt(parts);
+        String request;
+        if(roll < 80) {
+            request = "GET /parts/" + partId + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        }
+        else if(roll < 90) {
+            request = "GET /products/" + (firstProductId + random.nextInt(Math.max(1, parts / 10))) + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        }
+        else if(roll < 95) {
+            request = "GET /parts?offset=" + random.nextInt(parts) + "&limit=20 HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        }
+        else {
+            String body = "{\"type\":\"InHouse\",\"name\":\"Load Part " + partId + "\",\"price\":" + (1 + random.nextInt(100)) + ",\"stock\":" + random.nextInt(10) + ",\"min\":0,\"max\":10,\"machineId\":1}";
+            request = "PUT /parts/" + partId + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+        }
+        return request.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads one response, with a body of known length or in chunked encoding, and discards its body.
+     * @return status code
+     */
+    private static int readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.substring(9, 12));
+        long length = 0;
+        boolean chunked = false;
+        for(String header = readLine(in); !header.isEmpty(); header = readLine(in)) {
+            int colon = header.indexOf(':');
+            String name = header.substring(0, colon).trim();
+            if(name.equalsIgnoreCase("Content-Length")) {
+                length = Long.parseLong(header.substring(colon + 1).trim());
+            }
+            else if(name.equalsIgnoreCase("Transfer-Encoding")) {
+                chunked = header.substring(colon + 1).trim().equalsIgnoreCase("chunked");
+            }
+        }
+        if(!chunked) {
+            in.skipNBytes(length);
+            return status;
+        }
+        for(long chunk = Long.parseLong(readLine(in).trim(), 16); chunk > 0; chunk = Long.parseLong(readLine(in).trim(), 16)) {
+            in.skipNBytes(chunk);
+            readLine(in); // line break after chunk
+        }
+        readLine(in); // line break after last chunk
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for(int b = in.read(); b != '\n'; b = in.read()) {
+            if(b < 0) {
+                throw new IOException("Connection closed by server");
+            }
+            if(b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, (long) (sorted.length * fraction))] / 1e6;
+    }
+}
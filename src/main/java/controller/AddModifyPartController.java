@@ -1,21 +1,23 @@
 package controller;
 
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import model.InHouse;
 import model.Inventory;
 import model.Outsourced;
 import model.Part;
+import model.Validation;
 
 import java.io.IOException;
 
 /**
  * Controller for add/modify parts menu. Contains logic for all elements of add/modify parts menu.
  */
-public class AddModifyPartController {
+public class AddModifyPartController implements CachedController {
     @FXML
     private ToggleGroup PartSource;
     @FXML
@@ -40,8 +42,27 @@ public class AddModifyPartController {
     private TextField priceField;
     @FXML
     private Label addModifyPartLabel;
+    private static final LatencyHistogram saveTime = Metrics.histogram("AddModifyPart.save");
+    private int partVersion; // version of part being modified when form was filled in, so saving cannot overwrite changes made since
 
 
+    /**
+     * Clears form and selects In-House, as when adding a new part.
+     */
+    @Override
+    public void reset() {
+        idField.clear();
+        nameField.clear();
+        invField.clear();
+        priceField.clear();
+        maxField.clear();
+        minField.clear();
+        machineIdCompanyNameField.clear();
+        inHouseToggle.setSelected(true);
+        partSourceModifier.setText("Machine ID");
+        addModifyPartLabel.setText("Add Part");
+    }
+
     /**
      * Saves data entered into form. Checks for missing/mismatched fields and checks logic for min, max, and inv fields. Uses different logic depending on whether part is being created for the first time or is being modified.
      * @param actionEvent save button clicked
@@ -73,17 +94,18 @@ public class AddModifyPartController {
                 generateErrorMessage(3);
             }
             String name = nameField.getText();
-            if (name.isBlank()) {
+            if (!Validation.isValidName(name)) {
                 generateErrorMessage(1);
             }
-            if ((max < min) || max < 0 || min < 0) {
+            if (!Validation.isValidMinMax(min, max)) {
                 generateErrorMessage(4);
             }
-            if (inventory < min || inventory > max) {
+            if (!Validation.isValidInv(inventory, min, max)) {
                 generateErrorMessage(6);
                 return;
             }
             // determine if part is being added or modified and generate new ID or get existing ID
+            long start = Metrics.start(); // saving is timed up to any error shown, not while it is on screen
             if (idField.getText().isBlank()) {  // add part button was clicked - determine which part type is being created and call appropriate constructor
                 int id = Inventory.generatePartId();
                 if (inHouseToggle.isSelected()) {
@@ -93,22 +115,26 @@ public class AddModifyPartController {
                     String companyName = machineIdCompanyNameField.getText();
                     Inventory.addPart(new Outsourced(id, name, price, inventory, min, max, companyName));
                 }
+                saveTime.recordSince(start);
             } else {  // modify part button was clicked - get data from part being modified, determine its index, and add data to text fields
-                ObservableList<Part> partsList = Inventory.getAllParts();
-                for (int i = 0; i < Inventory.getAllParts().size(); i++) { // determine index of part to be modified
-                    if (partsList.get(i).getId() == Integer.parseInt(idField.getText())) { // create new part and replace part being modified with it
-                        if (inHouseToggle.isSelected()) {
-                            int machineId = Integer.parseInt(machineIdCompanyNameField.getText());
-                            InHouse updatedPart = (new InHouse(Integer.parseInt(idField.getText()), name, price, inventory, min, max, machineId));
-                            Inventory.updatePart(i, updatedPart);
-                            break;
-                        } else {
-                            String companyName = machineIdCompanyNameField.getText();
-                            Outsourced updatedPart = (new Outsourced(Integer.parseInt(idField.getText()), name, price, inventory, min, max, companyName));
-                            Inventory.updatePart(i, updatedPart);
-                            break;
-                        }
+                int id = Integer.parseInt(idField.getText());
+                Part updatedPart; // create part holding new values, then edit part being modified in place, or replace it if its type changed
+                if (inHouseToggle.isSelected()) {
+                    int machineId = Integer.parseInt(machineIdCompanyNameField.getText());
+                    updatedPart = new InHouse(id, name, price, inventory, min, max, machineId);
+                } else {
+                    String companyName = machineIdCompanyNameField.getText();
+                    updatedPart = new Outsourced(id, name, price, inventory, min, max, companyName);
+                }
+                boolean saved = Inventory.compareAndUpdatePart(partVersion, updatedPart);
+                saveTime.recordSince(start);
+                if (!saved) { // part was changed or deleted since form was filled in
+                    if (Inventory.lookupPart(id) != null) {
+                        generateErrorMessage(8);
+                        modifyPart(id); // show latest values so changes can be made again
+                        return;
                     }
+                    generateErrorMessage(9);
                 }
             }
             Stage stage = MainMenuController.menuNavigator("MainMenu", actionEvent);
@@ -154,25 +180,27 @@ public class AddModifyPartController {
      * @param id id of part being modified.
      */
     public void modifyPart (int id) {
-        for(Part part : Inventory.getAllParts()) {
-            if(part.getId() == id) {
-                idField.setText(Integer.toString(id));
-                nameField.setText(part.getName());
-                invField.setText(Integer.toString(part.getStock()));
-                priceField.setText(Double.toString(part.getPrice()));
-                maxField.setText(Integer.toString(part.getMax()));
-                minField.setText(Integer.toString(part.getMin()));
-                addModifyPartLabel.setText("Modify Part");
-                if(part instanceof InHouse) {
-                    inHouseToggle.setSelected(true);
-                    machineIdCompanyNameField.setText(Integer.toString(((InHouse) part).getMachineId()));
-                }
-                else{
-                    outsourcedToggle.setSelected(true);
-                    partSourceModifier.setText("Company Name");
-                    machineIdCompanyNameField.setText(((Outsourced) part).getCompanyName());
-                }
-            }
+        partVersion = Inventory.getPartVersion(id); // read before values, so a change made while they are read is caught on save
+        Part part = Inventory.lookupPart(id);
+        if(part == null) {
+            return;
+        }
+        idField.setText(Integer.toString(id));
+        nameField.setText(part.getName());
+        invField.setText(Integer.toString(part.getStock()));
+        priceField.setText(Double.toString(part.getPrice()));
+        maxField.setText(Integer.toString(part.getMax()));
+        minField.setText(Integer.toString(part.getMin()));
+        addModifyPartLabel.setText("Modify Part");
+        if(part instanceof InHouse) {
+            inHouseToggle.setSelected(true);
+            partSourceModifier.setText("Machine ID");
+            machineIdCompanyNameField.setText(Integer.toString(((InHouse) part).getMachineId()));
+        }
+        else{
+            outsourcedToggle.setSelected(true);
+            partSourceModifier.setText("Company Name");
+            machineIdCompanyNameField.setText(((Outsourced) part).getCompanyName());
         }
     }
 
@@ -211,6 +239,14 @@ public class AddModifyPartController {
                 alert.setContentText("Please ensure that valid values are entered in all fields.");
                 alert.showAndWait();
                 break;
+            case 8:
+                alert.setContentText("Part was changed by someone else while it was being modified. Its latest values are now shown; please make your changes again.");
+                alert.showAndWait();
+                break;
+            case 9:
+                alert.setContentText("Part was deleted while it was being modified, so changes could not be saved.");
+                alert.showAndWait();
+                break;
         }
     }
 }
\ No newline at end of file
@@ -1,16 +1,21 @@
 package controller;
 
-import javafx.collections.FXCollections;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import metrics.TableRebindEvent;
+import model.AssociatedParts;
 import model.Inventory;
 import model.Part;
+import model.PartQuantity;
 import model.Product;
+import model.Validation;
 
 import java.io.IOException;
 import java.net.URL;
@@ -20,17 +25,19 @@ import java.util.ResourceBundle;
 /**
  * Controller for add/modify products menu. Contains logic for all elements of add/modify products menu.
  */
-public class AddModifyProductController implements Initializable {
+public class AddModifyProductController implements Initializable, CachedController {
     @FXML
-    private TableColumn<Part, Integer> bottomPartInventoryLevelCol;
+    private TableColumn<PartQuantity, Number> bottomPartInventoryLevelCol;
     @FXML
-    private TableColumn<Part, Integer> bottomPartIdCol;
+    private TableColumn<PartQuantity, Number> bottomPartIdCol;
     @FXML
-    private TableColumn<Part, String> bottomPartNameCol;
+    private TableColumn<PartQuantity, String> bottomPartNameCol;
     @FXML
-    private TableView<Part> bottomPartsTableView;
+    private TableView<PartQuantity> bottomPartsTableView;
     @FXML
-    private TableColumn<Part, Double> bottomPartPriceCol;
+    private TableColumn<PartQuantity, Number> bottomPartPriceCol;
+    @FXML
+    private TableColumn<PartQuantity, Number> bottomPartQuantityCol;
     @FXML
     private TextField idField;
     @FXML
@@ -46,18 +53,22 @@ public class AddModifyProductController implements Initializable {
     @FXML
     private TextField searchField;
     @FXML
-    private TableColumn<Part, Integer> topPartInventoryLevelCol;
+    private TableColumn<Part, Number> topPartInventoryLevelCol;
     @FXML
-    private TableColumn<Part, Integer> topPartIdCol;
+    private TableColumn<Part, Number> topPartIdCol;
     @FXML
     private TableColumn<Part, String> topPartNameCol;
     @FXML
     private TableView<Part> topPartsTableView;
     @FXML
-    private TableColumn<Part, Double> topPartPriceCol;
+    private TableColumn<Part, Number> topPartPriceCol;
     @FXML
     private Label addModifyProductLabel;
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    private AssociatedParts associatedParts = new AssociatedParts();
+    private static final LatencyHistogram saveTime = Metrics.histogram("AddModifyProduct.save");
+    private static final LatencyHistogram searchTime = Metrics.histogram("AddModifyProduct.partSearch");
+    private int productVersion; // version of product being modified when form was filled in, so saving cannot overwrite changes made since
+    private PagedList<Part> pagedParts; // created on first reset(), as initialize() may run before inventory is shown
 
 
     /**
@@ -67,17 +78,48 @@ public class AddModifyProductController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        topPartsTableView.setItems(Inventory.getAllParts());
-        topPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        topPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        topPartInventoryLevelCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        topPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        topPartIdCol.setCellValueFactory(cell -> cell.getValue().idProperty());
+        topPartNameCol.setCellValueFactory(cell -> cell.getValue().nameProperty());
+        topPartInventoryLevelCol.setCellValueFactory(cell -> cell.getValue().stockProperty());
+        topPartPriceCol.setCellValueFactory(cell -> cell.getValue().priceProperty());
+
+        showAssociatedParts();
+        bottomPartIdCol.setCellValueFactory(cell -> cell.getValue().getPart().idProperty());
+        bottomPartNameCol.setCellValueFactory(cell -> cell.getValue().getPart().nameProperty());
+        bottomPartInventoryLevelCol.setCellValueFactory(cell -> cell.getValue().getPart().stockProperty());
+        bottomPartPriceCol.setCellValueFactory(cell -> cell.getValue().getPart().priceProperty());
+        bottomPartQuantityCol.setCellValueFactory(cell -> new ReadOnlyIntegerWrapper(cell.getValue().getQuantity())); // a line is replaced when its quantity changes, so a fixed value is enough
+    }
+
+    /**
+     * Shows associated parts in bottom table view, one row for each part with the number of units of it needed, sorted through a paged view so clicking a column header does not reorder the parts themselves.
+     */
+    private void showAssociatedParts() {
+        new PagedList<>(associatedParts.lines()).attachTo(bottomPartsTableView);
+    }
 
-        bottomPartsTableView.setItems(associatedParts);
-        bottomPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        bottomPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        bottomPartInventoryLevelCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        bottomPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+    /**
+     * Clears form and search results, and shows all parts again with no associated parts, as when adding a new product.
+     */
+    @Override
+    public void reset() {
+        if(pagedParts == null) {
+            pagedParts = new PagedList<>(Inventory.getAllParts()); // sort a paged view so clicking a column header does not reorder inventory itself
+            pagedParts.attachTo(topPartsTableView);
+        }
+        topPartsTableView.setItems(pagedParts);
+        topPartsTableView.getSortOrder().clear();
+        topPartsTableView.getSelectionModel().clearSelection();
+        searchField.clear();
+        idField.clear();
+        nameField.clear();
+        invField.clear();
+        priceField.clear();
+        maxField.clear();
+        minField.clear();
+        associatedParts = new AssociatedParts();
+        showAssociatedParts();
+        addModifyProductLabel.setText("Add Product");
     }
 
     /**
@@ -110,28 +152,34 @@ public class AddModifyProductController implements Initializable {
                 generateErrorMessage(3);
             }
             String name = nameField.getText();
-            if (name.isBlank()) {
+            if (!Validation.isValidName(name)) {
                 generateErrorMessage(1);
             }
-            if ((max < min) || max < 0 || min < 0) {
+            if (!Validation.isValidMinMax(min, max)) {
                 generateErrorMessage(4);
             }
-            if (inv < min || inv > max) {
+            if (!Validation.isValidInv(inv, min, max)) {
                 generateErrorMessage(6);
                 return;
             }
             //determine if add or modify button was clicked and call addProduct or updateProduct accordingly
+            long start = Metrics.start();
             if (idField.getText().isBlank()) { // Add product button was clicked
                 int id = Inventory.generateProductId();
                 Inventory.addProduct(new Product(associatedParts, id, name, price, inv, min, max));
+                saveTime.recordSince(start);
             } else { // Modify product button was clicked
                 int id = Integer.parseInt(idField.getText());
-                ObservableList<Product> productsList = Inventory.getAllProducts();
-                for (int i = 0; i < productsList.size(); i++) {
-                    if (productsList.get(i).getId() == id) {
-                        Product updatedProduct = new Product(associatedParts, id, name, price, inv, min, max);
-                        Inventory.updateProduct(i, updatedProduct);
+                Product updatedProduct = new Product(associatedParts, id, name, price, inv, min, max);
+                boolean saved = Inventory.compareAndUpdateProduct(productVersion, updatedProduct); // edit in place, so only cells showing changed values are redrawn, unless product was changed or deleted since form was filled in
+                saveTime.recordSince(start);
+                if (!saved) {
+                    if (Inventory.lookupProduct(id) != null) {
+                        generateErrorMessage(8);
+                        modifyProduct(id); // show latest values so changes can be made again
+                        return;
                     }
+                    generateErrorMessage(9);
                 }
             }
             Stage stage = MainMenuController.menuNavigator("MainMenu", actionEvent);
@@ -153,7 +201,7 @@ public class AddModifyProductController implements Initializable {
     }
 
     /**
-     * Adds associated part to bottom table view.
+     * Adds one unit of selected part to bottom table view, raising its quantity if it is already associated.
      * @param actionEvent add button clicked
      * @throws IOException
      */
@@ -162,11 +210,11 @@ public class AddModifyProductController implements Initializable {
         if (topPartsTableView.getSelectionModel().getSelectedItem() == null) {
             return;
         }
-        associatedParts.add(topPartsTableView.getSelectionModel().getSelectedItem());
+        associatedParts.increment(topPartsTableView.getSelectionModel().getSelectedItem());
     }
 
     /**
-     * Removes associated part from bottom table view.
+     * Removes one unit of selected associated part from bottom table view, and its row once its quantity reaches zero.
      * @param actionEvent remove associated part button clicked
      * @throws IOException
      */
@@ -175,38 +223,35 @@ public class AddModifyProductController implements Initializable {
         if (bottomPartsTableView.getSelectionModel().getSelectedItem() == null) {
             return;
         }
-        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you would like to remove this associated part?");
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you would like to remove one unit of this associated part?");
         Optional<ButtonType> result = alert.showAndWait();
         if(result.isPresent() && result.get() == ButtonType.OK) {
-            associatedParts.remove(bottomPartsTableView.getSelectionModel().getSelectedItem());
+            associatedParts.remove(bottomPartsTableView.getSelectionModel().getSelectedItem().getPart());
         }
     }
 
     /**
-     * Pre-loads data into form for product being modified. I experienced a bug with this method when first implementing it. Initially, the associated parts list that was being used to modify the product was passed by reference when calling the getAllAssociatedParts() method. This meant that any changes made to the list were saved to the product even if the cancel button was clicked. I resolved this by creating a copy of the list returned from getAllAssociatedProducts() and only passing that copy of the list to the Product constructor after clicking the save button.
+     * Pre-loads data into form for product being modified. I experienced a bug with this method when first implementing it. Initially, the associated parts list that was being used to modify the product was passed by reference when calling the getAllAssociatedParts() method. This meant that any changes made to the list were saved to the product even if the cancel button was clicked. I resolved this by editing a fork of the list from editAssociatedParts(), which shares the product's parts without changing them. On save, the changes made to the fork are replayed onto the product's own list by Inventory.compareAndUpdateProduct().
      * @param id id of product being modified
      */
     public void modifyProduct(int id) {
-        for (Product product : Inventory.getAllProducts()) {
-            if (product.getId() == id) { // load data from existing product being modified into text fields and set table views
-                idField.setText(Integer.toString(id));
-                nameField.setText(product.getName());
-                invField.setText(Integer.toString(product.getStock()));
-                priceField.setText(Double.toString(product.getPrice()));
-                maxField.setText(Integer.toString(product.getMax()));
-                minField.setText(Integer.toString(product.getMin()));
-                associatedParts = FXCollections.observableArrayList(product.getAllAssociatedParts()); // make copy of list so that values are not modified until save is clicked
+        productVersion = Inventory.getProductVersion(id); // read before values, so a change made while they are read is caught on save
+        Product product = Inventory.lookupProduct(id);
+        if (product == null) {
+            return;
+        }
+        // load data from existing product being modified into text fields and set table views
+        idField.setText(Integer.toString(id));
+        nameField.setText(product.getName());
+        invField.setText(Integer.toString(product.getStock()));
+        priceField.setText(Double.toString(product.getPrice()));
+        maxField.setText(Integer.toString(product.getMax()));
+        minField.setText(Integer.toString(product.getMin()));
+        associatedParts = product.editAssociatedParts(); // copy of list sharing its parts, so values are not modified until save is clicked and saving replays only the changes made
 
-                bottomPartsTableView.setItems(associatedParts);
-                bottomPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-                bottomPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-                bottomPartInventoryLevelCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-                bottomPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        showAssociatedParts();
 
-                addModifyProductLabel.setText("Modify Product");
-                break;
-            }
-        }
+        addModifyProductLabel.setText("Modify Product");
     }
 
     /**
@@ -215,10 +260,14 @@ public class AddModifyProductController implements Initializable {
      */
     @FXML
     void onPartSearchTextTyped(ActionEvent actionEvent) {
+        long start = Metrics.start();
         String query = searchField.getText().toLowerCase(); // convert to lower case so search is not case-sensitive
         ObservableList<Part> searchResults = Inventory.lookupPart(query);
         if (searchResults.size() > 0) { // Match was found. Set TableView to show result.
+            TableRebindEvent event = new TableRebindEvent();
+            event.begin();
             topPartsTableView.setItems(searchResults);
+            event.complete(topPartsTableView.getId(), "search", searchResults.size());
         }
         else { // If no matching string was found, text entered may be an integer, so parseInt() is called to attempt to convert text from search field to integer.
             try {
@@ -238,6 +287,7 @@ public class AddModifyProductController implements Initializable {
                 alert.show();
             }
         }
+        searchTime.recordSince(start);
     }
 
     /**
@@ -275,6 +325,14 @@ public class AddModifyProductController implements Initializable {
                 alert.setContentText("Please ensure that valid values are entered in all fields.");
                 alert.showAndWait();
                 break;
+            case 8:
+                alert.setContentText("Product was changed by someone else while it was being modified. Its latest values are now shown; please make your changes again.");
+                alert.showAndWait();
+                break;
+            case 9:
+                alert.setContentText("Product was deleted while it was being modified, so changes could not be saved.");
+                alert.showAndWait();
+                break;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package controller;
+
+/**
+ * Controller of a menu whose scene is kept by ViewCache and shown again on later navigation, rather than being loaded from FXML each time.
+ */
+interface CachedController {
+    /**
+     * Returns menu to the state it is in when first shown, clearing whatever was entered, selected or searched for the last time it was shown. Called on JavaFX application thread each time menu is about to be shown, including the first, so anything bound to inventory lists should be set up here rather than in initialize(), which may run on a background thread.
+     */
+    void reset();
+}
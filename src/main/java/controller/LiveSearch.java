@@ -0,0 +1,229 @@
+package controller;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Filters a table view as text is typed into its search field. Searches run on a background thread, and a search overtaken by a newer one is discarded.
+ * @param <T> type of item shown in table view
+ */
+class LiveSearch<T> {
+    /**
+     * Result of a search.
+     */
+    enum Outcome {
+        /** search field is blank, all items are shown */
+        ALL,
+        /** one or more names matched */
+        NAME_MATCH,
+        /** no names matched, but text was an ID of an item, which was selected */
+        ID_MATCH,
+        /** no names matched, and text was an integer that does not match any ID */
+        NO_ID_MATCH,
+        /** no names matched, and text was not an integer */
+        NO_NAME_MATCH
+    }
+
+    private static final Duration DEBOUNCE_DELAY = Duration.millis(200);
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-search");
+        thread.setDaemon(true); // do not keep application running after main window closes
+        return thread;
+    });
+
+    private final TextField searchField;
+    private final TableView<T> tableView;
+    private final PagedList<T> pagedItems;
+    private final Function<String, List<T>> nameSearch;
+    private final IntFunction<T> idSearch;
+    private final ToIntFunction<T> idOf;
+    private final LatencyHistogram searchTime;
+    private final Map<TableColumn<T, ?>, Function<Boolean, int[]>> presortedColumns = new HashMap<>(); // column -> IDs of all items sorted by it, descending if true
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE_DELAY);
+    private Future<?> pendingSearch;
+    private volatile long generation; // incremented for every search so stale searches can stop and their results be discarded; written on JavaFX application thread only
+
+
+    /**
+     * Sets table view to show paged view of items and starts listening for text typed into search field.
+     * @param searchField search field to listen to
+     * @param tableView table view to be filtered
+     * @param items all items that can be shown in table view
+     * @param nameSearch returns items whose name contains lower case query; called on a background thread
+     * @param idSearch returns item with specified ID, or null if no item has that ID
+     * @param idOf returns ID of an item
+     * @param searchTime histogram of the time from a search starting until table view shows its results
+     */
+    LiveSearch(TextField searchField, TableView<T> tableView, ObservableList<T> items, Function<String, List<T>> nameSearch, IntFunction<T> idSearch, ToIntFunction<T> idOf, LatencyHistogram searchTime) {
+        this.searchField = searchField;
+        this.tableView = tableView;
+        this.nameSearch = nameSearch;
+        this.idSearch = idSearch;
+        this.idOf = idOf;
+        this.searchTime = searchTime;
+        pagedItems = new PagedList<>(items, idOf);
+        pagedItems.attachTo(tableView); // sort view when column header is clicked rather than sorting inventory list
+
+        debounce.setOnFinished(event -> search(outcome -> {}));
+        searchField.textProperty().addListener((observable, oldText, newText) -> debounce.playFromStart());
+    }
+
+    /**
+     * Clears search field and shows all items again, unsorted and with nothing selected.
+     */
+    void reset() {
+        clearSearch();
+        pagedItems.setPredicate(null);
+        tableView.getSortOrder().clear();
+        tableView.getSelectionModel().clearSelection();
+        if(!tableView.getItems().isEmpty()) {
+            tableView.scrollTo(0);
+        }
+    }
+
+    /**
+     * Shows only the given items, such as the products that use a part, until the next search.
+     * @param items items to be shown
+     */
+    void showOnly(Collection<T> items) {
+        clearSearch();
+        Set<T> shown = new HashSet<>(items);
+        pagedItems.setPredicate(shown::contains);
+        tableView.getSelectionModel().clearSelection();
+    }
+
+    /**
+     * Sorts table view by column in the order read from an index of all items.
+     * @param column column whose order is known
+     * @param sortedIds returns IDs of all items in column order, descending if passed true, with items of equal value in ID order
+     */
+    void presort(TableColumn<T, ?> column, Function<Boolean, int[]> sortedIds) {
+        presortedColumns.put(column, sortedIds);
+        pagedItems.setPresorter(comparator -> {
+            if(tableView.getSortOrder().size() != 1) {
+                return null;
+            }
+            TableColumn<T, ?> sortColumn = tableView.getSortOrder().get(0);
+            Function<Boolean, int[]> ids = presortedColumns.get(sortColumn);
+            return ids == null ? null : ids.apply(sortColumn.getSortType() == TableColumn.SortType.DESCENDING);
+        });
+    }
+
+    private void clearSearch() {
+        searchField.clear();
+        debounce.stop(); // clearing field started it
+        generation++;
+        if(pendingSearch != null) {
+            pendingSearch.cancel(false); // a search already running stops once it sees generation has changed
+            pendingSearch = null;
+        }
+    }
+
+    /**
+     * Searches for text currently in search field without waiting for typing to pause. Used when "Enter" key is pressed.
+     * @param onComplete called on JavaFX application thread with result once table view has been updated, unless a newer search was started first
+     */
+    void searchNow(Consumer<Outcome> onComplete) {
+        debounce.stop();
+        search(onComplete);
+    }
+
+    private void search(Consumer<Outcome> onComplete) {
+        long start = Metrics.start();
+        String text = searchField.getText();
+        long searchGeneration = ++generation;
+        if(pendingSearch != null) {
+            pendingSearch.cancel(false); // a search already running stops once it sees generation has changed
+            pendingSearch = null;
+        }
+        if(text.isBlank()) {
+            pagedItems.setPredicate(null);
+            searchTime.recordSince(start);
+            onComplete.accept(Outcome.ALL);
+            return;
+        }
+        String query = text.toLowerCase(); // convert to lower case so search is not case-sensitive
+        PagedList.Snapshot snapshot = pagedItems.snapshot();
+        BooleanSupplier stale = () -> searchGeneration != generation;
+        pendingSearch = searchExecutor.submit(() -> {
+            try {
+                List<T> results = nameSearch.apply(query);
+                if(stale.getAsBoolean()) {
+                    return;
+                }
+                Set<Integer> matchIds = new HashSet<>(results.size() * 2); // parts stored in columns are views that are equal rather than identical to table items, so they are matched by ID
+                for(T item : results) {
+                    matchIds.add(idOf.applyAsInt(item));
+                }
+                int[] rows = snapshot.select(matchIds::contains, stale);
+                if(rows == null) {
+                    return;
+                }
+                Platform.runLater(() -> {
+                    if(searchGeneration == generation) {
+                        pendingSearch = null;
+                        Outcome outcome = show(text, matchIds, snapshot, rows);
+                        searchTime.recordSince(start);
+                        onComplete.accept(outcome);
+                    }
+                });
+            }
+            catch (RuntimeException | Error e) { // nothing waits on the future, so report failure rather than leave it there
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        });
+    }
+
+    /**
+     * Updates table view with search results. If no names matched, text may be an ID, in which case all items are shown and the item with that ID is selected.
+     * @param matchIds IDs of items whose names matched
+     * @param snapshot snapshot of paged view that rows were chosen from
+     * @param rows rows of paged view showing matching items
+     */
+    private Outcome show(String text, Set<Integer> matchIds, PagedList.Snapshot snapshot, int[] rows) {
+        Predicate<T> matches = item -> matchIds.contains(idOf.applyAsInt(item));
+        if(!matchIds.isEmpty()) {
+            pagedItems.setRows(snapshot, rows, matches);
+            return Outcome.NAME_MATCH;
+        }
+        try {
+            T item = idSearch.apply(Integer.parseInt(text));
+            if(item == null) {
+                pagedItems.setRows(snapshot, rows, matches);
+                return Outcome.NO_ID_MATCH;
+            }
+            pagedItems.setPredicate(null);
+            tableView.getSelectionModel().select(item);
+            tableView.scrollTo(item);
+            return Outcome.ID_MATCH;
+        }
+        catch (NumberFormatException exception) {
+            pagedItems.setRows(snapshot, rows, matches);
+            return Outcome.NO_NAME_MATCH;
+        }
+    }
+}
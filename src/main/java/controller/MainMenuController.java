@@ -1,24 +1,27 @@
 package controller;
 
 import javafx.application.Platform;
-import javafx.collections.ObservableList;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import model.Inventory;
 import model.Part;
 import model.Product;
+import persistence.CsvImporter;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -26,51 +29,85 @@ import java.util.ResourceBundle;
 /**
  * Controller for main menu. Contains logic for all elements of application's main menu.
  */
-public class MainMenuController implements Initializable {
+public class MainMenuController implements Initializable, CachedController {
     @FXML
-    private TableColumn<Part, Integer> partIdCol;
+    private TableColumn<Part, Number> partIdCol;
     @FXML
-    private TableColumn<Part, Integer> partInventoryLevelCol;
+    private TableColumn<Part, Number> partInventoryLevelCol;
     @FXML
     private TableColumn<Part, String> partNameCol;
     @FXML
-    private TableColumn<Part, Double> partPriceCol;
+    private TableColumn<Part, Number> partPriceCol;
     @FXML
     private TextField partsSearchField;
     @FXML
     private TableView<Part> partsTableView;
     @FXML
-    private TableColumn<Product, Integer> productIdCol;
+    private TableColumn<Product, Number> productIdCol;
     @FXML
-    private TableColumn<Product, Integer> productInventoryLevelCol;
+    private TableColumn<Product, Number> productInventoryLevelCol;
     @FXML
     private TableColumn<Product, String> productNameCol;
     @FXML
-    private TableColumn<Product, Double> productPriceCol;
+    private TableColumn<Product, Number> productPriceCol;
     @FXML
     private TextField productSearchField;
     @FXML
     private TableView<Product> productsTableView;
+    @FXML
+    private ButtonBar partsButtonBar;
+    @FXML
+    private ButtonBar productsButtonBar;
+    @FXML
+    private Button importButton;
+    private static final LatencyHistogram mainMenuTime = Metrics.histogram("menuNavigator.MainMenu");
+    private static final LatencyHistogram addPartTime = Metrics.histogram("menuNavigator.AddModifyPart");
+    private static final LatencyHistogram addProductTime = Metrics.histogram("menuNavigator.AddModifyProduct");
+    private static final LatencyHistogram modifyPartTime = Metrics.histogram("menuNavigator.AddModifyPart(id)");
+    private static final LatencyHistogram modifyProductTime = Metrics.histogram("menuNavigator.AddModifyProduct(id)");
+    private static final BooleanProperty importing = new SimpleBooleanProperty(false); // static so main menu stays disabled if it is reloaded while an import is running
+    private LiveSearch<Part> partSearch;
+    private LiveSearch<Product> productSearch;
 
 
     /**
-     * Sets up part and product table views.
+     * Sets up part and product table views. Table views show a filtered view of inventory that is updated as text is typed into the search fields.
      * @param url
      * @param resourceBundle
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) { // set inventory table views
-        partsTableView.setItems(Inventory.getAllParts());
-        partIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        partNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        partInventoryLevelCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        partPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        partSearch = new LiveSearch<>(partsSearchField, partsTableView, Inventory.getAllParts(), Inventory::lookupPart, Inventory::lookupPart, Part::getId, Metrics.histogram("MainMenu.partSearch"));
+        partIdCol.setCellValueFactory(cell -> cell.getValue().idProperty());
+        partNameCol.setCellValueFactory(cell -> cell.getValue().nameProperty());
+        partInventoryLevelCol.setCellValueFactory(cell -> cell.getValue().stockProperty());
+        partPriceCol.setCellValueFactory(cell -> cell.getValue().priceProperty());
+        partSearch.presort(partInventoryLevelCol, Inventory::getPartIdsByStock);
+        partSearch.presort(partPriceCol, Inventory::getPartIdsByPrice);
 
-        productsTableView.setItems(Inventory.getAllProducts());
-        productIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        productNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        productInventoryLevelCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        productPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        productSearch = new LiveSearch<>(productSearchField, productsTableView, Inventory.getAllProducts(), Inventory::lookupProduct, Inventory::lookupProduct, Product::getId, Metrics.histogram("MainMenu.productSearch"));
+        productIdCol.setCellValueFactory(cell -> cell.getValue().idProperty());
+        productNameCol.setCellValueFactory(cell -> cell.getValue().nameProperty());
+        productInventoryLevelCol.setCellValueFactory(cell -> cell.getValue().stockProperty());
+        productPriceCol.setCellValueFactory(cell -> cell.getValue().priceProperty());
+        productSearch.presort(productInventoryLevelCol, Inventory::getProductIdsByStock);
+        productSearch.presort(productPriceCol, Inventory::getProductIdsByPrice);
+
+        partsButtonBar.disableProperty().bind(Inventory.loadingProperty()); // inventory cannot be changed until saved inventory is loaded
+        productsButtonBar.disableProperty().bind(Inventory.loadingProperty());
+        importButton.disableProperty().bind(Inventory.loadingProperty().or(importing));
+    }
+
+    /**
+     * Clears search fields, selections and sort order of both table views, as when main menu is first shown. Redraws part rows when parts are stored in columns.
+     */
+    @Override
+    public void reset() {
+        partSearch.reset();
+        productSearch.reset();
+        if(Inventory.isColumnarStorage()) { // columnar parts are views with properties of their own, so rows may show views that did not see an edit
+            partsTableView.refresh();
+        }
     }
 
     /**
@@ -95,12 +132,15 @@ public class MainMenuController implements Initializable {
      * @throws IOException
      */
     public static Stage menuNavigator(String menuName, ActionEvent actionEvent) throws IOException {
-        Parent root = FXMLLoader.load(MainMenuController.class.getResource(resourceLocator(menuName)));
-        Stage stage = (Stage) ((Node)actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root);
-        stage.setScene(scene);
-        stage.show();
-        return stage;
+        long start = Metrics.start();
+        try {
+            Stage stage = (Stage) ((Node)actionEvent.getSource()).getScene().getWindow();
+            ViewCache.show(stage, menuName); // menu is parsed from FXML once, then reset and reused
+            return stage;
+        }
+        finally {
+            navigationTime(menuName, false).recordSince(start); // timed per menu shown
+        }
     }
 
     /**
@@ -112,22 +152,41 @@ public class MainMenuController implements Initializable {
      * @throws IOException
      */
     public static Stage menuNavigator(String menuName, ActionEvent actionEvent, int id) throws IOException {
-        FXMLLoader loader = new FXMLLoader(MainMenuController.class.getResource(resourceLocator(menuName)));
-        Parent root = loader.load();
-        // determine whether to pass data to modifyPart() or modifyProduct()
-        if(menuName.equals("AddModifyPart")) {
-            AddModifyPartController controller = loader.getController();
-            controller.modifyPart(id);
+        long start = Metrics.start();
+        try {
+            Stage stage = (Stage) ((Node)actionEvent.getSource()).getScene().getWindow();
+            ViewCache.show(stage, menuName, controller -> {
+                // determine whether to pass data to modifyPart() or modifyProduct()
+                if(menuName.equals("AddModifyPart")) {
+                    ((AddModifyPartController) controller).modifyPart(id);
+                }
+                else if(menuName.equals("AddModifyProduct")) {
+                    ((AddModifyProductController) controller).modifyProduct(id);
+                }
+            });
+            return stage;
         }
-        else if(menuName.equals("AddModifyProduct")) {
-            AddModifyProductController controller = loader.getController();
-            controller.modifyProduct(id);
+        finally {
+            navigationTime(menuName, true).recordSince(start);
+        }
+    }
+
+    /**
+     * @param menuName name of menu navigated to
+     * @param modify whether a part or product was passed to menu to be modified
+     * @return histogram of the time taken to show menu, held in a field for the menus of this program so navigating does not build its name and look it up
+     */
+    private static LatencyHistogram navigationTime(String menuName, boolean modify) {
+        switch(menuName) {
+            case "MainMenu":
+                return mainMenuTime;
+            case "AddModifyPart":
+                return modify ? modifyPartTime : addPartTime;
+            case "AddModifyProduct":
+                return modify ? modifyProductTime : addProductTime;
+            default:
+                return Metrics.histogram("menuNavigator." + menuName + (modify ? "(id)" : ""));
         }
-        Stage stage = (Stage) ((Node)actionEvent.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root);
-        stage.setScene(scene);
-        stage.show();
-        return stage;
     }
 
     /**
@@ -165,12 +224,39 @@ public class MainMenuController implements Initializable {
         if (partsTableView.getSelectionModel().getSelectedItem() == null) {
             return;
         }
+        if(Inventory.isPartUsed(partsTableView.getSelectionModel().getSelectedItem().getId())) { // determine if part is associated with a product
+            Alert alert = new Alert(Alert.AlertType.ERROR, "Part is used by one or more products and cannot be deleted. Click Where Used to show them.");
+            alert.showAndWait();
+            return;
+        }
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you would like to delete this part?");
         Optional<ButtonType> result = alert.showAndWait();
         if(result.isPresent() && result.get() == ButtonType.OK) {
             Part part = partsTableView.getSelectionModel().getSelectedItem();
-            Inventory.deletePart(part);
+            if(!Inventory.deletePart(part)) { // a product may have started using part while confirmation was shown
+                Alert failed = new Alert(Alert.AlertType.ERROR, "Part could not be deleted because it is used by a product.");
+                failed.showAndWait();
+            }
+        }
+    }
+
+    /**
+     * Called when where used button under parts table view is clicked. Shows only the products that use the selected part in products table view, until the next product search.
+     * @param actionEvent parts where used button clicked
+     */
+    @FXML
+    void onPartsWhereUsedButtonClick(ActionEvent actionEvent) {
+        if (partsTableView.getSelectionModel().getSelectedItem() == null) {
+            return;
+        }
+        Part part = partsTableView.getSelectionModel().getSelectedItem();
+        List<Product> products = Inventory.lookupProductsUsing(part.getId());
+        if(products.isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION, "No products use part " + part.getId() + ".");
+            alert.show();
+            return;
         }
+        productSearch.showOnly(products);
     }
 
     /**
@@ -221,6 +307,55 @@ public class MainMenuController implements Initializable {
         }
     }
 
+    /**
+     * Imports parts and products from a CSV file chosen by the user. Import runs on a background thread, and a summary is shown once it is complete.
+     * @param actionEvent import button clicked
+     */
+    @FXML
+    void onImportButtonClick(ActionEvent actionEvent) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Parts and Products");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        File file = chooser.showOpenDialog(((Node) actionEvent.getSource()).getScene().getWindow());
+        if(file == null) {
+            return;
+        }
+        importing.set(true);
+        Thread thread = new Thread(() -> {
+            try {
+                CsvImporter.Result result = new CsvImporter().importFrom(file.toPath());
+                Platform.runLater(() -> showImportResult(result));
+            }
+            catch (IOException | RuntimeException exception) {
+                Platform.runLater(() -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR, "File could not be imported: " + exception.getMessage());
+                    alert.showAndWait();
+                });
+            }
+            finally {
+                Platform.runLater(() -> importing.set(false));
+            }
+        }, "csv-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Shows number of parts and products imported, and the first lines that were skipped.
+     * @param result result of import
+     */
+    private static void showImportResult(CsvImporter.Result result) {
+        StringBuilder message = new StringBuilder("Imported " + result.getParts() + " parts and " + result.getProducts() + " products.");
+        if(result.getErrorCount() > 0) {
+            message.append("\n").append(result.getErrorCount()).append(" lines were skipped:");
+            for(String error : result.getErrors().subList(0, Math.min(10, result.getErrors().size()))) {
+                message.append("\n").append(error);
+            }
+        }
+        Alert alert = new Alert(result.getErrorCount() > 0 ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION, message.toString());
+        alert.showAndWait();
+    }
+
     /**
      * Exits program.
      * @param actionEvent exit button clicked
@@ -231,59 +366,38 @@ public class MainMenuController implements Initializable {
     }
 
     /**
-     * Implements part search logic when text is typed into part search field and "Enter" key is pressed.
+     * Implements part search logic when "Enter" key is pressed in part search field. Table view is already filtered as text is typed; this runs the search immediately and reports when no match is found.
      * @param actionEvent "Enter" key pressed
      */
     @FXML
     void onPartSearchTextTyped(ActionEvent actionEvent) {
-        String query = partsSearchField.getText().toLowerCase(); // convert to lower case so search is not case-sensitive
-        ObservableList<Part> searchResults = Inventory.lookupPart(query);
-        if (searchResults.size() > 0) { // Match was found. Set TableView to show result.
-            partsTableView.setItems(searchResults);
-            }
-        else { // If no matching string was found, text entered may be an integer, so parseInt() is called to attempt to convert text from search field to integer.
-            try {
-                Part searchPart = Inventory.lookupPart(Integer.parseInt(partsSearchField.getText()));
-                if(searchPart == null) { // Searched with integer but no matching partID found.
-                    Alert alert = new Alert(Alert.AlertType.INFORMATION, "No part with the specified Part ID found.");
-                    alert.showAndWait();
-                }
-                else  {
-                    partsTableView.getSelectionModel().select(searchPart); // select part row in table view
-                }
+        partSearch.searchNow(outcome -> {
+            if (outcome == LiveSearch.Outcome.NO_ID_MATCH) { // Searched with integer but no matching partID found.
+                Alert alert = new Alert(Alert.AlertType.INFORMATION, "No part with the specified Part ID found.");
+                alert.showAndWait();
             }
-            catch (NumberFormatException exception) { // Could not find matching string and text entered in search was not an integer.
+            else if (outcome == LiveSearch.Outcome.NO_NAME_MATCH) { // Could not find matching string and text entered in search was not an integer.
                 Alert alert = new Alert(Alert.AlertType.INFORMATION, "No part with the specified Part Name found.");
                 alert.showAndWait();
             }
-        }
+        });
     }
 
     /**
-     * Implements product search logic when text is typed into product search field and "Enter" key is pressed
+     * Implements product search logic when "Enter" key is pressed in product search field. Table view is already filtered as text is typed; this runs the search immediately and reports when no match is found.
      * @param actionEvent "Enter" key pressed
      */
     @FXML
     void onProductSearchTextTyped(ActionEvent actionEvent) {
-        String query = productSearchField.getText().toLowerCase(); // convert to lower case so search is not case-sensitive
-        ObservableList<Product> searchResults = Inventory.lookupProduct(query);
-        if (searchResults.size() > 0) { // Match was found. Set TableView to show result.
-            productsTableView.setItems(searchResults);
-        }
-        else { // If no matching string was found, text entered may be an integer, so parseInt() is called to attempt to convert text from search field to integer.
-            try {
-                Product searchProduct = Inventory.lookupProduct(Integer.parseInt(productSearchField.getText()));
-                if (searchProduct == null) { // Searched with integer but no matching partID found.
-                    Alert alert = new Alert(Alert.AlertType.INFORMATION, "No product with the specified Product ID found.");
-                    alert.showAndWait();
-                }
-                else { // Match was found. Set TableView to show result.
-                    productsTableView.getSelectionModel().select(searchProduct);
-                }
-            } catch (NumberFormatException e) { // Could not find matching string and text entered in search was not an integer.
+        productSearch.searchNow(outcome -> {
+            if (outcome == LiveSearch.Outcome.NO_ID_MATCH) { // Searched with integer but no matching productID found.
+                Alert alert = new Alert(Alert.AlertType.INFORMATION, "No product with the specified Product ID found.");
+                alert.showAndWait();
+            }
+            else if (outcome == LiveSearch.Outcome.NO_NAME_MATCH) { // Could not find matching string and text entered in search was not an integer.
                 Alert alert = new Alert(Alert.AlertType.INFORMATION, "No product with the specified Product Name found.");
                 alert.showAndWait();
             }
-        }
+        });
     }
 }
\ No newline at end of file
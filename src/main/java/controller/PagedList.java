@@ -0,0 +1,836 @@
+package controller;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.TransformationList;
+import javafx.scene.control.TableView;
+import metrics.TableRebindEvent;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Filtered, sorted view of an inventory list for table views. Rows are fetched from the source a page at a time, and only the most recently used pages are kept.
+ * Keeps the source index of each row while a predicate or comparator is set. Items edited in place keep their place until rows are next sorted.
+ * Must only be used on the thread that changes the source list.
+ * @param <T> type of item shown in table view
+ */
+final class PagedList<T> extends TransformationList<T, T> {
+    private static final int PAGE_SIZE = 128; // rows fetched from source at once
+    private static final int MAX_PAGES = 16; // pages kept in cache, enough for a maximized table view and a margin either side
+    private static final int RUN_SIZE = 1024; // items sorted together before runs are merged
+    private static final int INSERTS_PER_SORT = 64; // a change adding or updating more than one item in this many sorts rows again instead of inserting them
+
+    private final ObjectProperty<Comparator<? super T>> comparator = new SimpleObjectProperty<>(this, "comparator") {
+        @Override
+        protected void invalidated() {
+            rebuild("sort");
+        }
+    };
+    private Predicate<? super T> predicate;
+    private Function<Comparator<? super T>, int[]> presorter; // comparator -> IDs of all source items in its order, or null if it must be sorted by
+    private final ToIntFunction<T> idOf;
+    private int[] sourceIds; // ID of each source item once needed, or null; replaced rather than modified, as snapshots read it on other threads
+    private int[] rows; // source index of each row, or null while rows are source items in source order
+    private int[] rowOf; // row of each source index, or -1 if not shown; null until first needed after rows change
+    private int[] sorted; // source index of every source item in order of sortedBy, or null if not sorted yet
+    private Comparator<? super T> sortedBy;
+    private boolean sortedByIds; // whether sorted came from presorter, which puts items that compare equal in ID order rather than source order
+    private final Map<Integer, Object[]> pages = new LinkedHashMap<>(MAX_PAGES * 2, 0.75f, true) { // page number -> items of page, least recently used first
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[]> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private int currentPage = -1; // page of the last row fetched, so rows of the same page skip the cache lookup
+    private Object[] currentItems;
+    private String tableId; // fx:id of table view this list is attached to, for flight recorder events
+
+
+    /**
+     * @param source list of all items
+     */
+    PagedList(ObservableList<T> source) {
+        this(source, null);
+    }
+
+    /**
+     * @param source list of all items
+     * @param idOf returns ID of an item, needed for presorter and snapshots
+     */
+    PagedList(ObservableList<T> source, ToIntFunction<T> idOf) {
+        super(source);
+        this.idOf = idOf;
+    }
+
+    /**
+     * Shows this list in table view, which sorts it through its comparator.
+     * @param tableView table view to show items in
+     */
+    @SuppressWarnings("unchecked")
+    void attachTo(TableView<T> tableView) {
+        TableRebindEvent event = new TableRebindEvent();
+        event.begin();
+        tableId = tableView.getId();
+        comparator.bind(tableView.comparatorProperty());
+        tableView.setSortPolicy(table -> table.getItems() == this || TableView.DEFAULT_SORT_POLICY.call(table));
+        tableView.setItems(this);
+        event.complete(tableId, "attach", size());
+    }
+
+    /**
+     * @return comparator rows are sorted by, or null to keep source order
+     */
+    ObjectProperty<Comparator<? super T>> comparatorProperty() {
+        return comparator;
+    }
+
+    /**
+     * @param predicate items to be shown, or null to show all items
+     */
+    void setPredicate(Predicate<? super T> predicate) {
+        if(predicate == null && this.predicate == null) {
+            return;
+        }
+        this.predicate = predicate;
+        rebuild("filter");
+    }
+
+    /**
+     * Lets rows be put in order without sorting them when the order of all source items is already known for a comparator.
+     * @param presorter returns IDs of all source items in comparator order, or null to sort by comparator
+     */
+    void setPresorter(Function<Comparator<? super T>, int[]> presorter) {
+        sourceIds(); // fails now rather than on first sort if there is no ID function
+        this.presorter = presorter;
+    }
+
+    /**
+     * Captures the IDs of source items and the sort order, so rows for a new predicate can be chosen on another thread.
+     * @return snapshot of source and sort order as they are now
+     */
+    Snapshot snapshot() {
+        Comparator<? super T> comparator = this.comparator.get();
+        return new Snapshot(sourceIds(), comparator == null ? null : sortedOrder(comparator));
+    }
+
+    /**
+     * Filters by predicate as setPredicate() does, showing rows chosen from snapshot if it is still current.
+     * @param snapshot snapshot rows were chosen from
+     * @param selected rows chosen from snapshot for predicate
+     * @param predicate items to be shown
+     */
+    void setRows(Snapshot snapshot, int[] selected, Predicate<? super T> predicate) {
+        Comparator<? super T> comparator = this.comparator.get();
+        this.predicate = predicate;
+        boolean current = snapshot.ids == sourceIds && (comparator == null ? snapshot.order == null : snapshot.order == sorted && sortedBy == comparator);
+        if(!current) {
+            rebuild("filter");
+            return;
+        }
+        TableRebindEvent event = new TableRebindEvent();
+        event.begin();
+        replaceRows(selected);
+        event.complete(tableId, "filter", size());
+    }
+
+    @Override
+    public T get(int index) {
+        if(index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int page = index / PAGE_SIZE;
+        if(page != currentPage) { // fetch neighbouring pages too, so scrolling either way finds its next rows cached
+            if(page > 0) {
+                page(page - 1);
+            }
+            if((page + 1) * PAGE_SIZE < size()) {
+                page(page + 1);
+            }
+            currentItems = page(page);
+            currentPage = page;
+        }
+        @SuppressWarnings("unchecked")
+        T item = (T) currentItems[index % PAGE_SIZE];
+        return item;
+    }
+
+    @Override
+    public int size() {
+        return rows == null ? getSource().size() : rows.length;
+    }
+
+    /**
+     * Finds item through source list.
+     */
+    @Override
+    public int indexOf(Object item) {
+        int sourceIndex = getSource().indexOf(item);
+        return sourceIndex < 0 ? -1 : getViewIndex(sourceIndex);
+    }
+
+    @Override
+    public boolean contains(Object item) {
+        return indexOf(item) >= 0;
+    }
+
+    @Override
+    public int getSourceIndex(int index) {
+        return rows == null ? index : rows[index];
+    }
+
+    @Override
+    public int getViewIndex(int index) {
+        if(rows == null) {
+            return index;
+        }
+        if(rowOf == null) {
+            int[] inverse = new int[getSource().size()];
+            Arrays.fill(inverse, -1);
+            for(int row = 0; row < rows.length; row++) {
+                inverse[rows[row]] = row;
+            }
+            rowOf = inverse;
+        }
+        return index >= 0 && index < rowOf.length ? rowOf[index] : -1;
+    }
+
+    @Override
+    protected void sourceChanged(ListChangeListener.Change<? extends T> change) {
+        clearPages();
+        if(rows == null && sourceIds == null) {
+            forward(change);
+            return;
+        }
+        int[] oldRows = rows;
+        int[] moved = moved(change);
+        List<T> gone = new ArrayList<>(); // items removed from source, indexed by negative entries of moved
+        BitSet changed = new BitSet(); // new source indexes of items added or updated
+        boolean permutated = false;
+        change.reset();
+        while(change.next()) {
+            if(change.wasPermutated()) {
+                permutated = true;
+            }
+            else {
+                gone.addAll(change.getRemoved());
+                changed.set(change.getFrom(), change.getTo());
+            }
+        }
+        if(sourceIds != null) {
+            sourceIds = movedIds(moved, changed);
+        }
+        if(oldRows == null) {
+            change.reset();
+            forward(change);
+            return;
+        }
+        TableRebindEvent event = new TableRebindEvent();
+        event.begin();
+        int[] newRows = null;
+        if(permutated) { // items that compare equal are in source order, which has changed
+            sorted = null;
+        }
+        else {
+            resort(moved, changed);
+            newRows = updateRows(oldRows, moved, changed);
+        }
+        rows = newRows != null ? newRows : select(predicate, comparator.get());
+        rowOf = null;
+        fireDifference(oldRows.length, row -> {
+            int to = moved[oldRows[row]];
+            return to >= 0 && !changed.get(to) ? to : -1;
+        }, row -> {
+            int to = moved[oldRows[row]];
+            return to >= 0 ? getSource().get(to) : gone.get(-to - 1);
+        });
+        event.complete(tableId, "inventory change", size());
+    }
+
+    /**
+     * Passes a change to the source on unchanged, as rows are source items in source order.
+     */
+    private void forward(ListChangeListener.Change<? extends T> change) {
+        beginChange();
+        while(change.next()) {
+            if(change.wasPermutated()) {
+                int[] permutation = new int[change.getTo() - change.getFrom()];
+                for(int i = change.getFrom(); i < change.getTo(); i++) {
+                    permutation[i - change.getFrom()] = change.getPermutation(i);
+                }
+                nextPermutation(change.getFrom(), change.getTo(), permutation);
+            }
+            else if(change.wasUpdated()) {
+                for(int i = change.getFrom(); i < change.getTo(); i++) {
+                    nextUpdate(i);
+                }
+            }
+            else if(change.wasReplaced()) {
+                nextReplace(change.getFrom(), change.getTo(), change.getRemoved());
+            }
+            else if(change.wasRemoved()) {
+                nextRemove(change.getFrom(), change.getRemoved());
+            }
+            else {
+                nextAdd(change.getFrom(), change.getTo());
+            }
+        }
+        endChange();
+    }
+
+    /**
+     * Works out where each item of the source before change is after it.
+     * @return new source index of each old source index, or -(k + 1) for the kth item removed
+     */
+    private int[] moved(ListChangeListener.Change<? extends T> change) {
+        int oldSize = getSource().size();
+        change.reset();
+        while(change.next()) {
+            oldSize += change.getRemovedSize() - change.getAddedSize();
+        }
+        int[] moved = new int[oldSize];
+        int next = 0; // first old index not yet mapped
+        int shift = 0;
+        int removedCount = 0;
+        change.reset();
+        while(change.next()) {
+            int oldFrom = change.getFrom() - shift;
+            for(; next < oldFrom; next++) {
+                moved[next] = next + shift;
+            }
+            if(change.wasPermutated()) {
+                for(; next < change.getTo() - shift; next++) {
+                    moved[next] = change.getPermutation(next + shift);
+                }
+            }
+            else if(change.wasUpdated()) {
+                continue;
+            }
+            else {
+                for(int k = 0; k < change.getRemovedSize(); k++) {
+                    moved[next++] = -(++removedCount);
+                }
+                shift += change.getAddedSize() - change.getRemovedSize();
+            }
+        }
+        for(; next < oldSize; next++) {
+            moved[next] = next + shift;
+        }
+        return moved;
+    }
+
+    /**
+     * @param moved new source index of each old source index, as from moved()
+     * @param changed new source indexes of items added, updated or permuted
+     * @return ID of each source item after a change
+     */
+    private int[] movedIds(int[] moved, BitSet changed) {
+        List<? extends T> source = getSource();
+        int[] ids = new int[source.size()];
+        for(int i = 0; i < moved.length; i++) {
+            if(moved[i] >= 0) {
+                ids[moved[i]] = sourceIds[i];
+            }
+        }
+        for(int sourceIndex = changed.nextSetBit(0); sourceIndex >= 0; sourceIndex = changed.nextSetBit(sourceIndex + 1)) {
+            ids[sourceIndex] = idOf.applyAsInt(source.get(sourceIndex));
+        }
+        return ids;
+    }
+
+    /**
+     * @return ID of each source item, fetched from the source the first time
+     */
+    private int[] sourceIds() {
+        if(idOf == null) {
+            throw new IllegalStateException("No ID function set");
+        }
+        if(sourceIds == null) {
+            List<? extends T> source = getSource();
+            int[] ids = new int[source.size()];
+            for(int i = 0; i < ids.length; i++) {
+                ids[i] = idOf.applyAsInt(source.get(i));
+            }
+            sourceIds = ids;
+        }
+        return sourceIds;
+    }
+
+    /**
+     * Rebuilds rows after predicate or comparator changed.
+     * @param reason "filter" or "sort", for flight recorder events
+     */
+    private void rebuild(String reason) {
+        if(rows == null && predicate == null && comparator.get() == null) { // still showing source as it is
+            return;
+        }
+        TableRebindEvent event = new TableRebindEvent();
+        event.begin();
+        replaceRows(select(predicate, comparator.get()));
+        event.complete(tableId, reason, size());
+    }
+
+    /**
+     * Shows new rows of the same source items, reporting the rows that differ.
+     * @param newRows source index of each row, or null to show source items in source order
+     */
+    private void replaceRows(int[] newRows) {
+        int[] oldRows = rows;
+        int oldSize = size();
+        clearPages();
+        rows = newRows;
+        rowOf = null;
+        IntUnaryOperator oldRow = oldRows == null ? row -> row : row -> oldRows[row];
+        fireDifference(oldSize, oldRow, row -> getSource().get(oldRow.applyAsInt(row)));
+    }
+
+    /**
+     * Reports change from old rows to current rows as a single replacement, leaving out unchanged rows at the start and end.
+     * @param oldSize number of rows before change
+     * @param oldRow returns current source index of the item an old row showed, or -1 if it was removed from the source or changed
+     * @param oldItem returns item an old row showed
+     */
+    private void fireDifference(int oldSize, IntUnaryOperator oldRow, IntFunction<T> oldItem) {
+        int newSize = size();
+        int limit = Math.min(oldSize, newSize);
+        int start = 0;
+        while(start < limit && oldRow.applyAsInt(start) >= 0 && oldRow.applyAsInt(start) == getSourceIndex(start)) {
+            start++;
+        }
+        int end = 0; // rows unchanged at the end
+        while(end < limit - start && oldRow.applyAsInt(oldSize - 1 - end) >= 0 && oldRow.applyAsInt(oldSize - 1 - end) == getSourceIndex(newSize - 1 - end)) {
+            end++;
+        }
+        if(start + end == oldSize && start + end == newSize) {
+            return;
+        }
+        int from = start;
+        int removedSize = oldSize - end - from;
+        fireChange(new Replacement(from, newSize - end, new AbstractList<>() {
+            @Override
+            public T get(int index) {
+                if(index < 0 || index >= removedSize) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return oldItem.apply(from + index);
+            }
+
+            @Override
+            public int size() {
+                return removedSize;
+            }
+        }));
+    }
+
+    /**
+     * @return source index of each row matching predicate, sorted by comparator, or null if both are null
+     */
+    private int[] select(Predicate<? super T> predicate, Comparator<? super T> comparator) {
+        if(comparator == null) {
+            sorted = null;
+        }
+        if(predicate == null && comparator == null) {
+            return null;
+        }
+        List<? extends T> source = getSource();
+        int[] order = comparator == null ? null : sortedOrder(comparator);
+        if(predicate == null) {
+            return order;
+        }
+        int size = order == null ? source.size() : order.length;
+        int[] selected = new int[size];
+        int count = 0;
+        for(int i = 0; i < size; i++) {
+            int sourceIndex = order == null ? i : order[i];
+            if(predicate.test(source.get(sourceIndex))) {
+                selected[count++] = sourceIndex;
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * @return source index of every source item in comparator order, which must not be modified
+     */
+    private int[] sortedOrder(Comparator<? super T> comparator) {
+        if(sorted != null && sortedBy == comparator) {
+            return sorted;
+        }
+        int[] ids = presorter == null ? null : presorter.apply(comparator);
+        int[] order = ids == null ? null : presorted(ids);
+        sortedByIds = order != null;
+        if(order == null) {
+            order = sortSource(comparator);
+        }
+        sorted = order;
+        sortedBy = comparator;
+        return order;
+    }
+
+    /**
+     * Keeps sorted order in step with a change to the source that did not permute it.
+     * @param moved new source index of each old source index, as from moved()
+     * @param changed new source indexes of items added or updated
+     */
+    private void resort(int[] moved, BitSet changed) {
+        if(sorted == null) {
+            return;
+        }
+        List<? extends T> source = getSource();
+        int size = source.size();
+        int inserts = changed.cardinality();
+        if((long) inserts * INSERTS_PER_SORT > size) {
+            sorted = null;
+            return;
+        }
+        int[] order = new int[size];
+        int count = 0;
+        for(int sourceIndex : sorted) {
+            int to = moved[sourceIndex];
+            if(to >= 0 && !changed.get(to)) {
+                order[count++] = to;
+            }
+        }
+        for(int sourceIndex = changed.nextSetBit(0); sourceIndex >= 0; sourceIndex = changed.nextSetBit(sourceIndex + 1)) {
+            int position = sortedPosition(order, count, sourceIndex, source.get(sourceIndex));
+            System.arraycopy(order, position, order, position + 1, count - position);
+            order[position] = sourceIndex;
+            count++;
+        }
+        sorted = count == size ? order : null;
+    }
+
+    /**
+     * Works out rows after a change to the source that did not permute it, testing predicate only against items added or updated.
+     * @param oldRows rows before change
+     * @param moved new source index of each old source index, as from moved()
+     * @param changed new source indexes of items added or updated
+     * @return new rows, or null if rows must be selected again
+     */
+    private int[] updateRows(int[] oldRows, int[] moved, BitSet changed) {
+        boolean sorting = comparator.get() != null;
+        if(sorting && sorted == null) { // too many changes to insert one by one
+            return null;
+        }
+        if(predicate == null) {
+            return sorting ? sorted : null;
+        }
+        List<? extends T> source = getSource();
+        int inserts = changed.cardinality();
+        if((long) inserts * INSERTS_PER_SORT > source.size()) {
+            return null;
+        }
+        int[] updated = new int[oldRows.length + inserts];
+        int count = 0;
+        for(int sourceIndex : oldRows) {
+            int to = moved[sourceIndex];
+            if(to >= 0 && !changed.get(to)) {
+                updated[count++] = to;
+            }
+        }
+        for(int sourceIndex = changed.nextSetBit(0); sourceIndex >= 0; sourceIndex = changed.nextSetBit(sourceIndex + 1)) {
+            T item = source.get(sourceIndex);
+            if(predicate.test(item)) {
+                int position = sorting ? sortedPosition(updated, count, sourceIndex, item) : -Arrays.binarySearch(updated, 0, count, sourceIndex) - 1;
+                System.arraycopy(updated, position, updated, position + 1, count - position);
+                updated[position] = sourceIndex;
+                count++;
+            }
+        }
+        return Arrays.copyOf(updated, count);
+    }
+
+    /**
+     * Finds where item belongs among source indexes in order of sortedBy by binary search.
+     * @param order source indexes in order of sortedBy
+     * @param count number of source indexes in order
+     * @param sourceIndex source index of item
+     * @param item item to be placed
+     * @return position item belongs at
+     */
+    private int sortedPosition(int[] order, int count, int sourceIndex, T item) {
+        List<? extends T> source = getSource();
+        int low = 0;
+        int high = count;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            T other = source.get(order[middle]);
+            int compared = sortedBy.compare(item, other);
+            if(compared == 0) {
+                compared = sortedByIds ? Integer.compare(idOf.applyAsInt(item), idOf.applyAsInt(other)) : Integer.compare(sourceIndex, order[middle]);
+            }
+            if(compared < 0) {
+                high = middle;
+            }
+            else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param ids IDs of all source items in sorted order
+     * @return source index of each source item, in order of ids, or null if source items could not all be matched to ids
+     */
+    private int[] presorted(int[] ids) {
+        int size = getSource().size();
+        if(ids.length != size) {
+            return null;
+        }
+        int[] sourceIds = sourceIds();
+        int maxId = -1;
+        for(int i = 0; i < size; i++) {
+            if(sourceIds[i] < 0 || sourceIds[i] > 4 * size + 1024) { // too sparse to index by ID
+                return null;
+            }
+            maxId = Math.max(maxId, sourceIds[i]);
+        }
+        int[] positions = new int[maxId + 1];
+        Arrays.fill(positions, -1);
+        for(int i = 0; i < size; i++) {
+            positions[sourceIds[i]] = i;
+        }
+        int[] sorted = new int[size];
+        for(int k = 0; k < size; k++) {
+            int id = ids[k];
+            int position = id >= 0 && id <= maxId ? positions[id] : -1;
+            if(position < 0) {
+                return null;
+            }
+            positions[id] = -1; // each source item once
+            sorted[k] = position;
+        }
+        return sorted;
+    }
+
+    /**
+     * Stable merge sort of source indexes by comparator.
+     * @return source index of every source item, in sorted order
+     */
+    private int[] sortSource(Comparator<? super T> comparator) {
+        List<? extends T> source = getSource();
+        int count = source.size();
+        int[] order = new int[count];
+        Object[] run = new Object[Math.min(RUN_SIZE, count)];
+        for(int from = 0; from < count; from += RUN_SIZE) {
+            int length = Math.min(RUN_SIZE, count - from);
+            for(int i = 0; i < length; i++) {
+                run[i] = source.get(from + i);
+            }
+            int[] runOrder = sortRun(run, length, comparator);
+            for(int i = 0; i < length; i++) {
+                order[from + i] = from + runOrder[i];
+            }
+        }
+        int[] merged = new int[count];
+        for(int width = RUN_SIZE; width < count; width *= 2) {
+            for(int from = 0; from < count; from += 2 * width) {
+                int middle = Math.min(from + width, count);
+                int to = Math.min(from + 2 * width, count);
+                int left = from;
+                int right = middle;
+                int out = from;
+                if(right < to) {
+                    T leftItem = source.get(order[left]);
+                    T rightItem = source.get(order[right]);
+                    while(true) {
+                        if(comparator.compare(rightItem, leftItem) < 0) {
+                            merged[out++] = order[right++];
+                            if(right == to) {
+                                break;
+                            }
+                            rightItem = source.get(order[right]);
+                        }
+                        else {
+                            merged[out++] = order[left++];
+                            if(left == middle) {
+                                break;
+                            }
+                            leftItem = source.get(order[left]);
+                        }
+                    }
+                }
+                while(left < middle) {
+                    merged[out++] = order[left++];
+                }
+                while(right < to) {
+                    merged[out++] = order[right++];
+                }
+            }
+            int[] swap = order;
+            order = merged;
+            merged = swap;
+        }
+        return order;
+    }
+
+    /**
+     * Stable merge sort of positions of items held in an array.
+     * @return positions 0 to count - 1 of items, in sorted order
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int[] sortRun(Object[] items, int count, Comparator<? super T> comparator) {
+        int[] order = new int[count];
+        for(int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        int[] merged = new int[count];
+        for(int width = 1; width < count; width *= 2) {
+            for(int from = 0; from < count; from += 2 * width) {
+                int middle = Math.min(from + width, count);
+                int to = Math.min(from + 2 * width, count);
+                int left = from;
+                int right = middle;
+                int out = from;
+                while(left < middle && right < to) {
+                    merged[out++] = comparator.compare((T) items[order[right]], (T) items[order[left]]) < 0 ? order[right++] : order[left++];
+                }
+                while(left < middle) {
+                    merged[out++] = order[left++];
+                }
+                while(right < to) {
+                    merged[out++] = order[right++];
+                }
+            }
+            int[] swap = order;
+            order = merged;
+            merged = swap;
+        }
+        return order;
+    }
+
+    private void clearPages() {
+        pages.clear();
+        currentPage = -1;
+        currentItems = null;
+    }
+
+    /**
+     * @return items of page, fetched from source if page is not cached
+     */
+    private Object[] page(int page) {
+        Object[] items = pages.get(page);
+        if(items == null) {
+            int from = page * PAGE_SIZE;
+            items = new Object[Math.min(PAGE_SIZE, size() - from)];
+            for(int i = 0; i < items.length; i++) {
+                items[i] = getSource().get(getSourceIndex(from + i));
+            }
+            pages.put(page, items);
+        }
+        return items;
+    }
+
+    /**
+     * IDs of all source items and their sort order, as they stood when taken from a PagedList. Never changes, so may be read on any thread.
+     */
+    static final class Snapshot {
+        private static final int CHECK_INTERVAL = 4096; // items tested between checks for cancellation
+
+        private final int[] ids; // ID of each source item
+        private final int[] order; // source indexes in sorted order, or null for source order
+
+        private Snapshot(int[] ids, int[] order) {
+            this.ids = ids;
+            this.order = order;
+        }
+
+        /**
+         * Chooses the rows showing items whose ID matches, in the order they would be shown in.
+         * @param matches whether item with ID is to be shown
+         * @param cancelled checked every CHECK_INTERVAL items, stopping early once it returns true
+         * @return source index of each row, or null if cancelled
+         */
+        int[] select(IntPredicate matches, BooleanSupplier cancelled) {
+            int[] selected = new int[ids.length];
+            int count = 0;
+            for(int i = 0; i < ids.length; i++) {
+                if(i % CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                    return null;
+                }
+                int sourceIndex = order == null ? i : order[i];
+                if(matches.test(ids[sourceIndex])) {
+                    selected[count++] = sourceIndex;
+                }
+            }
+            return Arrays.copyOf(selected, count);
+        }
+    }
+
+    /**
+     * Replacement of a range of rows, reported without copying the rows it removed.
+     */
+    private final class Replacement extends ListChangeListener.Change<T> {
+        private final int from;
+        private final int to;
+        private final List<T> removed;
+        private boolean onChange;
+
+        private Replacement(int from, int to, List<T> removed) {
+            super(PagedList.this);
+            this.from = from;
+            this.to = to;
+            this.removed = removed;
+        }
+
+        @Override
+        public boolean next() {
+            if(onChange) {
+                return false;
+            }
+            onChange = true;
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            onChange = false;
+        }
+
+        @Override
+        public int getFrom() {
+            checkState();
+            return from;
+        }
+
+        @Override
+        public int getTo() {
+            checkState();
+            return to;
+        }
+
+        @Override
+        public List<T> getRemoved() {
+            checkState();
+            return removed;
+        }
+
+        @Override
+        protected int[] getPermutation() {
+            checkState();
+            return new int[0];
+        }
+
+        private void checkState() {
+            if(!onChange) {
+                throw new IllegalStateException("Invalid Change state: next() must be called before inspecting the Change.");
+            }
+        }
+    }
+}
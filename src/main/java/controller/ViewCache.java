@@ -0,0 +1,138 @@
+package controller;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import metrics.SceneLoadEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Cache of the application's menus. Each FXML document is parsed once, and its scene and controller are kept and shown again on later navigation, so switching menus does not re-read FXML, inject a new controller or bind new table views to inventory lists. Before a cached menu is shown its controller is reset, so it looks as if it had just been loaded.
+ * prewarm() loads the add/modify menus on a background thread while the main menu is in use, so even the first visit to them is quick.
+ * The time taken by each navigation is logged at DEBUG level by logger "controller.ViewCache", and recorded as a SceneLoadEvent when Java Flight Recorder is running. Setting system property inventory.viewCache to false loads every menu from FXML on each navigation instead, for comparison.
+ */
+public final class ViewCache {
+    /** system property that disables the cache when set to "false" */
+    public static final String CACHE_PROPERTY = "inventory.viewCache";
+    private static final String[] PREWARMED = {"AddModifyPart", "AddModifyProduct"};
+    private static final boolean enabled = !"false".equals(System.getProperty(CACHE_PROPERTY));
+    private static final System.Logger logger = System.getLogger(ViewCache.class.getName());
+    private static final Map<String, CompletableFuture<View>> views = new ConcurrentHashMap<>(); // menu name -> menu, possibly still being loaded by prewarm()
+    private static final ExecutorService prewarmExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "view-prewarm");
+        thread.setDaemon(true); // do not keep application running after main window closes
+        return thread;
+    });
+
+    private ViewCache() {
+    }
+
+    /**
+     * Starts loading menus that are not shown at startup on a background thread. Their FXML is parsed and their controllers initialized there, which is allowed because their nodes are not yet part of a showing scene; scenes are created on JavaFX application thread when menus are first shown.
+     */
+    public static void prewarm() {
+        if(!enabled) {
+            return;
+        }
+        for(String menuName : PREWARMED) {
+            views.computeIfAbsent(menuName, name -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return load(name, true);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, prewarmExecutor));
+        }
+    }
+
+    /**
+     * Shows menu in stage. Must be called on JavaFX application thread.
+     * @param stage stage to show menu in
+     * @param menuName name of menu to be shown
+     * @throws IOException if menu's FXML document cannot be loaded
+     */
+    public static void show(Stage stage, String menuName) throws IOException {
+        show(stage, menuName, controller -> {});
+    }
+
+    /**
+     * Shows menu in stage after resetting its controller and passing it to prepare, which can load data into the menu. Must be called on JavaFX application thread.
+     * @param stage stage to show menu in
+     * @param menuName name of menu to be shown
+     * @param prepare called with menu's controller before menu is shown
+     * @throws IOException if menu's FXML document cannot be loaded
+     */
+    @SuppressWarnings("unchecked")
+    static <C> void show(Stage stage, String menuName, Consumer<C> prepare) throws IOException {
+        long start = System.nanoTime();
+        SceneLoadEvent event = new SceneLoadEvent();
+        event.begin();
+        View view = view(menuName);
+        String source = view.scene != null ? "cached" : view.loadedAhead ? "prewarmed" : "loaded";
+        if(view.controller instanceof CachedController) {
+            ((CachedController) view.controller).reset();
+        }
+        prepare.accept((C) view.controller);
+        if(view.scene == null) {
+            view.scene = new Scene(view.root);
+        }
+        stage.setScene(view.scene);
+        stage.show();
+        event.complete(menuName, source);
+        logger.log(System.Logger.Level.DEBUG, "Showed {0} in {1} ms ({2})", menuName, String.format("%.2f", (System.nanoTime() - start) / 1e6), source);
+    }
+
+    /**
+     * @return cached menu, waiting for it if prewarm() is still loading it, or menu loaded on calling thread if it is not cached
+     */
+    private static View view(String menuName) throws IOException {
+        if(!enabled) {
+            return load(menuName, false);
+        }
+        CompletableFuture<View> cached = views.get(menuName);
+        if(cached != null) {
+            try {
+                return cached.join();
+            }
+            catch (CompletionException e) { // prewarming failed; load again here so the error is reported to the caller
+                views.remove(menuName, cached);
+            }
+        }
+        View view = load(menuName, false);
+        views.put(menuName, CompletableFuture.completedFuture(view));
+        return view;
+    }
+
+    private static View load(String menuName, boolean ahead) throws IOException {
+        FXMLLoader loader = new FXMLLoader(ViewCache.class.getResource(MainMenuController.resourceLocator(menuName)));
+        Parent root = loader.load();
+        return new View(root, loader.getController(), ahead);
+    }
+
+    /**
+     * Root node and controller of a loaded menu, and the scene it is shown in once it has been shown.
+     */
+    private static final class View {
+        private final Parent root;
+        private final Object controller;
+        private Scene scene; // created on JavaFX application thread when menu is first shown
+        private final boolean loadedAhead; // loaded by prewarm() rather than on navigation
+
+        private View(Parent root, Object controller, boolean loadedAhead) {
+            this.root = root;
+            this.controller = controller;
+            this.loadedAhead = loadedAhead;
+        }
+    }
+}
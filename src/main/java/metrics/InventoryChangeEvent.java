@@ -0,0 +1,54 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a change to inventory, from the call until the change has been applied. Its duration includes any time spent waiting for the JavaFX application thread and for other changes, so a recording shows which change held up the user interface and which callers were held up behind it.
+ */
+@Name("pknoche.inventory.Change")
+@Label("Inventory Change")
+@Category({"Inventory", "Changes"})
+@Description("Add, update, edit or delete of inventory items")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class InventoryChangeEvent extends Event {
+    @Label("Operation")
+    @Description("Inventory method called")
+    private String operation;
+
+    @Label("Item ID")
+    @Description("ID of item changed, or 0 for a batch")
+    private int itemId;
+
+    @Label("Items")
+    @Description("Number of items in change")
+    private int items;
+
+    @Label("Applied")
+    @Description("Whether inventory was changed")
+    private boolean applied;
+
+
+    /**
+     * Commits event if it is being recorded and took at least the threshold.
+     * @param operation inventory method called
+     * @param itemId ID of item changed, or 0 for a batch
+     * @param items number of items in change
+     * @param applied false if inventory was left unchanged, such as a delete of an item in use or an update of a stale version
+     */
+    public void complete(String operation, int itemId, int items, boolean applied) {
+        if(shouldCommit()) {
+            this.operation = operation;
+            this.itemId = itemId;
+            this.items = items;
+            this.applied = applied;
+            commit();
+        }
+    }
+}
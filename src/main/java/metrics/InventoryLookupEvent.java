@@ -0,0 +1,91 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a lookup or search of inventory, naming the method called, what it was asked for and how many items it found. Only lookups taking at least the threshold are recorded, as ID lookups are made for every row shown and every item changed; the threshold can be lowered in the recording's settings.
+ * Used as
+ * <pre>
+ * InventoryLookupEvent event = new InventoryLookupEvent();
+ * event.begin();
+ * ...
+ * event.complete("lookupPart", query, found.size());
+ * </pre>
+ * While nothing is being recorded, begin() and complete() do nothing and the event is not allocated once the caller is compiled, so lookups are not slowed.
+ */
+@Name("pknoche.inventory.Lookup")
+@Label("Inventory Lookup")
+@Category({"Inventory", "Lookups"})
+@Description("Lookup or search of inventory")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class InventoryLookupEvent extends Event {
+    @Label("Operation")
+    @Description("Inventory method called")
+    private String operation;
+
+    @Label("Query")
+    @Description("Name, ID or range searched for")
+    private String query;
+
+    @Label("Result Size")
+    @Description("Number of items found")
+    private int resultSize;
+
+
+    /**
+     * Commits event if it is being recorded and took at least the threshold.
+     * @param operation inventory method called
+     * @param query name searched for
+     * @param resultSize number of items found
+     */
+    public void complete(String operation, String query, int resultSize) {
+        if(shouldCommit()) {
+            this.operation = operation;
+            this.query = query;
+            this.resultSize = resultSize;
+            commit();
+        }
+    }
+
+    /**
+     * @param operation inventory method called
+     * @param argument ID or limit asked for, only turned into text when the event is committed
+     * @param resultSize number of items found
+     */
+    public void complete(String operation, long argument, int resultSize) {
+        if(shouldCommit()) {
+            complete(operation, Long.toString(argument), resultSize);
+        }
+    }
+
+    /**
+     * @param operation inventory method called
+     * @param min lower end of range searched
+     * @param max upper end of range searched
+     * @param resultSize number of items found
+     */
+    public void complete(String operation, long min, long max, int resultSize) {
+        if(shouldCommit()) {
+            complete(operation, min + ".." + max, resultSize);
+        }
+    }
+
+    /**
+     * @param operation inventory method called
+     * @param min lower end of range searched
+     * @param max upper end of range searched
+     * @param resultSize number of items found
+     */
+    public void complete(String operation, double min, double max, int resultSize) {
+        if(shouldCommit()) {
+            complete(operation, min + ".." + max, resultSize);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets, reporting values within about 1.6% of their true value.
+ * Recording is lock-free, and may run on any number of threads at once.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1); // buckets per power of two above the linear range
+    private static final int LINEAR = 1 << SUB_BUCKET_BITS; // values below this get a bucket each
+    private static final int MAX_EXPONENT = 40;
+    /** largest value tracked, about 18 minutes; larger values are counted as this */
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = LINEAR + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return name of operation timed
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records the time since start, as returned by Metrics.start(). Does nothing if start is 0.
+     * @param start time the operation started
+     */
+    public void recordSince(long start) {
+        if(start != 0) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param nanos latency to be recorded; negative values are counted as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while(value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * @return number of latencies recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return sum of latencies recorded, in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return largest latency recorded, in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param fraction fraction of latencies at or below the value returned, from 0 to 1, such as 0.99
+     * @return latency at fraction, in nanoseconds, as the middle of its bucket; 0 if nothing was recorded
+     */
+    public long getPercentile(double fraction) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if(total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if(seen >= rank) {
+                return Math.min((lowerBound(i) + lowerBound(i + 1) - 1) / 2, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears every count. Latencies recorded while the histogram is being reset may be kept or lost.
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Values below LINEAR have a bucket each; larger values share SUB_BUCKETS buckets per power of two.
+     */
+    static int bucket(long value) {
+        if(value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - (SUB_BUCKET_BITS - 1);
+        return LINEAR + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return smallest value counted in bucket, or one past MAX_VALUE for the bucket after the last
+     */
+    static long lowerBound(int bucket) {
+        if(bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = SUB_BUCKET_BITS + (bucket - LINEAR) / SUB_BUCKETS;
+        long mantissa = SUB_BUCKETS + (bucket - LINEAR) % SUB_BUCKETS;
+        return mantissa << (exponent - (SUB_BUCKET_BITS - 1));
+    }
+}
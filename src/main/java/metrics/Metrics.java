@@ -0,0 +1,199 @@
+package metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registry of latency histograms for timed operations, such as changes and lookups of inventory and menus shown. An operation is timed with
+ * <pre>
+ * long start = Metrics.start();
+ * try { ... } finally { histogram.recordSince(start); }
+ * </pre>
+ * Metrics are on unless the inventory.metrics system property is "false".
+ * Histograms can be read over JMX once install() has been called, or written in the Prometheus text format.
+ */
+public final class Metrics {
+    /** system property turning metrics off when "false" */
+    public static final String ENABLED_PROPERTY = "inventory.metrics";
+    /** system property naming a file that metrics are written to when the application exits */
+    public static final String FILE_PROPERTY = "inventory.metricsFile";
+    /** name of MXBean registered by install() */
+    public static final String OBJECT_NAME = "pknoche.inventory:type=Metrics";
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final ConcurrentSkipListMap<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>(); // operation name -> histogram, in name order
+    private static boolean installed;
+
+
+    private Metrics() {
+    }
+
+    /**
+     * @return true unless metrics were turned off with the inventory.metrics system property
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @param operation name of operation, such as "Inventory.addPart"
+     * @return histogram for operation, created the first time it is named
+     */
+    public static LatencyHistogram histogram(String operation) {
+        return histograms.computeIfAbsent(operation, LatencyHistogram::new);
+    }
+
+    /**
+     * @return current time in nanoseconds to be passed to LatencyHistogram.recordSince() when the operation ends, or 0 if metrics are off
+     */
+    public static long start() {
+        if(!ENABLED) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        return now != 0 ? now : 1; // 0 is reserved for metrics being off
+    }
+
+    /**
+     * @return every histogram, in order of operation name
+     */
+    public static List<LatencyHistogram> histograms() {
+        return new ArrayList<>(histograms.values());
+    }
+
+    /**
+     * Clears every histogram.
+     */
+    public static void reset() {
+        for(LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes every histogram in the Prometheus text format, as a summary of latencies in seconds and a gauge of the largest latency.
+     * @param out where metrics are written
+     * @throws IOException if out cannot be written
+     */
+    public static void writePrometheus(Appendable out) throws IOException {
+        List<LatencyHistogram> all = histograms();
+        out.append("# HELP inventory_operation_seconds Latency of inventory operations.\n");
+        out.append("# TYPE inventory_operation_seconds summary\n");
+        for(LatencyHistogram histogram : all) {
+            String label = "operation=\"" + escape(histogram.getName()) + "\"";
+            for(double quantile : QUANTILES) {
+                out.append("inventory_operation_seconds{").append(label).append(",quantile=\"").append(Double.toString(quantile)).append("\"} ").append(seconds(histogram.getPercentile(quantile))).append('\n');
+            }
+            out.append("inventory_operation_seconds_sum{").append(label).append("} ").append(seconds(histogram.getSum())).append('\n');
+            out.append("inventory_operation_seconds_count{").append(label).append("} ").append(Long.toString(histogram.getCount())).append('\n');
+        }
+        out.append("# HELP inventory_operation_max_seconds Largest latency of inventory operations.\n");
+        out.append("# TYPE inventory_operation_max_seconds gauge\n");
+        for(LatencyHistogram histogram : all) {
+            out.append("inventory_operation_max_seconds{operation=\"").append(escape(histogram.getName())).append("\"} ").append(seconds(histogram.getMax())).append('\n');
+        }
+    }
+
+    /**
+     * @return every histogram in the Prometheus text format
+     */
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        try {
+            writePrometheus(out);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e); // StringBuilder does not throw
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes every histogram to file in the Prometheus text format, replacing it.
+     * @param file file to be written
+     * @throws IOException if file cannot be written
+     */
+    public static void dump(Path file) throws IOException {
+        try(Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writePrometheus(out);
+        }
+    }
+
+    /**
+     * Registers the metrics MXBean, and writes metrics on exit to the file named by the inventory.metricsFile system property, if set. Calls after the first do nothing.
+     */
+    public static synchronized void install() {
+        if(installed) {
+            return;
+        }
+        installed = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName(OBJECT_NAME));
+        }
+        catch (InstanceAlreadyExistsException e) {
+            // registered by another copy of this class
+        }
+        catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+        String file = System.getProperty(FILE_PROPERTY);
+        if(file != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    dump(Path.of(file));
+                }
+                catch (IOException e) {
+                    System.err.println("Metrics could not be written to " + file + ": " + e.getMessage());
+                }
+            }, "inventory-metrics-dump"));
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Exposes histograms over JMX.
+     */
+    private static final class MetricsBean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return ENABLED;
+        }
+
+        @Override
+        public List<OperationStats> getOperations() {
+            List<OperationStats> operations = new ArrayList<>();
+            for(LatencyHistogram histogram : histograms.values()) {
+                operations.add(new OperationStats(histogram));
+            }
+            return operations;
+        }
+
+        @Override
+        public String getPrometheusText() {
+            return toPrometheus();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
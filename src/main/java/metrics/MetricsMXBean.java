@@ -0,0 +1,28 @@
+package metrics;
+
+import java.util.List;
+
+/**
+ * Management interface of inventory metrics, registered by Metrics.install().
+ */
+public interface MetricsMXBean {
+    /**
+     * @return false if metrics were turned off when the application started
+     */
+    boolean isEnabled();
+
+    /**
+     * @return call count and latencies of every timed operation, in order of name
+     */
+    List<OperationStats> getOperations();
+
+    /**
+     * @return every histogram in the Prometheus text format
+     */
+    String getPrometheusText();
+
+    /**
+     * Clears every histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,85 @@
+package metrics;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Call count and latencies of one timed operation at the time it was read, in milliseconds, as shown over JMX.
+ */
+public final class OperationStats {
+    private final String name;
+    private final long count;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final double maxMillis;
+
+
+    @ConstructorParameters({"name", "count", "meanMillis", "p50Millis", "p99Millis", "p999Millis", "maxMillis"})
+    public OperationStats(String name, long count, double meanMillis, double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+        this.name = name;
+        this.count = count;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.p999Millis = p999Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    OperationStats(LatencyHistogram histogram) {
+        this(histogram.getName(), histogram.getCount(), histogram.getCount() == 0 ? 0 : millis(histogram.getSum()) / histogram.getCount(), millis(histogram.getPercentile(0.5)), millis(histogram.getPercentile(0.99)), millis(histogram.getPercentile(0.999)), millis(histogram.getMax()));
+    }
+
+    /**
+     * @return name of operation
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of calls
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return mean latency
+     */
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    /**
+     * @return median latency
+     */
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    /**
+     * @return 99th percentile latency
+     */
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    /**
+     * @return 99.9th percentile latency
+     */
+    public double getP999Millis() {
+        return p999Millis;
+    }
+
+    /**
+     * @return largest latency
+     */
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
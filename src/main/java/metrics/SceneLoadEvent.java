@@ -0,0 +1,39 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for showing a menu, from looking up its view until its scene is set on the stage.
+ */
+@Name("pknoche.inventory.SceneLoad")
+@Label("Scene Load")
+@Category({"Inventory", "User Interface"})
+@Description("Menu shown by navigating between screens")
+@Threshold("0 ms")
+public final class SceneLoadEvent extends Event {
+    @Label("Menu")
+    private String menu;
+
+    @Label("Source")
+    @Description("Whether the menu was cached, loaded ahead in the background, or loaded from FXML on navigation")
+    private String source;
+
+
+    /**
+     * Commits event if it is being recorded and took at least the threshold.
+     * @param menu name of menu shown
+     * @param source "cached", "prewarmed" or "loaded"
+     */
+    public void complete(String menu, String source) {
+        if(shouldCommit()) {
+            this.menu = menu;
+            this.source = source;
+            commit();
+        }
+    }
+}
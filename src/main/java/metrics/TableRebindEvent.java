@@ -0,0 +1,45 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a table view being given new rows, as when it is bound to a list, filtered by a search or sorted by a column.
+ */
+@Name("pknoche.inventory.TableRebind")
+@Label("Table Rebind")
+@Category({"Inventory", "User Interface"})
+@Description("Rows of a table view replaced")
+@Threshold("0 ms")
+public final class TableRebindEvent extends Event {
+    @Label("Table")
+    @Description("fx:id of table view")
+    private String table;
+
+    @Label("Reason")
+    private String reason;
+
+    @Label("Rows")
+    @Description("Number of rows shown afterwards")
+    private int rows;
+
+
+    /**
+     * Commits event if it is being recorded and took at least the threshold.
+     * @param table fx:id of table view
+     * @param reason what replaced the rows, such as "filter", "sort" or "inventory change"
+     * @param rows number of rows shown afterwards
+     */
+    public void complete(String table, String reason, int rows) {
+        if(shouldCommit()) {
+            this.table = table;
+            this.reason = reason;
+            this.rows = rows;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Inventory list backed by an ArrayList, holding one object per element. Positions of elements are indexed by ID, so indexOf(), remove() and contains() do not scan the list.
+ */
+final class ArrayInventoryList<E> extends InventoryList<E> {
+    private final ArrayList<E> elements = new ArrayList<>();
+    private final Class<E> type;
+    private final ToIntFunction<? super E> idOf;
+    private final IntTable positions = new IntTable(); // element ID -> position of element, exact for the first indexed positions
+    private int indexed; // number of leading positions whose element is mapped to them in positions; shortened by inserts and removals before its end
+
+
+    /**
+     * @param type type of element, so other objects are turned away without being looked up
+     * @param idOf returns ID of an element, which should not change while the element is in the list
+     */
+    ArrayInventoryList(Class<E> type, ToIntFunction<? super E> idOf) {
+        this.type = type;
+        this.idOf = idOf;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * Finds position of element through the position recorded for its ID. Positions after an insert or removal in the middle of the list are mapped again as they are looked up, so a lookup costs no more than the shift of elements that made its position stale. Elements sharing an ID with another element, or whose ID changed, are found by scanning the list.
+     * Synchronized, as lookups made by readers on several threads at once map positions.
+     */
+    @Override
+    public synchronized int indexOf(Object object) {
+        if(!type.isInstance(object)) {
+            return -1;
+        }
+        E element = type.cast(object);
+        int position = positions.get(idOf.applyAsInt(element));
+        if(position >= 0 && position < elements.size() && element.equals(elements.get(position))) {
+            return position;
+        }
+        while(indexed < elements.size()) {
+            E next = elements.get(indexed);
+            positions.put(idOf.applyAsInt(next), indexed);
+            if(element.equals(next)) {
+                return indexed++;
+            }
+            indexed++;
+        }
+        return elements.indexOf(element);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return indexOf(object) >= 0;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> collection) {
+        elements.ensureCapacity(elements.size() + collection.size());
+        return super.addAll(collection);
+    }
+
+    @Override
+    void setContents(List<? extends E> contents) {
+        if(elements.isEmpty() && contents.isEmpty()) {
+            return;
+        }
+        List<E> removed = new ArrayList<>(elements);
+        beginChange();
+        try {
+            elements.clear();
+            elements.addAll(contents);
+            positions.clear();
+            indexed = 0;
+            modCount++;
+            nextReplace(0, elements.size(), removed);
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Removes range in one step rather than element by element from its start, so clearing a large list does not take quadratic time.
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if(fromIndex == toIndex) {
+            return;
+        }
+        List<E> range = elements.subList(fromIndex, toIndex);
+        List<E> removed = new ArrayList<>(range);
+        beginChange();
+        try {
+            range.clear();
+            for(E element : removed) {
+                positions.remove(idOf.applyAsInt(element));
+            }
+            indexed = Math.min(indexed, fromIndex);
+            modCount++;
+            nextRemove(fromIndex, removed);
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    @Override
+    protected void doAdd(int index, E element) {
+        elements.add(index, element);
+        if(index == indexed && index == elements.size() - 1) { // appended to a fully mapped list
+            positions.put(idOf.applyAsInt(element), index);
+            indexed++;
+        }
+        else {
+            indexed = Math.min(indexed, index);
+        }
+    }
+
+    @Override
+    protected E doSet(int index, E element) {
+        E old = elements.set(index, element);
+        positions.remove(idOf.applyAsInt(old));
+        positions.put(idOf.applyAsInt(element), index);
+        return old;
+    }
+
+    @Override
+    protected E doRemove(int index) {
+        E old = elements.remove(index);
+        positions.remove(idOf.applyAsInt(old));
+        indexed = Math.min(indexed, index);
+        return old;
+    }
+}
@@ -0,0 +1,491 @@
+package model;
+
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Observable list of the parts associated with a product, kept in an immutable PartVector so it can be copied for editing in constant time. A copy made by Product.editAssociatedParts() shares every part with the product until one of them is changed, and records the adds, removes and sets made to it, so saving it with Inventory.editProduct() replays only those changes on the product's own list and discarding it costs nothing.
+ * Each add, remove or set takes time in proportion to the logarithm of the number of lines rather than to the list's size.
+ * A part needed several times is listed once per unit, but stored once with its quantity, so memory and the cost of rolling up a product's parts grow with the number of distinct parts rather than with the number of units. increment() and remove(Object) add and take away one unit of a part, and lines() shows the list as a bill of materials, one PartQuantity per part.
+ * The units of each part are counted in a map built the first time they are asked about and kept up to date from then on, so contains(), quantityOf() and incrementing a part that is not listed yet take constant time. Finding the run of a part that is already listed still walks the runs, which stay few as a product has a handful of distinct parts.
+ */
+public final class AssociatedParts extends ObservableListBase<Part> {
+    private PartVector parts;
+    private PartVector forkedFrom; // parts of the list this was copied from, or null if it is not a copy or its changes can no longer be replayed
+    private List<Edit> edits; // changes made since copying, in order, or null if not a copy
+    private volatile Lines lines; // created when first asked for, possibly by readers on several threads
+    private volatile Map<Part, Integer> units; // units of each part listed, or null until first needed, as a copy does not count them up front
+
+
+    /**
+     * Creates empty list.
+     */
+    public AssociatedParts() {
+        parts = PartVector.EMPTY;
+    }
+
+    /**
+     * Creates list of parts, with every listing of a part moved up to its first listing, so that each part is one line of the bill of materials.
+     * @param parts parts to be listed
+     */
+    public AssociatedParts(Collection<? extends Part> parts) {
+        this.parts = PartVector.grouped(parts);
+    }
+
+    /**
+     * @return copy of this list sharing its parts, which records the changes made to it
+     */
+    AssociatedParts fork() {
+        AssociatedParts copy = new AssociatedParts();
+        copy.parts = parts;
+        copy.forkedFrom = parts;
+        copy.edits = new ArrayList<>();
+        return copy;
+    }
+
+    /**
+     * Changes this list to match edited, a copy of it, by replaying the changes made to edited since it was copied, as one change to listeners. Takes time in proportion to the square of the number of changes, and to the logarithm of the size of the list. Fails if this list changed after edited was copied from it, or edited was changed by more than its own size, when replacing every part is no slower.
+     * @param edited list copied from this one with fork()
+     * @return true if changes were replayed; false if this list is unchanged and must be replaced instead
+     */
+    boolean replay(AssociatedParts edited) {
+        if(edited.forkedFrom == null || edited.forkedFrom != parts) {
+            return false;
+        }
+        if(!edited.edits.isEmpty()) {
+            PartVector old = parts;
+            List<Segment> segments = new ArrayList<>();
+            segments.add(new Segment(0, old.size(), null));
+            for(Edit edit : edited.edits) {
+                switch(edit.kind) {
+                    case ADD:
+                        parts = parts.insert(edit.index, edit.part, edit.quantity);
+                        segments.add(split(segments, edit.index), new Segment(0, edit.quantity, edit.part));
+                        break;
+                    case REMOVE:
+                        parts = parts.remove(edit.index);
+                        split(segments, edit.index + 1);
+                        segments.remove(split(segments, edit.index));
+                        break;
+                    default:
+                        parts = parts.set(edit.index, edit.part);
+                        split(segments, edit.index + 1);
+                        segments.set(split(segments, edit.index), new Segment(0, 1, edit.part));
+                }
+            }
+            units = null;
+            fireDifference(old, segments);
+            if(lines != null) {
+                lines.replaced(old);
+            }
+        }
+        edited.forkedFrom = parts; // edited now matches this list, so later changes to it can be replayed in turn
+        edited.edits.clear();
+        return true;
+    }
+
+    /**
+     * Splits the segment holding index, if index falls inside it, so that a segment starts at index.
+     * @return position in segments of the segment starting at index, or segments.size() if index is the end of the list
+     */
+    private static int split(List<Segment> segments, int index) {
+        int start = 0;
+        for(int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            if(start == index) {
+                return i;
+            }
+            int length = segment.length();
+            if(index < start + length) {
+                segments.set(i, new Segment(segment.from, segment.from + index - start, segment.part));
+                segments.add(i + 1, new Segment(segment.from + index - start, segment.to, segment.part));
+                return i + 1;
+            }
+            start += length;
+        }
+        return segments.size();
+    }
+
+    /**
+     * Reports the difference between old and the parts now listed, described by segments, as one change whose sub-changes are in list order. Edits are replayed in the order they were made, but listeners are given the net difference, as a change may not report later edits at positions moved by earlier ones.
+     * @param segments the list now, as ranges of old in order and parts added between them
+     */
+    private void fireDifference(PartVector old, List<Segment> segments) {
+        List<Part> oldParts = old.asList();
+        beginChange();
+        int oldIndex = 0; // first part of old not yet reported as kept or removed
+        int index = 0; // position in list now
+        int added = 0; // parts added since the last kept range
+        for(Segment segment : segments) {
+            if(segment.part != null) {
+                added += segment.length();
+                continue;
+            }
+            if(segment.length() == 0) {
+                continue;
+            }
+            index = report(oldParts, oldIndex, segment.from, index, added);
+            added = 0;
+            index += segment.length();
+            oldIndex = segment.to;
+        }
+        report(oldParts, oldIndex, oldParts.size(), index, added);
+        endChange();
+    }
+
+    /**
+     * Reports parts of old from oldFrom to oldTo as replaced by added parts at index.
+     * @return position after the parts added
+     */
+    private int report(List<Part> oldParts, int oldFrom, int oldTo, int index, int added) {
+        if(oldFrom < oldTo) {
+            nextReplace(index, index + added, oldParts.subList(oldFrom, oldTo));
+        }
+        else if(added > 0) {
+            nextAdd(index, index + added);
+        }
+        return index + added;
+    }
+
+    @Override
+    public Part get(int index) {
+        return parts.get(index);
+    }
+
+    @Override
+    public int size() {
+        return parts.size();
+    }
+
+    @Override
+    public void add(int index, Part part) {
+        insert(index, part, 1);
+    }
+
+    /**
+     * Appends quantity listings of part as one change, in time that does not depend on quantity.
+     * @param part part to be added
+     * @param quantity number of units of part to be added, at least 1
+     */
+    public void add(Part part, int quantity) {
+        insert(parts.size(), part, quantity);
+    }
+
+    private void insert(int index, Part part, int quantity) {
+        if(quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1.");
+        }
+        PartVector old = parts;
+        parts = parts.insert(index, part, quantity);
+        count(part, quantity);
+        record(Edit.Kind.ADD, index, part, quantity);
+        beginChange();
+        nextAdd(index, index + quantity);
+        endChange();
+        if(lines != null) {
+            lines.edited(old, index);
+        }
+    }
+
+    @Override
+    public Part remove(int index) {
+        PartVector old = parts;
+        Part removed = parts.get(index);
+        parts = parts.remove(index);
+        count(removed, -1);
+        record(Edit.Kind.REMOVE, index, null, 1);
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+        if(lines != null) {
+            lines.edited(old, index);
+        }
+        return removed;
+    }
+
+    @Override
+    public Part set(int index, Part part) {
+        PartVector old = parts;
+        Part replaced = parts.get(index);
+        parts = parts.set(index, part);
+        count(replaced, -1);
+        count(part, 1);
+        record(Edit.Kind.SET, index, part, 1);
+        beginChange();
+        nextSet(index, replaced);
+        endChange();
+        if(lines != null) {
+            lines.edited(old, index);
+        }
+        return replaced;
+    }
+
+    /**
+     * Adds one unit of part, as a listing after the part's existing listings, or at the end of the list if it has none.
+     * @param part part to be added
+     */
+    public void increment(Part part) {
+        if(!units().containsKey(part)) { // no run to look for
+            add(parts.size(), part);
+            return;
+        }
+        int run = parts.findRun(part);
+        add(parts.runStart(run) + parts.runQuantity(run), part);
+    }
+
+    /**
+     * Removes one unit of part, the first listing of it.
+     * @return true if part was listed
+     */
+    @Override
+    public boolean remove(Object part) {
+        int index = indexOf(part);
+        if(index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object part) {
+        if(!units().containsKey(part)) {
+            return -1;
+        }
+        return parts.runStart(parts.findRun(part));
+    }
+
+    @Override
+    public boolean contains(Object part) {
+        return units().containsKey(part);
+    }
+
+    /**
+     * @return number of units of part listed
+     */
+    public int quantityOf(Part part) {
+        return units().getOrDefault(part, 0);
+    }
+
+    /**
+     * @return units of each part listed, counted from the runs the first time
+     */
+    private Map<Part, Integer> units() {
+        if(units == null) {
+            Map<Part, Integer> counted = new HashMap<>();
+            parts.forEachRun(0, parts.size(), (part, quantity) -> counted.merge(part, quantity, Integer::sum));
+            units = counted;
+        }
+        return units;
+    }
+
+    /**
+     * Adds quantity units of part to the count of units, if it has been made, dropping parts that are no longer listed.
+     */
+    private void count(Part part, int quantity) {
+        if(units != null) {
+            units.merge(part, quantity, (listed, added) -> listed + added == 0 ? null : listed + added);
+        }
+    }
+
+    /**
+     * @return read-only view of this list as a bill of materials, with one line for each run of listings of the same part, which follows changes to this list
+     */
+    public ObservableList<PartQuantity> lines() {
+        if(lines == null) {
+            lines = new Lines();
+        }
+        return lines;
+    }
+
+    int lineCount() {
+        return parts.runs();
+    }
+
+    Part linePart(int line) {
+        return parts.runPart(line);
+    }
+
+    int lineQuantity(int line) {
+        return parts.runQuantity(line);
+    }
+
+    /**
+     * Passes each part listed from from to to with the number of its listings in that range, taking time in proportion to the number of lines rather than listings.
+     */
+    void forEachLine(int from, int to, ObjIntConsumer<Part> action) {
+        parts.forEachRun(from, to, action);
+    }
+
+    /**
+     * Passes each part in parts, such as the parts removed by a change to this list, with the number of consecutive listings of it.
+     */
+    static void forEachLine(List<? extends Part> parts, ObjIntConsumer<Part> action) {
+        PartVector.forEachRun(parts, action);
+    }
+
+    /**
+     * Replaces every part as one change.
+     */
+    @Override
+    public boolean setAll(Collection<? extends Part> newParts) {
+        PartVector old = parts;
+        parts = newParts instanceof AssociatedParts ? ((AssociatedParts) newParts).parts : PartVector.of(newParts); // another list's vector is immutable, so it can be shared
+        forkedFrom = null; // a whole replacement is not replayed
+        edits = null;
+        units = null;
+        beginChange();
+        if(old.size() > 0) {
+            nextRemove(0, old.asList()); // old parts are immutable, so listeners can read them without a copy
+        }
+        if(parts.size() > 0) {
+            nextAdd(0, parts.size());
+        }
+        endChange();
+        if(lines != null) {
+            lines.replaced(old);
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if(!isEmpty()) {
+            setAll(List.of());
+        }
+    }
+
+    private void record(Edit.Kind kind, int index, Part part, int quantity) {
+        if(forkedFrom == null) {
+            return;
+        }
+        if(edits.size() >= parts.size()) { // replaying would be no quicker than replacing every part, so stop recording
+            forkedFrom = null;
+            edits = null;
+            return;
+        }
+        edits.add(new Edit(kind, index, part, quantity));
+    }
+
+    /**
+     * Lines of the bill of materials, one for each run of the vector. Listeners are given only the lines around a single add, remove or set, and every line for a whole replacement; nothing is worked out while no one is listening.
+     */
+    private final class Lines extends ObservableListBase<PartQuantity> {
+        @Override
+        public PartQuantity get(int index) {
+            return line(parts, index);
+        }
+
+        @Override
+        public int size() {
+            return parts.runs();
+        }
+
+        /**
+         * Reports the lines changed by an add, remove or set at index, which can only have split, merged or changed the run holding it and its neighbours.
+         * @param old parts before the change
+         */
+        private void edited(PartVector old, int index) {
+            if(!hasListeners()) {
+                return;
+            }
+            int run = old.size() == 0 ? 0 : old.runOf(Math.min(index, old.size() - 1));
+            int from = Math.max(0, run - 1);
+            int oldTo = Math.min(old.runs(), run + 2);
+            int newTo = oldTo + parts.runs() - old.runs();
+            while(from < oldTo && from < newTo && line(old, from).equals(line(parts, from))) {
+                from++;
+            }
+            while(oldTo > from && newTo > from && line(old, oldTo - 1).equals(line(parts, newTo - 1))) {
+                oldTo--;
+                newTo--;
+            }
+            if(from == oldTo && from == newTo) {
+                return;
+            }
+            beginChange();
+            if(oldTo > from) {
+                nextReplace(from, newTo, lines(old, from, oldTo));
+            }
+            else {
+                nextAdd(from, newTo);
+            }
+            endChange();
+        }
+
+        /**
+         * Reports every line as replaced.
+         * @param old parts before the change
+         */
+        private void replaced(PartVector old) {
+            if(!hasListeners()) {
+                return;
+            }
+            beginChange();
+            if(old.runs() > 0) {
+                nextRemove(0, lines(old, 0, old.runs()));
+            }
+            if(parts.runs() > 0) {
+                nextAdd(0, parts.runs());
+            }
+            endChange();
+        }
+
+        private List<PartQuantity> lines(PartVector vector, int from, int to) {
+            List<PartQuantity> list = new ArrayList<>(to - from);
+            for(int run = from; run < to; run++) {
+                list.add(line(vector, run));
+            }
+            return list;
+        }
+
+        private PartQuantity line(PartVector vector, int run) {
+            return new PartQuantity(vector.runPart(run), vector.runQuantity(run));
+        }
+    }
+
+    /**
+     * Run of the list now, either a range of the parts listed before changes were replayed, or listings of a part added by them, numbered from 0.
+     */
+    private static final class Segment {
+        private final int from;
+        private final int to;
+        private final Part part; // part added, or null for a range of old parts
+
+        private Segment(int from, int to, Part part) {
+            this.from = from;
+            this.to = to;
+            this.part = part;
+        }
+
+        private int length() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Change made to a copy of a list, at the index it was made at.
+     */
+    private static final class Edit {
+        private enum Kind { ADD, REMOVE, SET }
+
+        private final Kind kind;
+        private final int index;
+        private final Part part; // part added or set, or null for a remove
+        private final int quantity; // listings of part added
+
+        private Edit(Kind kind, int index, Part part, int quantity) {
+            this.kind = kind;
+            this.index = index;
+            this.part = part;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package model;
+
+/**
+ * Number of units of a product that can be assembled from the stock of its associated parts, as it stood when counted.
+ */
+public final class BuildableQuantity {
+    private final Product product;
+    private final int quantity;
+
+    BuildableQuantity(Product product, int quantity) {
+        this.product = product;
+        this.quantity = quantity;
+    }
+
+
+    /**
+     * @return the product
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * @return the number of units that can be assembled, which is 0 for a product without associated parts
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
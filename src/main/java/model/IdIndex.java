@@ -0,0 +1,195 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Open addressing hash index from a primitive int ID to the inventory item holding that ID. Keys are stored in an int array so lookups do not box the ID or walk the inventory list.
+ * Lookups may run on any thread. They read the table optimistically without taking a lock, so concurrent readers do not contend with each other, and retry under a read lock only if the index was modified meanwhile.
+ * @param <T> type of item being indexed
+ */
+final class IdIndex<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY]; // null value marks an empty slot
+    private int size;
+    private final StampedLock lock = new StampedLock();
+
+
+    /**
+     * Keeps index in sync with list. Every item added to or removed from the list, including items replaced with set(), is reflected in the index.
+     * @param list list to be tracked
+     * @param idOf function returning the ID of an item
+     */
+    void track(ObservableList<T> list, ToIntFunction<T> idOf) {
+        long initial = lock.writeLock();
+        try {
+            for(T item : list) {
+                put(idOf.applyAsInt(item), item);
+            }
+        }
+        finally {
+            lock.unlockWrite(initial);
+        }
+        list.addListener((ListChangeListener<T>) change -> {
+            long stamp = lock.writeLock(); // apply whole change at once so readers never see a replaced item missing
+            try {
+                while(change.next()) {
+                    if(change.wasPermutated()) {
+                        continue;
+                    }
+                    List<? extends T> removed = change.getRemoved();
+                    List<? extends T> added = change.getAddedSubList();
+                    for(int i = 0; i < removed.size(); i++) { // removed items are handled first so a replaced item with the same ID ends up indexed
+                        T item = removed.get(i);
+                        if(i >= added.size() || item != added.get(i)) { // items replaced by themselves, as in a whole-list replacement, are already indexed
+                            remove(idOf.applyAsInt(item), item);
+                        }
+                    }
+                    for(int i = 0; i < added.size(); i++) {
+                        T item = added.get(i);
+                        if(i >= removed.size() || item != removed.get(i)) {
+                            put(idOf.applyAsInt(item), item);
+                        }
+                    }
+                }
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
+        });
+    }
+
+    /**
+     * @param id ID to search for
+     * @return item with matching ID, or null if no item has that ID
+     */
+    T get(int id) {
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0) {
+            T item = find(keys, values, id); // arrays are read once, so a concurrent resize cannot mix old and new arrays
+            if(lock.validate(stamp)) {
+                return item;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return find(keys, values, id);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T find(int[] keys, Object[] values, int id) {
+        int mask = Math.min(keys.length, values.length) - 1; // arrays may come from either side of a resize under an optimistic read
+        for(int slot = mix(id) & mask, probes = 0; values[slot] != null && probes < keys.length; slot = (slot + 1) & mask, probes++) { // probe limit guards against a table changing under an optimistic read
+            if(keys[slot] == id) {
+                return (T) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Associates ID with item, replacing any item previously indexed under the same ID. Called while tracked list is being changed, with write lock held.
+     * @param id ID of item
+     * @param item item to be indexed
+     */
+    private void put(int id, T item) {
+        if((size + 1) * 4 > keys.length * 3) { // keep load factor at or below 75%
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(id) & mask;
+        while(values[slot] != null) {
+            if(keys[slot] == id) {
+                values[slot] = item;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        values[slot] = item;
+        size++;
+    }
+
+    /**
+     * Removes ID from index if it is still associated with the specified item. Called while tracked list is being changed, with write lock held.
+     * @param id ID of item
+     * @param item item to be removed
+     */
+    private void remove(int id, T item) {
+        int mask = keys.length - 1;
+        int slot = mix(id) & mask;
+        while(values[slot] != null) {
+            if(keys[slot] == id) {
+                if(values[slot] == item) {
+                    deleteSlot(slot);
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @return number of IDs in index
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes entry in slot and shifts back any following entries in the same probe sequence so lookups do not need tombstones.
+     * @param slot slot to be emptied
+     */
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while(values[next] != null) {
+            int home = mix(keys[next]) & mask;
+            if(((next - home) & mask) >= ((next - hole) & mask)) { // entry may move back into the hole without passing its home slot
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldValues[i] != null) {
+                int slot = mix(oldKeys[i]) & mask;
+                while(values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads sequential IDs across the table.
+     */
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
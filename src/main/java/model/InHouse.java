@@ -1,5 +1,7 @@
 package model;
 
+import javafx.beans.property.ReadOnlyIntegerProperty;
+
 /**
  * Used to create, set, and view attributes of in house parts.
  */
@@ -17,6 +19,7 @@ public class InHouse extends Part {
      */
     public void setMachineId(int machineId) {
         this.machineId = machineId;
+        refreshProperties();
     }
 
     /**
@@ -25,4 +28,19 @@ public class InHouse extends Part {
     public int getMachineId() {
         return machineId;
     }
+
+    /**
+     * @return machine ID of specified part, as a property that changes with it
+     */
+    public ReadOnlyIntegerProperty machineIdProperty() {
+        return properties().machineId(getMachineId());
+    }
+
+    @Override
+    void refreshProperties() {
+        super.refreshProperties();
+        if(hasProperties()) {
+            properties().refreshMachineId(getMachineId());
+        }
+    }
 }
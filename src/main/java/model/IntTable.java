@@ -0,0 +1,153 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table from an int key, such as a part ID, to a non-negative int value, such as a slot or list position, stored in int arrays so neither is boxed. Not thread-safe, except for find().
+ */
+final class IntTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY]; // value + 1, 0 marks an empty entry
+    private int size;
+
+
+    /**
+     * @param key key to search for
+     * @return value of key, or -1 if key is not in table
+     */
+    int get(int key) {
+        int mask = keys.length - 1;
+        for(int i = mix(key) & mask; values[i] != 0; i = (i + 1) & mask) {
+            if(keys[i] == key) {
+                return values[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as get(), but safe to call while another thread changes the table. Result must be validated before use.
+     */
+    int find(int key) {
+        int[] keys = this.keys;
+        int[] values = this.values;
+        int mask = Math.min(keys.length, values.length) - 1; // arrays may come from either side of a resize
+        for(int i = mix(key) & mask, probes = 0; values[i] != 0 && probes < keys.length; i = (i + 1) & mask, probes++) {
+            if(keys[i] == key) {
+                return values[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param key key to be added or changed
+     * @param value value of key, at least 0
+     */
+    void put(int key, int value) {
+        if((size + 1) * 4 > keys.length * 3) { // keep load factor at or below 75%
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while(values[i] != 0) {
+            if(keys[i] == key) {
+                values[i] = value + 1;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value + 1;
+        size++;
+    }
+
+    /**
+     * Removes key if it still maps to value.
+     */
+    void remove(int key, int value) {
+        int i = slotOf(key);
+        if(values[i] == value + 1) {
+            delete(i);
+        }
+    }
+
+    /**
+     * Removes key, whatever its value.
+     */
+    void remove(int key) {
+        int i = slotOf(key);
+        if(values[i] != 0) {
+            delete(i);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    long estimateBytes() {
+        return (long) keys.length * 2 * Integer.BYTES;
+    }
+
+    /**
+     * @return slot holding key, or the empty slot ending its probe sequence
+     */
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while(values[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Empties slot, shifting back following entries in the same probe sequence so lookups do not need tombstones.
+     */
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while(values[next] != 0) {
+            int home = mix(keys[next]) & mask;
+            if(((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = 0;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldValues[i] != 0) {
+                int j = mix(oldKeys[i]) & mask;
+                while(values[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads sequential keys across the table.
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,16 +1,84 @@
 package model;
 
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import metrics.InventoryChangeEvent;
+import metrics.InventoryLookupEvent;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 /**
  * Contains methods for manipulating and viewing lists of inventory.
+ * Methods may be called from any thread. Lookups run on the calling thread against thread-safe indexes, as do reads through read(). Changes are serialized, and once inventory is attached to the JavaFX application thread they are handed to that thread and the caller waits for them, so the lists shown by the user interface are only ever changed on it.
+ * The lists returned by getAllParts() and getAllProducts() are not thread-safe and should only be used directly on the thread that changes inventory.
  */
 public class Inventory {
-    private static ObservableList<Part> allParts = FXCollections.observableArrayList();
-    private static ObservableList<Product> allProducts = FXCollections.observableArrayList();
-    private static int partId = 0; // used for storing value of last part ID generated
-    private static int productId = 999; // used for storing vale of last product ID generated
+    /** system property selecting how parts are stored; "columnar" keeps parts in primitive arrays instead of one object per part */
+    public static final String STORAGE_PROPERTY = "inventory.partStorage";
+    private static final PartColumns partColumns = "columnar".equals(System.getProperty(STORAGE_PROPERTY)) ? new PartColumns() : null; // null when parts are stored as objects
+    private static final InventoryList<Part> allParts = partColumns != null ? partColumns : new ArrayInventoryList<>(Part.class, Part::getId);
+    private static final InventoryList<Product> allProducts = new ArrayInventoryList<>(Product.class, Product::getId);
+    private static final AtomicInteger partId = new AtomicInteger(0); // used for storing value of last part ID generated
+    private static final AtomicInteger productId = new AtomicInteger(999); // used for storing vale of last product ID generated
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock(); // changes take write lock, so they are serialized; read() takes read lock, so reads run alongside each other
+    private static volatile boolean attached; // true once lists are shown by the user interface and must be changed on JavaFX application thread
+    private static final IdIndex<Part> partIndex = new IdIndex<>(); // part ID -> part, kept in sync with allParts
+    private static final IdIndex<Product> productIndex = new IdIndex<>(); // product ID -> product, kept in sync with allProducts
+    private static final NameIndex<Part> partNameIndex = new NameIndex<>(Part::getName); // trigram index of part names, kept in sync with allParts
+    private static final NameIndex<Product> productNameIndex = new NameIndex<>(Product::getName); // trigram index of product names, kept in sync with allProducts
+    private static final UsageIndex partUsage = new UsageIndex(Inventory::findPart); // part ID -> products using it, and component cost and buildable quantity of each product, kept in sync with allProducts, their associated parts and allParts
+    private static final StockWatch<Part> partStock = new StockWatch<>(Inventory::findPart, Part::getId, Part::getStock, Part::getMin, Part::getMax); // parts with low or over stock, kept in sync with allParts
+    private static final StockWatch<Product> productStock = new StockWatch<>(Inventory::findProduct, Product::getId, Product::getStock, Product::getMin, Product::getMax); // products with low or over stock, kept in sync with allProducts
+    private static final SortedIndex<Part> partPriceIndex = new SortedIndex<>(Part::getId, part -> SortedIndex.keyOf(part.getPrice())); // part IDs by price, kept in sync with allParts
+    private static final SortedIndex<Part> partStockIndex = new SortedIndex<>(Part::getId, Part::getStock); // part IDs by stock, kept in sync with allParts
+    private static final SortedIndex<Product> productPriceIndex = new SortedIndex<>(Product::getId, product -> SortedIndex.keyOf(product.getPrice())); // product IDs by price, kept in sync with allProducts
+    private static final SortedIndex<Product> productStockIndex = new SortedIndex<>(Product::getId, Product::getStock); // product IDs by stock, kept in sync with allProducts
+    private static final VersionTable partVersions = new VersionTable(); // part ID -> version, changed whenever the part with that ID is replaced, edited or deleted
+    private static final VersionTable productVersions = new VersionTable(); // product ID -> version
+    private static final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+    private static final BooleanProperty loading = new SimpleBooleanProperty(false); // true while saved inventory is being loaded
+
+    static {
+        if(partColumns == null) { // columnar storage looks parts up in its own columns
+            partIndex.track(allParts, Part::getId);
+            partNameIndex.track(allParts);
+        }
+        productIndex.track(allProducts, Product::getId);
+        productNameIndex.track(allProducts);
+        partUsage.track(allProducts);
+        partUsage.trackParts(allParts);
+        partStock.track(allParts);
+        productStock.track(allProducts);
+        partPriceIndex.track(allParts);
+        partStockIndex.track(allParts);
+        productPriceIndex.track(allProducts);
+        productStockIndex.track(allProducts);
+        partVersions.track(allParts, Part::getId);
+        productVersions.track(allProducts, Product::getId);
+    }
 
 
     /**
@@ -18,7 +86,13 @@ public class Inventory {
      * @param part the part to be added to inventory
      */
     public static void addPart(Part part) {
-        allParts.add(part);
+        timedChange("addPart", Timings.addPart, part.getId(), 1, () -> change(() -> {
+            allParts.add(part);
+            for(InventoryListener listener : listeners) {
+                listener.partAdded(part);
+            }
+            return true;
+        }));
     }
 
     /**
@@ -26,69 +100,365 @@ public class Inventory {
      * @param product the product to be added to inventory
      */
     public static void addProduct(Product product) {
-        allProducts.add(product);
+        timedChange("addProduct", Timings.addProduct, product.getId(), 1, () -> change(() -> {
+            allProducts.add(product);
+            for(InventoryListener listener : listeners) {
+                listener.productAdded(product);
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Adds batch of parts to inventory as a single change, so list listeners see one change for the whole batch rather than one per part.
+     * @param parts the parts to be added to inventory
+     */
+    public static void addAllParts(List<? extends Part> parts) {
+        timedChange("addAllParts", Timings.addAllParts, 0, parts.size(), () -> change(() -> {
+            allParts.addAll(parts);
+            for(InventoryListener listener : listeners) {
+                listener.partsAdded(Collections.unmodifiableList(parts));
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Adds batch of products to inventory as a single change, so list listeners see one change for the whole batch rather than one per product.
+     * @param products the products to be added to inventory
+     */
+    public static void addAllProducts(List<? extends Product> products) {
+        timedChange("addAllProducts", Timings.addAllProducts, 0, products.size(), () -> change(() -> {
+            allProducts.addAll(products);
+            for(InventoryListener listener : listeners) {
+                listener.productsAdded(Collections.unmodifiableList(products));
+            }
+            return true;
+        }));
     }
 
     /**
-     * Searches for part by part ID.
+     * Searches for part by part ID. Uses ID index rather than scanning list of all parts.
      * @param partId the part ID to search for
      * @return if part ID matches part in inventory, returns matching part
      */
     public static Part lookupPart(int partId) {
-        for(Part part : getAllParts()) {
-            if(partId == part.getId()) {
-                return part;
-            }
-        }
-        return null;
+        return timed(Timings.lookupPartById, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            Part found = findPart(partId);
+            event.complete("lookupPart", partId, found != null ? 1 : 0);
+            return found;
+        });
     }
 
     /**
-     * Searches for product by product ID.
+     * Searches for product by product ID. Uses ID index rather than scanning list of all products.
      * @param productId the product ID to search for
      * @return if product ID matches product in inventory, returns matching product
      */
     public static Product lookupProduct(int productId) {
-        for(Product product : getAllProducts()) {
-            if(productId == product.getId()) {
-                return product;
-            }
-        }
-        return null;
+        return timed(Timings.lookupProductById, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            Product found = findProduct(productId);
+            event.complete("lookupProduct", productId, found != null ? 1 : 0);
+            return found;
+        });
     }
 
     /**
-     * Searches for part by part name.
+     * Searches for part by part name, using name index. Query is expected to be lower case.
      * @param query part name to search for
      * @return if query fully or partially matches part name in inventory, returns list of matching part(s)
      */
     public static ObservableList<Part> lookupPart(String query) {
-        ObservableList<Part> lookupList = FXCollections.observableArrayList();
-        ObservableList<Part> allParts = getAllParts();
-
-        for(Part part : allParts) {
-            if(part.getName().toLowerCase().contains(query)) {
-                lookupList.add(part);
-            }
-        }
-        return lookupList;
+        return timed(Timings.lookupPartByName, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            ObservableList<Part> found = FXCollections.observableArrayList(partColumns != null ? partColumns.search(query) : partNameIndex.search(query));
+            event.complete("lookupPart", query, found.size());
+            return found;
+        });
     }
 
     /**
-     * Searches for product by product name.
+     * Searches for product by product name, using name index. Query is expected to be lower case.
      * @param query product name to search for
      * @return if query fully or partially matches product name in inventory, returns list of matching product(s)
      */
     public static ObservableList<Product> lookupProduct(String query) {
-        ObservableList<Product> lookupList = FXCollections.observableArrayList();
-        ObservableList<Product> allProducts = getAllProducts();
+        return timed(Timings.lookupProductByName, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            ObservableList<Product> found = FXCollections.observableArrayList(productNameIndex.search(query));
+            event.complete("lookupProduct", query, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * Finds products whose associated parts include part. Uses reverse index of associated parts rather than scanning every product.
+     * @param partId ID of part to search for
+     * @return products using part, each listed once
+     */
+    public static ObservableList<Product> lookupProductsUsing(int partId) {
+        return timed(Timings.lookupProductsUsing, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            ObservableList<Product> found = FXCollections.observableArrayList(partUsage.productsUsing(partId));
+            event.complete("lookupProductsUsing", partId, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * @param partId ID of part
+     * @return true if any product in inventory has part among its associated parts
+     */
+    public static boolean isPartUsed(int partId) {
+        return timed(Timings.isPartUsed, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            boolean found = partUsage.isUsed(partId);
+            event.complete("isPartUsed", partId, found ? 1 : 0);
+            return found;
+        });
+    }
+
+    /**
+     * Finds parts priced from min to max, inclusive, using a sorted index of part prices.
+     * @param min lowest price to include
+     * @param max highest price to include
+     * @return parts priced in range, cheapest first, then by ID
+     */
+    public static ObservableList<Part> lookupPartsByPrice(double min, double max) {
+        return timed(Timings.lookupPartsByPrice, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            ObservableList<Part> found = FXCollections.observableArrayList(resolve(partPriceIndex.idsBetween(SortedIndex.keyOf(min), SortedIndex.keyOf(max)), Inventory::findPart));
+            event.complete("lookupPartsByPrice", min, max, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * Finds parts with stock from min to max, inclusive, using a sorted index of part stock.
+     * @param min lowest stock to include
+     * @param max highest stock to include
+     * @return parts with stock in range, lowest stock first, then by ID
+     */
+    public static ObservableList<Part> lookupPartsByStock(int min, int max) {
+        return timed(Timings.lookupPartsByStock, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            ObservableList<Part> found = FXCollections.observableArrayList(resolve(partStockIndex.idsBetween(min, max), Inventory::findPart));
+            event.complete("lookupPartsByStock", min, max, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * Finds products priced from min to max, inclusive, using a sorted index of product prices.
+     * @param min lowest price to include
+     * @param max highest price to include
+     * @return products priced in range, cheapest first, then by ID
+     */
+    public static ObservableList<Product> lookupProductsByPrice(double min, double max) {
+        return timed(Timings.lookupProductsByPrice, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            ObservableList<Product> found = FXCollections.observableArrayList(resolve(productPriceIndex.idsBetween(SortedIndex.keyOf(min), SortedIndex.keyOf(max)), Inventory::findProduct));
+            event.complete("lookupProductsByPrice", min, max, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * Finds products with stock from min to max, inclusive, using a sorted index of product stock.
+     * @param min lowest stock to include
+     * @param max highest stock to include
+     * @return products with stock in range, lowest stock first, then by ID
+     */
+    public static ObservableList<Product> lookupProductsByStock(int min, int max) {
+        return timed(Timings.lookupProductsByStock, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            ObservableList<Product> found = FXCollections.observableArrayList(resolve(productStockIndex.idsBetween(min, max), Inventory::findProduct));
+            event.complete("lookupProductsByStock", min, max, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * Lists the IDs of all parts in order of price, read from the sorted index behind lookupPartsByPrice() rather than sorted, so a table can be shown sorted by price without comparing parts.
+     * @param descending true for most expensive first
+     * @return IDs of all parts by price, with parts of equal price in ID order
+     */
+    public static int[] getPartIdsByPrice(boolean descending) {
+        return timed(Timings.getPartIdsByPrice, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            int[] found = partPriceIndex.ids(descending);
+            event.complete("getPartIdsByPrice", descending ? "descending" : "ascending", found.length);
+            return found;
+        });
+    }
+
+    /**
+     * @param descending true for highest stock first
+     * @return IDs of all parts by stock, with parts of equal stock in ID order
+     */
+    public static int[] getPartIdsByStock(boolean descending) {
+        return timed(Timings.getPartIdsByStock, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            int[] found = partStockIndex.ids(descending);
+            event.complete("getPartIdsByStock", descending ? "descending" : "ascending", found.length);
+            return found;
+        });
+    }
+
+    /**
+     * @param descending true for most expensive first
+     * @return IDs of all products by price, with products of equal price in ID order
+     */
+    public static int[] getProductIdsByPrice(boolean descending) {
+        return timed(Timings.getProductIdsByPrice, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            int[] found = productPriceIndex.ids(descending);
+            event.complete("getProductIdsByPrice", descending ? "descending" : "ascending", found.length);
+            return found;
+        });
+    }
+
+    /**
+     * @param descending true for highest stock first
+     * @return IDs of all products by stock, with products of equal stock in ID order
+     */
+    public static int[] getProductIdsByStock(boolean descending) {
+        return timed(Timings.getProductIdsByStock, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            int[] found = productStockIndex.ids(descending);
+            event.complete("getProductIdsByStock", descending ? "descending" : "ascending", found.length);
+            return found;
+        });
+    }
+
+    /**
+     * Finds parts whose stock is at or below their min, worst first.
+     * @param limit largest number of parts to return
+     * @return parts with low stock, ordered by how far stock is below min, largest shortfall first, then by ID
+     */
+    public static List<Part> getLowStockParts(int limit) {
+        return timed(Timings.getLowStockParts, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            List<Part> found = partStock.low(limit);
+            event.complete("getLowStockParts", limit, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * Finds products whose stock is at or below their min, worst first, in time proportional to the number returned.
+     * @param limit largest number of products to return
+     * @return products with low stock, ordered by how far stock is below min, largest shortfall first, then by ID
+     */
+    public static List<Product> getLowStockProducts(int limit) {
+        return timed(Timings.getLowStockProducts, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            List<Product> found = productStock.low(limit);
+            event.complete("getLowStockProducts", limit, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * Finds parts whose stock is above their max, worst first, in time proportional to the number returned.
+     * @param limit largest number of parts to return
+     * @return parts with too much stock, ordered by how far stock is above max, largest excess first, then by ID
+     */
+    public static List<Part> getOverStockParts(int limit) {
+        return timed(Timings.getOverStockParts, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            List<Part> found = partStock.over(limit);
+            event.complete("getOverStockParts", limit, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * Finds products whose stock is above their max, worst first, in time proportional to the number returned.
+     * @param limit largest number of products to return
+     * @return products with too much stock, ordered by how far stock is above max, largest excess first, then by ID
+     */
+    public static List<Product> getOverStockProducts(int limit) {
+        return timed(Timings.getOverStockProducts, () -> {
+            InventoryLookupEvent event = new InventoryLookupEvent();
+            event.begin();
+            List<Product> found = productStock.over(limit);
+            event.complete("getOverStockProducts", limit, found.size());
+            return found;
+        });
+    }
+
+    /**
+     * Finds the component cost of product, the summed price of its associated parts. Each part is priced as the part with its ID now in inventory, so replacing a part with updatePart() reprices the products using it. Cost is read from a rollup kept up to date as prices and associations change, rather than summed.
+     * @param product product to be costed
+     * @return summed price of associated parts, counting a part as many times as it is associated
+     */
+    public static double getComponentCost(Product product) {
+        return timed(Timings.getComponentCost, () -> {
+            return partUsage.componentCosts(List.of(product))[0];
+        });
+    }
 
-        for(Product product : allProducts) {
-            if(product.getName().toLowerCase().contains(query)) {
-                lookupList.add(product);
+    /**
+     * Compares the price of every product in inventory with its component cost. Costs are read from the rollup behind getComponentCost(), so the report takes constant time per product however many parts each has.
+     * @return price, component cost and margin of every product, in inventory order
+     */
+    public static List<ProductMargin> getMarginReport() {
+        return timed(Timings.getMarginReport, () -> readLocked(() -> {
+            double[] costs = partUsage.componentCosts(allProducts);
+            List<ProductMargin> report = new ArrayList<>(costs.length);
+            for(int i = 0; i < costs.length; i++) {
+                Product product = allProducts.get(i);
+                report.add(new ProductMargin(product, product.getPrice(), costs[i]));
             }
-        }
-        return lookupList;
+            return report;
+        }));
+    }
+
+    /**
+     * Finds how many units of product can be assembled from the stock of its associated parts now in inventory. A part associated n times takes n units of its stock per unit of product.
+     * @param product product to be counted
+     * @return number of units that can be assembled, which is 0 for a product without associated parts
+     */
+    public static int getBuildableQuantity(Product product) {
+        return timed(Timings.getBuildableQuantity, () -> {
+            int quantity = partUsage.buildableQuantity(product);
+            return quantity >= 0 ? quantity : partUsage.buildableQuantities(List.of(product))[0]; // counted from scratch if not in inventory
+        });
+    }
+
+    /**
+     * Counts how many units of every product in inventory can be assembled, in parallel and from scratch.
+     * @return buildable quantity of every product, in inventory order
+     */
+    public static List<BuildableQuantity> computeBuildableQuantities() {
+        return timed(Timings.computeBuildableQuantities, () -> readLocked(() -> {
+            int[] quantities = partUsage.buildableQuantities(allProducts);
+            List<BuildableQuantity> report = new ArrayList<>(quantities.length);
+            for(int i = 0; i < quantities.length; i++) {
+                report.add(new BuildableQuantity(allProducts.get(i), quantities[i]));
+            }
+            return report;
+        }));
     }
 
     /**
@@ -97,7 +467,10 @@ public class Inventory {
      * @param newPart updated part
      */
     public static void updatePart(int index, Part newPart) {
-        allParts.set(index, newPart);
+        timedChange("updatePart", Timings.updatePart, newPart.getId(), 1, () -> change(() -> {
+            setPart(index, newPart);
+            return true;
+        }));
     }
 
     /**
@@ -106,16 +479,133 @@ public class Inventory {
      * @param newProduct updated product
      */
     public static void updateProduct(int index, Product newProduct) {
-        allProducts.set(index, newProduct);
+        timedChange("updateProduct", Timings.updateProduct, newProduct.getId(), 1, () -> change(() -> {
+            setProduct(index, newProduct);
+            return true;
+        }));
+    }
+
+    /**
+     * Replaces the part with partId by newPart, as updatePart() does, finding the part through the ID index rather than by its index in the list of all parts.
+     * @param partId ID of part being replaced
+     * @param newPart updated part
+     * @return true if part was replaced; false if no part in inventory has partId
+     */
+    public static boolean replacePart(int partId, Part newPart) {
+        return timedChange("replacePart", Timings.replacePart, partId, 1, () -> change(() -> {
+            Part part = findPart(partId);
+            if(part == null) {
+                return false;
+            }
+            setPart(allParts.indexOf(part), newPart);
+            return true;
+        }));
+    }
+
+    /**
+     * Replaces the product with productId by newProduct, as updateProduct() does, finding the product through the ID index rather than by its index in the list of all products.
+     * @param productId ID of product being replaced
+     * @param newProduct updated product
+     * @return true if product was replaced; false if no product in inventory has productId
+     */
+    public static boolean replaceProduct(int productId, Product newProduct) {
+        return timedChange("replaceProduct", Timings.replaceProduct, productId, 1, () -> change(() -> {
+            Product product = findProduct(productId);
+            if(product == null) {
+                return false;
+            }
+            setProduct(allProducts.indexOf(product), newProduct);
+            return true;
+        }));
+    }
+
+    /**
+     * Returns the version of the part with partId, for saving changes to it later with compareAndUpdatePart(). The version changes whenever the part with that ID is replaced, edited or deleted, and is read without waiting for changes being made to inventory.
+     * @param partId ID of part
+     * @return version of part, which is 0 if it has not changed since inventory was loaded
+     */
+    public static int getPartVersion(int partId) {
+        return partVersions.get(partId);
+    }
+
+    /**
+     * @param productId ID of product
+     * @return version of product, which is 0 if it has not changed since inventory was loaded
+     */
+    public static int getProductVersion(int productId) {
+        return productVersions.get(productId);
     }
 
     /**
-     * Deletes part from inventory.
+     * Updates the part with the ID of newPart, unless it has changed since its version was read. The part is edited in place as by editPart(), or replaced as by updatePart() if newPart is a different type of part, without having to find its index first.
+     * A write based on a stale version is turned away by comparing versions before the change is queued behind other changes, so it does not wait for them; the versions are compared again when the change is applied.
+     * @param expectedVersion version of part when the values in newPart were read, from getPartVersion()
+     * @param newPart part holding new values
+     * @return true if part was updated; false if it is no longer in inventory, or it was changed after expectedVersion was read
+     */
+    public static boolean compareAndUpdatePart(int expectedVersion, Part newPart) {
+        int id = newPart.getId();
+        return timedChange("compareAndUpdatePart", Timings.compareAndUpdatePart, id, 1, () -> partVersions.get(id) == expectedVersion && change(() -> {
+            Part part = findPart(id);
+            if(part == null || partVersions.get(id) != expectedVersion) {
+                return false;
+            }
+            if(!applyPartEdit(part, newPart)) {
+                setPart(allParts.indexOf(part), newPart); // position comes from the ID to position table of allParts, not a scan
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Updates the product with the ID of newProduct in place, as by editProduct(), unless it has changed since its version was read. Stale writes are turned away as in compareAndUpdatePart().
+     * @param expectedVersion version of product when the values in newProduct were read, from getProductVersion()
+     * @param newProduct product holding new values and associated parts
+     * @return true if product was updated; false if it is no longer in inventory, or it was changed after expectedVersion was read
+     */
+    public static boolean compareAndUpdateProduct(int expectedVersion, Product newProduct) {
+        int id = newProduct.getId();
+        return timedChange("compareAndUpdateProduct", Timings.compareAndUpdateProduct, id, 1, () -> productVersions.get(id) == expectedVersion && change(() -> {
+            Product product = findProduct(id);
+            return product != null && productVersions.get(id) == expectedVersion && applyProductEdit(product, newProduct);
+        }));
+    }
+
+    /**
+     * Changes part in place rather than replacing it, copying every value except ID from values, including machine ID or company name. Table cells bound to the part's properties redraw themselves, and list views such as the tables' sorted and filtered lists are not notified, so the cost of an edit does not depend on the size of inventory; sorted tables are not re-sorted by it. Name index and listeners are kept in sync, and listeners are notified through partEdited().
+     * @param part part in inventory to be edited
+     * @param values part holding new values, which must be the same type of part
+     * @return true if part was edited; false if part is not in inventory or values are a different type of part, in which case updatePart() must be used instead
+     */
+    public static boolean editPart(Part part, Part values) {
+        return timedChange("editPart", Timings.editPart, part.getId(), 1, () -> change(() -> applyPartEdit(part, values)));
+    }
+
+    /**
+     * Changes product in place rather than replacing it, copying every value except ID from values, along with its associated parts. Table cells bound to the product's properties redraw themselves, and list views such as the tables' sorted and filtered lists are not notified, so the cost of an edit does not depend on the size of inventory; sorted tables are not re-sorted by it. Name index and listeners are kept in sync, and listeners are notified through productEdited(). Associated parts copied with Product.editAssociatedParts() are saved by replaying only the changes made to the copy.
+     * @param product product in inventory to be edited
+     * @param values product holding new values and associated parts
+     * @return true if product was edited; false if product is not in inventory, in which case updateProduct() must be used instead
+     */
+    public static boolean editProduct(Product product, Product values) {
+        return timedChange("editProduct", Timings.editProduct, product.getId(), 1, () -> change(() -> applyProductEdit(product, values)));
+    }
+
+    /**
+     * Deletes part from inventory, unless a product in inventory still uses it.
      * @param selectedPart part to be deleted
-     * @return true if part is successfully deleted; false otherwise
+     * @return true if part is successfully deleted; false if it is not in inventory or is an associated part of a product
      */
     public static boolean deletePart(Part selectedPart) {
-        return allParts.remove(selectedPart);
+        return timedChange("deletePart", Timings.deletePart, selectedPart.getId(), 1, () -> change(() -> {
+            if(partUsage.isUsed(selectedPart.getId()) || !allParts.remove(selectedPart)) {
+                return false;
+            }
+            for(InventoryListener listener : listeners) {
+                listener.partDeleted(selectedPart);
+            }
+            return true;
+        }));
     }
 
     /**
@@ -124,7 +614,32 @@ public class Inventory {
      * @return true if part is successfully deleted; false otherwise
      */
     public static boolean deleteProduct(Product selectedProduct) {
-        return allProducts.remove(selectedProduct);
+        return timedChange("deleteProduct", Timings.deleteProduct, selectedProduct.getId(), 1, () -> change(() -> {
+            if(!allProducts.remove(selectedProduct)) {
+                return false;
+            }
+            for(InventoryListener listener : listeners) {
+                listener.productDeleted(selectedProduct);
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Runs reader on the calling thread while inventory is held unchanged, so several items, a page of the inventory lists, or the associated parts of a product can be read consistently from any thread. Readers run alongside each other, and changes wait for them, so reader should be brief and must not change inventory.
+     * @param reader reads inventory and returns what it read, which should not be a live view of inventory lists
+     * @return result of reader
+     */
+    public static <T> T read(Supplier<T> reader) {
+        return timed(Timings.read, () -> readLocked(reader));
+    }
+
+    /**
+     * Starts a transaction for applying many adds, updates and deletes to inventory at once. Nothing is changed until the transaction is committed.
+     * @return new, empty transaction
+     */
+    public static InventoryTransaction beginTransaction() {
+        return new InventoryTransaction();
     }
 
     /**
@@ -142,20 +657,489 @@ public class Inventory {
     }
 
     /**
-     * Generates unique part ID when new part is being created.
+     * Generates unique part ID when new part is being created. IDs are allocated atomically, so concurrent callers never receive the same ID.
      * @return the new part ID
      */
     public static int generatePartId() {
-        ++partId;
-        return partId;
+        int id = partId.incrementAndGet();
+        for(InventoryListener listener : listeners) {
+            listener.partIdGenerated(id);
+        }
+        return id;
     }
 
     /**
-     * Generates unique product ID when new product is being created.
+     * Generates unique product ID when new product is being created. IDs are allocated atomically, so concurrent callers never receive the same ID.
      * @return the new product ID
      */
     public static int generateProductId() {
-        ++productId;
-        return productId;
+        int id = productId.incrementAndGet();
+        for(InventoryListener listener : listeners) {
+            listener.productIdGenerated(id);
+        }
+        return id;
+    }
+
+    /**
+     * @return true if parts are stored in columns of primitive arrays rather than as objects
+     */
+    public static boolean isColumnarStorage() {
+        return partColumns != null;
+    }
+
+    /**
+     * @return approximate heap used by columnar part storage, or -1 if parts are stored as objects
+     */
+    public static long estimatePartStorageBytes() {
+        return partColumns != null ? partColumns.estimateBytes() : -1;
+    }
+
+    /**
+     * Generates a block of consecutive unique part IDs at once, for adding many parts. Listeners are notified once with the last ID in the block.
+     * @param count number of IDs to generate
+     * @return first ID in the block
+     */
+    public static int generatePartIds(int count) {
+        int last = partId.addAndGet(count);
+        for(InventoryListener listener : listeners) {
+            listener.partIdGenerated(last);
+        }
+        return last - count + 1;
+    }
+
+    /**
+     * Generates a block of consecutive unique product IDs at once, for adding many products. Listeners are notified once with the last ID in the block.
+     * @param count number of IDs to generate
+     * @return first ID in the block
+     */
+    public static int generateProductIds(int count) {
+        int last = productId.addAndGet(count);
+        for(InventoryListener listener : listeners) {
+            listener.productIdGenerated(last);
+        }
+        return last - count + 1;
+    }
+
+    /**
+     * Marks part ID as used when a part is added with an ID that was not generated, such as one read from an imported file, so that generated IDs do not reuse it.
+     * @param usedId part ID in use
+     */
+    public static void reservePartId(int usedId) {
+        if(partId.getAndAccumulate(usedId, Math::max) < usedId) {
+            for(InventoryListener listener : listeners) {
+                listener.partIdGenerated(usedId);
+            }
+        }
+    }
+
+    /**
+     * Marks product ID as used when a product is added with an ID that was not generated, such as one read from an imported file, so that generated IDs do not reuse it.
+     * @param usedId product ID in use
+     */
+    public static void reserveProductId(int usedId) {
+        if(productId.getAndAccumulate(usedId, Math::max) < usedId) {
+            for(InventoryListener listener : listeners) {
+                listener.productIdGenerated(usedId);
+            }
+        }
+    }
+
+    /**
+     * @return last part ID generated
+     */
+    public static int getLastPartId() {
+        return partId.get();
+    }
+
+    /**
+     * @return last product ID generated
+     */
+    public static int getLastProductId() {
+        return productId.get();
+    }
+
+    /**
+     * Sets last part ID generated. Used when restoring saved inventory so that new parts do not reuse IDs.
+     * @param lastPartId last part ID generated
+     */
+    public static void setLastPartId(int lastPartId) {
+        partId.set(lastPartId);
+    }
+
+    /**
+     * Sets last product ID generated. Used when restoring saved inventory so that new products do not reuse IDs.
+     * @param lastProductId last product ID generated
+     */
+    public static void setLastProductId(int lastProductId) {
+        productId.set(lastProductId);
+    }
+
+    /**
+     * Registers listener to be notified after inventory is changed.
+     * @param listener listener to be added
+     */
+    public static void addListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener listener to be removed
+     */
+    public static void removeListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return true while saved inventory is still being loaded, during which inventory should not be changed by the user
+     */
+    public static boolean isLoading() {
+        return loading.get();
+    }
+
+    /**
+     * @param isLoading whether saved inventory is being loaded
+     */
+    public static void setLoading(boolean isLoading) {
+        loading.set(isLoading);
+    }
+
+    /**
+     * @return property that is true while saved inventory is being loaded, so user interface controls can be disabled meanwhile
+     */
+    public static ReadOnlyBooleanProperty loadingProperty() {
+        return loading;
+    }
+
+    /**
+     * Attaches inventory to JavaFX application thread. From then on, changes made on other threads are run on the JavaFX application thread, and the calling thread waits until they have been applied. Called once the main window is shown.
+     */
+    public static void attachToApplicationThread() {
+        attached = true;
+    }
+
+    /**
+     * Applies every change staged in transaction, as one change to each of the parts and products lists, and notifies listeners of each change between transactionBegun() and transactionCommitted(). Parts are changed before products, so added products may use parts added by the same transaction.
+     * @param transaction transaction whose staged values have been checked
+     */
+    static void commit(InventoryTransaction transaction) {
+        timedChange("commit", Timings.commit, 0, transaction.parts.size() + transaction.products.size(), () -> change(() -> {
+            transaction.parts.resolve(allParts, Inventory::findPart); // throws before anything is changed if a target is missing
+            transaction.products.resolve(allProducts, Inventory::findProduct);
+            checkDeletedPartsUnused(transaction);
+            Deque<Runnable> undo = new ArrayDeque<>();
+            allProducts.batch(() -> allParts.batch(() -> {
+                try {
+                    transaction.parts.apply(allParts, undo);
+                    transaction.products.apply(allProducts, undo);
+                }
+                catch (RuntimeException | Error e) {
+                    while(!undo.isEmpty()) {
+                        undo.pop().run();
+                    }
+                    throw e;
+                }
+            }));
+            for(InventoryListener listener : listeners) {
+                listener.transactionBegun();
+                notifyUpdated(transaction.parts, listener::partUpdated);
+                transaction.parts.deletedElements().forEach(listener::partDeleted);
+                if(!transaction.parts.added.isEmpty()) {
+                    listener.partsAdded(Collections.unmodifiableList(transaction.parts.added));
+                }
+                notifyUpdated(transaction.products, listener::productUpdated);
+                transaction.products.deletedElements().forEach(listener::productDeleted);
+                if(!transaction.products.added.isEmpty()) {
+                    listener.productsAdded(Collections.unmodifiableList(transaction.products.added));
+                }
+                listener.transactionCommitted();
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * @throws IllegalArgumentException if a part deleted by transaction is used by a product that the transaction leaves in inventory, or by a product it adds or updates
+     */
+    private static void checkDeletedPartsUnused(InventoryTransaction transaction) {
+        if(transaction.parts.deleted.isEmpty()) {
+            return;
+        }
+        Set<Integer> deletedIds = new HashSet<>();
+        for(Part part : transaction.parts.deleted) {
+            deletedIds.add(part.getId());
+        }
+        Set<Product> leaving = Collections.newSetFromMap(new IdentityHashMap<>()); // products replaced or deleted by transaction no longer use their parts
+        leaving.addAll(transaction.products.replaced);
+        leaving.addAll(transaction.products.deleted);
+        for(int partId : deletedIds) {
+            for(Product product : partUsage.productsUsing(partId)) {
+                if(!leaving.contains(product)) {
+                    throw new IllegalArgumentException("Part " + partId + " is used by product " + product.getId());
+                }
+            }
+        }
+        List<Product> arriving = new ArrayList<>(transaction.products.added);
+        arriving.addAll(transaction.products.replacements);
+        for(Product product : arriving) {
+            for(Part part : product.getAllAssociatedParts()) {
+                if(deletedIds.contains(part.getId())) {
+                    throw new IllegalArgumentException("Part " + part.getId() + " is used by product " + product.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces part at index and notifies listeners. Called inside change().
+     */
+    private static void setPart(int index, Part newPart) {
+        Part oldPart = allParts.set(index, newPart);
+        for(InventoryListener listener : listeners) {
+            listener.partUpdated(oldPart, newPart);
+        }
+    }
+
+    private static void setProduct(int index, Product newProduct) {
+        Product oldProduct = allProducts.set(index, newProduct);
+        for(InventoryListener listener : listeners) {
+            listener.productUpdated(oldProduct, newProduct);
+        }
+    }
+
+    /**
+     * Edits part in place and notifies listeners, as editPart() does. Called inside change().
+     */
+    private static boolean applyPartEdit(Part part, Part values) {
+        if(!part.equals(findPart(part.getId())) || (part instanceof InHouse) != (values instanceof InHouse)) {
+            return false;
+        }
+        Part before = part instanceof InHouse
+                ? new InHouse(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(), part.getMax(), ((InHouse) part).getMachineId())
+                : new Outsourced(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(), part.getMax(), ((Outsourced) part).getCompanyName());
+        part.setName(values.getName());
+        part.setPrice(values.getPrice());
+        part.setStock(values.getStock());
+        part.setMin(values.getMin());
+        part.setMax(values.getMax());
+        if(part instanceof InHouse) {
+            ((InHouse) part).setMachineId(((InHouse) values).getMachineId());
+        }
+        else {
+            ((Outsourced) part).setSupplierCode(((Outsourced) values).getSupplierCode());
+        }
+        if(partColumns == null) { // columnar storage searches names in its own columns
+            partNameIndex.rename(part);
+        }
+        partUsage.partChanged(part.getId(), part.getPrice(), part.getStock());
+        partStock.changed(part);
+        partPriceIndex.edited(before, part);
+        partStockIndex.edited(before, part);
+        partVersions.bump(part.getId());
+        for(InventoryListener listener : listeners) {
+            listener.partEdited(part, before);
+        }
+        return true;
+    }
+
+    private static boolean applyProductEdit(Product product, Product values) {
+        if(findProduct(product.getId()) != product) {
+            return false;
+        }
+        Product before = new Product(product.editAssociatedParts(), product.getId(), product.getName(), product.getPrice(), product.getStock(), product.getMin(), product.getMax());
+        product.setName(values.getName());
+        product.setPrice(values.getPrice());
+        product.setStock(values.getStock());
+        product.setMin(values.getMin());
+        product.setMax(values.getMax());
+        product.replaceAssociatedParts(values.getAllAssociatedParts());
+        productNameIndex.rename(product);
+        productStock.changed(product);
+        productPriceIndex.edited(before, product);
+        productStockIndex.edited(before, product);
+        productVersions.bump(product.getId());
+        for(InventoryListener listener : listeners) {
+            listener.productEdited(product, before);
+        }
+        return true;
+    }
+
+    /**
+     * Looks part up for inventory's own indexes and changes, which are not timed as calls to lookupPart().
+     */
+    private static Part findPart(int partId) {
+        return partColumns != null ? partColumns.lookup(partId) : partIndex.get(partId);
+    }
+
+    private static Product findProduct(int productId) {
+        return productIndex.get(productId);
+    }
+
+    /**
+     * @return items with ids, in order, skipping any deleted since the IDs were read
+     */
+    private static <T> List<T> resolve(int[] ids, IntFunction<T> lookup) {
+        List<T> items = new ArrayList<>(ids.length);
+        for(int id : ids) {
+            T item = lookup.apply(id);
+            if(item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    private static <T> void notifyUpdated(InventoryTransaction.Changes<T> changes, BiConsumer<T, T> updated) {
+        List<T> oldItems = changes.replacedElements();
+        for(int k = 0; k < oldItems.size(); k++) {
+            updated.accept(oldItems.get(k), changes.replacements.get(k));
+        }
+    }
+
+    /**
+     * Times operation in histogram.
+     * @return result of operation
+     */
+    private static <T> T timed(LatencyHistogram histogram, Supplier<T> operation) {
+        long start = Metrics.start();
+        try {
+            return operation.get();
+        }
+        finally {
+            histogram.recordSince(start);
+        }
+    }
+
+    /**
+     * Times a change in histogram and records it as a flight recorder event.
+     * @param operation inventory method called
+     * @param itemId ID of item changed, or 0 for a batch
+     * @param items number of items in change
+     * @param change makes the change through change(), or turns it away without waiting for other changes
+     * @return true if inventory was changed
+     */
+    private static boolean timedChange(String operation, LatencyHistogram histogram, int itemId, int items, BooleanSupplier change) {
+        return timed(histogram, () -> {
+            InventoryChangeEvent event = new InventoryChangeEvent();
+            event.begin();
+            boolean applied = change.getAsBoolean();
+            event.complete(operation, itemId, items, applied);
+            return applied;
+        });
+    }
+
+    /**
+     * Runs reader under read lock, on the calling thread.
+     * @return result of reader
+     */
+    private static <T> T readLocked(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies change to inventory lists and notifies listeners. Changes are serialized by the write lock, wait for reads in progress, and are run on JavaFX application thread once attached to it. Parts and products whose stock level changed are reported to listeners once the whole change has been applied.
+     * @param action change to be applied
+     * @return result of action
+     */
+    private static <T> T change(Supplier<T> action) {
+        if(!attached || Platform.isFxApplicationThread()) {
+            return applyChange(action);
+        }
+        FutureTask<T> task = new FutureTask<>(() -> applyChange(action));
+        Platform.runLater(task);
+        try {
+            return task.get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for inventory change", exception);
+        }
+        catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static <T> T applyChange(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return applyAndDrain(action);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static <T> T applyAndDrain(Supplier<T> action) {
+        try {
+            return action.get();
+        }
+        finally { // also reports levels left changed by a change that failed part way
+            partStock.drain((part, from, to) -> {
+                for(InventoryListener listener : listeners) {
+                    listener.partStockLevelChanged(part, from, to);
+                }
+            });
+            productStock.drain((product, from, to) -> {
+                for(InventoryListener listener : listeners) {
+                    listener.productStockLevelChanged(product, from, to);
+                }
+            });
+        }
+    }
+
+    /**
+     * Latency histogram of each inventory operation, named after the method making it.
+     */
+    private static final class Timings {
+        static final LatencyHistogram addPart = Metrics.histogram("Inventory.addPart");
+        static final LatencyHistogram addProduct = Metrics.histogram("Inventory.addProduct");
+        static final LatencyHistogram addAllParts = Metrics.histogram("Inventory.addAllParts");
+        static final LatencyHistogram addAllProducts = Metrics.histogram("Inventory.addAllProducts");
+        static final LatencyHistogram lookupPartById = Metrics.histogram("Inventory.lookupPart(int)");
+        static final LatencyHistogram lookupProductById = Metrics.histogram("Inventory.lookupProduct(int)");
+        static final LatencyHistogram lookupPartByName = Metrics.histogram("Inventory.lookupPart(String)");
+        static final LatencyHistogram lookupProductByName = Metrics.histogram("Inventory.lookupProduct(String)");
+        static final LatencyHistogram lookupProductsUsing = Metrics.histogram("Inventory.lookupProductsUsing");
+        static final LatencyHistogram isPartUsed = Metrics.histogram("Inventory.isPartUsed");
+        static final LatencyHistogram lookupPartsByPrice = Metrics.histogram("Inventory.lookupPartsByPrice");
+        static final LatencyHistogram lookupPartsByStock = Metrics.histogram("Inventory.lookupPartsByStock");
+        static final LatencyHistogram lookupProductsByPrice = Metrics.histogram("Inventory.lookupProductsByPrice");
+        static final LatencyHistogram lookupProductsByStock = Metrics.histogram("Inventory.lookupProductsByStock");
+        static final LatencyHistogram getPartIdsByPrice = Metrics.histogram("Inventory.getPartIdsByPrice");
+        static final LatencyHistogram getPartIdsByStock = Metrics.histogram("Inventory.getPartIdsByStock");
+        static final LatencyHistogram getProductIdsByPrice = Metrics.histogram("Inventory.getProductIdsByPrice");
+        static final LatencyHistogram getProductIdsByStock = Metrics.histogram("Inventory.getProductIdsByStock");
+        static final LatencyHistogram getLowStockParts = Metrics.histogram("Inventory.getLowStockParts");
+        static final LatencyHistogram getLowStockProducts = Metrics.histogram("Inventory.getLowStockProducts");
+        static final LatencyHistogram getOverStockParts = Metrics.histogram("Inventory.getOverStockParts");
+        static final LatencyHistogram getOverStockProducts = Metrics.histogram("Inventory.getOverStockProducts");
+        static final LatencyHistogram getComponentCost = Metrics.histogram("Inventory.getComponentCost");
+        static final LatencyHistogram getMarginReport = Metrics.histogram("Inventory.getMarginReport");
+        static final LatencyHistogram getBuildableQuantity = Metrics.histogram("Inventory.getBuildableQuantity");
+        static final LatencyHistogram computeBuildableQuantities = Metrics.histogram("Inventory.computeBuildableQuantities");
+        static final LatencyHistogram updatePart = Metrics.histogram("Inventory.updatePart");
+        static final LatencyHistogram updateProduct = Metrics.histogram("Inventory.updateProduct");
+        static final LatencyHistogram replacePart = Metrics.histogram("Inventory.replacePart");
+        static final LatencyHistogram replaceProduct = Metrics.histogram("Inventory.replaceProduct");
+        static final LatencyHistogram compareAndUpdatePart = Metrics.histogram("Inventory.compareAndUpdatePart");
+        static final LatencyHistogram compareAndUpdateProduct = Metrics.histogram("Inventory.compareAndUpdateProduct");
+        static final LatencyHistogram editPart = Metrics.histogram("Inventory.editPart");
+        static final LatencyHistogram editProduct = Metrics.histogram("Inventory.editProduct");
+        static final LatencyHistogram deletePart = Metrics.histogram("Inventory.deletePart");
+        static final LatencyHistogram deleteProduct = Metrics.histogram("Inventory.deleteProduct");
+        static final LatencyHistogram read = Metrics.histogram("Inventory.read");
+        static final LatencyHistogram commit = Metrics.histogram("Inventory.commit");
     }
-}
\ No newline at end of file
+}
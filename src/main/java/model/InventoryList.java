@@ -0,0 +1,30 @@
+package model;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.List;
+
+/**
+ * Observable list holding parts or products of inventory. Changes can be grouped into a batch, so list listeners such as the indexes and table views receive one aggregated change for the whole batch rather than one per element.
+ */
+abstract class InventoryList<E> extends ModifiableObservableListBase<E> {
+    /**
+     * Makes changes to list as a single change. Listeners are notified once, after changes has returned or thrown, with every element added, replaced or removed by it.
+     * @param changes changes to be made to this list
+     */
+    void batch(Runnable changes) {
+        beginChange();
+        try {
+            changes.run();
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Replaces every element of list at once, reported to listeners as a single replacement of the whole list. Views such as SortedList re-sort a whole-list replacement in one pass, where they would reposition each element of a partial replacement on its own.
+     * @param contents new elements of list
+     */
+    abstract void setContents(List<? extends E> contents);
+}
@@ -0,0 +1,126 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Notified after inventory is changed through one of the methods in Inventory. Listeners are called on the thread that applied the change, which is the JavaFX application thread once inventory is attached to it, and never for two changes at once. Changes committed together in an InventoryTransaction are reported between transactionBegun() and transactionCommitted(). ID generation is the exception: it is not serialized with changes, so partIdGenerated() and productIdGenerated() may be called on any thread, concurrently.
+ */
+public interface InventoryListener {
+    /**
+     * @param part part that was added
+     */
+    default void partAdded(Part part) {
+    }
+
+    /**
+     * Called once for a batch of parts added together. By default, treats each part as added on its own.
+     * @param parts parts that were added, in order
+     */
+    default void partsAdded(List<Part> parts) {
+        for(Part part : parts) {
+            partAdded(part);
+        }
+    }
+
+    /**
+     * @param oldPart part that was replaced
+     * @param newPart part that replaced it
+     */
+    default void partUpdated(Part oldPart, Part newPart) {
+    }
+
+    /**
+     * Called when part was changed in place by Inventory.editPart() rather than replaced. By default, treats the edit as replacing a part holding the old values with the edited part.
+     * @param part part that was edited, which now holds its new values
+     * @param before copy of part holding its values before the edit
+     */
+    default void partEdited(Part part, Part before) {
+        partUpdated(before, part);
+    }
+
+    /**
+     * @param part part that was deleted
+     */
+    default void partDeleted(Part part) {
+    }
+
+    /**
+     * @param product product that was added
+     */
+    default void productAdded(Product product) {
+    }
+
+    /**
+     * Called once for a batch of products added together. By default, treats each product as added on its own.
+     * @param products products that were added, in order
+     */
+    default void productsAdded(List<Product> products) {
+        for(Product product : products) {
+            productAdded(product);
+        }
+    }
+
+    /**
+     * @param oldProduct product that was replaced
+     * @param newProduct product that replaced it
+     */
+    default void productUpdated(Product oldProduct, Product newProduct) {
+    }
+
+    /**
+     * Called when product was changed in place by Inventory.editProduct() rather than replaced. By default, treats the edit as replacing a product holding the old values with the edited product.
+     * @param product product that was edited, which now holds its new values
+     * @param before copy of product holding its values and associated parts before the edit
+     */
+    default void productEdited(Product product, Product before) {
+        productUpdated(before, product);
+    }
+
+    /**
+     * @param product product that was deleted
+     */
+    default void productDeleted(Product product) {
+    }
+
+    /**
+     * Called when the stock of a part in inventory crosses its min or max, as it is updated or edited, once the change that moved it is complete; for a transaction, after transactionCommitted(). Parts added or deleted are not reported.
+     * @param part part whose stock level changed
+     * @param from stock level before change
+     * @param to stock level after change
+     */
+    default void partStockLevelChanged(Part part, StockLevel from, StockLevel to) {
+    }
+
+    /**
+     * Called when the stock of a product in inventory crosses its min or max, in the same way as partStockLevelChanged().
+     * @param product product whose stock level changed
+     * @param from stock level before change
+     * @param to stock level after change
+     */
+    default void productStockLevelChanged(Product product, StockLevel from, StockLevel to) {
+    }
+
+    /**
+     * @param partId part ID that was generated
+     */
+    default void partIdGenerated(int partId) {
+    }
+
+    /**
+     * @param productId product ID that was generated
+     */
+    default void productIdGenerated(int productId) {
+    }
+
+    /**
+     * Called before the changes of a committed InventoryTransaction are reported. The changes follow as ordinary calls, and transactionCommitted() is called after the last of them.
+     */
+    default void transactionBegun() {
+    }
+
+    /**
+     * Called after every change of a committed InventoryTransaction has been reported.
+     */
+    default void transactionCommitted() {
+    }
+}
@@ -0,0 +1,275 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Adds, updates and deletes of parts and products that are applied to inventory together. Changes are only staged until commit(), which checks every one of them first and then applies either all of them or none.
+ * A committed transaction reaches list listeners, such as table views, as one change per list rather than one per part or product, so a mass price or stock adjustment redraws the user interface once. Inventory listeners are notified of each change, between transactionBegun() and transactionCommitted().
+ * Transactions are not thread-safe while changes are being staged, but may be committed from any thread, like any other change to inventory.
+ */
+public final class InventoryTransaction {
+    final Changes<Part> parts = new Changes<>("Part", Part::getId, part -> checkValues(part.getName(), part.getStock(), part.getMin(), part.getMax()));
+    final Changes<Product> products = new Changes<>("Product", Product::getId, product -> checkValues(product.getName(), product.getStock(), product.getMin(), product.getMax()));
+    private boolean committed;
+
+
+    InventoryTransaction() {
+    }
+
+    /**
+     * @param part part to be added to inventory
+     * @return this transaction
+     */
+    public InventoryTransaction addPart(Part part) {
+        parts.added.add(Objects.requireNonNull(part));
+        return this;
+    }
+
+    /**
+     * @param oldPart part in inventory to be replaced
+     * @param newPart updated part
+     * @return this transaction
+     */
+    public InventoryTransaction updatePart(Part oldPart, Part newPart) {
+        parts.replaced.add(Objects.requireNonNull(oldPart));
+        parts.replacements.add(Objects.requireNonNull(newPart));
+        return this;
+    }
+
+    /**
+     * @param part part in inventory to be deleted
+     * @return this transaction
+     */
+    public InventoryTransaction deletePart(Part part) {
+        parts.deleted.add(Objects.requireNonNull(part));
+        return this;
+    }
+
+    /**
+     * @param product product to be added to inventory
+     * @return this transaction
+     */
+    public InventoryTransaction addProduct(Product product) {
+        products.added.add(Objects.requireNonNull(product));
+        return this;
+    }
+
+    /**
+     * @param oldProduct product in inventory to be replaced
+     * @param newProduct updated product
+     * @return this transaction
+     */
+    public InventoryTransaction updateProduct(Product oldProduct, Product newProduct) {
+        products.replaced.add(Objects.requireNonNull(oldProduct));
+        products.replacements.add(Objects.requireNonNull(newProduct));
+        return this;
+    }
+
+    /**
+     * @param product product in inventory to be deleted
+     * @return this transaction
+     */
+    public InventoryTransaction deleteProduct(Product product) {
+        products.deleted.add(Objects.requireNonNull(product));
+        return this;
+    }
+
+    /**
+     * @return number of changes staged
+     */
+    public int size() {
+        return parts.size() + products.size();
+    }
+
+    /**
+     * Applies every staged change to inventory. Nothing is applied if any added or updated part or product has invalid values, if a part or product to be updated or deleted is not in inventory or is changed more than once, or if a deleted part would still be used by a product. If applying the changes fails part way, those already applied are rolled back before the failure is rethrown. A transaction can only be committed once, whether or not it succeeds.
+     * @throws IllegalArgumentException if changes fail validation, in which case inventory is left unchanged
+     * @throws IllegalStateException if transaction has already been committed
+     */
+    public void commit() {
+        if(committed) {
+            throw new IllegalStateException("Transaction has already been committed");
+        }
+        committed = true;
+        parts.checkValues();
+        products.checkValues();
+        Inventory.commit(this);
+    }
+
+    /**
+     * @return description of first rule that values break, or null if they are valid
+     */
+    private static String checkValues(String name, int stock, int min, int max) {
+        if(!Validation.isValidName(name)) {
+            return "name cannot be blank";
+        }
+        if(!Validation.isValidMinMax(min, max)) {
+            return "min and max must be non-negative, and min must be less than or equal to max";
+        }
+        if(!Validation.isValidInv(stock, min, max)) {
+            return "inv must be between min and max";
+        }
+        return null;
+    }
+
+    /**
+     * Changes staged for one inventory list, and how they were applied to it.
+     */
+    static final class Changes<T> {
+        private static final int WHOLE_LIST_FRACTION = 256; // a partial replacement costs list views such as SortedList time in proportion to list size for every element changed, so beyond this share of the list replacing it whole is cheaper
+
+        final List<T> added = new ArrayList<>();
+        final List<T> replaced = new ArrayList<>(); // targets of updates, matched with replacements by position
+        final List<T> replacements = new ArrayList<>();
+        final List<T> deleted = new ArrayList<>();
+        private final String kind;
+        private final ToIntFunction<T> id;
+        private final Function<T, String> validator;
+        private int[] indexes; // list index of each update target, then of each delete target
+        private List<T> removed; // elements replaced by updates and removed by deletes, in same order as indexes
+
+        private Changes(String kind, ToIntFunction<T> id, Function<T, String> validator) {
+            this.kind = kind;
+            this.id = id;
+            this.validator = validator;
+        }
+
+        int size() {
+            return added.size() + replaced.size() + deleted.size();
+        }
+
+        /**
+         * @return elements that were replaced by updates, in the order updates were staged
+         */
+        List<T> replacedElements() {
+            return removed.subList(0, replaced.size());
+        }
+
+        /**
+         * @return elements that were removed by deletes, in the order deletes were staged
+         */
+        List<T> deletedElements() {
+            return removed.subList(replaced.size(), removed.size());
+        }
+
+        private void checkValues() {
+            check(added);
+            check(replacements);
+        }
+
+        private void check(List<T> items) {
+            for(T item : items) {
+                String problem = validator.apply(item);
+                if(problem != null) {
+                    throw new IllegalArgumentException(kind + " " + id.applyAsInt(item) + ": " + problem);
+                }
+            }
+        }
+
+        private T target(int k) {
+            return k < replaced.size() ? replaced.get(k) : deleted.get(k - replaced.size());
+        }
+
+        /**
+         * Finds list index of every element to be updated or deleted, without changing list. Each is looked up by ID, and then found in list by the position list keeps for its ID.
+         * @param lookup finds the element in inventory with an ID
+         * @throws IllegalArgumentException if an element is not in list or is to be changed more than once
+         */
+        void resolve(List<T> list, IntFunction<T> lookup) {
+            int targets = replaced.size() + deleted.size();
+            indexes = new int[targets];
+            Set<T> seen = new HashSet<>(targets * 2);
+            for(int k = 0; k < targets; k++) {
+                T target = target(k);
+                if(!seen.add(target)) {
+                    throw new IllegalArgumentException(kind + " " + id.applyAsInt(target) + " is changed more than once in transaction");
+                }
+                indexes[k] = lookup.apply(id.applyAsInt(target)) != null ? list.indexOf(target) : -1; // list may match elements that are not equal, such as parts with same ID
+                if(indexes[k] < 0) {
+                    throw new IllegalArgumentException(kind + " " + id.applyAsInt(target) + " is not in inventory");
+                }
+            }
+        }
+
+        /**
+         * Applies updates, then deletes, then adds to list, pushing an action that reverses each one onto undo. Updates and deletes are applied in list order, so the list change built from them stays a simple append of sub-changes. Changes to more than 1/WHOLE_LIST_FRACTION of the list are instead applied as one replacement of the whole list.
+         */
+        void apply(InventoryList<T> list, Deque<Runnable> undo) {
+            removed = new ArrayList<>(Collections.nCopies(indexes.length, null));
+            if((long) indexes.length * WHOLE_LIST_FRACTION > list.size()) {
+                applyToWholeList(list, undo);
+                return;
+            }
+            int updates = replaced.size();
+            for(int k : inListOrder(0, updates)) {
+                int index = indexes[k];
+                T old = list.set(index, replacements.get(k));
+                removed.set(k, old);
+                undo.push(() -> list.set(index, old));
+            }
+            int shift = 0; // elements already removed before the next one
+            for(int k : inListOrder(updates, indexes.length)) {
+                int index = indexes[k] - shift++;
+                T old = list.remove(index);
+                removed.set(k, old);
+                undo.push(() -> list.add(index, old));
+            }
+            if(!added.isEmpty()) {
+                int from = list.size();
+                undo.push(() -> list.remove(from, list.size())); // pushed first, as addAll() may fail after adding some of them
+                list.addAll(added);
+            }
+        }
+
+        private void applyToWholeList(InventoryList<T> list, Deque<Runnable> undo) {
+            List<T> before = new ArrayList<>(list);
+            List<T> elements = new ArrayList<>(before);
+            int updates = replaced.size();
+            boolean[] deletes = new boolean[before.size()];
+            for(int k = 0; k < indexes.length; k++) {
+                removed.set(k, before.get(indexes[k]));
+                if(k < updates) {
+                    elements.set(indexes[k], replacements.get(k));
+                }
+                else {
+                    deletes[indexes[k]] = true;
+                }
+            }
+            List<T> after = new ArrayList<>(before.size() - (indexes.length - updates) + added.size());
+            for(int i = 0; i < elements.size(); i++) {
+                if(!deletes[i]) {
+                    after.add(elements.get(i));
+                }
+            }
+            after.addAll(added);
+            undo.push(() -> list.setContents(before));
+            list.setContents(after);
+        }
+
+        /**
+         * @return positions from to to of indexes, sorted by the list index at each position
+         */
+        private int[] inListOrder(int from, int to) {
+            long[] keys = new long[to - from];
+            for(int k = from; k < to; k++) {
+                keys[k - from] = (long) indexes[k] << 32 | k;
+            }
+            Arrays.sort(keys);
+            int[] order = new int[keys.length];
+            for(int i = 0; i < keys.length; i++) {
+                order[i] = (int) keys[i];
+            }
+            return order;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package model;
+
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+/**
+ * JavaFX properties of a part or product, each created the first time it is asked for.
+ * Properties are read-only to observers, and are updated by the owning part or product.
+ */
+final class ItemProperties {
+    private final Object bean;
+    private ReadOnlyIntegerWrapper id;
+    private ReadOnlyStringWrapper name;
+    private ReadOnlyDoubleWrapper price;
+    private ReadOnlyIntegerWrapper stock;
+    private ReadOnlyIntegerWrapper min;
+    private ReadOnlyIntegerWrapper max;
+    private ReadOnlyIntegerWrapper machineId; // in house parts only
+    private ReadOnlyStringWrapper companyName; // outsourced parts only
+
+
+    ItemProperties(Object bean) {
+        this.bean = bean;
+    }
+
+    ReadOnlyIntegerProperty id(int value) {
+        if(id == null) {
+            id = new ReadOnlyIntegerWrapper(bean, "id", value);
+        }
+        else {
+            id.set(value);
+        }
+        return id.getReadOnlyProperty();
+    }
+
+    ReadOnlyStringProperty name(String value) {
+        if(name == null) {
+            name = new ReadOnlyStringWrapper(bean, "name", value);
+        }
+        else {
+            name.set(value);
+        }
+        return name.getReadOnlyProperty();
+    }
+
+    ReadOnlyDoubleProperty price(double value) {
+        if(price == null) {
+            price = new ReadOnlyDoubleWrapper(bean, "price", value);
+        }
+        else {
+            price.set(value);
+        }
+        return price.getReadOnlyProperty();
+    }
+
+    ReadOnlyIntegerProperty stock(int value) {
+        if(stock == null) {
+            stock = new ReadOnlyIntegerWrapper(bean, "stock", value);
+        }
+        else {
+            stock.set(value);
+        }
+        return stock.getReadOnlyProperty();
+    }
+
+    ReadOnlyIntegerProperty min(int value) {
+        if(min == null) {
+            min = new ReadOnlyIntegerWrapper(bean, "min", value);
+        }
+        else {
+            min.set(value);
+        }
+        return min.getReadOnlyProperty();
+    }
+
+    ReadOnlyIntegerProperty max(int value) {
+        if(max == null) {
+            max = new ReadOnlyIntegerWrapper(bean, "max", value);
+        }
+        else {
+            max.set(value);
+        }
+        return max.getReadOnlyProperty();
+    }
+
+    ReadOnlyIntegerProperty machineId(int value) {
+        if(machineId == null) {
+            machineId = new ReadOnlyIntegerWrapper(bean, "machineId", value);
+        }
+        else {
+            machineId.set(value);
+        }
+        return machineId.getReadOnlyProperty();
+    }
+
+    ReadOnlyStringProperty companyName(String value) {
+        if(companyName == null) {
+            companyName = new ReadOnlyStringWrapper(bean, "companyName", value);
+        }
+        else {
+            companyName.set(value);
+        }
+        return companyName.getReadOnlyProperty();
+    }
+
+    /**
+     * Brings properties created so far up to date.
+     */
+    void refresh(int id, String name, double price, int stock, int min, int max) {
+        if(this.id != null) {
+            this.id.set(id);
+        }
+        if(this.name != null) {
+            this.name.set(name);
+        }
+        if(this.price != null) {
+            this.price.set(price);
+        }
+        if(this.stock != null) {
+            this.stock.set(stock);
+        }
+        if(this.min != null) {
+            this.min.set(min);
+        }
+        if(this.max != null) {
+            this.max.set(max);
+        }
+    }
+
+    void refreshMachineId(int machineId) {
+        if(this.machineId != null) {
+            this.machineId.set(machineId);
+        }
+    }
+
+    void refreshCompanyName(String companyName) {
+        if(this.companyName != null) {
+            this.companyName.set(companyName);
+        }
+    }
+}
@@ -1,35 +1,66 @@
 package model;
 
+import controller.ViewCache;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Scene;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
 import javafx.stage.Stage;
+import metrics.Metrics;
+import persistence.Journal;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Main method used to launch application. Can be used to preload data into application.
  */
 public class Main extends Application {
+    private static Journal journal; // records inventory changes so they survive restarting the application
+
     /**
-     * Creates stage and launches application GUI. Idea for future extended functionality - the program could be modified so that it reads from and saves data to a network database. This would allow for multiple users to update inventory and would provide protection against data loss.
+     * Creates stage and launches application GUI. Idea for future extended functionality - the program could be modified so that it reads from and saves data to a network database. This would allow for multiple users to update inventory. Inventory is currently protected against data loss by a local journal, which is loaded in the background once the main menu is shown.
      * @param stage
      * @throws IOException
      */
     @Override
     public void start(Stage stage) throws IOException {
-        FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("/view/MainMenu.fxml"));
-        Scene scene = new Scene(fxmlLoader.load());
+        Metrics.install(); // latencies can be watched over JMX while the application runs
+        Inventory.attachToApplicationThread(); // inventory is shown in main menu from now on, so changes from other threads are run on this thread
         stage.setTitle("Inventory Application");
-        stage.setScene(scene);
-        stage.show();
+        ViewCache.show(stage, "MainMenu");
+        ViewCache.prewarm(); // parse add/modify menus in the background so first opening them is as quick as returning to them
+
+        // load saved inventory after main menu is shown; changes are disabled until loading is complete
+        Journal.openInBackground(Path.of(System.getProperty("inventory.dataDir", "inventory-data")), Platform::runLater).whenComplete((openedJournal, exception) -> {
+            if(exception != null) {
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Saved inventory could not be loaded: " + exception.getMessage());
+                alert.showAndWait();
+                Platform.exit();
+                return;
+            }
+            journal = openedJournal;
+            Inventory.setLoading(false);
+        });
     }
 
     /**
-     * Data to be loaded upon application launch can be added here.
+     * Forces journaled inventory changes to disk when application exits.
+     * @throws IOException
+     */
+    @Override
+    public void stop() throws IOException {
+        if(journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Data to be loaded upon application launch can be added here. Inventory saved by previous runs is restored from the journal directory once the main menu is shown (see start()). The journal directory defaults to "inventory-data" and can be changed with the inventory.dataDir system property.
      * @param args
      */
     public static void main(String[] args) {
+        Inventory.setLoading(true);
+
         /*  Sample data - uncomment code to load
 
         Outsourced samplePart1 = new Outsourced(997, "Brakes", 15.00, 10, 5, 15, "Brakes-R-Us");
@@ -0,0 +1,393 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Trigram index over the lower case names of inventory items, used for partial name matching.
+ * Searches may run on several threads while the tracked list is being changed.
+ * @param <T> type of item being indexed
+ */
+final class NameIndex<T> {
+    private static final int GRAM = 3;
+
+    private final Function<T, String> nameOf;
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+    private final PostingTable<T> postings = new PostingTable<>();
+    private ObservableList<T> list;
+    private long nextOrdinal;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    NameIndex(Function<T, String> nameOf) {
+        this.nameOf = nameOf;
+    }
+
+    /**
+     * Keeps index in sync with list.
+     * @param list list to be tracked
+     */
+    void track(ObservableList<T> list) {
+        lock.writeLock().lock();
+        try {
+            this.list = list;
+            for(T item : list) {
+                add(item, nextOrdinal++);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+        list.addListener((ListChangeListener<T>) change -> {
+            lock.writeLock().lock();
+            try {
+                update(change);
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Applies list change to index.
+     * @param change change fired by tracked list
+     */
+    private void update(ListChangeListener.Change<? extends T> change) {
+        boolean reorder = false;
+        while(change.next()) {
+            if(change.wasPermutated()) {
+                reorder = true;
+                continue;
+            }
+            List<? extends T> removed = change.getRemoved();
+            List<? extends T> added = change.getAddedSubList();
+            long[] inherited = null;
+            if(change.wasReplaced() && removed.size() == added.size()) { // replaced items keep their position, and items replaced by themselves are left alone
+                List<T> oldItems = new ArrayList<>();
+                List<T> newItems = new ArrayList<>();
+                inherited = new long[removed.size()];
+                for(int i = 0; i < removed.size(); i++) {
+                    T oldItem = removed.get(i);
+                    T newItem = added.get(i);
+                    if(oldItem != newItem) {
+                        Entry<T> entry = entries.get(oldItem);
+                        inherited[oldItems.size()] = entry == null ? nextOrdinal++ : entry.ordinal;
+                        oldItems.add(oldItem);
+                        newItems.add(newItem);
+                    }
+                }
+                removed = oldItems;
+                added = newItems;
+            }
+            Map<T, Boolean> kept = null; // items both removed and added back, such as items moved by a whole-list replacement, keep their entries
+            if(!removed.isEmpty() && !added.isEmpty()) {
+                kept = new IdentityHashMap<>();
+                for(T item : added) {
+                    kept.put(item, Boolean.TRUE);
+                }
+            }
+            for(T item : removed) {
+                if(kept == null || !kept.containsKey(item)) {
+                    remove(item);
+                }
+            }
+            if(inherited == null && !added.isEmpty() && change.getTo() != change.getList().size()) {
+                reorder = true;
+            }
+            for(int i = 0; i < added.size(); i++) {
+                long ordinal = inherited == null ? nextOrdinal++ : inherited[i];
+                Entry<T> entry = kept == null ? null : entries.get(added.get(i));
+                if(entry != null) {
+                    entry.ordinal = ordinal;
+                }
+                else {
+                    add(added.get(i), ordinal);
+                }
+            }
+        }
+        if(reorder) {
+            renumber();
+        }
+    }
+
+    /**
+     * Re-indexes item under its current name after its name was changed in place.
+     * @param item item in tracked list whose name changed
+     */
+    void rename(T item) {
+        lock.writeLock().lock();
+        try {
+            Entry<T> entry = entries.get(item);
+            if(entry == null) {
+                return;
+            }
+            String name = nameOf.apply(item);
+            if(!entry.lowerName.equals(name == null ? "" : name.toLowerCase())) {
+                add(item, entry.ordinal); // retires old entry
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches for items whose lower case name contains query.
+     * @param query text to search for
+     * @return matching items, in list order
+     */
+    List<T> search(String query) {
+        lock.readLock().lock();
+        try {
+            return find(query);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<T> find(String query) {
+        List<T> results = new ArrayList<>();
+        List<Entry<T>> matches = new ArrayList<>();
+        if(query.length() < GRAM) { // too short to use trigrams, so check every name using cached lower case names
+            for(Entry<T> entry : entries.values()) {
+                if(entry.lowerName.contains(query)) {
+                    matches.add(entry);
+                }
+            }
+        }
+        else {
+            Posting<T> rarest = null;
+            for(long gram : grams(query)) {
+                Posting<T> posting = postings.get(gram);
+                if(posting == null) { // no name contains this trigram, so no name can contain query
+                    return results;
+                }
+                if(rarest == null || posting.size < rarest.size) {
+                    rarest = posting;
+                }
+            }
+            for(int i = 0; i < rarest.size; i++) {
+                Entry<T> entry = rarest.entries[i];
+                if(!entry.removed && entry.lowerName.contains(query)) {
+                    matches.add(entry);
+                }
+            }
+        }
+        matches.sort(Comparator.comparingLong(entry -> entry.ordinal));
+        for(Entry<T> entry : matches) {
+            results.add(entry.item);
+        }
+        return results;
+    }
+
+    private void add(T item, long ordinal) {
+        String name = nameOf.apply(item);
+        Entry<T> entry = new Entry<>(item, name == null ? "" : name.toLowerCase(), ordinal);
+        Entry<T> previous = entries.put(item, entry);
+        if(previous != null) { // same item added to list twice - keep a single entry
+            retire(previous);
+        }
+        for(long gram : grams(entry.lowerName)) {
+            postings.getOrCreate(gram).add(entry);
+        }
+    }
+
+    private void remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if(entry != null) {
+            retire(entry);
+        }
+    }
+
+    /**
+     * Marks entry as removed and compacts any posting list that has become mostly removed entries.
+     */
+    private void retire(Entry<T> entry) {
+        entry.removed = true;
+        for(long gram : grams(entry.lowerName)) {
+            Posting<T> posting = postings.get(gram);
+            if(posting != null && ++posting.removed * 2 > posting.size) {
+                posting.compact();
+                if(posting.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-reads list order after items were inserted out of order or the list was sorted.
+     */
+    private void renumber() {
+        nextOrdinal = 0;
+        for(T item : list) {
+            Entry<T> entry = entries.get(item);
+            if(entry != null) {
+                entry.ordinal = nextOrdinal;
+            }
+            nextOrdinal++;
+        }
+    }
+
+    /**
+     * @param text text to split
+     * @return distinct trigrams of text, each packed into a long
+     */
+    private static long[] grams(String text) {
+        int count = text.length() - GRAM + 1;
+        if(count <= 0) {
+            return new long[0];
+        }
+        long[] grams = new long[count];
+        for(int i = 0; i < count; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 1;
+        for(int i = 1; i < count; i++) {
+            if(grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == count ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final String lowerName;
+        private long ordinal; // position of item relative to other items in list
+        private boolean removed;
+
+        private Entry(T item, String lowerName, long ordinal) {
+            this.item = item;
+            this.lowerName = lowerName;
+            this.ordinal = ordinal;
+        }
+    }
+
+    private static final class Posting<T> {
+        @SuppressWarnings("unchecked")
+        private Entry<T>[] entries = (Entry<T>[]) new Entry<?>[4];
+        private int size;
+        private int removed;
+
+        private void add(Entry<T> entry) {
+            if(size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        private void compact() {
+            int kept = 0;
+            for(int i = 0; i < size; i++) {
+                if(!entries[i].removed) {
+                    entries[kept++] = entries[i];
+                }
+            }
+            Arrays.fill(entries, kept, size, null);
+            size = kept;
+            removed = 0;
+        }
+    }
+
+    /**
+     * Open addressing hash table from packed trigram to posting list.
+     */
+    private static final class PostingTable<T> {
+        private long[] grams = new long[1024];
+        @SuppressWarnings("unchecked")
+        private Posting<T>[] postings = (Posting<T>[]) new Posting<?>[1024]; // null posting marks an empty slot
+        private int size;
+
+        private Posting<T> get(long gram) {
+            int mask = grams.length - 1;
+            for(int slot = mix(gram) & mask; postings[slot] != null; slot = (slot + 1) & mask) {
+                if(grams[slot] == gram) {
+                    return postings[slot];
+                }
+            }
+            return null;
+        }
+
+        private Posting<T> getOrCreate(long gram) {
+            int mask = grams.length - 1;
+            int slot = mix(gram) & mask;
+            while(postings[slot] != null) {
+                if(grams[slot] == gram) {
+                    return postings[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            if((size + 1) * 4 > grams.length * 3) { // keep load factor at or below 75%
+                resize();
+                return getOrCreate(gram);
+            }
+            Posting<T> posting = new Posting<>();
+            grams[slot] = gram;
+            postings[slot] = posting;
+            size++;
+            return posting;
+        }
+
+        private void remove(long gram) {
+            int mask = grams.length - 1;
+            int slot = mix(gram) & mask;
+            while(postings[slot] != null && grams[slot] != gram) {
+                slot = (slot + 1) & mask;
+            }
+            if(postings[slot] == null) {
+                return;
+            }
+            int hole = slot; // shift back following entries in the same probe sequence
+            int next = (hole + 1) & mask;
+            while(postings[next] != null) {
+                int home = mix(grams[next]) & mask;
+                if(((next - home) & mask) >= ((next - hole) & mask)) {
+                    grams[hole] = grams[next];
+                    postings[hole] = postings[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            postings[hole] = null;
+            size--;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void resize() {
+            long[] oldGrams = grams;
+            Posting<T>[] oldPostings = postings;
+            grams = new long[oldGrams.length * 2];
+            postings = (Posting<T>[]) new Posting<?>[oldGrams.length * 2];
+            int mask = grams.length - 1;
+            for(int i = 0; i < oldGrams.length; i++) {
+                if(oldPostings[i] != null) {
+                    int slot = mix(oldGrams[i]) & mask;
+                    while(postings[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    grams[slot] = oldGrams[i];
+                    postings[slot] = oldPostings[i];
+                }
+            }
+        }
+
+        private static int mix(long gram) {
+            long h = gram * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
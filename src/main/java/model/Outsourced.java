@@ -1,14 +1,16 @@
 package model;
 
+import javafx.beans.property.ReadOnlyStringProperty;
+
 /**
- * Used to create, set, and view attributes of outsourced parts.
+ * Used to create, set, and view attributes of outsourced parts. The company name is held as a code in the Suppliers dictionary, so parts from the same company share one copy of its name and can be compared by supplier code.
  */
 public class Outsourced extends Part{
-    private String companyName;
+    private int supplierCode;
 
     public Outsourced(int id, String name, double price, int stock, int min, int max, String companyName) {
         super(id, name, price, stock, min, max);
-        this.companyName = companyName;
+        this.supplierCode = Suppliers.code(companyName);
     }
 
 
@@ -16,13 +18,43 @@ public class Outsourced extends Part{
      * @param companyName company name to set
      */
     public void setCompanyName(String companyName) {
-        this.companyName = companyName;
+        setSupplierCode(Suppliers.code(companyName));
     }
 
     /**
      * @return company name of specified part
      */
     public String getCompanyName() {
-        return companyName;
+        return Suppliers.name(getSupplierCode());
+    }
+
+    /**
+     * @return code of company name in the Suppliers dictionary, equal for parts with equal company names, or Suppliers.NONE if part has no company name
+     */
+    public int getSupplierCode() {
+        return supplierCode;
+    }
+
+    /**
+     * @param supplierCode code of company name to set, as returned by Suppliers.code()
+     */
+    void setSupplierCode(int supplierCode) {
+        this.supplierCode = supplierCode;
+        refreshProperties();
+    }
+
+    /**
+     * @return company name of specified part, as a property that changes with it
+     */
+    public ReadOnlyStringProperty companyNameProperty() {
+        return properties().companyName(getCompanyName());
+    }
+
+    @Override
+    void refreshProperties() {
+        super.refreshProperties();
+        if(hasProperties()) {
+            properties().refreshCompanyName(getCompanyName());
+        }
     }
 }
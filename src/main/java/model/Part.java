@@ -1,11 +1,16 @@
 package model;
 
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
+
 /**
  * Supplied class Part.java
  */
 
 /**
  * Abstract class used by InHouse and Outsourced to create, access, and update parts.
+ * Each value is also available as a read-only JavaFX property, created the first time it is asked for, which follows the setters; table cells bound to these properties redraw themselves when a part is edited in place with Inventory.editPart().
  * @author Philipp Knoche
  */
 public abstract class Part {
@@ -15,7 +20,7 @@ public abstract class Part {
     private int stock;
     private int min;
     private int max;
-
+    private ItemProperties properties; // created when a property is first asked for
     public Part(int id, String name, double price, int stock, int min, int max) {
         this.id = id;
         this.name = name;
@@ -23,6 +28,7 @@ public abstract class Part {
         this.stock = stock;
         this.min = min;
         this.max = max;
+        refreshProperties();
     }
 
 
@@ -31,6 +37,7 @@ public abstract class Part {
      */
     public void setId(int id) {
         this.id = id;
+        refreshProperties();
     }
 
     /**
@@ -38,6 +45,7 @@ public abstract class Part {
      */
     public void setName(String name) {
         this.name = name;
+        refreshProperties();
     }
 
     /**
@@ -45,6 +53,7 @@ public abstract class Part {
      */
     public void setPrice(double price) {
         this.price = price;
+        refreshProperties();
     }
 
     /**
@@ -52,6 +61,7 @@ public abstract class Part {
      */
     public void setStock(int stock) {
         this.stock = stock;
+        refreshProperties();
     }
 
     /**
@@ -59,6 +69,7 @@ public abstract class Part {
      */
     public void setMin(int min) {
         this.min = min;
+        refreshProperties();
     }
 
     /**
@@ -66,6 +77,7 @@ public abstract class Part {
      */
     public void setMax(int max) {
         this.max = max;
+        refreshProperties();
     }
 
     /**
@@ -109,4 +121,69 @@ public abstract class Part {
     public int getMax() {
         return max;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the id, as a property that changes with it
+     */
+    public ReadOnlyIntegerProperty idProperty() {
+        return properties().id(getId());
+    }
+
+    /**
+     * @return the name, as a property that changes with it
+     */
+    public ReadOnlyStringProperty nameProperty() {
+        return properties().name(getName());
+    }
+
+    /**
+     * @return the price, as a property that changes with it
+     */
+    public ReadOnlyDoubleProperty priceProperty() {
+        return properties().price(getPrice());
+    }
+
+    /**
+     * @return the stock, as a property that changes with it
+     */
+    public ReadOnlyIntegerProperty stockProperty() {
+        return properties().stock(getStock());
+    }
+
+    /**
+     * @return the min, as a property that changes with it
+     */
+    public ReadOnlyIntegerProperty minProperty() {
+        return properties().min(getMin());
+    }
+
+    /**
+     * @return the max, as a property that changes with it
+     */
+    public ReadOnlyIntegerProperty maxProperty() {
+        return properties().max(getMax());
+    }
+
+    ItemProperties properties() {
+        if(properties == null) {
+            properties = new ItemProperties(this);
+        }
+        return properties;
+    }
+
+    /**
+     * Pushes current values into properties that have been created. Called by every setter, including those of subclasses that keep their values elsewhere.
+     */
+    void refreshProperties() {
+        if(properties != null) {
+            properties.refresh(getId(), getName(), getPrice(), getStock(), getMin(), getMax());
+        }
+    }
+
+    /**
+     * @return true once any property of this part has been asked for
+     */
+    boolean hasProperties() {
+        return properties != null;
+    }
+}
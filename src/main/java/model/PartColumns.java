@@ -0,0 +1,713 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * List of parts stored in struct-of-arrays form rather than as one object per part. Each field is kept in a primitive array indexed by slot, names are dictionary encoded and company names are stored as supplier codes, so a part costs a few dozen bytes of heap.
+ * Parts are handed out as lightweight InHouse and Outsourced views that read and write the arrays directly. Views are created on demand and are equal when they refer to the same slot.
+ * Slots are never reused. A part that is removed or replaced keeps its slot, so views held elsewhere, such as in a product's associated parts, still read the values the part had, just as a replaced Part object would. Slots of removed parts are reclaimed by compaction once they outnumber live parts; views created before compaction keep reading the old arrays.
+ * Name searches and ID lookups may run on any number of threads while the list is being modified.
+ * Each view carries its own JavaFX properties, so a property follows edits made through the view it came from; other views of the same part read the new values the next time they are asked.
+ */
+final class PartColumns extends InventoryList<Part> {
+    private static final byte IN_HOUSE = 1;
+    private static final byte OUTSOURCED = 2;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_COMPACT_SLOTS = 4096; // do not bother compacting small tables
+
+    private Table table = new Table(INITIAL_CAPACITY);
+    private int[] order = new int[INITIAL_CAPACITY]; // list position -> slot
+    private int size;
+    private final IntTable idSlots = new IntTable(); // part ID -> slot of live part
+    private int[] positions = new int[INITIAL_CAPACITY]; // slot -> list position of part in slot, exact for the first indexed positions
+    private int indexed; // number of leading list positions whose slot is mapped to them in positions; shortened by inserts and removals before its end
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(); // searches take read lock, changes take write lock; waiting changes hold off new searches
+    private volatile int version; // incremented before and after every change, so it is odd while a change is in progress and ID lookups can read without locking
+
+
+    @Override
+    public Part get(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return table.view(this, order[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds position of part from the position of its slot, without creating a view of every element. Parts that are not views of this list are matched by part ID.
+     * Positions after an insert or removal in the middle of the list are mapped again as they are looked up, under write lock, so a lookup costs no more than the shift of the order array that made its position stale.
+     */
+    @Override
+    public int indexOf(Object object) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(object);
+            if(slot < 0) {
+                return -1;
+            }
+            int position = slot < positions.length ? positions[slot] : -1;
+            if(position >= 0 && position < size && order[position] == slot) { // a slot is listed at most once, so a matching position is right even if past indexed
+                return position;
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock(); // positions change but parts do not, so version is left alone
+        try {
+            int slot = slotOf(object); // table may have been compacted meanwhile
+            if(slot < 0) {
+                return -1;
+            }
+            while(indexed < size) {
+                int next = order[indexed];
+                place(next, indexed);
+                if(next == slot) {
+                    return indexed++;
+                }
+                indexed++;
+            }
+            return -1;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return slot of part in current table, or -1 if it has none
+     */
+    private int slotOf(Object object) {
+        if(object instanceof View && ((View) object).table() == table) {
+            return ((View) object).slot();
+        }
+        if(object instanceof Part) { // part added from outside, or view created before compaction
+            return idSlots.get(((Part) object).getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Records position of slot, growing positions to cover every slot of table.
+     */
+    private void place(int slot, int position) {
+        if(slot >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(slot + 1, table.ids.length));
+        }
+        positions[slot] = position;
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        int index = indexOf(object);
+        if(index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return indexOf(object) >= 0;
+    }
+
+    @Override
+    protected void doAdd(int index, Part element) {
+        beginWrite();
+        try {
+            if(index < 0 || index > size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int slot = table.append(element);
+            if(size == order.length) {
+                order = Arrays.copyOf(order, size + (size >> 1));
+            }
+            System.arraycopy(order, index, order, index + 1, size - index);
+            order[index] = slot;
+            size++;
+            idSlots.put(table.ids[slot], slot);
+            if(index == indexed && index == size - 1) { // appended to a fully mapped list
+                place(slot, index);
+                indexed++;
+            }
+            else {
+                indexed = Math.min(indexed, index);
+            }
+        }
+        finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    protected Part doSet(int index, Part element) {
+        beginWrite();
+        try {
+            int oldSlot = order[index];
+            Part oldPart = table.view(this, oldSlot);
+            idSlots.remove(table.ids[oldSlot], oldSlot);
+            int slot = table.append(element);
+            order[index] = slot;
+            idSlots.put(table.ids[slot], slot);
+            place(slot, index);
+            compactIfSparse();
+            return oldPart;
+        }
+        finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    protected Part doRemove(int index) {
+        beginWrite();
+        try {
+            if(index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int slot = order[index];
+            Part removed = table.view(this, slot);
+            idSlots.remove(table.ids[slot], slot);
+            System.arraycopy(order, index + 1, order, index, size - index - 1);
+            size--;
+            indexed = Math.min(indexed, index);
+            compactIfSparse();
+            return removed;
+        }
+        finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Replaces every part at once. Views of this list keep their slot rather than being copied, so putting back parts that were in the list restores them without growing the table.
+     */
+    @Override
+    void setContents(List<? extends Part> contents) {
+        if(size == 0 && contents.isEmpty()) {
+            return;
+        }
+        List<Part> removed = new ArrayList<>(size);
+        beginChange();
+        try {
+            beginWrite();
+            try {
+                for(int i = 0; i < size; i++) {
+                    removed.add(table.view(this, order[i]));
+                }
+                boolean[] used = new boolean[table.slots]; // a view listed twice gets a copy, as it would from add()
+                int[] slots = new int[Math.max(INITIAL_CAPACITY, contents.size())];
+                idSlots.clear();
+                for(int i = 0; i < contents.size(); i++) {
+                    Part part = contents.get(i);
+                    int slot;
+                    if(part instanceof View && ((View) part).table() == table && !used[((View) part).slot()]) {
+                        slot = ((View) part).slot();
+                        used[slot] = true;
+                    }
+                    else {
+                        slot = table.append(part);
+                    }
+                    slots[i] = slot;
+                    idSlots.put(table.ids[slot], slot);
+                    place(slot, i);
+                }
+                order = slots;
+                size = contents.size();
+                indexed = size;
+                modCount++;
+                compactIfSparse();
+            }
+            finally {
+                endWrite();
+            }
+            nextReplace(0, size, removed);
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    /**
+     * @param id part ID to search for
+     * @return view of part with matching ID, or null if no part has that ID
+     */
+    Part lookup(int id) {
+        int seen = version;
+        if((seen & 1) == 0) {
+            Table current = table;
+            byte[] types = current.types; // arrays of a table only grow, so a slot within this array is within any array read later
+            int slot = idSlots.find(id);
+            if(slot >= 0 && slot < types.length && types[slot] != 0) { // guard against reading a table changed under an optimistic read
+                Part part = current.view(this, slot);
+                VarHandle.acquireFence(); // finish reading table before checking version
+                if(version == seen) {
+                    return part;
+                }
+            }
+            else {
+                VarHandle.acquireFence();
+                if(version == seen) {
+                    return null;
+                }
+            }
+        }
+        lock.readLock().lock();
+        try {
+            int slot = idSlots.get(id);
+            return slot < 0 ? null : table.view(this, slot);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches for parts whose lower case name contains query. Each distinct name is checked once against the dictionary, then the name column is scanned for matching codes, so no part objects are created except for results.
+     * @param query lower case text to search for
+     * @return views of matching parts, in list order
+     */
+    List<Part> search(String query) {
+        lock.readLock().lock();
+        try {
+            boolean asciiQuery = true;
+            for(int i = 0; i < query.length(); i++) {
+                if(query.charAt(i) >= 0x80) {
+                    asciiQuery = false;
+                    break;
+                }
+            }
+            StringDictionary names = table.names;
+            boolean[] matches = new boolean[names.size()];
+            for(int code = 0; code < matches.length; code++) {
+                matches[code] = names.lowerCaseContains(code, query, asciiQuery);
+            }
+            boolean matchesNull = query.isEmpty(); // parts without a name are indexed as an empty name
+            List<Part> results = new ArrayList<>();
+            int[] nameCodes = table.nameCodes;
+            for(int i = 0; i < size; i++) {
+                int slot = order[i];
+                int code = nameCodes[slot];
+                if(code < 0 ? matchesNull : matches[code]) {
+                    results.add(table.view(this, slot));
+                }
+            }
+            return results;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return approximate number of bytes of heap used by arrays, dictionaries and ID index, for comparing against object storage
+     */
+    long estimateBytes() {
+        lock.readLock().lock();
+        try {
+            return table.estimateBytes() + (long) (order.length + positions.length) * Integer.BYTES + idSlots.estimateBytes();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies live parts into a new table once most slots belong to removed or replaced parts.
+     */
+    private void compactIfSparse() {
+        int dead = table.slots - size;
+        if(dead < MIN_COMPACT_SLOTS || dead <= size) {
+            return;
+        }
+        Table compacted = new Table(Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+        idSlots.clear();
+        for(int i = 0; i < size; i++) {
+            int slot = compacted.copy(table, order[i]);
+            order[i] = slot;
+            idSlots.put(compacted.ids[slot], slot);
+        }
+        table = compacted;
+        positions = new int[compacted.ids.length];
+        for(int i = 0; i < size; i++) {
+            positions[order[i]] = i;
+        }
+        indexed = size;
+    }
+
+    /**
+     * Parallel arrays holding the fields of every part, indexed by slot.
+     */
+    private static final class Table {
+        private byte[] types;
+        private int[] ids;
+        private int[] nameCodes; // -1 for a part without a name
+        private double[] prices;
+        private int[] stocks;
+        private int[] mins;
+        private int[] maxes;
+        private int[] extras; // machine ID of in house part, supplier code of outsourced part
+        private final StringDictionary names = new StringDictionary();
+        private int slots;
+
+        private Table(int capacity) {
+            types = new byte[capacity];
+            ids = new int[capacity];
+            nameCodes = new int[capacity];
+            prices = new double[capacity];
+            stocks = new int[capacity];
+            mins = new int[capacity];
+            maxes = new int[capacity];
+            extras = new int[capacity];
+        }
+
+        private int append(Part part) {
+            int slot = nextSlot();
+            ids[slot] = part.getId();
+            nameCodes[slot] = encode(names, part.getName());
+            prices[slot] = part.getPrice();
+            stocks[slot] = part.getStock();
+            mins[slot] = part.getMin();
+            maxes[slot] = part.getMax();
+            if(part instanceof Outsourced) {
+                types[slot] = OUTSOURCED;
+                extras[slot] = ((Outsourced) part).getSupplierCode();
+            }
+            else {
+                types[slot] = IN_HOUSE;
+                extras[slot] = part instanceof InHouse ? ((InHouse) part).getMachineId() : 0;
+            }
+            return slot;
+        }
+
+        private int copy(Table source, int sourceSlot) {
+            int slot = nextSlot();
+            types[slot] = source.types[sourceSlot];
+            ids[slot] = source.ids[sourceSlot];
+            nameCodes[slot] = encode(names, decode(source.names, source.nameCodes[sourceSlot]));
+            prices[slot] = source.prices[sourceSlot];
+            stocks[slot] = source.stocks[sourceSlot];
+            mins[slot] = source.mins[sourceSlot];
+            maxes[slot] = source.maxes[sourceSlot];
+            extras[slot] = source.extras[sourceSlot];
+            return slot;
+        }
+
+        private int nextSlot() {
+            if(slots == ids.length) {
+                int capacity = slots + (slots >> 1);
+                types = Arrays.copyOf(types, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                nameCodes = Arrays.copyOf(nameCodes, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                stocks = Arrays.copyOf(stocks, capacity);
+                mins = Arrays.copyOf(mins, capacity);
+                maxes = Arrays.copyOf(maxes, capacity);
+                extras = Arrays.copyOf(extras, capacity);
+            }
+            return slots++;
+        }
+
+        private Part view(PartColumns owner, int slot) {
+            return types[slot] == OUTSOURCED ? new OutsourcedView(owner, this, slot) : new InHouseView(owner, this, slot);
+        }
+
+        private long estimateBytes() {
+            return types.length + (long) ids.length * (6 * Integer.BYTES + Double.BYTES) + names.estimateBytes();
+        }
+
+        private static int encode(StringDictionary dictionary, String string) {
+            return string == null ? -1 : dictionary.encode(string);
+        }
+
+        private static String decode(StringDictionary dictionary, int code) {
+            return code < 0 ? null : dictionary.decode(code);
+        }
+    }
+
+    /**
+     * Common accessors of in house and outsourced views.
+     */
+    private interface View {
+        Table table();
+        int slot();
+    }
+
+    /**
+     * In house part whose fields live in a table slot. Fields inherited from Part are left unused.
+     */
+    private static final class InHouseView extends InHouse implements View {
+        private final PartColumns owner;
+        private final Table table;
+        private final int slot;
+
+        private InHouseView(PartColumns owner, Table table, int slot) {
+            super(0, null, 0, 0, 0, 0, 0);
+            this.owner = owner;
+            this.table = table;
+            this.slot = slot;
+        }
+
+        @Override
+        public Table table() {
+            return table;
+        }
+
+        @Override
+        public int slot() {
+            return slot;
+        }
+
+        @Override
+        public int getId() {
+            return table.ids[slot];
+        }
+
+        @Override
+        public String getName() {
+            return Table.decode(table.names, table.nameCodes[slot]);
+        }
+
+        @Override
+        public double getPrice() {
+            return table.prices[slot];
+        }
+
+        @Override
+        public int getStock() {
+            return table.stocks[slot];
+        }
+
+        @Override
+        public int getMin() {
+            return table.mins[slot];
+        }
+
+        @Override
+        public int getMax() {
+            return table.maxes[slot];
+        }
+
+        @Override
+        public int getMachineId() {
+            return table.extras[slot];
+        }
+
+        @Override
+        public void setId(int id) {
+            owner.changeId(table, slot, id);
+            refreshProperties();
+        }
+
+        @Override
+        public void setName(String name) {
+            owner.encodeInto(table.nameCodes, table.names, slot, name);
+            refreshProperties();
+        }
+
+        @Override
+        public void setPrice(double price) {
+            table.prices[slot] = price;
+            refreshProperties();
+        }
+
+        @Override
+        public void setStock(int stock) {
+            table.stocks[slot] = stock;
+            refreshProperties();
+        }
+
+        @Override
+        public void setMin(int min) {
+            table.mins[slot] = min;
+            refreshProperties();
+        }
+
+        @Override
+        public void setMax(int max) {
+            table.maxes[slot] = max;
+            refreshProperties();
+        }
+
+        @Override
+        public void setMachineId(int machineId) {
+            table.extras[slot] = machineId;
+            refreshProperties();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof InHouseView && ((InHouseView) object).table == table && ((InHouseView) object).slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(table) * 31 + slot;
+        }
+    }
+
+    /**
+     * Outsourced part whose fields live in a table slot. Fields inherited from Part and Outsourced are left unused.
+     */
+    private static final class OutsourcedView extends Outsourced implements View {
+        private final PartColumns owner;
+        private final Table table;
+        private final int slot;
+
+        private OutsourcedView(PartColumns owner, Table table, int slot) {
+            super(0, null, 0, 0, 0, 0, null);
+            this.owner = owner;
+            this.table = table;
+            this.slot = slot;
+        }
+
+        @Override
+        public Table table() {
+            return table;
+        }
+
+        @Override
+        public int slot() {
+            return slot;
+        }
+
+        @Override
+        public int getId() {
+            return table.ids[slot];
+        }
+
+        @Override
+        public String getName() {
+            return Table.decode(table.names, table.nameCodes[slot]);
+        }
+
+        @Override
+        public double getPrice() {
+            return table.prices[slot];
+        }
+
+        @Override
+        public int getStock() {
+            return table.stocks[slot];
+        }
+
+        @Override
+        public int getMin() {
+            return table.mins[slot];
+        }
+
+        @Override
+        public int getMax() {
+            return table.maxes[slot];
+        }
+
+        @Override
+        public int getSupplierCode() {
+            return table.extras[slot];
+        }
+
+        @Override
+        public void setId(int id) {
+            owner.changeId(table, slot, id);
+            refreshProperties();
+        }
+
+        @Override
+        public void setName(String name) {
+            owner.encodeInto(table.nameCodes, table.names, slot, name);
+            refreshProperties();
+        }
+
+        @Override
+        public void setPrice(double price) {
+            table.prices[slot] = price;
+            refreshProperties();
+        }
+
+        @Override
+        public void setStock(int stock) {
+            table.stocks[slot] = stock;
+            refreshProperties();
+        }
+
+        @Override
+        public void setMin(int min) {
+            table.mins[slot] = min;
+            refreshProperties();
+        }
+
+        @Override
+        public void setMax(int max) {
+            table.maxes[slot] = max;
+            refreshProperties();
+        }
+
+        @Override
+        void setSupplierCode(int supplierCode) {
+            table.extras[slot] = supplierCode;
+            refreshProperties();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof OutsourcedView && ((OutsourcedView) object).table == table && ((OutsourcedView) object).slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(table) * 31 + slot;
+        }
+    }
+
+    /**
+     * Changes ID stored in slot, keeping ID index in sync if slot holds a live part.
+     */
+    private void changeId(Table viewTable, int slot, int id) {
+        beginWrite();
+        try {
+            int oldId = viewTable.ids[slot];
+            viewTable.ids[slot] = id;
+            if(viewTable == table && idSlots.get(oldId) == slot) {
+                idSlots.remove(oldId, slot);
+                idSlots.put(id, slot);
+            }
+        }
+        finally {
+            endWrite();
+        }
+    }
+
+    private void beginWrite() {
+        lock.writeLock().lock();
+        version++;
+    }
+
+    private void endWrite() {
+        version++;
+        lock.writeLock().unlock();
+    }
+
+    /**
+     * Stores code of string in column, adding string to dictionary under write lock since dictionaries are shared by all views.
+     */
+    private void encodeInto(int[] column, StringDictionary dictionary, int slot, String string) {
+        beginWrite();
+        try {
+            column[slot] = Table.encode(dictionary, string);
+        }
+        finally {
+            endWrite();
+        }
+    }
+}
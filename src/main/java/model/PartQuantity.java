@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * Line of a product's bill of materials: a part and the number of units of it the product needs, as it stood when the line was read.
+ */
+public final class PartQuantity {
+    private final Part part;
+    private final int quantity;
+
+    PartQuantity(Part part, int quantity) {
+        this.part = part;
+        this.quantity = quantity;
+    }
+
+
+    /**
+     * @return the part
+     */
+    public Part getPart() {
+        return part;
+    }
+
+    /**
+     * @return the number of units of part needed, at least 1
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof PartQuantity && ((PartQuantity) object).part.equals(part) && ((PartQuantity) object).quantity == quantity;
+    }
+
+    @Override
+    public int hashCode() {
+        return part.hashCode() * 31 + quantity;
+    }
+}
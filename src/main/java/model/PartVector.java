@@ -0,0 +1,608 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Immutable list of parts stored as a tree of small arrays, so a changed copy shares every node but the path to the change.
+ * Consecutive listings of equal parts are stored once as a run of a part and its quantity. Indexes count listings; the run methods address runs.
+ */
+final class PartVector {
+    private static final int WIDTH = 32;
+    static final PartVector EMPTY = new PartVector(null);
+
+    private final Node root; // null when empty
+
+
+    private PartVector(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param parts parts to be listed
+     * @return list of parts in the same order
+     */
+    static PartVector of(Collection<? extends Part> parts) {
+        Part[] runParts = new Part[parts.size()];
+        int[] quantities = new int[parts.size()];
+        int runs = 0;
+        for(Part part : parts) {
+            if(runs > 0 && part.equals(runParts[runs - 1])) {
+                quantities[runs - 1]++;
+            }
+            else {
+                runParts[runs] = part;
+                quantities[runs++] = 1;
+            }
+        }
+        return build(runParts, quantities, runs);
+    }
+
+    /**
+     * @param parts parts to be listed
+     * @return list of parts with every listing of a part moved up to its first listing, so each part is a single run
+     */
+    static PartVector grouped(Collection<? extends Part> parts) {
+        Part[] runParts = new Part[parts.size()];
+        int[] quantities = new int[parts.size()];
+        Map<Part, Integer> runOf = new HashMap<>();
+        int runs = 0;
+        for(Part part : parts) {
+            Integer run = runOf.putIfAbsent(part, runs);
+            if(run != null) {
+                quantities[run]++;
+            }
+            else {
+                runParts[runs] = part;
+                quantities[runs++] = 1;
+            }
+        }
+        return build(runParts, quantities, runs);
+    }
+
+    private static PartVector build(Part[] runParts, int[] quantities, int runs) {
+        if(runs == 0) {
+            return EMPTY;
+        }
+        Node[] level = new Node[(runs + WIDTH - 1) / WIDTH];
+        for(int i = 0; i < level.length; i++) {
+            int from = i * WIDTH;
+            int length = Math.min(WIDTH, runs - from);
+            Part[] leafParts = new Part[length];
+            int[] leafQuantities = new int[length];
+            System.arraycopy(runParts, from, leafParts, 0, length);
+            System.arraycopy(quantities, from, leafQuantities, 0, length);
+            level[i] = new Leaf(leafParts, leafQuantities);
+        }
+        while(level.length > 1) {
+            Node[] parents = new Node[(level.length + WIDTH - 1) / WIDTH];
+            for(int i = 0; i < parents.length; i++) {
+                int from = i * WIDTH;
+                Node[] children = new Node[Math.min(WIDTH, level.length - from)];
+                System.arraycopy(level, from, children, 0, children.length);
+                parents[i] = new Branch(children);
+            }
+            level = parents;
+        }
+        return new PartVector(level[0]);
+    }
+
+    /**
+     * @return number of listings, counting each run by its quantity
+     */
+    int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    /**
+     * @return number of runs
+     */
+    int runs() {
+        return root == null ? 0 : root.runs;
+    }
+
+    Part get(int index) {
+        checkIndex(index, size());
+        return root.get(index);
+    }
+
+    /**
+     * @return copy of this list with part at index
+     */
+    PartVector set(int index, Part part) {
+        checkIndex(index, size());
+        return edit(index, true, part, 1);
+    }
+
+    /**
+     * @return copy of this list with quantity listings of part inserted at index, moving later parts up
+     */
+    PartVector insert(int index, Part part, int quantity) {
+        checkIndex(index, size() + 1);
+        if(root == null) {
+            return new PartVector(new Leaf(new Part[] {part}, new int[] {quantity}));
+        }
+        return edit(index, false, part, quantity);
+    }
+
+    /**
+     * @return copy of this list without the part at index
+     */
+    PartVector remove(int index) {
+        checkIndex(index, size());
+        return edit(index, true, null, 0);
+    }
+
+    private PartVector edit(int index, boolean remove, Part part, int quantity) {
+        Node[] nodes = root.edit(index, remove, part, quantity);
+        if(nodes.length == 0) {
+            return EMPTY;
+        }
+        if(nodes.length == 2) {
+            return new PartVector(new Branch(nodes));
+        }
+        Node node = nodes[0];
+        while(node instanceof Branch && ((Branch) node).children.length == 1) { // drop levels left with a single child
+            node = ((Branch) node).children[0];
+        }
+        return new PartVector(node);
+    }
+
+    /**
+     * @return part of run
+     */
+    Part runPart(int run) {
+        checkIndex(run, runs());
+        return root.runPart(run);
+    }
+
+    /**
+     * @return number of listings in run
+     */
+    int runQuantity(int run) {
+        checkIndex(run, runs());
+        return root.runQuantity(run);
+    }
+
+    /**
+     * @return index of the first listing of run, or size() for the run after the last
+     */
+    int runStart(int run) {
+        checkIndex(run, runs() + 1);
+        return run == runs() ? size() : root.runStart(run);
+    }
+
+    /**
+     * @return run holding the listing at index, or runs() for the index after the last
+     */
+    int runOf(int index) {
+        checkIndex(index, size() + 1);
+        return index == size() ? runs() : root.runOf(index);
+    }
+
+    /**
+     * @return first run of a part equal to part, or -1 if there is none
+     */
+    int findRun(Object part) {
+        return root == null ? -1 : root.findRun(part);
+    }
+
+    /**
+     * Passes each run overlapping listings from from to to, with the number of its listings in that range, in order.
+     */
+    void forEachRun(int from, int to, ObjIntConsumer<Part> action) {
+        checkIndex(from, size() + 1);
+        if(to > size() || to < from) {
+            throw new IndexOutOfBoundsException("Range " + from + " to " + to + " out of bounds for length " + size());
+        }
+        if(from < to) {
+            root.forEachRun(from, to, action);
+        }
+    }
+
+    /**
+     * @return read-only view of this list, which never changes as the list is immutable
+     */
+    List<Part> asList() {
+        return new View(this, 0, size());
+    }
+
+    /**
+     * Passes each run in parts, or each group of consecutive equal parts, with its quantity, in order.
+     */
+    static void forEachRun(List<? extends Part> parts, ObjIntConsumer<Part> action) {
+        if(parts instanceof View) {
+            View view = (View) parts;
+            view.vector.forEachRun(view.from, view.to, action);
+            return;
+        }
+        Part run = null;
+        int quantity = 0;
+        for(Part part : parts) {
+            if(quantity > 0 && part.equals(run)) {
+                quantity++;
+                continue;
+            }
+            if(quantity > 0) {
+                action.accept(run, quantity);
+            }
+            run = part;
+            quantity = 1;
+        }
+        if(quantity > 0) {
+            action.accept(run, quantity);
+        }
+    }
+
+    private static void checkIndex(int index, int size) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * Listings from from to to of a vector.
+     */
+    private static final class View extends AbstractList<Part> {
+        private final PartVector vector;
+        private final int from;
+        private final int to;
+
+        private View(PartVector vector, int from, int to) {
+            this.vector = vector;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Part get(int index) {
+            checkIndex(index, size());
+            return vector.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public List<Part> subList(int fromIndex, int toIndex) {
+            if(fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("Range " + fromIndex + " to " + toIndex + " out of bounds for length " + size());
+            }
+            return new View(vector, from + fromIndex, from + toIndex);
+        }
+    }
+
+    private abstract static class Node {
+        final int size; // listings
+        final int runs;
+
+        Node(int size, int runs) {
+            this.size = size;
+            this.runs = runs;
+        }
+
+        abstract Part get(int index);
+
+        /**
+         * Removes the listing at index if remove is true, then inserts quantity listings of part there if it is not null.
+         * @return this node changed, as one node, as two if it had to be split, or as none if it was emptied
+         */
+        abstract Node[] edit(int index, boolean remove, Part part, int quantity);
+
+        abstract Part runPart(int run);
+
+        abstract int runQuantity(int run);
+
+        abstract int runStart(int run);
+
+        abstract int runOf(int index);
+
+        abstract void forEachRun(int from, int to, ObjIntConsumer<Part> action);
+
+        /**
+         * @return first run of this node holding a part equal to part, or -1 if there is none
+         */
+        abstract int findRun(Object part);
+    }
+
+    private static final class Leaf extends Node {
+        private final Part[] parts;
+        private final int[] quantities;
+
+        Leaf(Part[] parts, int[] quantities) {
+            super(sum(quantities), parts.length);
+            this.parts = parts;
+            this.quantities = quantities;
+        }
+
+        private static int sum(int[] quantities) {
+            int sum = 0;
+            for(int quantity : quantities) {
+                sum += quantity;
+            }
+            return sum;
+        }
+
+        @Override
+        Part get(int index) {
+            int run = 0;
+            while(index >= quantities[run]) {
+                index -= quantities[run];
+                run++;
+            }
+            return parts[run];
+        }
+
+        /**
+         * Splits the run holding index, drops the listing there if remove is true and puts part between the two halves.
+         */
+        @Override
+        Node[] edit(int index, boolean remove, Part part, int quantity) {
+            int run = 0;
+            while(run < parts.length && index >= quantities[run]) {
+                index -= quantities[run];
+                run++;
+            }
+            Part[] newParts = new Part[parts.length + 2];
+            int[] newQuantities = new int[parts.length + 2];
+            int runs = 0;
+            for(int i = 0; i < run; i++) {
+                runs = append(newParts, newQuantities, runs, parts[i], quantities[i]);
+            }
+            if(run < parts.length) {
+                runs = append(newParts, newQuantities, runs, parts[run], index);
+            }
+            if(part != null) {
+                runs = append(newParts, newQuantities, runs, part, quantity);
+            }
+            if(run < parts.length) {
+                runs = append(newParts, newQuantities, runs, parts[run], quantities[run] - index - (remove ? 1 : 0));
+            }
+            for(int i = run + 1; i < parts.length; i++) {
+                runs = append(newParts, newQuantities, runs, parts[i], quantities[i]);
+            }
+            if(runs == 0) {
+                return new Node[0];
+            }
+            if(runs <= WIDTH) {
+                return new Node[] {leaf(newParts, newQuantities, 0, runs)};
+            }
+            int half = runs / 2;
+            return new Node[] {leaf(newParts, newQuantities, 0, half), leaf(newParts, newQuantities, half, runs)};
+        }
+
+        /**
+         * Appends quantity listings of part to runs, adding to the last run if it holds an equal part.
+         * @return number of runs now
+         */
+        private static int append(Part[] parts, int[] quantities, int runs, Part part, int quantity) {
+            if(quantity == 0) {
+                return runs;
+            }
+            if(runs > 0 && parts[runs - 1].equals(part)) {
+                quantities[runs - 1] += quantity;
+                return runs;
+            }
+            parts[runs] = part;
+            quantities[runs] = quantity;
+            return runs + 1;
+        }
+
+        private static Leaf leaf(Part[] parts, int[] quantities, int from, int to) {
+            Part[] leafParts = new Part[to - from];
+            int[] leafQuantities = new int[to - from];
+            System.arraycopy(parts, from, leafParts, 0, leafParts.length);
+            System.arraycopy(quantities, from, leafQuantities, 0, leafQuantities.length);
+            return new Leaf(leafParts, leafQuantities);
+        }
+
+        @Override
+        Part runPart(int run) {
+            return parts[run];
+        }
+
+        @Override
+        int runQuantity(int run) {
+            return quantities[run];
+        }
+
+        @Override
+        int runStart(int run) {
+            int start = 0;
+            for(int i = 0; i < run; i++) {
+                start += quantities[i];
+            }
+            return start;
+        }
+
+        @Override
+        int runOf(int index) {
+            int run = 0;
+            while(index >= quantities[run]) {
+                index -= quantities[run];
+                run++;
+            }
+            return run;
+        }
+
+        @Override
+        void forEachRun(int from, int to, ObjIntConsumer<Part> action) {
+            int start = 0;
+            for(int i = 0; i < parts.length && start < to; i++) {
+                int end = start + quantities[i];
+                if(end > from) {
+                    action.accept(parts[i], Math.min(end, to) - Math.max(start, from));
+                }
+                start = end;
+            }
+        }
+
+        @Override
+        int findRun(Object part) {
+            for(int i = 0; i < parts.length; i++) {
+                if(parts[i].equals(part)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class Branch extends Node {
+        private final Node[] children;
+
+        Branch(Node[] children) {
+            super(sizeOf(children), runsOf(children));
+            this.children = children;
+        }
+
+        private static int sizeOf(Node[] children) {
+            int size = 0;
+            for(Node child : children) {
+                size += child.size;
+            }
+            return size;
+        }
+
+        private static int runsOf(Node[] children) {
+            int runs = 0;
+            for(Node child : children) {
+                runs += child.runs;
+            }
+            return runs;
+        }
+
+        @Override
+        Part get(int index) {
+            Node node = this;
+            while(node instanceof Branch) {
+                Node[] nodes = ((Branch) node).children;
+                int child = 0;
+                while(index >= nodes[child].size) {
+                    index -= nodes[child].size;
+                    child++;
+                }
+                node = nodes[child];
+            }
+            return node.get(index);
+        }
+
+        @Override
+        Node[] edit(int index, boolean remove, Part part, int quantity) {
+            int child = 0;
+            if(remove) {
+                while(index >= children[child].size) {
+                    index -= children[child].size;
+                    child++;
+                }
+            }
+            else {
+                while(child < children.length - 1 && index > children[child].size) { // an index at the end of a child appends to it
+                    index -= children[child].size;
+                    child++;
+                }
+            }
+            Node[] replacement = children[child].edit(index, remove, part, quantity);
+            Node[] copy = new Node[children.length + replacement.length - 1];
+            System.arraycopy(children, 0, copy, 0, child);
+            System.arraycopy(replacement, 0, copy, child, replacement.length);
+            System.arraycopy(children, child + 1, copy, child + replacement.length, children.length - child - 1);
+            if(copy.length == 0) {
+                return copy;
+            }
+            if(copy.length <= WIDTH) {
+                return new Node[] {new Branch(copy)};
+            }
+            int half = copy.length / 2;
+            Node[] left = new Node[half];
+            Node[] right = new Node[copy.length - half];
+            System.arraycopy(copy, 0, left, 0, half);
+            System.arraycopy(copy, half, right, 0, right.length);
+            return new Node[] {new Branch(left), new Branch(right)};
+        }
+
+        @Override
+        Part runPart(int run) {
+            int child = childOfRun(run);
+            return children[child].runPart(run - runsBefore(child));
+        }
+
+        @Override
+        int runQuantity(int run) {
+            int child = childOfRun(run);
+            return children[child].runQuantity(run - runsBefore(child));
+        }
+
+        @Override
+        int runStart(int run) {
+            int start = 0;
+            int child = 0;
+            while(run >= children[child].runs) {
+                run -= children[child].runs;
+                start += children[child].size;
+                child++;
+            }
+            return start + children[child].runStart(run);
+        }
+
+        @Override
+        int runOf(int index) {
+            int run = 0;
+            int child = 0;
+            while(index >= children[child].size) {
+                index -= children[child].size;
+                run += children[child].runs;
+                child++;
+            }
+            return run + children[child].runOf(index);
+        }
+
+        private int childOfRun(int run) {
+            int child = 0;
+            while(run >= children[child].runs) {
+                run -= children[child].runs;
+                child++;
+            }
+            return child;
+        }
+
+        private int runsBefore(int child) {
+            int runs = 0;
+            for(int i = 0; i < child; i++) {
+                runs += children[i].runs;
+            }
+            return runs;
+        }
+
+        @Override
+        void forEachRun(int from, int to, ObjIntConsumer<Part> action) {
+            int start = 0;
+            for(int i = 0; i < children.length && start < to; i++) {
+                int end = start + children[i].size;
+                if(end > from) {
+                    children[i].forEachRun(Math.max(from, start) - start, Math.min(to, end) - start, action);
+                }
+                start = end;
+            }
+        }
+
+        @Override
+        int findRun(Object part) {
+            int runs = 0;
+            for(Node child : children) {
+                int run = child.findRun(part);
+                if(run >= 0) {
+                    return runs + run;
+                }
+                runs += child.runs;
+            }
+            return -1;
+        }
+    }
+}
@@ -1,28 +1,36 @@
 package model;
 
-import javafx.collections.FXCollections;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.collections.ObservableList;
 
 /**
  * Contains methods for viewing and modifying products.
+ * Each value is also available as a read-only JavaFX property, created the first time it is asked for, which follows the setters; table cells bound to these properties redraw themselves when a product is edited in place with Inventory.editProduct().
  */
 public class Product {
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    private final AssociatedParts associatedParts;
     private int id;
     private String name;
     private double price;
     private int stock;
     private int min;
     private int max;
+    private ItemProperties properties; // created when a property is first asked for
 
+    /**
+     * @param associatedParts parts associated with product; a list from editAssociatedParts() or new AssociatedParts() becomes the product's own list, and any other list is copied with the listings of each part grouped into one line
+     */
     public Product(ObservableList<Part> associatedParts, int id, String name, double price, int stock, int min, int max) {
-        this.associatedParts = associatedParts;
+        this.associatedParts = associatedParts instanceof AssociatedParts ? (AssociatedParts) associatedParts : new AssociatedParts(associatedParts);
         this.id = id;
         this.name = name;
         this.price = price;
         this.stock = stock;
         this.min = min;
         this.max = max;
+        refreshProperties();
     }
 
 
@@ -31,6 +39,7 @@ public class Product {
      */
     public void setId(int id) {
         this.id = id;
+        refreshProperties();
     }
 
     /**
@@ -38,6 +47,7 @@ public class Product {
      */
     public void setName(String name) {
         this.name = name;
+        refreshProperties();
     }
 
     /**
@@ -45,6 +55,7 @@ public class Product {
      */
     public void setPrice(double price) {
         this.price = price;
+        refreshProperties();
     }
 
     /**
@@ -52,6 +63,7 @@ public class Product {
      */
     public void setStock(int stock) {
         this.stock = stock;
+        refreshProperties();
     }
 
     /**
@@ -59,6 +71,7 @@ public class Product {
      */
     public void setMin(int min) {
         this.min = min;
+        refreshProperties();
     }
 
     /**
@@ -66,6 +79,7 @@ public class Product {
      */
     public void setMax(int max) {
         this.max = max;
+        refreshProperties();
     }
 
     /**
@@ -111,26 +125,116 @@ public class Product {
     }
 
     /**
+     * Adds one unit of part to the product's bill of materials, after any units of it already associated.
      * @param part the associated part to be added
      */
     public void addAssociatedPart(Part part){
-        associatedParts = getAllAssociatedParts();
-        associatedParts.add(part);
+        associatedParts.increment(part);
     }
 
     /**
+     * Removes one unit of part from the product's bill of materials.
      * @param selectedAssociatedPart the associated part to be deleted
      * @return true if associated product was successfully deleted; false otherwise
      */
     public boolean deleteAssociatedPart(Part selectedAssociatedPart){
-        associatedParts = getAllAssociatedParts();
         return associatedParts.remove(selectedAssociatedPart);
     }
 
     /**
-     * @return list of parts associated with product
+     * @return list of parts associated with product, listing a part once for each unit of it needed
      */
     public ObservableList<Part> getAllAssociatedParts(){
         return associatedParts;
     }
+
+    /**
+     * @return bill of materials of product, each associated part with the number of units of it needed, which follows changes to the associated parts
+     */
+    public ObservableList<PartQuantity> getAssociatedPartQuantities() {
+        return associatedParts.lines();
+    }
+
+    /**
+     * @return associated parts, for indexes that roll them up a line at a time
+     */
+    AssociatedParts associatedParts() {
+        return associatedParts;
+    }
+
+    /**
+     * Copies the list of associated parts for editing, in constant time whatever its size. The copy shares its parts with this product's list, so changing it leaves the product as it is, and a product built around it can be saved with Inventory.editProduct() in time proportional to the number of changes made.
+     * @return copy of list of parts associated with product
+     */
+    public AssociatedParts editAssociatedParts() {
+        return associatedParts.fork();
+    }
+
+    /**
+     * Makes associated parts match parts, replaying the changes made to it if it was copied from them by editAssociatedParts(), or replacing every part otherwise.
+     * @param parts new associated parts
+     */
+    void replaceAssociatedParts(ObservableList<Part> parts) {
+        if(parts == associatedParts) {
+            return;
+        }
+        if(!(parts instanceof AssociatedParts) || !associatedParts.replay((AssociatedParts) parts)) {
+            associatedParts.setAll(parts);
+        }
+    }
+
+    /**
+     * @return the product id, as a property that changes with it
+     */
+    public ReadOnlyIntegerProperty idProperty() {
+        return properties().id(id);
+    }
+
+    /**
+     * @return the product name, as a property that changes with it
+     */
+    public ReadOnlyStringProperty nameProperty() {
+        return properties().name(name);
+    }
+
+    /**
+     * @return the product price, as a property that changes with it
+     */
+    public ReadOnlyDoubleProperty priceProperty() {
+        return properties().price(price);
+    }
+
+    /**
+     * @return the amount of product stock/inventory, as a property that changes with it
+     */
+    public ReadOnlyIntegerProperty stockProperty() {
+        return properties().stock(stock);
+    }
+
+    /**
+     * @return the minimum amount of product stock/inventory, as a property that changes with it
+     */
+    public ReadOnlyIntegerProperty minProperty() {
+        return properties().min(min);
+    }
+
+    /**
+     * @return the maximum amount of product stock/inventory, as a property that changes with it
+     */
+    public ReadOnlyIntegerProperty maxProperty() {
+        return properties().max(max);
+    }
+
+    private ItemProperties properties() {
+        if(properties == null) {
+            properties = new ItemProperties(this);
+        }
+        return properties;
+    }
+
+    private void refreshProperties() {
+        if(properties != null) {
+            properties.refresh(id, name, price, stock, min, max);
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package model;
+
+/**
+ * Line of a margin report: a product's price against the summed price of its associated parts, as they stood when the report was made.
+ */
+public final class ProductMargin {
+    private final Product product;
+    private final double price;
+    private final double componentCost;
+
+    ProductMargin(Product product, double price, double componentCost) {
+        this.product = product;
+        this.price = price;
+        this.componentCost = componentCost;
+    }
+
+
+    /**
+     * @return the product
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * @return the product price
+     */
+    public double getPrice() {
+        return price;
+    }
+
+    /**
+     * @return the summed price of the product's associated parts, at their price in inventory
+     */
+    public double getComponentCost() {
+        return componentCost;
+    }
+
+    /**
+     * @return the product price less its component cost, which is negative if parts cost more than the product sells for
+     */
+    public double getMargin() {
+        return price - componentCost;
+    }
+}
@@ -0,0 +1,374 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sorted index of the items of an inventory list by a numeric key, such as price or stock. Items with equal keys are ordered by ID.
+ * Follows the tracked list; items changed in place must be passed to edited().
+ * Lookups may run on any thread while the list is being changed.
+ * @param <T> type of item being indexed
+ */
+final class SortedIndex<T> {
+    private static final int CHUNK_SIZE = 512;
+    private static final int FILL_SIZE = CHUNK_SIZE * 3 / 4; // entries per chunk when filled from list, leaving room to insert
+
+    private final ToIntFunction<T> id;
+    private final ToLongFunction<T> key;
+    private long[][] keys = new long[0][];
+    private int[][] ids = new int[0][];
+    private int[] sizes = new int[0];
+    private int chunks;
+    private int size;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * @param id function returning the ID of an item
+     * @param key function returning the key of an item, where keys of items sort in the order of their signed long values
+     */
+    SortedIndex(ToIntFunction<T> id, ToLongFunction<T> key) {
+        this.id = id;
+        this.key = key;
+    }
+
+    /**
+     * @param value a double
+     * @return key that sorts in the same order as value, with -0.0 equal to 0.0
+     */
+    static long keyOf(double value) {
+        long bits = Double.doubleToLongBits(value + 0.0);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Fills index from list, then keeps it in sync with list. Must be called on the thread that changes the list.
+     * @param list list to be tracked
+     */
+    void track(ObservableList<T> list) {
+        lock.writeLock().lock();
+        try {
+            fill(list);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+        list.addListener((ListChangeListener<T>) change -> {
+            lock.writeLock().lock();
+            try {
+                int changed = 0;
+                while(change.next()) {
+                    changed += change.getRemovedSize() + change.getAddedSize();
+                }
+                if(changed > Math.max(CHUNK_SIZE, size / 8)) {
+                    fill(list);
+                    return;
+                }
+                change.reset();
+                while(change.next()) {
+                    if(change.wasPermutated() || change.wasUpdated()) {
+                        continue;
+                    }
+                    List<? extends T> removed = change.getRemoved();
+                    List<? extends T> added = change.getAddedSubList();
+                    for(int i = 0; i < removed.size(); i++) {
+                        T item = removed.get(i);
+                        if(i >= added.size() || item != added.get(i)) { // items replaced by themselves, as in a whole-list replacement, are already indexed
+                            remove(key.applyAsLong(item), id.applyAsInt(item));
+                        }
+                    }
+                    for(int i = 0; i < added.size(); i++) {
+                        T item = added.get(i);
+                        if(i >= removed.size() || item != removed.get(i)) {
+                            insert(key.applyAsLong(item), id.applyAsInt(item));
+                        }
+                    }
+                }
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Moves an item in list that was changed in place.
+     * @param before copy of item holding its values before it was changed
+     * @param item item holding its values now
+     */
+    void edited(T before, T item) {
+        long oldKey = key.applyAsLong(before);
+        long newKey = key.applyAsLong(item);
+        if(oldKey == newKey && id.applyAsInt(before) == id.applyAsInt(item)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(oldKey, id.applyAsInt(before));
+            insert(newKey, id.applyAsInt(item));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param from lowest key to include
+     * @param to highest key to include
+     * @return IDs of items with keys from from to to, in key order
+     */
+    int[] idsBetween(long from, long to) {
+        lock.readLock().lock();
+        try {
+            int chunk = chunkFor(from, Integer.MIN_VALUE);
+            if(chunk < 0 || from > to) {
+                return new int[0];
+            }
+            int position = search(chunk, from, Integer.MIN_VALUE);
+            int[] found = new int[16];
+            int count = 0;
+            for(; chunk < chunks; chunk++, position = 0) {
+                for(; position < sizes[chunk]; position++) {
+                    if(keys[chunk][position] > to) {
+                        return Arrays.copyOf(found, count);
+                    }
+                    if(count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = ids[chunk][position];
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param descending true for largest keys first
+     * @return IDs of every item in key order, with items of equal key in ID order either way
+     */
+    int[] ids(boolean descending) {
+        lock.readLock().lock();
+        try {
+            int[] all = new int[size];
+            int count = 0;
+            for(int chunk = 0; chunk < chunks; chunk++) {
+                System.arraycopy(ids[chunk], 0, all, count, sizes[chunk]);
+                count += sizes[chunk];
+            }
+            if(descending) {
+                reverseKeepingTies(all);
+            }
+            return all;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reverses IDs so keys descend, keeping equal keys in ID order. Called with a lock held.
+     */
+    private void reverseKeepingTies(int[] all) {
+        int out = 0;
+        int chunk = chunks - 1;
+        int position = chunk >= 0 ? sizes[chunk] - 1 : -1;
+        while(chunk >= 0) {
+            long runKey = keys[chunk][position];
+            int runEnd = out;
+            while(chunk >= 0 && keys[chunk][position] == runKey) {
+                all[runEnd++] = ids[chunk][position];
+                if(--position < 0 && --chunk >= 0) {
+                    position = sizes[chunk] - 1;
+                }
+            }
+            for(int i = out, j = runEnd - 1; i < j; i++, j--) { // run was read backwards, highest ID first
+                int swap = all[i];
+                all[i] = all[j];
+                all[j] = swap;
+            }
+            out = runEnd;
+        }
+    }
+
+    private void fill(List<T> list) {
+        int count = list.size();
+        long[] allKeys = new long[count];
+        int[] allIds = new int[count];
+        for(int i = 0; i < count; i++) {
+            T item = list.get(i);
+            allKeys[i] = key.applyAsLong(item);
+            allIds[i] = id.applyAsInt(item);
+        }
+        int[] order = sort(allKeys, allIds);
+        chunks = (count + FILL_SIZE - 1) / FILL_SIZE;
+        keys = new long[Math.max(chunks, 1)][];
+        ids = new int[Math.max(chunks, 1)][];
+        sizes = new int[Math.max(chunks, 1)];
+        for(int chunk = 0; chunk < chunks; chunk++) {
+            keys[chunk] = new long[CHUNK_SIZE];
+            ids[chunk] = new int[CHUNK_SIZE];
+            int from = chunk * FILL_SIZE;
+            sizes[chunk] = Math.min(FILL_SIZE, count - from);
+            for(int i = 0; i < sizes[chunk]; i++) {
+                keys[chunk][i] = allKeys[order[from + i]];
+                ids[chunk][i] = allIds[order[from + i]];
+            }
+        }
+        size = count;
+    }
+
+    /**
+     * Stable merge sort of positions by key, then ID.
+     * @return positions 0 to keys.length - 1, in sorted order
+     */
+    private static int[] sort(long[] keys, int[] ids) {
+        int count = keys.length;
+        int[] order = new int[count];
+        for(int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        int[] merged = new int[count];
+        for(int width = 1; width < count; width *= 2) {
+            for(int from = 0; from < count; from += 2 * width) {
+                int middle = Math.min(from + width, count);
+                int to = Math.min(from + 2 * width, count);
+                int left = from;
+                int right = middle;
+                int out = from;
+                while(left < middle && right < to) {
+                    merged[out++] = compare(keys[order[right]], ids[order[right]], keys[order[left]], ids[order[left]]) < 0 ? order[right++] : order[left++];
+                }
+                while(left < middle) {
+                    merged[out++] = order[left++];
+                }
+                while(right < to) {
+                    merged[out++] = order[right++];
+                }
+            }
+            int[] swap = order;
+            order = merged;
+            merged = swap;
+        }
+        return order;
+    }
+
+    private static int compare(long key1, int id1, long key2, int id2) {
+        int byKey = Long.compare(key1, key2);
+        return byKey != 0 ? byKey : Integer.compare(id1, id2);
+    }
+
+    /**
+     * @return first chunk whose last entry is at or after key and ID, the last chunk if there is none, or -1 if index is empty
+     */
+    private int chunkFor(long entryKey, int entryId) {
+        int low = 0;
+        int high = chunks - 1;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            int last = sizes[middle] - 1;
+            if(compare(keys[middle][last], ids[middle][last], entryKey, entryId) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return chunks == 0 ? -1 : low;
+    }
+
+    /**
+     * @return position of first entry in chunk at or after key and ID
+     */
+    private int search(int chunk, long entryKey, int entryId) {
+        int low = 0;
+        int high = sizes[chunk];
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(compare(keys[chunk][middle], ids[chunk][middle], entryKey, entryId) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void insert(long entryKey, int entryId) {
+        int chunk = chunkFor(entryKey, entryId);
+        if(chunk < 0) {
+            addChunk(0);
+            chunk = 0;
+        }
+        if(sizes[chunk] == CHUNK_SIZE) { // split full chunk in half, then insert into the half the entry belongs in
+            addChunk(chunk + 1);
+            int half = CHUNK_SIZE / 2;
+            System.arraycopy(keys[chunk], half, keys[chunk + 1], 0, CHUNK_SIZE - half);
+            System.arraycopy(ids[chunk], half, ids[chunk + 1], 0, CHUNK_SIZE - half);
+            sizes[chunk] = half;
+            sizes[chunk + 1] = CHUNK_SIZE - half;
+            if(compare(keys[chunk][half - 1], ids[chunk][half - 1], entryKey, entryId) < 0) {
+                chunk++;
+            }
+        }
+        int position = search(chunk, entryKey, entryId);
+        System.arraycopy(keys[chunk], position, keys[chunk], position + 1, sizes[chunk] - position);
+        System.arraycopy(ids[chunk], position, ids[chunk], position + 1, sizes[chunk] - position);
+        keys[chunk][position] = entryKey;
+        ids[chunk][position] = entryId;
+        sizes[chunk]++;
+        size++;
+    }
+
+    private void remove(long entryKey, int entryId) {
+        int chunk = chunkFor(entryKey, entryId);
+        if(chunk < 0) {
+            return;
+        }
+        int position = search(chunk, entryKey, entryId);
+        if(position == sizes[chunk] || keys[chunk][position] != entryKey || ids[chunk][position] != entryId) {
+            return;
+        }
+        System.arraycopy(keys[chunk], position + 1, keys[chunk], position, sizes[chunk] - position - 1);
+        System.arraycopy(ids[chunk], position + 1, ids[chunk], position, sizes[chunk] - position - 1);
+        sizes[chunk]--;
+        size--;
+        if(sizes[chunk] == 0) {
+            System.arraycopy(keys, chunk + 1, keys, chunk, chunks - chunk - 1);
+            System.arraycopy(ids, chunk + 1, ids, chunk, chunks - chunk - 1);
+            System.arraycopy(sizes, chunk + 1, sizes, chunk, chunks - chunk - 1);
+            chunks--;
+            keys[chunks] = null;
+            ids[chunks] = null;
+        }
+    }
+
+    /**
+     * Inserts an empty chunk at index.
+     */
+    private void addChunk(int index) {
+        if(chunks == keys.length) {
+            int capacity = Math.max(4, chunks * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, chunks - index);
+        System.arraycopy(ids, index, ids, index + 1, chunks - index);
+        System.arraycopy(sizes, index, sizes, index + 1, chunks - index);
+        keys[index] = new long[CHUNK_SIZE];
+        ids[index] = new int[CHUNK_SIZE];
+        sizes[index] = 0;
+        chunks++;
+    }
+}
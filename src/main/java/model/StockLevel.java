@@ -0,0 +1,26 @@
+package model;
+
+/**
+ * Where the stock of a part or product stands against its min and max.
+ */
+public enum StockLevel {
+    /** stock is at or below min, so item should be reordered */
+    LOW,
+    /** stock is above min and at or below max */
+    NORMAL,
+    /** stock is above max */
+    OVER;
+
+    /**
+     * @param stock amount of stock/inventory
+     * @param min minimum amount of stock/inventory
+     * @param max maximum amount of stock/inventory
+     * @return stock level of an item with these values
+     */
+    public static StockLevel of(int stock, int min, int max) {
+        if(stock <= min) {
+            return LOW;
+        }
+        return stock > max ? OVER : NORMAL;
+    }
+}
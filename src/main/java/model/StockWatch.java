@@ -0,0 +1,259 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Index of the items of an inventory list whose stock is low or over, each ordered by how far its stock is past the threshold.
+ * Follows the tracked list; items changed in place must be passed to changed(). Changes of stock level are recorded until drained.
+ * Lookups may run on any thread while the list is being changed.
+ * @param <T> type of item being indexed
+ */
+final class StockWatch<T> {
+    private static final Comparator<Entry> WORST_FIRST = Comparator.<Entry>comparingInt(entry -> -entry.distance).thenComparingInt(entry -> entry.id);
+
+    private final IntFunction<T> lookup;
+    private final ToIntFunction<T> id;
+    private final ToIntFunction<T> stock;
+    private final ToIntFunction<T> min;
+    private final ToIntFunction<T> max;
+    private final Map<Integer, Entry> entries = new HashMap<>(); // item ID -> entry, for items at LOW or OVER only
+    private final NavigableSet<Entry> low = new TreeSet<>(WORST_FIRST);
+    private final NavigableSet<Entry> over = new TreeSet<>(WORST_FIRST);
+    private final Map<Integer, Crossing> crossings = new LinkedHashMap<>(); // item ID -> level change not yet drained, in the order items first changed
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * @param lookup function returning the item in list with an ID, or null if there is none
+     * @param id function returning the ID of an item
+     * @param stock function returning the stock of an item
+     * @param min function returning the min of an item
+     * @param max function returning the max of an item
+     */
+    StockWatch(IntFunction<T> lookup, ToIntFunction<T> id, ToIntFunction<T> stock, ToIntFunction<T> min, ToIntFunction<T> max) {
+        this.lookup = lookup;
+        this.id = id;
+        this.stock = stock;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Keeps index in sync with list.
+     * @param list list to be tracked
+     */
+    void track(ObservableList<T> list) {
+        lock.writeLock().lock();
+        try {
+            for(T item : list) {
+                put(item);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+        list.addListener((ListChangeListener<T>) change -> {
+            lock.writeLock().lock();
+            try {
+                while(change.next()) {
+                    if(change.wasPermutated() || change.wasUpdated()) {
+                        continue;
+                    }
+                    Map<Integer, StockLevel> removed = new HashMap<>(); // level of each removed item, for items added back under the same ID
+                    for(T item : change.getRemoved()) {
+                        int itemId = id.applyAsInt(item);
+                        removed.put(itemId, remove(itemId));
+                    }
+                    for(T item : change.getAddedSubList()) {
+                        StockLevel before = removed.remove(id.applyAsInt(item));
+                        StockLevel after = put(item);
+                        if(before != null) {
+                            crossed(id.applyAsInt(item), before, after);
+                        }
+                    }
+                    for(int itemId : removed.keySet()) { // items that left the list are reported as deleted, not as changing level
+                        crossings.remove(itemId);
+                    }
+                }
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Re-indexes an item in list whose stock, min or max was changed in place.
+     * @param item item that was changed
+     */
+    void changed(T item) {
+        lock.writeLock().lock();
+        try {
+            StockLevel before = remove(id.applyAsInt(item));
+            crossed(id.applyAsInt(item), before, put(item));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param limit largest number of items to return
+     * @return items with LOW stock, furthest below min first, then by ID
+     */
+    List<T> low(int limit) {
+        return first(low, limit);
+    }
+
+    /**
+     * @param limit largest number of items to return
+     * @return items with OVER stock, furthest above max first, then by ID
+     */
+    List<T> over(int limit) {
+        return first(over, limit);
+    }
+
+    /**
+     * Hands every level change recorded since the last call to listener, and forgets them.
+     * @param listener called with each item whose level changed, its level before the first change and its level now
+     */
+    void drain(Listener<T> listener) {
+        List<Crossing> drained;
+        lock.writeLock().lock();
+        try {
+            if(crossings.isEmpty()) {
+                return;
+            }
+            drained = new ArrayList<>(crossings.values());
+            crossings.clear();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+        for(Crossing crossing : drained) {
+            T item = lookup.apply(crossing.id);
+            if(crossing.from != crossing.to && item != null) {
+                listener.levelChanged(item, crossing.from, crossing.to);
+            }
+        }
+    }
+
+    private List<T> first(NavigableSet<Entry> set, int limit) {
+        int[] ids;
+        lock.readLock().lock();
+        try {
+            ids = new int[Math.min(limit, set.size())];
+            Iterator<Entry> iterator = set.iterator();
+            for(int i = 0; i < ids.length; i++) {
+                ids[i] = iterator.next().id;
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        List<T> items = new ArrayList<>(ids.length);
+        for(int itemId : ids) { // looked up after releasing lock, as looking up may wait for the list, which may be waiting for this index
+            T item = lookup.apply(itemId);
+            if(item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Indexes item if its stock is low or over. Called with write lock held.
+     * @return stock level of item
+     */
+    private StockLevel put(T item) {
+        int itemStock = stock.applyAsInt(item);
+        int itemMin = min.applyAsInt(item);
+        int itemMax = max.applyAsInt(item);
+        StockLevel level = StockLevel.of(itemStock, itemMin, itemMax);
+        if(level == StockLevel.NORMAL) {
+            return level;
+        }
+        Entry entry = new Entry(id.applyAsInt(item), level, level == StockLevel.LOW ? itemMin - itemStock : itemStock - itemMax);
+        Entry replaced = entries.put(entry.id, entry);
+        if(replaced != null) { // another item with the same ID, which should already have been removed
+            setOf(replaced.level).remove(replaced);
+        }
+        setOf(level).add(entry);
+        return level;
+    }
+
+    /**
+     * Removes item with ID from index. Called with write lock held.
+     * @return stock level item was indexed at
+     */
+    private StockLevel remove(int itemId) {
+        Entry entry = entries.remove(itemId);
+        if(entry == null) {
+            return StockLevel.NORMAL;
+        }
+        setOf(entry.level).remove(entry);
+        return entry.level;
+    }
+
+    private void crossed(int itemId, StockLevel from, StockLevel to) {
+        Crossing crossing = crossings.get(itemId);
+        if(crossing == null) {
+            if(from != to) {
+                crossings.put(itemId, new Crossing(itemId, from, to));
+            }
+            return;
+        }
+        crossing.to = to;
+    }
+
+    private NavigableSet<Entry> setOf(StockLevel level) {
+        return level == StockLevel.LOW ? low : over;
+    }
+
+    /**
+     * Called with an item whose stock level changed.
+     */
+    @FunctionalInterface
+    interface Listener<T> {
+        void levelChanged(T item, StockLevel from, StockLevel to);
+    }
+
+    private static final class Entry {
+        private final int id;
+        private final StockLevel level;
+        private final int distance; // how far stock is below min or above max
+
+        private Entry(int id, StockLevel level, int distance) {
+            this.id = id;
+            this.level = level;
+            this.distance = distance;
+        }
+    }
+
+    private static final class Crossing {
+        private final int id;
+        private final StockLevel from;
+        private StockLevel to;
+
+        private Crossing(int id, StockLevel from, StockLevel to) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
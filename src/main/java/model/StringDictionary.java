@@ -0,0 +1,136 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dictionary encoding of strings into int codes. Each distinct string is stored once, as UTF-8 bytes in a shared byte array, so encoded strings need no String object per use. Codes are assigned in order starting at 0 and are never reused. Not thread-safe.
+ */
+final class StringDictionary {
+    private byte[] bytes = new byte[1024]; // UTF-8 bytes of every string, back to back
+    private int used;
+    private int[] offsets = new int[17]; // offsets[code] is start of string, offsets[code + 1] is its end
+    private boolean[] ascii = new boolean[16]; // whether string is plain ASCII, so it can be matched without decoding
+    private int size;
+    private int[] table = new int[32]; // hash table of code + 1, 0 marks an empty slot
+
+
+    /**
+     * @param string string to encode
+     * @return code of string, adding string to dictionary if it is not already in it
+     */
+    int encode(String string) {
+        byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(encoded, 0, encoded.length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while(table[slot] != 0) {
+            int code = table[slot] - 1;
+            if(Arrays.equals(bytes, offsets[code], offsets[code + 1], encoded, 0, encoded.length)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int code = size++;
+        if(used + encoded.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, used + encoded.length));
+        }
+        System.arraycopy(encoded, 0, bytes, used, encoded.length);
+        used += encoded.length;
+        if(code + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        if(code == ascii.length) {
+            ascii = Arrays.copyOf(ascii, ascii.length * 2);
+        }
+        offsets[code + 1] = used;
+        ascii[code] = encoded.length == string.length();
+        table[slot] = code + 1;
+        if(size * 4 > table.length * 3) { // keep load factor at or below 75%
+            rehash();
+        }
+        return code;
+    }
+
+    /**
+     * @param code code of string
+     * @return decoded string
+     */
+    String decode(int code) {
+        return new String(bytes, offsets[code], offsets[code + 1] - offsets[code], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param code code of string
+     * @param string string to compare with
+     * @return true if code is the code of string
+     */
+    boolean matches(int code, String string) {
+        byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+        return Arrays.equals(bytes, offsets[code], offsets[code + 1], encoded, 0, encoded.length);
+    }
+
+    /**
+     * Checks whether lower case form of string contains query, as String.toLowerCase().contains() would. Plain ASCII strings are checked on their bytes without decoding.
+     * @param code code of string
+     * @param query lower case text to search for
+     * @param asciiQuery true if query is plain ASCII
+     * @return true if lower case string contains query
+     */
+    boolean lowerCaseContains(int code, String query, boolean asciiQuery) {
+        if(!ascii[code] || !asciiQuery) {
+            return decode(code).toLowerCase().contains(query);
+        }
+        int start = offsets[code];
+        int last = offsets[code + 1] - query.length();
+        for(int i = start; i <= last; i++) {
+            int j = 0;
+            while(j < query.length() && toLowerCase(bytes[i + j]) == query.charAt(j)) {
+                j++;
+            }
+            if(j == query.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of distinct strings in dictionary
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return approximate number of bytes used by dictionary
+     */
+    long estimateBytes() {
+        return bytes.length + (long) offsets.length * Integer.BYTES + ascii.length + (long) table.length * Integer.BYTES;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for(int code = 0; code < size; code++) {
+            int slot = hash(bytes, offsets[code], offsets[code + 1]) & mask;
+            while(table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = code + 1;
+        }
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 1;
+        for(int i = from; i < to; i++) {
+            h = 31 * h + bytes[i];
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static char toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (char) (b + ('a' - 'A')) : (char) b;
+    }
+}
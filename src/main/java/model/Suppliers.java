@@ -0,0 +1,79 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary of the company names of outsourced parts, shared by every part in the program. Each distinct company name is stored once and given an int supplier code, so parts from the same supplier hold the same code and the same String rather than a copy each.
+ * Codes are assigned in order starting at 0 and are never reused, so two parts have the same supplier exactly when their codes are equal, and parts can be grouped by supplier in an array of size() entries indexed by code. A part without a company name has code NONE.
+ * Safe for use from any thread. Names are looked up by code without locking.
+ */
+public final class Suppliers {
+    /** supplier code of a part without a company name */
+    public static final int NONE = -1;
+    private static final Map<String, Integer> codes = new HashMap<>(); // company name -> code, guarded by class lock
+    private static volatile String[] names = new String[16]; // code -> company name, replaced rather than modified once published
+    private static int size; // guarded by class lock
+
+
+    private Suppliers() {
+    }
+
+    /**
+     * @param companyName company name, or null
+     * @return code of company name, adding it to the dictionary if it is not already in it, or NONE if company name is null
+     */
+    public static int code(String companyName) {
+        if(companyName == null) {
+            return NONE;
+        }
+        synchronized(Suppliers.class) {
+            Integer code = codes.get(companyName);
+            if(code != null) {
+                return code;
+            }
+            String[] current = names;
+            if(size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = companyName;
+            names = current; // publishes name before its code is handed out
+            codes.put(companyName, size);
+            return size++;
+        }
+    }
+
+    /**
+     * @param code supplier code returned by code()
+     * @return company name with that code, or null if code is NONE
+     * @throws IllegalArgumentException if no company name has that code
+     */
+    public static String name(int code) {
+        if(code == NONE) {
+            return null;
+        }
+        if(code < 0) {
+            throw new IllegalArgumentException("No supplier with code " + code);
+        }
+        String[] current = names;
+        if(code < current.length && current[code] != null) {
+            return current[code];
+        }
+        synchronized(Suppliers.class) { // code reached this thread without the array it was published in
+            if(code >= size) {
+                throw new IllegalArgumentException("No supplier with code " + code);
+            }
+            return names[code];
+        }
+    }
+
+    /**
+     * @return number of distinct company names, one more than the largest code handed out so far
+     */
+    public static int size() {
+        synchronized(Suppliers.class) {
+            return size;
+        }
+    }
+}
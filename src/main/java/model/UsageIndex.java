@@ -0,0 +1,711 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+/**
+ * Reverse index from part ID to the products whose associated parts include that part. Follows the tracked list of products and the associated parts of each.
+ * Also keeps the component cost and buildable quantity of every tracked product up to date as parts change.
+ * Lookups may run on any thread while products are being changed.
+ */
+final class UsageIndex {
+    private final IntFunction<Part> currentPart; // part in inventory with an ID, or null
+    private final UserTable users = new UserTable();
+    private final Map<Product, Watch> watched = new IdentityHashMap<>(); // products in tracked list -> their listener, component cost and buildable quantity
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * @param currentPart function returning the part in inventory with an ID, or null if there is none, whose price and stock are used for that ID
+     */
+    UsageIndex(IntFunction<Part> currentPart) {
+        this.currentPart = currentPart;
+    }
+
+    /**
+     * Keeps index in sync with list of products and with the associated parts of each product in it.
+     * @param products list to be tracked
+     */
+    void track(ObservableList<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for(Product product : products) {
+                watch(product);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+        products.addListener((ListChangeListener<Product>) change -> {
+            lock.writeLock().lock();
+            try {
+                while(change.next()) {
+                    if(change.wasPermutated()) {
+                        continue;
+                    }
+                    update(change.getRemoved(), change.getAddedSubList());
+                }
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Keeps component costs and buildable quantities in sync with the prices and stock of parts in list.
+     * @param parts list of parts in inventory
+     */
+    void trackParts(ObservableList<Part> parts) {
+        parts.addListener((ListChangeListener<Part>) change -> {
+            lock.writeLock().lock();
+            try {
+                while(change.next()) {
+                    if(change.wasPermutated()) {
+                        continue;
+                    }
+                    for(Part part : change.getAddedSubList()) {
+                        partChanged(part.getId(), part.getPrice(), part.getStock());
+                    }
+                }
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * @param partId ID of part
+     * @return products using part, each listed once, in no particular order
+     */
+    List<Product> productsUsing(int partId) {
+        lock.readLock().lock();
+        try {
+            int slot = users.slot(partId);
+            if(slot < 0) {
+                return Collections.emptyList();
+            }
+            Object entry = users.entries[slot];
+            if(entry instanceof Watch) {
+                return Collections.singletonList(((Watch) entry).product);
+            }
+            return ((Users) entry).products();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param partId ID of part
+     * @return true if any product in tracked list uses part
+     */
+    boolean isUsed(int partId) {
+        lock.readLock().lock();
+        try {
+            return users.slot(partId) >= 0;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Looks up the component cost of each product. Products not in tracked list have their associated parts summed instead.
+     * @param products products to be costed
+     * @return component cost of each product, in the same order
+     */
+    double[] componentCosts(List<Product> products) {
+        double[] costs = new double[products.size()];
+        lock.readLock().lock();
+        try {
+            for(int i = 0; i < costs.length; i++) {
+                Watch watch = watched.get(products.get(i));
+                costs[i] = watch != null ? watch.cost : sum(products.get(i));
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        return costs;
+    }
+
+    /**
+     * @param product product in tracked list
+     * @return buildable quantity of product, or -1 if it is not tracked
+     */
+    int buildableQuantity(Product product) {
+        lock.readLock().lock();
+        try {
+            Watch watch = watched.get(product);
+            return watch != null ? watch.buildable : -1;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the buildable quantity of each product from scratch, in parallel on the common fork/join pool.
+     * @param products products to be counted, which must not change while being counted
+     * @return buildable quantity of each product, in the same order
+     */
+    int[] buildableQuantities(List<Product> products) {
+        int[] quantities = new int[products.size()];
+        Product[] array = products.toArray(new Product[0]); // tasks index an array rather than the list, which may be an observable list that is not safe to read from several threads
+        lock.readLock().lock();
+        try {
+            ForkJoinPool.commonPool().invoke(new BuildableTask(array, quantities, 0, array.length));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        return quantities;
+    }
+
+    /**
+     * Changes the price and stock used for a part ID, updating the products using it.
+     * @param partId ID of part
+     * @param price new price of part
+     * @param stock new stock of part
+     */
+    void partChanged(int partId, double price, int stock) {
+        lock.writeLock().lock();
+        try {
+            int slot = users.slot(partId);
+            if(slot < 0) {
+                return;
+            }
+            double difference = price - users.prices[slot];
+            boolean restocked = users.stocks[slot] != stock;
+            users.prices[slot] = price;
+            users.stocks[slot] = stock;
+            Object entry = users.entries[slot];
+            if(entry instanceof Watch) {
+                ((Watch) entry).cost += difference;
+                if(restocked) {
+                    count((Watch) entry);
+                }
+                return;
+            }
+            Users counts = (Users) entry;
+            for(int i = 0; i < counts.watches.length; i++) {
+                Watch watch = counts.watches[i];
+                if(watch != null) {
+                    watch.cost += difference * counts.counts[i];
+                    if(restocked) {
+                        count(watch);
+                    }
+                }
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies one sub-change of the tracked list.
+     */
+    private void update(List<? extends Product> removed, List<? extends Product> added) {
+        List<Product> gone = new ArrayList<>();
+        List<Product> come = new ArrayList<>();
+        for(int i = 0; i < Math.max(removed.size(), added.size()); i++) {
+            Product oldProduct = i < removed.size() ? removed.get(i) : null;
+            Product newProduct = i < added.size() ? added.get(i) : null;
+            if(oldProduct != newProduct) {
+                if(oldProduct != null) {
+                    gone.add(oldProduct);
+                }
+                if(newProduct != null) {
+                    come.add(newProduct);
+                }
+            }
+        }
+        Map<Product, Boolean> staying = null; // products removed and added back elsewhere in the same change
+        if(!gone.isEmpty() && !come.isEmpty()) {
+            staying = new IdentityHashMap<>();
+            for(Product product : come) {
+                staying.put(product, Boolean.TRUE);
+            }
+        }
+        for(Product product : gone) {
+            if(staying == null || !staying.containsKey(product)) {
+                unwatch(product);
+            }
+        }
+        for(Product product : come) {
+            watch(product);
+        }
+    }
+
+    private void watch(Product product) {
+        if(watched.containsKey(product)) {
+            return;
+        }
+        Watch watch = new Watch(product);
+        watched.put(product, watch);
+        AssociatedParts parts = product.associatedParts();
+        parts.forEachLine(0, parts.size(), (part, quantity) -> link(part, watch, quantity));
+        count(watch);
+        product.getAllAssociatedParts().addListener(watch);
+    }
+
+    private void unwatch(Product product) {
+        Watch watch = watched.remove(product);
+        if(watch == null) {
+            return;
+        }
+        product.getAllAssociatedParts().removeListener(watch);
+        AssociatedParts parts = product.associatedParts();
+        parts.forEachLine(0, parts.size(), (part, quantity) -> unlink(part.getId(), watch, quantity));
+    }
+
+    /**
+     * Records quantity more uses of part by the product of watch.
+     */
+    private void link(Part part, Watch watch, int quantity) {
+        int slot = users.slot(part.getId());
+        if(slot < 0) {
+            Part current = currentPart.apply(part.getId());
+            Part source = current != null ? current : part;
+            if(quantity == 1) {
+                users.add(part.getId(), watch, source.getPrice(), source.getStock());
+            }
+            else {
+                Users counts = new Users();
+                counts.add(watch, quantity);
+                users.add(part.getId(), counts, source.getPrice(), source.getStock());
+            }
+            watch.cost += source.getPrice() * quantity;
+            return;
+        }
+        watch.cost += users.prices[slot] * quantity;
+        Object entry = users.entries[slot];
+        Users counts;
+        if(entry instanceof Watch) {
+            counts = new Users();
+            counts.add((Watch) entry, 1);
+            users.entries[slot] = counts;
+        }
+        else {
+            counts = (Users) entry;
+        }
+        counts.add(watch, quantity);
+    }
+
+    /**
+     * Records quantity fewer uses of part by the product of watch.
+     */
+    private void unlink(int partId, Watch watch, int quantity) {
+        int slot = users.slot(partId);
+        if(slot < 0) {
+            return;
+        }
+        watch.cost -= users.prices[slot] * quantity;
+        Object entry = users.entries[slot];
+        if(entry == watch) {
+            users.removeSlot(slot);
+        }
+        else if(entry instanceof Users) {
+            Users counts = (Users) entry;
+            counts.remove(watch, quantity);
+            if(counts.isEmpty()) {
+                users.removeSlot(slot);
+            }
+            else if(counts.single() != null) { // back to a single use, which needs no table
+                users.entries[slot] = counts.single();
+            }
+        }
+    }
+
+    /**
+     * @return part in inventory with the same ID as part, or part itself if there is none
+     */
+    private Part currentOf(Part part) {
+        Part current = currentPart.apply(part.getId());
+        return current != null ? current : part;
+    }
+
+    /**
+     * @return component cost of a product that is not tracked, at the prices the index uses
+     */
+    private double sum(Product product) {
+        AssociatedParts parts = product.associatedParts();
+        double cost = 0;
+        for(int line = 0; line < parts.lineCount(); line++) {
+            Part part = parts.linePart(line);
+            int slot = users.slot(part.getId());
+            cost += (slot >= 0 ? users.prices[slot] : currentOf(part).getPrice()) * parts.lineQuantity(line);
+        }
+        return cost;
+    }
+
+    /**
+     * Recounts buildable quantity of a tracked product from the stock kept for each of its parts.
+     */
+    private void count(Watch watch) {
+        AssociatedParts parts = watch.product.associatedParts();
+        int buildable = Integer.MAX_VALUE;
+        for(int line = 0; line < parts.lineCount(); line++) {
+            buildable = Math.min(buildable, allows(watch, users.slot(parts.linePart(line).getId())));
+        }
+        watch.buildable = buildable == Integer.MAX_VALUE ? 0 : buildable;
+    }
+
+    /**
+     * Lowers buildable quantity of a tracked product after listings of a part were added.
+     */
+    private void lower(Watch watch, int partId) {
+        watch.buildable = Math.min(watch.buildable, allows(watch, users.slot(partId)));
+    }
+
+    /**
+     * @param slot slot of a part the product of watch uses
+     * @return number of the product the stock kept in slot allows building, given how many times the product uses the part
+     */
+    private int allows(Watch watch, int slot) {
+        Object entry = users.entries[slot];
+        int uses = entry instanceof Users ? ((Users) entry).count(watch) : 1;
+        return Math.max(users.stocks[slot], 0) / uses;
+    }
+
+    /**
+     * Counts buildable quantity of a product from scratch. Only reads the index.
+     */
+    private int countFromScratch(Product product) {
+        AssociatedParts associated = product.associatedParts();
+        int lines = associated.lineCount();
+        if(lines == 0) {
+            return 0;
+        }
+        long[] parts = new long[lines]; // part ID in the high half, line in the low half, so sorting groups lines by part
+        for(int line = 0; line < lines; line++) {
+            parts[line] = (long) associated.linePart(line).getId() << 32 | line;
+        }
+        Arrays.sort(parts);
+        int buildable = Integer.MAX_VALUE;
+        for(int from = 0, to; from < lines; from = to) {
+            int partId = (int) (parts[from] >> 32);
+            long quantity = 0;
+            for(to = from; to < lines && (int) (parts[to] >> 32) == partId; to++) {
+                quantity += associated.lineQuantity((int) parts[to]);
+            }
+            int slot = users.slot(partId);
+            int stock = slot >= 0 ? users.stocks[slot] : currentOf(associated.linePart((int) parts[from])).getStock();
+            buildable = (int) Math.min(buildable, Math.max(stock, 0) / quantity);
+        }
+        return buildable;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Listener on the associated parts of a tracked product, which also holds the product's component cost.
+     */
+    private final class Watch implements ListChangeListener<Part> {
+        private final Product product;
+        private final int hash = mix(System.identityHashCode(this)); // home slot of this watch in Users tables
+        private double cost;
+        private int buildable;
+        private boolean limitRemoved; // set while applying a change if a part removed may have limited buildable quantity
+
+        private Watch(Product product) {
+            this.product = product;
+        }
+
+        private void removed(Part part, int quantity) {
+            int slot = users.slot(part.getId());
+            if(slot >= 0 && allows(this, slot) <= buildable) { // part may have been what limited the count, which removing it can raise
+                limitRemoved = true;
+            }
+            unlink(part.getId(), this, quantity);
+        }
+
+        @Override
+        public void onChanged(Change<? extends Part> change) {
+            lock.writeLock().lock();
+            try {
+                limitRemoved = false;
+                int added = 0;
+                AssociatedParts parts = product.associatedParts();
+                while(change.next()) {
+                    if(change.wasPermutated()) {
+                        continue;
+                    }
+                    AssociatedParts.forEachLine(change.getRemoved(), this::removed);
+                    parts.forEachLine(change.getFrom(), change.getTo(), (part, quantity) -> link(part, this, quantity));
+                    added += change.getAddedSize();
+                }
+                if(limitRemoved || added == parts.size()) {
+                    count(this);
+                }
+                else { // parts removed allowed more than the count, so only the parts added can change it, by lowering it
+                    change.reset();
+                    while(change.next()) {
+                        parts.forEachLine(change.getFrom(), change.getTo(), (part, quantity) -> lower(this, part.getId()));
+                    }
+                }
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Counts the buildable quantity of a range of products, splitting it in half until it is no longer than THRESHOLD.
+     */
+    private final class BuildableTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 1024; // products counted by one task, enough to outweigh the cost of forking it
+
+        private final Product[] products;
+        private final int[] quantities;
+        private final int from;
+        private final int to;
+
+        private BuildableTask(Product[] products, int[] quantities, int from, int to) {
+            this.products = products;
+            this.quantities = quantities;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= THRESHOLD) {
+                for(int i = from; i < to; i++) {
+                    quantities[i] = countFromScratch(products[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BuildableTask(products, quantities, from, middle), new BuildableTask(products, quantities, middle, to));
+        }
+    }
+
+    /**
+     * Open addressing hash table from part ID to the products using it, and the price and stock used for that ID.
+     */
+    private static final class UserTable {
+        private int[] partIds = new int[1024];
+        private Object[] entries = new Object[1024]; // null entry marks an empty slot
+        private double[] prices = new double[1024];
+        private int[] stocks = new int[1024];
+        private int size;
+
+        /**
+         * @return slot holding part ID, or -1 if no product uses it
+         */
+        private int slot(int partId) {
+            int mask = partIds.length - 1;
+            for(int slot = mix(partId) & mask; entries[slot] != null; slot = (slot + 1) & mask) {
+                if(partIds[slot] == partId) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds part ID, which must not already be in table.
+         */
+        private void add(int partId, Object entry, double price, int stock) {
+            if((size + 1) * 4 > partIds.length * 3) { // keep load factor at or below 75%
+                resize();
+            }
+            int mask = partIds.length - 1;
+            int slot = mix(partId) & mask;
+            while(entries[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            partIds[slot] = partId;
+            entries[slot] = entry;
+            prices[slot] = price;
+            stocks[slot] = stock;
+            size++;
+        }
+
+        private void removeSlot(int slot) {
+            int mask = partIds.length - 1;
+            int hole = slot; // shift back following entries in the same probe sequence
+            int next = (hole + 1) & mask;
+            while(entries[next] != null) {
+                int home = mix(partIds[next]) & mask;
+                if(((next - home) & mask) >= ((next - hole) & mask)) {
+                    partIds[hole] = partIds[next];
+                    entries[hole] = entries[next];
+                    prices[hole] = prices[next];
+                    stocks[hole] = stocks[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            entries[hole] = null;
+            size--;
+        }
+
+        private void resize() {
+            int[] oldPartIds = partIds;
+            Object[] oldEntries = entries;
+            double[] oldPrices = prices;
+            int[] oldStocks = stocks;
+            partIds = new int[oldPartIds.length * 2];
+            entries = new Object[oldPartIds.length * 2];
+            prices = new double[oldPartIds.length * 2];
+            stocks = new int[oldPartIds.length * 2];
+            int mask = partIds.length - 1;
+            for(int i = 0; i < oldPartIds.length; i++) {
+                if(oldEntries[i] != null) {
+                    int slot = mix(oldPartIds[i]) & mask;
+                    while(entries[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    partIds[slot] = oldPartIds[i];
+                    entries[slot] = oldEntries[i];
+                    prices[slot] = oldPrices[i];
+                    stocks[slot] = oldStocks[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Watches of the products using a part that is used more than once, with the number of times each uses it.
+     */
+    private static final class Users {
+        private Watch[] watches = new Watch[4]; // null watch marks an empty slot
+        private int[] counts = new int[4];
+        private int size; // distinct products
+        private int uses; // total of counts
+
+        private void add(Watch watch, int quantity) {
+            int mask = watches.length - 1;
+            int slot = watch.hash & mask;
+            while(watches[slot] != null) {
+                if(watches[slot] == watch) {
+                    counts[slot] += quantity;
+                    uses += quantity;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if((size + 1) * 4 > watches.length * 3) {
+                resize();
+                add(watch, quantity);
+                return;
+            }
+            watches[slot] = watch;
+            counts[slot] = quantity;
+            size++;
+            uses += quantity;
+        }
+
+        private void remove(Watch watch, int quantity) {
+            int mask = watches.length - 1;
+            int slot = watch.hash & mask;
+            while(watches[slot] != null && watches[slot] != watch) {
+                slot = (slot + 1) & mask;
+            }
+            if(watches[slot] == null) {
+                return;
+            }
+            int removed = Math.min(quantity, counts[slot]);
+            uses -= removed;
+            counts[slot] -= removed;
+            if(counts[slot] > 0) {
+                return;
+            }
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while(watches[next] != null) {
+                int home = watches[next].hash & mask;
+                if(((next - home) & mask) >= ((next - hole) & mask)) {
+                    watches[hole] = watches[next];
+                    counts[hole] = counts[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            watches[hole] = null;
+            size--;
+        }
+
+        /**
+         * @return number of times product of watch uses part
+         */
+        private int count(Watch watch) {
+            int mask = watches.length - 1;
+            for(int slot = watch.hash & mask; watches[slot] != null; slot = (slot + 1) & mask) {
+                if(watches[slot] == watch) {
+                    return counts[slot];
+                }
+            }
+            return 0;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * @return watch of the only product using part, if it uses it once, otherwise null
+         */
+        private Watch single() {
+            if(uses != 1) {
+                return null;
+            }
+            for(Watch watch : watches) {
+                if(watch != null) {
+                    return watch;
+                }
+            }
+            return null;
+        }
+
+        private List<Product> products() {
+            List<Product> list = new ArrayList<>(size);
+            for(Watch watch : watches) {
+                if(watch != null) {
+                    list.add(watch.product);
+                }
+            }
+            return list;
+        }
+
+        private void resize() {
+            Watch[] oldWatches = watches;
+            int[] oldCounts = counts;
+            watches = new Watch[oldWatches.length * 2];
+            counts = new int[oldWatches.length * 2];
+            int mask = watches.length - 1;
+            for(int i = 0; i < oldWatches.length; i++) {
+                if(oldWatches[i] != null) {
+                    int slot = oldWatches[i].hash & mask;
+                    while(watches[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    watches[slot] = oldWatches[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+    }
+}
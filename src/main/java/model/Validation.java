@@ -0,0 +1,36 @@
+package model;
+
+/**
+ * Rules that values of parts and products must follow. Shared by the add/modify menus and bulk import so both accept the same values.
+ */
+public final class Validation {
+    private Validation() {
+    }
+
+    /**
+     * @param name name of part or product
+     * @return true if name is not blank
+     */
+    public static boolean isValidName(String name) {
+        return name != null && !name.isBlank();
+    }
+
+    /**
+     * @param min minimum amount of stock
+     * @param max maximum amount of stock
+     * @return true if min and max are non-negative and min is less than or equal to max
+     */
+    public static boolean isValidMinMax(int min, int max) {
+        return min >= 0 && max >= 0 && min <= max;
+    }
+
+    /**
+     * @param inv amount of stock
+     * @param min minimum amount of stock
+     * @param max maximum amount of stock
+     * @return true if inv is between min and max
+     */
+    public static boolean isValidInv(int inv, int min, int max) {
+        return inv >= min && inv <= max;
+    }
+}
@@ -0,0 +1,155 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Version numbers of inventory items by ID, for rejecting writes based on stale reads. An item's version is incremented whenever the item with its ID is replaced, edited or removed, and when an ID that was removed is added again, so a version read before a change never matches after it.
+ * Versions are only stored for IDs that have changed; every other ID is at version 0, so the table grows with the number of items changed rather than with the size of inventory. Versions are not saved, and start again from 0 when inventory is loaded.
+ * Lookups may run on any thread without taking a lock, reading optimistically as IdIndex does.
+ */
+final class VersionTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] versions = new int[INITIAL_CAPACITY]; // 0 marks an empty slot, as stored versions are at least 1
+    private int size;
+    private final StampedLock lock = new StampedLock();
+
+
+    /**
+     * Increments the version of every item removed from or added to list. An added item is only versioned if its ID has been seen before, so adding new items costs no memory.
+     * @param list list to be tracked
+     * @param idOf function returning the ID of an item
+     */
+    <T> void track(ObservableList<T> list, ToIntFunction<T> idOf) {
+        list.addListener((ListChangeListener<T>) change -> {
+            long stamp = lock.writeLock();
+            try {
+                while(change.next()) {
+                    if(change.wasPermutated() || change.wasUpdated()) {
+                        continue;
+                    }
+                    List<? extends T> removed = change.getRemoved();
+                    List<? extends T> added = change.getAddedSubList();
+                    for(int i = 0; i < removed.size(); i++) {
+                        if(i >= added.size() || removed.get(i) != added.get(i)) { // items replaced by themselves, as in a whole-list replacement, are unchanged
+                            increment(idOf.applyAsInt(removed.get(i)), true);
+                        }
+                    }
+                    for(int i = 0; i < added.size(); i++) {
+                        if(i >= removed.size() || added.get(i) != removed.get(i)) {
+                            increment(idOf.applyAsInt(added.get(i)), false);
+                        }
+                    }
+                }
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
+        });
+    }
+
+    /**
+     * Increments version of item with ID, which was changed in place. Called while inventory is being changed.
+     * @param id ID of item
+     */
+    void bump(int id) {
+        long stamp = lock.writeLock();
+        try {
+            increment(id, true);
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @param id ID of item
+     * @return version of item with ID, which is 0 if it has never changed
+     */
+    int get(int id) {
+        long stamp = lock.tryOptimisticRead();
+        if(stamp != 0) {
+            int version = find(keys, versions, id); // arrays are read once, so a concurrent resize cannot mix old and new arrays
+            if(lock.validate(stamp)) {
+                return version;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return find(keys, versions, id);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static int find(int[] keys, int[] versions, int id) {
+        int mask = Math.min(keys.length, versions.length) - 1; // arrays may come from either side of a resize under an optimistic read
+        for(int slot = mix(id) & mask, probes = 0; versions[slot] != 0 && probes < keys.length; slot = (slot + 1) & mask, probes++) { // probe limit guards against a table changing under an optimistic read
+            if(keys[slot] == id) {
+                return versions[slot];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Called with write lock held.
+     * @param id ID of item
+     * @param always true to version an ID not seen before, false to only increment a version already stored
+     */
+    private void increment(int id, boolean always) {
+        int mask = keys.length - 1;
+        int slot = mix(id) & mask;
+        while(versions[slot] != 0) {
+            if(keys[slot] == id) {
+                versions[slot] = versions[slot] == Integer.MAX_VALUE ? 1 : versions[slot] + 1;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if(!always) {
+            return;
+        }
+        if((size + 1) * 4 > keys.length * 3) { // keep load factor at or below 75%
+            resize(keys.length * 2);
+            increment(id, true);
+            return;
+        }
+        keys[slot] = id;
+        versions[slot] = 1;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldVersions = versions;
+        keys = new int[capacity];
+        versions = new int[capacity];
+        int mask = capacity - 1;
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldVersions[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while(versions[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                versions[slot] = oldVersions[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads sequential IDs across the table.
+     */
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,10 +1,16 @@
 module pknoche.inventory_program {
     requires javafx.controls;
     requires javafx.fxml;
+    requires jdk.httpserver;
+    requires java.management;
+    requires jdk.jfr;
 
 
     opens model to javafx.fxml;
     exports model;
     exports controller;
+    exports persistence;
+    exports server;
+    exports metrics;
     opens controller to javafx.fxml;
 }
\ No newline at end of file
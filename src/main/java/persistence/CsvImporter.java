@@ -0,0 +1,453 @@
+package persistence;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+import model.Product;
+import model.Validation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Imports parts and products from a CSV file into inventory. The file is streamed rather than loaded whole: lines are read in chunks, each chunk is parsed and validated on a pool of worker threads, and chunks are added to inventory in file order as they complete, each as a single batch.
+ * Each line describes one part or product:
+ * <pre>
+ * type,id,name,price,stock,min,max,machineId/companyName,associatedPartIds
+ * InHouse,,Wheel,12.50,10,1,20,42,
+ * Outsourced,7,Seat,9.99,5,0,10,Acme Supply,
+ * Product,,Bike,199.00,3,1,5,,7;12;12
+ * </pre>
+ * A blank ID is generated; an ID that is given is kept, and must not already be in use. A product's associated parts are listed by part ID and must already be in inventory or appear earlier in the file. Fields containing commas or quotes may be quoted, with quotes doubled, but may not span lines. An optional header line starting with "type" is skipped.
+ * Lines that fail the same checks as the add/modify menus are skipped and reported in the result; all other lines are imported.
+ */
+public class CsvImporter {
+    private static final int CHUNK_LINES = 20_000;
+    private static final int MAX_REPORTED_ERRORS = 1000; // errors beyond this are counted but not kept
+    private static final int FIELDS = 9;
+
+    private final int threads;
+
+
+    /**
+     * Creates importer that parses with one worker thread per processor.
+     */
+    public CsvImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads number of worker threads used to parse chunks
+     */
+    public CsvImporter(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Imports CSV file encoded in UTF-8.
+     * @param file file to import
+     * @return number of parts and products imported, and lines that were skipped
+     * @throws IOException if file cannot be read
+     */
+    public Result importFrom(Path file) throws IOException {
+        try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader);
+        }
+    }
+
+    /**
+     * Imports CSV text read from reader. Must not be called on the JavaFX application thread, since inventory changes are handed to that thread and waited for.
+     * @param reader source of CSV text
+     * @return number of parts and products imported, and lines that were skipped
+     * @throws IOException if reader fails
+     */
+    public Result importFrom(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "csv-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Result result = new Result();
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try {
+            int lineNumber = 0;
+            List<String> chunkLines = new ArrayList<>(CHUNK_LINES);
+            int chunkStart = 1;
+            String line;
+            while((line = lines.readLine()) != null) {
+                lineNumber++;
+                if(lineNumber == 1 && line.regionMatches(true, line.startsWith("\uFEFF") ? 1 : 0, "type", 0, 4)) { // header line, possibly after byte order mark
+                    chunkStart = 2;
+                    continue;
+                }
+                chunkLines.add(line);
+                if(chunkLines.size() == CHUNK_LINES) {
+                    List<String> full = chunkLines;
+                    int start = chunkStart;
+                    inFlight.add(parsers.submit(() -> parse(full, start)));
+                    chunkLines = new ArrayList<>(CHUNK_LINES);
+                    chunkStart = lineNumber + 1;
+                    if(inFlight.size() > threads * 2) { // bound memory held by parsed chunks waiting to be added
+                        commit(inFlight.poll(), result);
+                    }
+                }
+            }
+            if(!chunkLines.isEmpty()) {
+                List<String> last = chunkLines;
+                int start = chunkStart;
+                inFlight.add(parsers.submit(() -> parse(last, start)));
+            }
+            while(!inFlight.isEmpty()) {
+                commit(inFlight.poll(), result);
+            }
+            return result;
+        }
+        finally {
+            for(Future<Chunk> pending : inFlight) {
+                pending.cancel(true);
+            }
+            parsers.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for chunk to be parsed, then adds its parts and products to inventory. Runs on importing thread, one chunk at a time in file order, so that checks against inventory see every earlier chunk.
+     */
+    private void commit(Future<Chunk> future, Result result) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        }
+        catch (ExecutionException exception) {
+            throw new IOException("Chunk could not be parsed", exception.getCause());
+        }
+        for(LineError error : chunk.errors) {
+            result.addError(error.line, error.message);
+        }
+        List<Part> parts = withIds(chunk.parts, chunk.partLines, result, "Part", Part::getId, Part::setId, id -> Inventory.lookupPart(id) != null, Inventory::reservePartId, Inventory::generatePartIds);
+        if(!parts.isEmpty()) {
+            Inventory.addAllParts(parts);
+            result.parts += parts.size();
+        }
+        List<Product> products = new ArrayList<>(chunk.products.size());
+        List<Integer> productLines = new ArrayList<>(chunk.products.size());
+        for(int i = 0; i < chunk.products.size(); i++) { // resolve associated parts now that earlier parts are in inventory
+            int[] partIds = chunk.associatedPartIds.get(i);
+            ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+            int missing = 0;
+            for(int partId : partIds) {
+                Part part = Inventory.lookupPart(partId);
+                if(part == null) {
+                    missing = partId;
+                    break;
+                }
+                associatedParts.add(part);
+            }
+            if(associatedParts.size() < partIds.length) {
+                result.addError(chunk.productLines.get(i), "Associated part ID " + missing + " not found.");
+                continue;
+            }
+            Product parsed = chunk.products.get(i);
+            products.add(new Product(associatedParts, parsed.getId(), parsed.getName(), parsed.getPrice(), parsed.getStock(), parsed.getMin(), parsed.getMax()));
+            productLines.add(chunk.productLines.get(i));
+        }
+        products = withIds(products, productLines, result, "Product", Product::getId, Product::setId, id -> Inventory.lookupProduct(id) != null, Inventory::reserveProductId, Inventory::generateProductIds);
+        if(!products.isEmpty()) {
+            Inventory.addAllProducts(products);
+            result.products += products.size();
+        }
+    }
+
+    /**
+     * Drops items whose given ID is already in use, and assigns generated IDs to items without one.
+     * @param items parsed parts or products, with ID 0 if none was given
+     * @param lines line number of each item
+     * @param kind "Part" or "Product", for error messages
+     * @param idOf returns ID of item
+     * @param setId sets ID of item
+     * @param inUse returns true if ID is already in inventory
+     * @param reserve marks given ID as used so it is not generated
+     * @param generate generates block of IDs and returns first one
+     * @return items that can be added
+     */
+    private static <T> List<T> withIds(List<T> items, List<Integer> lines, Result result, String kind, ToIntFunction<T> idOf, ObjIntConsumer<T> setId, IntPredicate inUse, IntConsumer reserve, IntUnaryOperator generate) {
+        List<T> accepted = new ArrayList<>(items.size());
+        Set<Integer> seen = new HashSet<>();
+        int maxGiven = 0;
+        int generated = 0;
+        for(int i = 0; i < items.size(); i++) {
+            int id = idOf.applyAsInt(items.get(i));
+            if(id == 0) {
+                generated++;
+            }
+            else if(!seen.add(id) || inUse.test(id)) {
+                result.addError(lines.get(i), kind + " ID " + id + " is already in use.");
+                continue;
+            }
+            else {
+                maxGiven = Math.max(maxGiven, id);
+            }
+            accepted.add(items.get(i));
+        }
+        if(maxGiven > 0) { // reserve given IDs first so generated IDs cannot collide with them
+            reserve.accept(maxGiven);
+        }
+        if(generated > 0) {
+            int nextId = generate.applyAsInt(generated);
+            for(T item : accepted) {
+                if(idOf.applyAsInt(item) == 0) {
+                    setId.accept(item, nextId++);
+                }
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Parses and validates lines of a chunk. Runs on a worker thread and does not touch inventory.
+     * @param lines lines of chunk
+     * @param firstLine line number of first line in chunk
+     * @return parsed parts and products, and lines that could not be parsed
+     */
+    private static Chunk parse(List<String> lines, int firstLine) {
+        Chunk chunk = new Chunk();
+        String[] fields = new String[FIELDS];
+        for(int i = 0; i < lines.size(); i++) {
+            int lineNumber = firstLine + i;
+            String line = lines.get(i);
+            if(line.isBlank()) {
+                continue;
+            }
+            try {
+                int count = split(line, fields);
+                if(count < FIELDS - 1) {
+                    throw new IllegalArgumentException("Expected " + (FIELDS - 1) + " or " + FIELDS + " fields but found " + count + ".");
+                }
+                parseLine(fields, count, lineNumber, chunk);
+            }
+            catch (IllegalArgumentException exception) {
+                chunk.errors.add(new LineError(lineNumber, exception.getMessage()));
+            }
+        }
+        return chunk;
+    }
+
+    private static void parseLine(String[] fields, int count, int lineNumber, Chunk chunk) {
+        String type = fields[0].trim().toLowerCase(Locale.ROOT);
+        int id = fields[1].isBlank() ? 0 : parseInt(fields[1], "ID must be a positive integer.");
+        if(id < 0) {
+            throw new IllegalArgumentException("ID must be a positive integer.");
+        }
+        String name = fields[2].trim();
+        if(!Validation.isValidName(name)) {
+            throw new IllegalArgumentException("Name cannot be blank.");
+        }
+        double price = parseDouble(fields[3], "Price/Cost must be a number.");
+        int stock = parseInt(fields[4], "Inv must be an integer.");
+        int min = parseInt(fields[5], "Min and max must be non-negative integers, and min must be less than or equal to max.");
+        int max = parseInt(fields[6], "Min and max must be non-negative integers, and min must be less than or equal to max.");
+        if(!Validation.isValidMinMax(min, max)) {
+            throw new IllegalArgumentException("Min and max must be non-negative integers, and min must be less than or equal to max.");
+        }
+        if(!Validation.isValidInv(stock, min, max)) {
+            throw new IllegalArgumentException("Inv must be between min and max.");
+        }
+        switch(type) {
+            case "inhouse":
+            case "in-house":
+                chunk.parts.add(new InHouse(id, name, price, stock, min, max, parseInt(fields[7], "Machine ID must be an integer.")));
+                chunk.partLines.add(lineNumber);
+                break;
+            case "outsourced":
+                chunk.parts.add(new Outsourced(id, name, price, stock, min, max, fields[7].trim()));
+                chunk.partLines.add(lineNumber);
+                break;
+            case "product":
+                String partIds = count > FIELDS - 1 ? fields[8].trim() : "";
+                String[] idTexts = partIds.isEmpty() ? new String[0] : partIds.split(";");
+                int[] associatedPartIds = new int[idTexts.length];
+                for(int i = 0; i < idTexts.length; i++) {
+                    associatedPartIds[i] = parseInt(idTexts[i], "Associated part IDs must be integers separated by semicolons.");
+                }
+                chunk.products.add(new Product(FXCollections.emptyObservableList(), id, name, price, stock, min, max));
+                chunk.associatedPartIds.add(associatedPartIds);
+                chunk.productLines.add(lineNumber);
+                break;
+            default:
+                throw new IllegalArgumentException("Type must be InHouse, Outsourced or Product.");
+        }
+    }
+
+    /**
+     * Splits CSV line into fields, handling quoted fields.
+     * @param line line to split
+     * @param fields array receiving fields; extra fields beyond its length are ignored
+     * @return number of fields in line
+     */
+    private static int split(String line, String[] fields) {
+        int count = 0;
+        int i = 0;
+        int length = line.length();
+        while(true) {
+            String field;
+            if(i < length && line.charAt(i) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                i++;
+                while(true) {
+                    if(i >= length) {
+                        throw new IllegalArgumentException("Quoted field is not closed.");
+                    }
+                    char c = line.charAt(i++);
+                    if(c == '"') {
+                        if(i < length && line.charAt(i) == '"') { // doubled quote stands for a quote
+                            quoted.append('"');
+                            i++;
+                        }
+                        else {
+                            break;
+                        }
+                    }
+                    else {
+                        quoted.append(c);
+                    }
+                }
+                field = quoted.toString();
+                if(i < length && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected text after quoted field.");
+                }
+            }
+            else {
+                int end = line.indexOf(',', i);
+                if(end < 0) {
+                    end = length;
+                }
+                field = line.substring(i, end);
+                i = end;
+            }
+            if(count < fields.length) {
+                fields[count] = field;
+            }
+            count++;
+            if(i >= length) {
+                return count;
+            }
+            i++; // skip comma
+        }
+    }
+
+    private static int parseInt(String text, String message) {
+        try {
+            return Integer.parseInt(text.trim());
+        }
+        catch (NumberFormatException exception) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static double parseDouble(String text, String message) {
+        try {
+            return Double.parseDouble(text.trim());
+        }
+        catch (NumberFormatException exception) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Parts and products parsed from one chunk of lines, in file order.
+     */
+    private static final class Chunk {
+        private final List<Part> parts = new ArrayList<>();
+        private final List<Integer> partLines = new ArrayList<>();
+        private final List<Product> products = new ArrayList<>(); // associated parts are resolved when chunk is added to inventory
+        private final List<int[]> associatedPartIds = new ArrayList<>();
+        private final List<Integer> productLines = new ArrayList<>();
+        private final List<LineError> errors = new ArrayList<>();
+    }
+
+    private static final class LineError {
+        private final int line;
+        private final String message;
+
+        private LineError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Outcome of an import.
+     */
+    public static final class Result {
+        private int parts;
+        private int products;
+        private int errorCount;
+        private final List<String> errors = new ArrayList<>();
+
+        private void addError(int line, String message) {
+            errorCount++;
+            if(errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + line + ": " + message);
+            }
+        }
+
+        /**
+         * @return number of parts imported
+         */
+        public int getParts() {
+            return parts;
+        }
+
+        /**
+         * @return number of products imported
+         */
+        public int getProducts() {
+            return products;
+        }
+
+        /**
+         * @return number of lines skipped because they were not valid
+         */
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * @return descriptions of skipped lines, up to the first 1000
+         */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+    }
+}
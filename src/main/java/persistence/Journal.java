@@ -0,0 +1,654 @@
+package persistence;
+
+import model.Inventory;
+import model.InventoryListener;
+import model.Part;
+import model.Product;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of inventory changes. Every change made through Inventory, including generated IDs, is appended as a record to the current journal segment, and inventory is rebuilt on startup by loading the latest snapshot and replaying the segments written after it.
+ * Records are written to disk by a background thread that forces each batch of records to disk with a single fsync (group commit), so changing inventory never waits for the disk. Records not yet forced to disk when the application crashes are lost; sync() waits until every record appended so far is on disk.
+ * Changes committed together in an InventoryTransaction are written between a begin record and a commit record, and are only replayed if the commit record was written, so a crash part way through journaling a transaction restores inventory as it was before the transaction.
+ * Once a segment holds COMPACT_THRESHOLD records of inventory changes, a new segment is started and a snapshot of inventory is written in the background, after which older segments are deleted. This keeps the amount of journal replayed on startup bounded.
+ */
+public class Journal implements InventoryListener, AutoCloseable {
+    static final int COMPACT_THRESHOLD = 200_000; // records per segment before inventory is compacted into a snapshot
+    static final int LOAD_BATCH_SIZE = 50_000; // parts or products added to inventory at a time when loading in background
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 8; // record length and CRC32 of record
+
+    // record types
+    private static final byte PART_ADDED = 1;
+    private static final byte PART_UPDATED = 2;
+    private static final byte PART_DELETED = 3;
+    private static final byte PRODUCT_ADDED = 4; // written before products stored quantities, listing a part once per unit; still replayed
+    private static final byte PRODUCT_UPDATED = 5; // likewise
+    private static final byte PRODUCT_DELETED = 6;
+    private static final byte PART_ID_GENERATED = 7;
+    private static final byte PRODUCT_ID_GENERATED = 8;
+    private static final byte TRANSACTION_BEGUN = 9;
+    private static final byte TRANSACTION_COMMITTED = 10;
+    private static final byte PRODUCT_ADDED_WITH_QUANTITIES = 11;
+    private static final byte PRODUCT_UPDATED_WITH_QUANTITIES = 12;
+
+    private final Path directory;
+    private final Object appendLock = new Object(); // guards pending records and counters below
+    private final Object writeLock = new Object(); // guards segment channel; always acquired before appendLock
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private long appended; // number of records appended since journal was opened
+    private long durable; // number of records forced to disk
+    private long segment;
+    private FileChannel channel;
+    private int segmentRecords;
+    private boolean compacting;
+    private boolean inTransaction; // true between records of a transaction, during which segment is not switched so a transaction never spans two segments or a snapshot
+    private boolean closed;
+    private IOException failure; // first write failure, reported to callers of sync() and close()
+    private final Thread writer;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+
+    private Journal(Path directory, long segment) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        channel = openSegment(segment);
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Restores inventory from journal directory and starts journaling inventory changes. Inventory should be empty when this is called.
+     * @param directory directory holding snapshot and journal segments; created if it does not exist
+     * @return journal, registered as an inventory listener
+     * @throws IOException if snapshot or journal cannot be read
+     */
+    public static Journal open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long lastSegment = 0;
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if(Files.exists(snapshotFile)) {
+            lastSegment = Snapshot.restore(snapshotFile);
+        }
+        TreeMap<Long, Path> segments = listSegments(directory);
+        for(var entry : segments.entrySet()) {
+            if(entry.getKey() > lastSegment) {
+                replay(Files.readAllBytes(entry.getValue()));
+            }
+            lastSegment = Math.max(lastSegment, entry.getKey());
+        }
+        Journal journal = new Journal(directory, lastSegment + 1); // always start a new segment so a torn record at the end of the last segment is never appended to
+        Inventory.addListener(journal);
+        return journal;
+    }
+
+    /**
+     * Restores inventory from journal directory on a background thread, so the user interface can be shown before inventory has been fully loaded. The snapshot is memory mapped and decoded in batches of LOAD_BATCH_SIZE items, and each batch is added to inventory by inventoryExecutor. Journal segments written after the snapshot are then replayed by inventoryExecutor. Inventory should be empty when this is called, and should not be changed until loading is complete.
+     * @param directory directory holding snapshot and journal segments; created if it does not exist
+     * @param inventoryExecutor runs tasks on the thread that changes inventory, such as Platform::runLater
+     * @return completed by inventoryExecutor with journal once inventory is loaded, or with exception if snapshot or journal cannot be read, in which case inventory is left empty
+     */
+    public static CompletableFuture<Journal> openInBackground(Path directory, Executor inventoryExecutor) {
+        CompletableFuture<Journal> opened = new CompletableFuture<>();
+        Thread loader = new Thread(() -> {
+            try {
+                Files.createDirectories(directory);
+                long lastSegment = 0;
+                Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+                if(Files.exists(snapshotFile)) {
+                    Snapshot.Reader reader = Snapshot.open(snapshotFile);
+                    lastSegment = reader.getLastSegment();
+                    inventoryExecutor.execute(() -> {
+                        Inventory.setLastPartId(reader.getLastPartId());
+                        Inventory.setLastProductId(reader.getLastProductId());
+                    });
+                    for(int from = 0; from < reader.getPartCount(); from += LOAD_BATCH_SIZE) {
+                        List<Part> parts = reader.parts(from, Math.min(from + LOAD_BATCH_SIZE, reader.getPartCount()));
+                        inventoryExecutor.execute(() -> Inventory.getAllParts().addAll(parts));
+                    }
+                    for(int from = 0; from < reader.getProductCount(); from += LOAD_BATCH_SIZE) {
+                        List<Product> products = reader.products(from, Math.min(from + LOAD_BATCH_SIZE, reader.getProductCount()));
+                        inventoryExecutor.execute(() -> Inventory.getAllProducts().addAll(products));
+                    }
+                }
+                List<byte[]> segments = new ArrayList<>();
+                for(var entry : listSegments(directory).entrySet()) {
+                    if(entry.getKey() > lastSegment) {
+                        segments.add(Files.readAllBytes(entry.getValue()));
+                    }
+                    lastSegment = Math.max(lastSegment, entry.getKey());
+                }
+                long nextSegment = lastSegment + 1;
+                inventoryExecutor.execute(() -> {
+                    try {
+                        for(byte[] segment : segments) {
+                            replay(segment);
+                        }
+                        Journal journal = new Journal(directory, nextSegment);
+                        Inventory.addListener(journal);
+                        opened.complete(journal);
+                    }
+                    catch (IOException | RuntimeException e) {
+                        discardLoaded(opened, e);
+                    }
+                });
+            }
+            catch (IOException | RuntimeException e) {
+                inventoryExecutor.execute(() -> discardLoaded(opened, e)); // after any batches already handed over, and on the thread callers expect
+            }
+        }, "journal-loader");
+        loader.setDaemon(true);
+        loader.start();
+        return opened;
+    }
+
+    /**
+     * Empties inventory of anything loaded before loading failed, then completes opened with failure. Runs on inventory executor.
+     */
+    private static void discardLoaded(CompletableFuture<Journal> opened, Throwable failure) {
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().clear();
+        opened.completeExceptionally(failure);
+    }
+
+    /**
+     * Waits until every record appended so far has been forced to disk.
+     * @throws IOException if journal could not be written
+     */
+    public void sync() throws IOException {
+        synchronized(appendLock) {
+            long target = appended;
+            appendLock.notifyAll();
+            while(durable < target && failure == null && !closed) {
+                try {
+                    appendLock.wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for journal", e);
+                }
+            }
+            if(failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Compacts inventory into a snapshot now rather than waiting for the current segment to fill up. Must be called on the thread that changes inventory.
+     */
+    public void compact() {
+        synchronized(appendLock) {
+            if(compacting || closed) {
+                return;
+            }
+            compacting = true;
+        }
+        try {
+            long snapshotSegment;
+            synchronized(writeLock) { // finish current segment so snapshot covers exactly the segments before new one
+                synchronized(appendLock) {
+                    flushPending();
+                    channel.close();
+                    snapshotSegment = segment;
+                    segment++;
+                    channel = openSegment(segment);
+                    segmentRecords = 0;
+                }
+            }
+            Snapshot snapshot = Snapshot.capture(snapshotSegment);
+            compactor.execute(() -> writeSnapshot(snapshot));
+        }
+        catch (IOException e) {
+            fail(e);
+            synchronized(appendLock) {
+                compacting = false;
+            }
+        }
+    }
+
+    /**
+     * Forces remaining records to disk and stops journaling inventory changes.
+     * @throws IOException if journal could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        Inventory.removeListener(this);
+        sync();
+        synchronized(appendLock) {
+            closed = true;
+            appendLock.notifyAll();
+        }
+        try {
+            writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES); // let snapshot being written finish
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized(writeLock) {
+            channel.close();
+        }
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void partAdded(Part part) {
+        log(out -> {
+            out.writeByte(PART_ADDED);
+            Records.writePart(out, part);
+        });
+    }
+
+    @Override
+    public void partUpdated(Part oldPart, Part newPart) {
+        log(out -> {
+            out.writeByte(PART_UPDATED);
+            out.writeInt(oldPart.getId());
+            Records.writePart(out, newPart);
+        });
+    }
+
+    @Override
+    public void partDeleted(Part part) {
+        log(out -> {
+            out.writeByte(PART_DELETED);
+            out.writeInt(part.getId());
+        });
+    }
+
+    @Override
+    public void productAdded(Product product) {
+        log(out -> {
+            out.writeByte(PRODUCT_ADDED_WITH_QUANTITIES);
+            Records.writeProduct(out, product, product.getAssociatedPartQuantities());
+        });
+    }
+
+    @Override
+    public void productUpdated(Product oldProduct, Product newProduct) {
+        log(out -> {
+            out.writeByte(PRODUCT_UPDATED_WITH_QUANTITIES);
+            out.writeInt(oldProduct.getId());
+            Records.writeProduct(out, newProduct, newProduct.getAssociatedPartQuantities());
+        });
+    }
+
+    @Override
+    public void productDeleted(Product product) {
+        log(out -> {
+            out.writeByte(PRODUCT_DELETED);
+            out.writeInt(product.getId());
+        });
+    }
+
+    @Override
+    public void transactionBegun() {
+        log(out -> {
+            out.writeByte(TRANSACTION_BEGUN);
+            inTransaction = true; // encoder runs holding appendLock
+        });
+    }
+
+    @Override
+    public void transactionCommitted() {
+        log(out -> {
+            out.writeByte(TRANSACTION_COMMITTED);
+            inTransaction = false;
+        });
+    }
+
+    @Override
+    public void partIdGenerated(int partId) {
+        logId(out -> {
+            out.writeByte(PART_ID_GENERATED);
+            out.writeInt(partId);
+        });
+    }
+
+    @Override
+    public void productIdGenerated(int productId) {
+        logId(out -> {
+            out.writeByte(PRODUCT_ID_GENERATED);
+            out.writeInt(productId);
+        });
+    }
+
+    /**
+     * Encodes record of an inventory change and queues it for the writer thread, then compacts journal if current segment is full. Called on the thread that changes inventory, from within the change, so compaction captures inventory between changes.
+     * @param encoder writes record type and contents
+     */
+    private void log(RecordEncoder encoder) {
+        boolean compactDue;
+        synchronized(appendLock) {
+            if(!enqueue(encoder)) {
+                return;
+            }
+            compactDue = ++segmentRecords >= COMPACT_THRESHOLD && !compacting && !inTransaction;
+        }
+        if(compactDue) { // compact() acquires writeLock, which must not be acquired while holding appendLock
+            compact();
+        }
+    }
+
+    /**
+     * Encodes record of a generated ID and queues it for the writer thread. IDs are generated on whichever thread asks for them, outside any change to inventory, so their records do not count toward COMPACT_THRESHOLD and never start compaction.
+     * @param encoder writes record type and contents
+     */
+    private void logId(RecordEncoder encoder) {
+        synchronized(appendLock) {
+            enqueue(encoder);
+        }
+    }
+
+    /**
+     * Encodes record and queues it for the writer thread. Called holding appendLock.
+     * @return false if journal is closed and record was dropped
+     */
+    private boolean enqueue(RecordEncoder encoder) {
+        if(closed) {
+            return false;
+        }
+        try {
+            encoder.encode(recordOut);
+        }
+        catch (IOException e) {
+            record.reset();
+            throw new UncheckedIOException(e);
+        }
+        append();
+        return true;
+    }
+
+    /**
+     * Frames encoded record with its length and checksum and queues it for the writer thread. Called holding appendLock.
+     */
+    private void append() {
+        crc.reset();
+        byte[] bytes = record.toByteArray();
+        crc.update(bytes);
+        record.reset();
+        int length = bytes.length;
+        int checksum = (int) crc.getValue();
+        pending.write(length >>> 24);
+        pending.write(length >>> 16);
+        pending.write(length >>> 8);
+        pending.write(length);
+        pending.write(checksum >>> 24);
+        pending.write(checksum >>> 16);
+        pending.write(checksum >>> 8);
+        pending.write(checksum);
+        pending.write(bytes, 0, length);
+        appended++;
+        if(pending.size() == length + HEADER_SIZE) { // writer may be waiting for records
+            appendLock.notifyAll();
+        }
+    }
+
+    /**
+     * Writes queued records in batches, forcing each batch to disk with a single fsync.
+     */
+    private void writeLoop() {
+        while(true) {
+            synchronized(appendLock) { // wait without holding writeLock so compaction can switch segments meanwhile
+                while(pending.size() == 0 && !closed) {
+                    try {
+                        appendLock.wait();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if(pending.size() == 0) { // closed and nothing left to write
+                    return;
+                }
+            }
+            synchronized(writeLock) {
+                ByteArrayOutputStream batch;
+                long batchEnd;
+                synchronized(appendLock) {
+                    if(pending.size() == 0) { // already written by compaction
+                        continue;
+                    }
+                    batch = pending;
+                    pending = new ByteArrayOutputStream(Math.max(1 << 16, batch.size()));
+                    batchEnd = appended;
+                }
+                try {
+                    write(batch);
+                }
+                catch (IOException e) {
+                    fail(e);
+                    return;
+                }
+                synchronized(appendLock) {
+                    durable = Math.max(durable, batchEnd);
+                    appendLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes records queued so far to current segment. Called holding writeLock and appendLock.
+     */
+    private void flushPending() throws IOException {
+        if(pending.size() > 0) {
+            write(pending);
+            pending.reset();
+        }
+        durable = appended;
+        appendLock.notifyAll();
+    }
+
+    private void write(ByteArrayOutputStream batch) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    private void writeSnapshot(Snapshot snapshot) {
+        try {
+            snapshot.write(directory.resolve(SNAPSHOT_FILE));
+            for(var entry : listSegments(directory).entrySet()) {
+                if(entry.getKey() <= snapshot.getLastSegment()) {
+                    Files.deleteIfExists(entry.getValue());
+                }
+            }
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+        finally {
+            synchronized(appendLock) {
+                compacting = false;
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        synchronized(appendLock) {
+            if(failure == null) {
+                failure = e;
+            }
+            appendLock.notifyAll();
+        }
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static TreeMap<Long, Path> listSegments(Path directory) throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for(Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+                }
+                catch (NumberFormatException e) { // not a journal segment
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Applies every record in segment to inventory. Stops at the first incomplete or corrupt record, which can only be the result of a crash while the segment was being written. Records of a transaction are held back until its commit record is reached, and are dropped if it never is; generated IDs logged meanwhile by other threads are applied straight away.
+     */
+    private static void replay(byte[] contents) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(contents));
+        CRC32 crc = new CRC32();
+        int position = 0;
+        int transaction = -1; // position of first record after begin record of transaction being read, until its commit record
+        while(position + HEADER_SIZE <= contents.length) {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if(length <= 0 || position + HEADER_SIZE + length > contents.length) {
+                return;
+            }
+            crc.reset();
+            crc.update(contents, position + HEADER_SIZE, length);
+            if((int) crc.getValue() != checksum) {
+                return;
+            }
+            byte type = contents[position + HEADER_SIZE];
+            try {
+                if(type == TRANSACTION_BEGUN) {
+                    transaction = position + HEADER_SIZE + length;
+                }
+                else if(type == TRANSACTION_COMMITTED) {
+                    if(transaction >= 0) {
+                        applyTransaction(contents, transaction, position);
+                        transaction = -1;
+                    }
+                }
+                else if(transaction < 0 || isIdRecord(type)) {
+                    apply(new DataInputStream(new ByteArrayInputStream(contents, position + HEADER_SIZE, length)));
+                }
+            }
+            catch (EOFException e) {
+                return;
+            }
+            in.skipBytes(length);
+            position += HEADER_SIZE + length;
+        }
+    }
+
+    /**
+     * Applies records of a committed transaction one by one, as they were logged. Records have already been checked by replay(), and generated IDs among them were applied when replay() first read them.
+     * @param from position of first record of transaction
+     * @param to position of its commit record
+     */
+    private static void applyTransaction(byte[] contents, int from, int to) throws IOException {
+        int position = from;
+        while(position < to) {
+            int length = ByteBuffer.wrap(contents, position, Integer.BYTES).getInt();
+            if(!isIdRecord(contents[position + HEADER_SIZE])) {
+                apply(new DataInputStream(new ByteArrayInputStream(contents, position + HEADER_SIZE, length)));
+            }
+            position += HEADER_SIZE + length;
+        }
+    }
+
+    private static boolean isIdRecord(byte type) {
+        return type == PART_ID_GENERATED || type == PRODUCT_ID_GENERATED;
+    }
+
+    private static void apply(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch(type) {
+            case PART_ADDED:
+                Inventory.addPart(Records.readPart(in));
+                break;
+            case PART_UPDATED: {
+                int oldId = in.readInt();
+                Inventory.replacePart(oldId, Records.readPart(in));
+                break;
+            }
+            case PART_DELETED: {
+                Part part = Inventory.lookupPart(in.readInt());
+                if(part != null) {
+                    Inventory.getAllParts().remove(part); // found by position index rather than by scanning; journals may delete parts that products still use, as deletes were not always guarded and a transaction deletes parts before updating the products that used them
+                }
+                break;
+            }
+            case PRODUCT_ADDED:
+            case PRODUCT_ADDED_WITH_QUANTITIES:
+                Inventory.addProduct(Records.readProduct(in, type == PRODUCT_ADDED_WITH_QUANTITIES));
+                break;
+            case PRODUCT_UPDATED:
+            case PRODUCT_UPDATED_WITH_QUANTITIES: {
+                int oldId = in.readInt();
+                Inventory.replaceProduct(oldId, Records.readProduct(in, type == PRODUCT_UPDATED_WITH_QUANTITIES));
+                break;
+            }
+            case PRODUCT_DELETED: {
+                Product product = Inventory.lookupProduct(in.readInt());
+                if(product != null) {
+                    Inventory.deleteProduct(product);
+                }
+                break;
+            }
+            case PART_ID_GENERATED:
+                Inventory.setLastPartId(Math.max(Inventory.getLastPartId(), in.readInt())); // IDs generated on different threads may be logged out of order
+                break;
+            case PRODUCT_ID_GENERATED:
+                Inventory.setLastProductId(Math.max(Inventory.getLastProductId(), in.readInt()));
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    /**
+     * Writes the type and contents of a record.
+     */
+    @FunctionalInterface
+    private interface RecordEncoder {
+        void encode(DataOutputStream out) throws IOException;
+    }
+}
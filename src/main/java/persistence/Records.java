@@ -0,0 +1,130 @@
+package persistence;
+
+import model.AssociatedParts;
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+import model.PartQuantity;
+import model.Product;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of parts and products shared by the journal and snapshots.
+ */
+final class Records {
+    private static final byte IN_HOUSE = 1;
+    private static final byte OUTSOURCED = 2;
+
+    private Records() {
+    }
+
+    /**
+     * Writes every field of part, including its type.
+     */
+    static void writePart(DataOutput out, Part part) throws IOException {
+        if(part instanceof InHouse) {
+            out.writeByte(IN_HOUSE);
+        }
+        else {
+            out.writeByte(OUTSOURCED);
+        }
+        out.writeInt(part.getId());
+        out.writeUTF(part.getName());
+        out.writeDouble(part.getPrice());
+        out.writeInt(part.getStock());
+        out.writeInt(part.getMin());
+        out.writeInt(part.getMax());
+        if(part instanceof InHouse) {
+            out.writeInt(((InHouse) part).getMachineId());
+        }
+        else {
+            out.writeUTF(((Outsourced) part).getCompanyName());
+        }
+    }
+
+    static Part readPart(DataInput in) throws IOException {
+        byte type = in.readByte();
+        int id = in.readInt();
+        String name = in.readUTF();
+        double price = in.readDouble();
+        int stock = in.readInt();
+        int min = in.readInt();
+        int max = in.readInt();
+        switch(type) {
+            case IN_HOUSE:
+                return new InHouse(id, name, price, stock, min, max, in.readInt());
+            case OUTSOURCED:
+                return new Outsourced(id, name, price, stock, min, max, in.readUTF());
+            default:
+                throw new IOException("Unknown part type " + type);
+        }
+    }
+
+    /**
+     * Writes every field of product. Associated parts are written in full, since a product may hold a copy of a part that has since been modified or deleted, once for each line of its bill of materials followed by the quantity needed.
+     */
+    static void writeProduct(DataOutput out, Product product, List<PartQuantity> lines) throws IOException {
+        out.writeInt(product.getId());
+        out.writeUTF(product.getName());
+        out.writeDouble(product.getPrice());
+        out.writeInt(product.getStock());
+        out.writeInt(product.getMin());
+        out.writeInt(product.getMax());
+        out.writeInt(lines.size());
+        for(PartQuantity line : lines) {
+            writePart(out, line.getPart());
+            out.writeInt(line.getQuantity());
+        }
+    }
+
+    /**
+     * Reads product. An associated part that is identical to a part currently in inventory is replaced by that part, so the product shares it as it did before being saved.
+     * @param quantities true if each associated part is followed by its quantity, as written by writeProduct(); false for records written before quantities were stored, which list a part once for each unit
+     */
+    static Product readProduct(DataInput in, boolean quantities) throws IOException {
+        int id = in.readInt();
+        String name = in.readUTF();
+        double price = in.readDouble();
+        int stock = in.readInt();
+        int min = in.readInt();
+        int max = in.readInt();
+        int count = in.readInt();
+        AssociatedParts associatedParts = new AssociatedParts();
+        Map<Integer, Part> copies = new HashMap<>(); // parts not in inventory, so repeated parts are still shared
+        for(int i = 0; i < count; i++) {
+            Part part = readPart(in);
+            int quantity = quantities ? in.readInt() : 1;
+            Part inventoryPart = Inventory.lookupPart(part.getId());
+            if(inventoryPart != null && sameValues(inventoryPart, part)) {
+                associatedParts.add(inventoryPart, quantity);
+            }
+            else {
+                Part copy = copies.get(part.getId());
+                if(copy == null || !sameValues(copy, part)) {
+                    copies.put(part.getId(), part);
+                    copy = part;
+                }
+                associatedParts.add(copy, quantity);
+            }
+        }
+        return new Product(quantities ? associatedParts : new AssociatedParts(associatedParts), id, name, price, stock, min, max); // older records may list a part apart from its other listings
+    }
+
+    private static boolean sameValues(Part a, Part b) {
+        if(a.getClass() != b.getClass() || a.getId() != b.getId() || !a.getName().equals(b.getName()) || Double.compare(a.getPrice(), b.getPrice()) != 0
+                || a.getStock() != b.getStock() || a.getMin() != b.getMin() || a.getMax() != b.getMax()) {
+            return false;
+        }
+        if(a instanceof InHouse) {
+            return ((InHouse) a).getMachineId() == ((InHouse) b).getMachineId();
+        }
+        return ((Outsourced) a).getSupplierCode() == ((Outsourced) b).getSupplierCode();
+    }
+}
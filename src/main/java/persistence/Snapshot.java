@@ -0,0 +1,378 @@
+package persistence;
+
+import model.AssociatedParts;
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+import model.PartQuantity;
+import model.Product;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Complete copy of inventory at a point in the journal. A snapshot replaces every journal segment up to and including lastSegment, so recovery only replays segments written after it.
+ * Snapshots are stored in a compact binary format made of fixed-width tables, so they can be memory mapped and read one record at a time:
+ * <pre>
+ * header        magic, version, lastSegment, lastPartId, lastProductId, part/orphan/product/association counts, string table offset
+ * parts         one PART_SIZE record per part: type, id, name, price, stock, min, max, machine ID or company name;
+ *               parts in inventory come first, followed by copies of parts that products hold but that are no longer in inventory
+ * products      one PRODUCT_SIZE record per product: id, name, price, stock, min, max, first association, association count
+ * associations  one ASSOCIATION_SIZE record per line of each product's bill of materials: index into parts table, so shared parts stay shared, and quantity;
+ *               version 2 snapshots have the index alone, listing a part once per unit
+ * strings       length-prefixed UTF-8 strings, each stored once and referenced by offset
+ * </pre>
+ */
+final class Snapshot {
+    private static final int MAGIC = 0x494E5653; // "INVS"
+    private static final int VERSION = 3;
+    private static final int UNQUANTIFIED_VERSION = 2; // still read, with a quantity of 1 for each association
+    private static final int HEADER_SIZE = 48;
+    private static final int PART_SIZE = 33;
+    private static final int PRODUCT_SIZE = 36;
+    private static final int ASSOCIATION_SIZE = 8;
+    private static final byte IN_HOUSE = 1;
+    private static final byte OUTSOURCED = 2;
+
+    private final long lastSegment;
+    private final int lastPartId;
+    private final int lastProductId;
+    private final List<Part> parts;
+    private final List<Product> products;
+    private final List<AssociatedParts> associatedParts;
+
+
+    private Snapshot(long lastSegment, int lastPartId, int lastProductId, List<Part> parts, List<Product> products, List<AssociatedParts> associatedParts) {
+        this.lastSegment = lastSegment;
+        this.lastPartId = lastPartId;
+        this.lastProductId = lastProductId;
+        this.parts = parts;
+        this.products = products;
+        this.associatedParts = associatedParts;
+    }
+
+    /**
+     * Copies current inventory so it can be written on another thread while inventory continues to change.
+     * @param lastSegment last journal segment whose records are included in inventory
+     * @return copy of inventory
+     */
+    static Snapshot capture(long lastSegment) {
+        List<Product> products = new ArrayList<>(Inventory.getAllProducts());
+        List<AssociatedParts> associatedParts = new ArrayList<>(products.size());
+        for(Product product : products) {
+            associatedParts.add(product.editAssociatedParts()); // copy in constant time, which the writing thread reads while the product's own list changes
+        }
+        return new Snapshot(lastSegment, Inventory.getLastPartId(), Inventory.getLastProductId(), new ArrayList<>(Inventory.getAllParts()), products, associatedParts);
+    }
+
+    /**
+     * @return last journal segment included in snapshot
+     */
+    long getLastSegment() {
+        return lastSegment;
+    }
+
+    /**
+     * Writes snapshot to a temporary file, forces it to disk, and then atomically replaces file.
+     * @param file snapshot file
+     * @throws IOException
+     */
+    void write(Path file) throws IOException {
+        // number every part, adding parts that are only held by products after parts in inventory
+        Map<Part, Integer> partIndex = new IdentityHashMap<>(parts.size());
+        List<Part> allParts = new ArrayList<>(parts);
+        for(Part part : parts) {
+            partIndex.putIfAbsent(part, partIndex.size());
+        }
+        List<List<PartQuantity>> lines = new ArrayList<>(associatedParts.size());
+        long associationCount = 0;
+        for(AssociatedParts associated : associatedParts) {
+            List<PartQuantity> productLines = new ArrayList<>(associated.lines());
+            for(PartQuantity line : productLines) {
+                if(!partIndex.containsKey(line.getPart())) {
+                    partIndex.put(line.getPart(), allParts.size());
+                    allParts.add(line.getPart());
+                }
+            }
+            lines.add(productLines);
+            associationCount += productLines.size();
+        }
+        StringTable strings = new StringTable();
+        long stringsOffset = HEADER_SIZE + (long) allParts.size() * PART_SIZE + (long) products.size() * PRODUCT_SIZE + associationCount * ASSOCIATION_SIZE;
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSegment);
+            out.writeInt(lastPartId);
+            out.writeInt(lastProductId);
+            out.writeInt(parts.size());
+            out.writeInt(allParts.size() - parts.size());
+            out.writeInt(products.size());
+            out.writeInt(Math.toIntExact(associationCount));
+            out.writeLong(stringsOffset);
+            for(Part part : allParts) {
+                boolean inHouse = part instanceof InHouse;
+                out.writeByte(inHouse ? IN_HOUSE : OUTSOURCED);
+                out.writeInt(part.getId());
+                out.writeInt(strings.add(part.getName()));
+                out.writeDouble(part.getPrice());
+                out.writeInt(part.getStock());
+                out.writeInt(part.getMin());
+                out.writeInt(part.getMax());
+                out.writeInt(inHouse ? ((InHouse) part).getMachineId() : strings.add(((Outsourced) part).getCompanyName()));
+            }
+            int firstAssociation = 0;
+            for(int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                out.writeInt(product.getId());
+                out.writeInt(strings.add(product.getName()));
+                out.writeDouble(product.getPrice());
+                out.writeInt(product.getStock());
+                out.writeInt(product.getMin());
+                out.writeInt(product.getMax());
+                out.writeInt(firstAssociation);
+                out.writeInt(lines.get(i).size());
+                firstAssociation += lines.get(i).size();
+            }
+            for(List<PartQuantity> productLines : lines) {
+                for(PartQuantity line : productLines) {
+                    out.writeInt(partIndex.get(line.getPart()));
+                    out.writeInt(line.getQuantity());
+                }
+            }
+            strings.writeTo(out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Memory maps snapshot file. Only the header is read; records are decoded when requested.
+     * @param file snapshot file
+     * @return reader for snapshot file
+     * @throws IOException if file is not a snapshot
+     */
+    static Reader open(Path file) throws IOException {
+        return new Reader(file);
+    }
+
+    /**
+     * Replaces contents of inventory with contents of snapshot file.
+     * @param file snapshot file
+     * @return last journal segment included in snapshot
+     * @throws IOException
+     */
+    static long restore(Path file) throws IOException {
+        Reader reader = open(file);
+        Inventory.setLastPartId(reader.getLastPartId());
+        Inventory.setLastProductId(reader.getLastProductId());
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().setAll(reader.parts(0, reader.getPartCount()));
+        Inventory.getAllProducts().setAll(reader.products(0, reader.getProductCount()));
+        return reader.getLastSegment();
+    }
+
+    /**
+     * Reads records from a memory mapped snapshot file on demand. Each part is decoded at most once, so products that share a part still share it after loading, and each company name is decoded once. Not thread-safe.
+     */
+    static final class Reader {
+        private final long lastSegment;
+        private final int lastPartId;
+        private final int lastProductId;
+        private final int partCount;
+        private final int productCount;
+        private final ByteBuffer partTable;
+        private final ByteBuffer productTable;
+        private final ByteBuffer associationTable;
+        private final int associationSize; // ASSOCIATION_SIZE, or the bytes of an index alone in an older snapshot
+        private final ByteBuffer stringTable;
+        private final Part[] decodedParts;
+        private final Map<Integer, String> companyNames = new HashMap<>(); // so parts from the same company share one String
+
+
+        private Reader(Path file) throws IOException {
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                int magic = header.getInt();
+                int version = header.getInt();
+                if(magic != MAGIC || (version != VERSION && version != UNQUANTIFIED_VERSION)) {
+                    throw new IOException("Unrecognized snapshot file " + file);
+                }
+                associationSize = version == VERSION ? ASSOCIATION_SIZE : Integer.BYTES;
+                lastSegment = header.getLong();
+                lastPartId = header.getInt();
+                lastProductId = header.getInt();
+                partCount = header.getInt();
+                int orphanCount = header.getInt();
+                productCount = header.getInt();
+                int associationCount = header.getInt();
+                long stringsOffset = header.getLong();
+                long position = HEADER_SIZE;
+                partTable = map(channel, position, (long) (partCount + orphanCount) * PART_SIZE);
+                position += partTable.capacity();
+                productTable = map(channel, position, (long) productCount * PRODUCT_SIZE);
+                position += productTable.capacity();
+                associationTable = map(channel, position, (long) associationCount * associationSize);
+                stringTable = map(channel, stringsOffset, channel.size() - stringsOffset);
+                decodedParts = new Part[partCount + orphanCount];
+            }
+        }
+
+        long getLastSegment() {
+            return lastSegment;
+        }
+
+        int getLastPartId() {
+            return lastPartId;
+        }
+
+        int getLastProductId() {
+            return lastProductId;
+        }
+
+        /**
+         * @return number of parts in inventory when snapshot was taken
+         */
+        int getPartCount() {
+            return partCount;
+        }
+
+        /**
+         * @return number of products in inventory when snapshot was taken
+         */
+        int getProductCount() {
+            return productCount;
+        }
+
+        /**
+         * @param from index of first part, inclusive
+         * @param to index of last part, exclusive
+         * @return parts in inventory in specified range
+         */
+        List<Part> parts(int from, int to) {
+            List<Part> parts = new ArrayList<>(to - from);
+            for(int i = from; i < to; i++) {
+                parts.add(part(i));
+            }
+            return parts;
+        }
+
+        /**
+         * @param from index of first product, inclusive
+         * @param to index of last product, exclusive
+         * @return products in specified range
+         */
+        List<Product> products(int from, int to) {
+            List<Product> products = new ArrayList<>(to - from);
+            for(int i = from; i < to; i++) {
+                products.add(product(i));
+            }
+            return products;
+        }
+
+        private Part part(int index) {
+            Part part = decodedParts[index];
+            if(part != null) {
+                return part;
+            }
+            int offset = index * PART_SIZE;
+            byte type = partTable.get(offset);
+            int id = partTable.getInt(offset + 1);
+            String name = string(partTable.getInt(offset + 5));
+            double price = partTable.getDouble(offset + 9);
+            int stock = partTable.getInt(offset + 17);
+            int min = partTable.getInt(offset + 21);
+            int max = partTable.getInt(offset + 25);
+            int extra = partTable.getInt(offset + 29);
+            part = type == IN_HOUSE ? new InHouse(id, name, price, stock, min, max, extra) : new Outsourced(id, name, price, stock, min, max, companyName(extra));
+            decodedParts[index] = part;
+            return part;
+        }
+
+        private Product product(int index) {
+            int offset = index * PRODUCT_SIZE;
+            int id = productTable.getInt(offset);
+            String name = string(productTable.getInt(offset + 4));
+            double price = productTable.getDouble(offset + 8);
+            int stock = productTable.getInt(offset + 16);
+            int min = productTable.getInt(offset + 20);
+            int max = productTable.getInt(offset + 24);
+            int firstAssociation = productTable.getInt(offset + 28);
+            int associationCount = productTable.getInt(offset + 32);
+            AssociatedParts associatedParts = new AssociatedParts();
+            for(int i = 0; i < associationCount; i++) {
+                int position = (firstAssociation + i) * associationSize;
+                associatedParts.add(part(associationTable.getInt(position)), associationSize == ASSOCIATION_SIZE ? associationTable.getInt(position + Integer.BYTES) : 1);
+            }
+            return new Product(associationSize == ASSOCIATION_SIZE ? associatedParts : new AssociatedParts(associatedParts), id, name, price, stock, min, max); // older snapshots may list a part apart from its other listings
+        }
+
+        private String string(int offset) {
+            int length = stringTable.getInt(offset);
+            byte[] bytes = new byte[length];
+            stringTable.get(offset + Integer.BYTES, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private String companyName(int offset) {
+            return companyNames.computeIfAbsent(offset, this::string);
+        }
+
+        private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+            if(size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot section too large to map: " + size + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        }
+    }
+
+    /**
+     * Collects distinct strings into a table of length-prefixed UTF-8 strings.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        /**
+         * @param string string to add
+         * @return offset of string in table
+         */
+        int add(String string) throws IOException {
+            Integer offset = offsets.get(string);
+            if(offset == null) {
+                offset = bytes.size();
+                byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+                offsets.put(string, offset);
+            }
+            return offset;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            bytes.writeTo(target);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package server;
+
+import com.sun.net.httpserver.HttpServer;
+import metrics.Metrics;
+import model.Inventory;
+import persistence.Journal;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless JSON API over inventory, served by the JDK's built-in HTTP server so it needs nothing beyond the JDK. Parts are served under /parts and products under /products; see ItemHandler for the requests accepted. Latencies of inventory operations are served under /metrics in the Prometheus text format.
+ * Each request is handled on a virtual thread when the JVM has them, from Java 21, and otherwise on a fixed pool of platform threads, as on Java 17. Requests read and change inventory through its thread-safe methods, with changes serialized by Inventory as they are for the user interface.
+ * Run with: java --module-path ... -m pknoche.inventory_program/server.InventoryServer [port]
+ */
+public final class InventoryServer implements AutoCloseable {
+    public static final String PORT_PROPERTY = "inventory.httpPort";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int PLATFORM_THREADS_PER_CPU = 8; // handler threads mostly wait on sockets and the inventory lock, so more than one per CPU
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    static {
+        if(System.getProperty("sun.net.httpserver.nodelay") == null) { // read when the first HttpServer is created; without it small responses on kept-alive connections wait about 40 ms for delayed ACKs
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+
+    private InventoryServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts serving inventory as it is; saved inventory should already be loaded.
+     * @param address address to listen on, with port 0 for any free port
+     * @return running server
+     * @throws IOException if address cannot be bound
+     */
+    public static InventoryServer start(InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, 0);
+        ExecutorService executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/parts", new PartHandler());
+        server.createContext("/products", new ProductHandler());
+        server.createContext("/metrics", new MetricsHandler());
+        server.start();
+        return new InventoryServer(server, executor);
+    }
+
+    /**
+     * @return port server is listening on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for requests being handled to finish, then stops their threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Loads saved inventory from the journal directory set by the inventory.dataDir system property, as the user interface does, then serves it until the JVM is stopped. Changes made through the API are journaled.
+     * @param args optional port to listen on, which otherwise is set by the inventory.httpPort system property and defaults to 8080
+     * @throws IOException if saved inventory cannot be loaded or port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+        Metrics.install();
+        Journal journal = Journal.open(Path.of(System.getProperty("inventory.dataDir", "inventory-data")));
+        InventoryServer server = start(new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                journal.close();
+            }
+            catch (IOException e) {
+                System.err.println("Journal could not be closed: " + e.getMessage());
+            }
+        }, "inventory-shutdown"));
+        System.out.println("Serving " + Inventory.getAllParts().size() + " parts and " + Inventory.getAllProducts().size() + " products on port " + server.getPort());
+    }
+
+    /**
+     * Looks up Executors.newVirtualThreadPerTaskExecutor() reflectively, so the server compiles and runs on Java 17 but uses virtual threads on Java 21 and later.
+     * Java 17, which the build targets, has no virtual threads, so there requests are always handled by the fixed pool, with PLATFORM_THREADS_PER_CPU threads per CPU.
+     * @return executor running each task on a new virtual thread, or a fixed pool of daemon platform threads if virtual threads are not available
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) { // before Java 21 the method is missing, or a preview feature that is not enabled
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * PLATFORM_THREADS_PER_CPU, runnable -> {
+                Thread thread = new Thread(runnable, "inventory-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.Inventory;
+import model.Validation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves one kind of inventory item under a path such as /parts:
+ * <pre>
+ * GET    /parts?offset=0&amp;limit=100   page of all parts, in inventory order
+ * GET    /parts?q=wheel               page of parts whose name contains q
+ * POST   /parts                       add part from JSON body, with a generated ID
+ * GET    /parts/{id}                  part with ID
+ * PUT    /parts/{id}                  replace values of part with ID from JSON body
+ * DELETE /parts/{id}                  delete part with ID
+ * </pre>
+ * Single items are sent with their version as an ETag. A PUT with an If-Match header holding that ETag only replaces the item if it has not changed since, and is answered with 412 otherwise, so clients can update items without overwriting each other's changes.
+ * Subclasses add their own filters, such as price ranges, and convert items to and from JSON. Pages are written as {"total":n,"offset":o,"limit":l,"items":[...]}, errors as {"error":"message"}.
+ * The items of each page are copied while inventory is held unchanged, then written out to the client, so a page is consistent however many requests are changing inventory meanwhile.
+ * @param <T> type of item served
+ */
+abstract class ItemHandler<T> implements HttpHandler {
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+    private static final int MAX_BODY_BYTES = 1 << 20; // request bodies larger than this are rejected rather than read into memory
+
+    private final String path;
+
+
+    /**
+     * @param path context path handled, such as "/parts"
+     */
+    ItemHandler(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return item with ID, or null if none is in inventory
+     */
+    abstract T lookup(int id);
+
+    /**
+     * @return version of item with ID, read without waiting for inventory changes
+     */
+    abstract int version(int id);
+
+    /**
+     * @param query lower case name query
+     * @return items whose name contains query
+     */
+    abstract List<T> search(String query);
+
+    /**
+     * @param parameters query parameters of a GET request for the collection, other than offset, limit and q
+     * @return items matching a filter named by parameters, or null if parameters name no filter
+     * @throws IllegalArgumentException if a filter parameter is not valid
+     */
+    abstract List<T> filter(Map<String, String> parameters);
+
+    /**
+     * @return all items in inventory, read only while inventory is held unchanged
+     */
+    abstract List<T> all();
+
+    /**
+     * @return copy of item with its current values, to be written once inventory is no longer held unchanged
+     */
+    abstract T copy(T item);
+
+    /**
+     * Appends item, a copy made by copy(), as a JSON object.
+     */
+    abstract void write(StringBuilder out, T item);
+
+    /**
+     * Adds an item with a generated ID to inventory.
+     * @param body request body
+     * @return item added
+     * @throws IllegalArgumentException if body does not hold valid values
+     */
+    abstract T create(Map<String, Object> body);
+
+    /**
+     * Replaces the values of item in inventory, unless it has changed since it was at expectedVersion.
+     * @param item item in inventory
+     * @param body request body
+     * @param expectedVersion version item must still be at
+     * @return true if item was replaced; false if it is no longer in inventory or has changed
+     * @throws IllegalArgumentException if body does not hold valid values
+     */
+    abstract boolean replace(T item, Map<String, Object> body, int expectedVersion);
+
+    /**
+     * Deletes item from inventory.
+     * @return null if item was deleted, otherwise the reason it cannot be
+     */
+    abstract String delete(T item);
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try(exchange) {
+            try {
+                String rest = exchange.getRequestURI().getPath().substring(path.length());
+                String method = exchange.getRequestMethod();
+                if(rest.isEmpty() || rest.equals("/")) {
+                    switch(method) {
+                        case "GET": list(exchange); break;
+                        case "POST":
+                            T created = create(body(exchange));
+                            item(exchange, 201, created, 0);
+                            break;
+                        default: notAllowed(exchange, "GET, POST");
+                    }
+                    return;
+                }
+                int id = parseId(rest.substring(1));
+                int version = version(id); // read before item, so a change made meanwhile is caught by a PUT
+                T item = lookup(id);
+                if(item == null) {
+                    error(exchange, 404, "No item with ID " + id + ".");
+                    return;
+                }
+                switch(method) {
+                    case "GET": item(exchange, 200, id, version); break;
+                    case "PUT":
+                        int expectedVersion = ifMatch(exchange, version);
+                        if(replace(item, body(exchange), expectedVersion)) {
+                            item(exchange, 200, id, version(id));
+                        }
+                        else if(lookup(id) == null) {
+                            error(exchange, 404, "No item with ID " + id + ".");
+                        }
+                        else {
+                            error(exchange, 412, "Item " + id + " has changed since version " + expectedVersion + ".");
+                        }
+                        break;
+                    case "DELETE":
+                        String reason = delete(item);
+                        if(reason == null) {
+                            exchange.sendResponseHeaders(204, -1);
+                        }
+                        else {
+                            error(exchange, lookup(id) == null ? 404 : 409, reason);
+                        }
+                        break;
+                    default: notAllowed(exchange, "GET, PUT, DELETE");
+                }
+            }
+            catch (IllegalArgumentException e) {
+                error(exchange, 400, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes a page of all items, of items matching name query q, or of items matching a subclass filter.
+     */
+    private void list(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+        int offset = intParameter(parameters, "offset", 0);
+        int limit = intParameter(parameters, "limit", DEFAULT_LIMIT);
+        if(offset < 0 || limit < 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Offset must be non-negative, and limit between 0 and " + MAX_LIMIT + ".");
+        }
+        String query = parameters.remove("q");
+        parameters.remove("offset");
+        parameters.remove("limit");
+        List<T> matches = query != null ? search(query.toLowerCase()) : filter(parameters);
+        int[] total = new int[1];
+        List<T> page = Inventory.read(() -> {
+            List<T> items = matches != null ? matches : all();
+            int from = Math.min(offset, items.size());
+            int to = Math.min(items.size(), from + limit);
+            List<T> copies = new ArrayList<>(to - from);
+            for(int i = from; i < to; i++) {
+                copies.add(copy(items.get(i)));
+            }
+            total[0] = items.size();
+            return copies;
+        });
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0); // length unknown, so body is sent with chunked encoding
+        try(Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            StringBuilder out = new StringBuilder(256);
+            out.append("{\"total\":").append(total[0]).append(",\"offset\":").append(offset).append(",\"limit\":").append(limit).append(",\"items\":[");
+            for(int i = 0; i < page.size(); i++) {
+                if(i > 0) {
+                    out.append(',');
+                }
+                write(out, page.get(i));
+                writer.append(out);
+                out.setLength(0);
+            }
+            writer.append(out.append("]}"));
+        }
+    }
+
+    /**
+     * Writes item with ID as it is in inventory, or 404 if it has just been deleted.
+     */
+    private void item(HttpExchange exchange, int status, int id, int version) throws IOException {
+        T item = lookup(id);
+        if(item == null) {
+            error(exchange, 404, "No item with ID " + id + ".");
+            return;
+        }
+        item(exchange, status, item, version);
+    }
+
+    private void item(HttpExchange exchange, int status, T item, int version) throws IOException {
+        StringBuilder out = new StringBuilder(160);
+        write(out, Inventory.read(() -> copy(item)));
+        exchange.getResponseHeaders().set("ETag", "\"" + version + "\"");
+        send(exchange, status, out);
+    }
+
+    /**
+     * @return version in If-Match header, or currentVersion if there is none
+     */
+    private static int ifMatch(HttpExchange exchange, int currentVersion) {
+        String etag = exchange.getRequestHeaders().getFirst("If-Match");
+        if(etag == null || etag.equals("*")) {
+            return currentVersion;
+        }
+        try {
+            return Integer.parseInt(etag.trim().replace("\"", ""));
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must hold an ETag sent with the item.");
+        }
+    }
+
+    private static void notAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        error(exchange, 405, "Method not allowed; use " + allowed + ".");
+    }
+
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder out = new StringBuilder("{\"error\":");
+        Json.writeString(out, message);
+        send(exchange, status, out.append('}'));
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try(OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    private static Map<String, Object> body(HttpExchange exchange) throws IOException {
+        try(InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if(bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body is larger than " + MAX_BODY_BYTES + " bytes.");
+            }
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if(rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for(String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID must be an integer.");
+        }
+    }
+
+    static int intParameter(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if(value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer.");
+        }
+    }
+
+    static double doubleParameter(Map<String, String> parameters, String name, double defaultValue) {
+        String value = parameters.get(name);
+        if(value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number.");
+        }
+    }
+
+    /**
+     * @return name from body, checked to be valid
+     */
+    static String name(Map<String, Object> body) {
+        Object name = body.get("name");
+        if(!(name instanceof String) || !Validation.isValidName((String) name)) {
+            throw new IllegalArgumentException("Name cannot be blank.");
+        }
+        return ((String) name).trim();
+    }
+
+    static double number(Map<String, Object> body, String member, String message) {
+        Object value = body.get(member);
+        if(!(value instanceof BigDecimal)) {
+            throw new IllegalArgumentException(message);
+        }
+        return ((BigDecimal) value).doubleValue();
+    }
+
+    static int integer(Map<String, Object> body, String member, String message) {
+        Object value = body.get(member);
+        if(!(value instanceof BigDecimal)) {
+            throw new IllegalArgumentException(message);
+        }
+        try {
+            return ((BigDecimal) value).intValueExact();
+        }
+        catch (ArithmeticException e) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * @return stock, min and max from body, checked to be valid
+     */
+    static int[] stockMinMax(Map<String, Object> body) {
+        int stock = integer(body, "stock", "Inv must be an integer.");
+        int min = integer(body, "min", "Min and max must be non-negative integers, and min must be less than or equal to max.");
+        int max = integer(body, "max", "Min and max must be non-negative integers, and min must be less than or equal to max.");
+        if(!Validation.isValidMinMax(min, max)) {
+            throw new IllegalArgumentException("Min and max must be non-negative integers, and min must be less than or equal to max.");
+        }
+        if(!Validation.isValidInv(stock, min, max)) {
+            throw new IllegalArgumentException("Inv must be between min and max.");
+        }
+        return new int[] {stock, min, max};
+    }
+}
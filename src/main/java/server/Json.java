@@ -0,0 +1,238 @@
+package server;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the HTTP API, enough to read request bodies holding one object and to write response values. Objects are read as maps of strings, numbers read as BigDecimal, booleans, null, lists and nested maps.
+ */
+final class Json {
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @param text JSON text holding a single object
+     * @return members of object, in the order they appear
+     * @throws IllegalArgumentException if text is not a JSON object
+     */
+    static Map<String, Object> parseObject(String text) {
+        Json json = new Json(text);
+        json.skipWhitespace();
+        if(json.peek() != '{') {
+            throw json.error("Request body must be a JSON object.");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> object = (Map<String, Object>) json.value();
+        json.skipWhitespace();
+        if(json.position < text.length()) {
+            throw json.error("Unexpected text after JSON object.");
+        }
+        return object;
+    }
+
+    /**
+     * Appends value as a JSON string, escaping quotes, backslashes and control characters.
+     * @param out builder to append to
+     * @param value string to be written, or null
+     */
+    static void writeString(StringBuilder out, String value) {
+        if(value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if(c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Appends value as a JSON number, or null if it is not finite, as JSON has no infinity or NaN.
+     * @param out builder to append to
+     * @param value number to be written
+     */
+    static void writeNumber(StringBuilder out, double value) {
+        if(Double.isFinite(value)) {
+            out.append(value);
+        }
+        else {
+            out.append("null");
+        }
+    }
+
+    private Object value() {
+        skipWhitespace();
+        char c = peek();
+        switch(c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if(c == '-' || (c >= '0' && c <= '9')) {
+                    return number();
+                }
+                throw error("Unexpected character '" + c + "'.");
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> members = new LinkedHashMap<>();
+        position++; // opening brace
+        skipWhitespace();
+        if(peek() == '}') {
+            position++;
+            return members;
+        }
+        while(true) {
+            skipWhitespace();
+            if(peek() != '"') {
+                throw error("Expected member name.");
+            }
+            String name = string();
+            skipWhitespace();
+            expect(':');
+            members.put(name, value());
+            skipWhitespace();
+            if(peek() == ',') {
+                position++;
+                continue;
+            }
+            expect('}');
+            return members;
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> elements = new ArrayList<>();
+        position++; // opening bracket
+        skipWhitespace();
+        if(peek() == ']') {
+            position++;
+            return elements;
+        }
+        while(true) {
+            elements.add(value());
+            skipWhitespace();
+            if(peek() == ',') {
+                position++;
+                continue;
+            }
+            expect(']');
+            return elements;
+        }
+    }
+
+    private String string() {
+        position++; // opening quote
+        StringBuilder value = new StringBuilder();
+        while(true) {
+            if(position >= text.length()) {
+                throw error("String is not closed.");
+            }
+            char c = text.charAt(position++);
+            if(c == '"') {
+                return value.toString();
+            }
+            if(c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if(position >= text.length()) {
+                throw error("String is not closed.");
+            }
+            char escaped = text.charAt(position++);
+            switch(escaped) {
+                case '"': case '\\': case '/': value.append(escaped); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'u':
+                    if(position + 4 > text.length()) {
+                        throw error("Incomplete unicode escape.");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    }
+                    catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape.");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    throw error("Invalid escape '\\" + escaped + "'.");
+            }
+        }
+    }
+
+    private BigDecimal number() {
+        int start = position;
+        while(position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        try {
+            return new BigDecimal(text.substring(start, position));
+        }
+        catch (NumberFormatException e) {
+            throw error("Invalid number.");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if(!text.startsWith(word, position)) {
+            throw error("Unexpected character '" + peek() + "'.");
+        }
+        position += word.length();
+        return value;
+    }
+
+    private void expect(char c) {
+        if(peek() != c) {
+            throw error("Expected '" + c + "'.");
+        }
+        position++;
+    }
+
+    private char peek() {
+        if(position >= text.length()) {
+            throw error("Unexpected end of JSON.");
+        }
+        return text.charAt(position);
+    }
+
+    private void skipWhitespace() {
+        while(position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " (at character " + position + ")");
+    }
+}
@@ -0,0 +1,122 @@
+package server;
+
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves parts under /parts. Parts are written as
+ * <pre>
+ * {"id":7,"type":"Outsourced","name":"Seat","price":9.99,"stock":5,"min":0,"max":10,"companyName":"Acme Supply"}
+ * </pre>
+ * with "machineId" in place of "companyName" for in-house parts, and are read from request bodies in the same form without "id". A part's type may be left out of a PUT body to keep its current type.
+ * Besides name queries, GET /parts accepts minPrice and maxPrice, or minStock and maxStock, to list parts in a price or stock range in range order.
+ */
+final class PartHandler extends ItemHandler<Part> {
+    PartHandler() {
+        super("/parts");
+    }
+
+    @Override
+    Part lookup(int id) {
+        return Inventory.lookupPart(id);
+    }
+
+    @Override
+    int version(int id) {
+        return Inventory.getPartVersion(id);
+    }
+
+    @Override
+    List<Part> search(String query) {
+        return Inventory.lookupPart(query);
+    }
+
+    @Override
+    List<Part> filter(Map<String, String> parameters) {
+        if(parameters.containsKey("minPrice") || parameters.containsKey("maxPrice")) {
+            return Inventory.lookupPartsByPrice(doubleParameter(parameters, "minPrice", Double.NEGATIVE_INFINITY), doubleParameter(parameters, "maxPrice", Double.POSITIVE_INFINITY));
+        }
+        if(parameters.containsKey("minStock") || parameters.containsKey("maxStock")) {
+            return Inventory.lookupPartsByStock(intParameter(parameters, "minStock", Integer.MIN_VALUE), intParameter(parameters, "maxStock", Integer.MAX_VALUE));
+        }
+        return null;
+    }
+
+    @Override
+    List<Part> all() {
+        return Inventory.getAllParts();
+    }
+
+    @Override
+    Part copy(Part part) {
+        if(part instanceof InHouse) {
+            return new InHouse(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(), part.getMax(), ((InHouse) part).getMachineId());
+        }
+        return new Outsourced(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(), part.getMax(), ((Outsourced) part).getCompanyName());
+    }
+
+    @Override
+    void write(StringBuilder out, Part part) {
+        out.append("{\"id\":").append(part.getId()).append(",\"type\":").append(part instanceof InHouse ? "\"InHouse\"" : "\"Outsourced\"").append(",\"name\":");
+        Json.writeString(out, part.getName());
+        out.append(",\"price\":");
+        Json.writeNumber(out, part.getPrice());
+        out.append(",\"stock\":").append(part.getStock()).append(",\"min\":").append(part.getMin()).append(",\"max\":").append(part.getMax());
+        if(part instanceof InHouse) {
+            out.append(",\"machineId\":").append(((InHouse) part).getMachineId());
+        }
+        else {
+            out.append(",\"companyName\":");
+            Json.writeString(out, ((Outsourced) part).getCompanyName());
+        }
+        out.append('}');
+    }
+
+    @Override
+    Part create(Map<String, Object> body) {
+        Part part = part(body, 0, null);
+        part.setId(Inventory.generatePartId()); // only once body is known to be valid, so rejected requests do not use up IDs
+        Inventory.addPart(part);
+        return part;
+    }
+
+    @Override
+    boolean replace(Part part, Map<String, Object> body, int expectedVersion) {
+        return Inventory.compareAndUpdatePart(expectedVersion, part(body, part.getId(), part));
+    }
+
+    @Override
+    String delete(Part part) {
+        if(Inventory.isPartUsed(part.getId())) {
+            return "Part is associated with a product and cannot be deleted.";
+        }
+        return Inventory.deletePart(part) ? null : "Part could not be deleted.";
+    }
+
+    /**
+     * @param current part being replaced, whose type is kept if body has none, or null for a new part
+     * @return part with ID and values from body
+     */
+    private static Part part(Map<String, Object> body, int id, Part current) {
+        String name = name(body);
+        double price = number(body, "price", "Price/Cost must be a number.");
+        int[] stockMinMax = stockMinMax(body);
+        Object type = body.containsKey("type") || current == null ? body.get("type") : (current instanceof InHouse ? "InHouse" : "Outsourced");
+        if("InHouse".equals(type)) {
+            return new InHouse(id, name, price, stockMinMax[0], stockMinMax[1], stockMinMax[2], integer(body, "machineId", "Machine ID must be an integer."));
+        }
+        if("Outsourced".equals(type)) {
+            Object companyName = body.get("companyName");
+            if(!(companyName instanceof String) || ((String) companyName).isBlank()) {
+                throw new IllegalArgumentException("Company name cannot be blank.");
+            }
+            return new Outsourced(id, name, price, stockMinMax[0], stockMinMax[1], stockMinMax[2], ((String) companyName).trim());
+        }
+        throw new IllegalArgumentException("Type must be InHouse or Outsourced.");
+    }
+}
@@ -0,0 +1,131 @@
+package server;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Inventory;
+import model.Part;
+import model.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves products under /products. Products are written as
+ * <pre>
+ * {"id":1000,"name":"Bike","price":199.0,"stock":3,"min":1,"max":5,"parts":[7,12,12]}
+ * </pre>
+ * where parts lists the IDs of the associated parts, and are read from request bodies in the same form without "id". Every associated part must be in inventory.
+ * Besides name queries, GET /products accepts usingPart to list the products using a part, minPrice and maxPrice, or minStock and maxStock.
+ */
+final class ProductHandler extends ItemHandler<Product> {
+    ProductHandler() {
+        super("/products");
+    }
+
+    @Override
+    Product lookup(int id) {
+        return Inventory.lookupProduct(id);
+    }
+
+    @Override
+    int version(int id) {
+        return Inventory.getProductVersion(id);
+    }
+
+    @Override
+    List<Product> search(String query) {
+        return Inventory.lookupProduct(query);
+    }
+
+    @Override
+    List<Product> filter(Map<String, String> parameters) {
+        if(parameters.containsKey("usingPart")) {
+            return Inventory.lookupProductsUsing(intParameter(parameters, "usingPart", 0));
+        }
+        if(parameters.containsKey("minPrice") || parameters.containsKey("maxPrice")) {
+            return Inventory.lookupProductsByPrice(doubleParameter(parameters, "minPrice", Double.NEGATIVE_INFINITY), doubleParameter(parameters, "maxPrice", Double.POSITIVE_INFINITY));
+        }
+        if(parameters.containsKey("minStock") || parameters.containsKey("maxStock")) {
+            return Inventory.lookupProductsByStock(intParameter(parameters, "minStock", Integer.MIN_VALUE), intParameter(parameters, "maxStock", Integer.MAX_VALUE));
+        }
+        return null;
+    }
+
+    @Override
+    List<Product> all() {
+        return Inventory.getAllProducts();
+    }
+
+    @Override
+    Product copy(Product product) {
+        return new Product(product.editAssociatedParts(), product.getId(), product.getName(), product.getPrice(), product.getStock(), product.getMin(), product.getMax()); // associated parts are shared, not copied
+    }
+
+    @Override
+    void write(StringBuilder out, Product product) {
+        out.append("{\"id\":").append(product.getId()).append(",\"name\":");
+        Json.writeString(out, product.getName());
+        out.append(",\"price\":");
+        Json.writeNumber(out, product.getPrice());
+        out.append(",\"stock\":").append(product.getStock()).append(",\"min\":").append(product.getMin()).append(",\"max\":").append(product.getMax()).append(",\"parts\":[");
+        List<Part> parts = product.getAllAssociatedParts();
+        for(int i = 0; i < parts.size(); i++) {
+            if(i > 0) {
+                out.append(',');
+            }
+            out.append(parts.get(i).getId());
+        }
+        out.append("]}");
+    }
+
+    @Override
+    Product create(Map<String, Object> body) {
+        Product product = product(body, 0);
+        product.setId(Inventory.generateProductId()); // only once body and its part IDs are known to be valid
+        Inventory.addProduct(product);
+        return product;
+    }
+
+    @Override
+    boolean replace(Product product, Map<String, Object> body, int expectedVersion) {
+        return Inventory.compareAndUpdateProduct(expectedVersion, product(body, product.getId()));
+    }
+
+    @Override
+    String delete(Product product) {
+        boolean hasParts = Inventory.read(() -> !product.getAllAssociatedParts().isEmpty());
+        if(hasParts) {
+            return "All associated parts must be removed before product can be deleted.";
+        }
+        return Inventory.deleteProduct(product) ? null : "Product could not be deleted.";
+    }
+
+    /**
+     * @return product with ID and values from body, associated with the parts in inventory with the IDs it lists
+     */
+    private static Product product(Map<String, Object> body, int id) {
+        String name = name(body);
+        double price = number(body, "price", "Price/Cost must be a number.");
+        int[] stockMinMax = stockMinMax(body);
+        Object partIds = body.containsKey("parts") ? body.get("parts") : List.of();
+        if(!(partIds instanceof List)) {
+            throw new IllegalArgumentException("Parts must be a list of part IDs.");
+        }
+        ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+        for(Object partId : (List<?>) partIds) {
+            Part part = null;
+            try {
+                part = partId instanceof BigDecimal ? Inventory.lookupPart(((BigDecimal) partId).intValueExact()) : null;
+            }
+            catch (ArithmeticException e) {
+                // not an int, reported below
+            }
+            if(part == null) {
+                throw new IllegalArgumentException("Part " + partId + " is not in inventory.");
+            }
+            associatedParts.add(part);
+        }
+        return new Product(associatedParts, id, name, price, stockMinMax[0], stockMinMax[1], stockMinMax[2]);
+    }
+}
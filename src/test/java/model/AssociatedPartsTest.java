@@ -0,0 +1,124 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssociatedPartsTest {
+    private static final Part WHEEL = new InHouse(1, "Wheel", 5, 10, 0, 100, 1);
+    private static final Part SEAT = new InHouse(2, "Seat", 12, 4, 0, 20, 1);
+    private static final Part BELL = new Outsourced(3, "Bell", 2, 30, 0, 50, "Acme Supply");
+
+
+    @Test
+    void copyLeavesOriginalUnchangedUntilReplayed() {
+        AssociatedParts original = new AssociatedParts(List.of(WHEEL, SEAT));
+        AssociatedParts copy = original.fork();
+        copy.increment(WHEEL);
+        copy.remove(SEAT);
+
+        assertEquals(List.of(WHEEL, SEAT), original);
+        assertEquals(List.of(WHEEL, WHEEL), copy);
+    }
+
+    @Test
+    void replayReportsEditsOfCopyAsOneChange() {
+        AssociatedParts original = new AssociatedParts(List.of(WHEEL, SEAT, BELL));
+        List<Part> mirror = new ArrayList<>(original);
+        int[] changes = {0};
+        original.addListener(mirrorChanges(mirror, changes));
+        AssociatedParts copy = original.fork();
+        copy.increment(WHEEL);
+        copy.remove(BELL);
+        copy.add(0, BELL);
+        copy.set(3, WHEEL);
+
+        assertTrue(original.replay(copy));
+
+        assertEquals(List.of(BELL, WHEEL, WHEEL, WHEEL), original);
+        assertEquals(original, mirror);
+        assertEquals(1, changes[0]);
+    }
+
+    @Test
+    void replayFailsIfOriginalChangedAfterCopying() {
+        AssociatedParts original = new AssociatedParts(List.of(WHEEL, SEAT));
+        AssociatedParts copy = original.fork();
+        original.increment(SEAT);
+        copy.increment(WHEEL);
+
+        assertFalse(original.replay(copy));
+        assertEquals(List.of(WHEEL, SEAT, SEAT), original);
+    }
+
+    @Test
+    void copyCanBeReplayedAgainAfterFurtherEdits() {
+        AssociatedParts original = new AssociatedParts(List.of(WHEEL));
+        AssociatedParts copy = original.fork();
+        copy.increment(SEAT);
+        assertTrue(original.replay(copy));
+        copy.remove(WHEEL);
+
+        assertTrue(original.replay(copy));
+        assertEquals(List.of(SEAT), original);
+    }
+
+    @Test
+    void replayMatchesCopyAfterRandomEdits() {
+        Random random = new Random(42);
+        Part[] parts = {WHEEL, SEAT, BELL};
+        for(int round = 0; round < 500; round++) {
+            List<Part> listed = new ArrayList<>();
+            for(int i = random.nextInt(20); i > 0; i--) {
+                listed.add(parts[random.nextInt(parts.length)]);
+            }
+            AssociatedParts original = new AssociatedParts(listed);
+            List<Part> mirror = new ArrayList<>(original);
+            original.addListener(mirrorChanges(mirror, new int[1]));
+            AssociatedParts copy = original.fork();
+            for(int edit = random.nextInt(8); edit > 0; edit--) {
+                Part part = parts[random.nextInt(parts.length)];
+                int choice = random.nextInt(4);
+                if(choice == 0 || copy.isEmpty()) {
+                    copy.add(random.nextInt(copy.size() + 1), part);
+                }
+                else if(choice == 1) {
+                    copy.remove(random.nextInt(copy.size()));
+                }
+                else if(choice == 2) {
+                    copy.set(random.nextInt(copy.size()), part);
+                }
+                else {
+                    copy.increment(part);
+                }
+            }
+
+            if(!original.replay(copy)) { // copy changed by more than its size
+                original.setAll(copy);
+            }
+
+            assertEquals(copy, original);
+            assertEquals(original, mirror);
+        }
+    }
+
+    /**
+     * @return listener applying each change to mirror, and counting changes
+     */
+    private static ListChangeListener<Part> mirrorChanges(List<Part> mirror, int[] changes) {
+        return change -> {
+            changes[0]++;
+            while(change.next()) {
+                mirror.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+                mirror.addAll(change.getFrom(), change.getAddedSubList());
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IdIndexTest {
+    private static final int IDS = 300;
+
+
+    @Test
+    void removingReplacedPartKeepsReplacementWithSameId() {
+        Part wheel = new InHouse(1, "Wheel", 5, 10, 0, 100, 1);
+        Part newWheel = new InHouse(1, "New Wheel", 6, 10, 0, 100, 1);
+        ObservableList<Part> parts = FXCollections.observableArrayList(wheel);
+        IdIndex<Part> index = new IdIndex<>();
+        index.track(parts, Part::getId);
+
+        parts.add(newWheel); // briefly listed twice, as when a part is added before the old one is removed
+        parts.remove(wheel);
+
+        assertSame(newWheel, index.get(1));
+        assertEquals(1, index.size());
+        parts.clear();
+        assertNull(index.get(1));
+    }
+
+    @Test
+    void matchesScanOfTrackedList() {
+        Random random = new Random(7);
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        for(int i = 0; i < 50; i++) {
+            parts.add(part(freeId(parts, random), random));
+        }
+        IdIndex<Part> index = new IdIndex<>();
+        index.track(parts, Part::getId);
+        for(int step = 0; step < 5_000; step++) {
+            int choice = random.nextInt(6);
+            if(choice < 2 || parts.isEmpty()) {
+                parts.add(random.nextInt(parts.size() + 1), part(freeId(parts, random), random));
+            }
+            else if(choice == 2) {
+                parts.remove(random.nextInt(parts.size()));
+            }
+            else if(choice == 3) { // replace with the same ID, as updatePart does
+                int position = random.nextInt(parts.size());
+                parts.set(position, part(parts.get(position).getId(), random));
+            }
+            else if(choice == 4) {
+                int position = random.nextInt(parts.size());
+                parts.set(position, part(freeId(parts, random), random));
+            }
+            else if(random.nextInt(10) == 0) {
+                FXCollections.sort(parts, Comparator.comparing(Part::getName));
+            }
+            else {
+                int from = random.nextInt(parts.size());
+                parts.remove(from, Math.min(parts.size(), from + random.nextInt(4)));
+            }
+            if(step % 100 == 0) {
+                assertMatchesScan(parts, index);
+            }
+        }
+        assertMatchesScan(parts, index);
+    }
+
+    private static void assertMatchesScan(ObservableList<Part> parts, IdIndex<Part> index) {
+        for(int id = 0; id < IDS; id++) {
+            assertSame(scan(parts, id), index.get(id), "ID " + id);
+        }
+        assertEquals(parts.size(), index.size());
+    }
+
+    private static Part scan(ObservableList<Part> parts, int id) {
+        for(Part part : parts) {
+            if(part.getId() == id) {
+                return part;
+            }
+        }
+        return null;
+    }
+
+    private static int freeId(ObservableList<Part> parts, Random random) {
+        int id;
+        do {
+            id = random.nextInt(IDS);
+        } while(scan(parts, id) != null);
+        return id;
+    }
+
+    private static Part part(int id, Random random) {
+        return new InHouse(id, "Part " + random.nextInt(1000), 1, 1, 0, 10, 1);
+    }
+}
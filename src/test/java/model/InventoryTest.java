@@ -0,0 +1,124 @@
+package model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryTest {
+    private static final int THREADS = 8;
+
+
+    @BeforeEach
+    @AfterEach
+    void clearInventory() {
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().clear();
+        Inventory.setLastPartId(0);
+        Inventory.setLastProductId(999);
+    }
+
+    @Test
+    void generatesUniqueIdsOnEveryThread() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<Integer>>> generated = new ArrayList<>();
+            CountDownLatch start = new CountDownLatch(1);
+            for(int t = 0; t < THREADS; t++) {
+                generated.add(executor.submit(() -> {
+                    start.await();
+                    List<Integer> ids = new ArrayList<>();
+                    for(int i = 0; i < 5_000; i++) {
+                        ids.add(Inventory.generatePartId());
+                        if(i % 100 == 0) {
+                            int first = Inventory.generatePartIds(10);
+                            for(int id = first; id < first + 10; id++) {
+                                ids.add(id);
+                            }
+                        }
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+            Set<Integer> seen = new HashSet<>();
+            int count = 0;
+            for(Future<List<Integer>> ids : generated) {
+                for(int id : ids.get()) {
+                    assertTrue(seen.add(id), "part ID " + id + " generated twice");
+                    count++;
+                }
+            }
+            assertEquals(THREADS * (5_000 + 50 * 10), count);
+            assertEquals(count, Inventory.getLastPartId());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readsRunTogetherAndHoldOffChanges() throws Exception {
+        Inventory.addPart(new InHouse(1, "Wheel", 1.0, 5, 1, 10, 1));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            CountDownLatch inside = new CountDownLatch(2);
+            CountDownLatch writing = new CountDownLatch(1);
+            List<Future<Boolean>> readers = new ArrayList<>();
+            for(int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> Inventory.read(() -> {
+                    inside.countDown();
+                    boolean together = await(inside); // the other reader gets in while this one is inside
+                    int before = Inventory.getAllParts().size();
+                    await(writing);
+                    sleep(100); // time for the change to be applied if it were not held off
+                    return together && Inventory.getAllParts().size() == before;
+                })));
+            }
+            assertTrue(await(inside));
+            Future<?> writer = executor.submit(() -> {
+                writing.countDown();
+                Inventory.addPart(new InHouse(2, "Seat", 2.0, 5, 1, 10, 1));
+            });
+            for(Future<Boolean> reader : readers) {
+                assertTrue(reader.get(10, TimeUnit.SECONDS));
+            }
+            writer.get(10, TimeUnit.SECONDS);
+            assertEquals(2, Inventory.getAllParts().size());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
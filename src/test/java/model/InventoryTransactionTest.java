@@ -0,0 +1,114 @@
+package model;
+
+import javafx.collections.FXCollections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InventoryTransactionTest {
+    private final Random random = new Random(5);
+
+
+    @BeforeEach
+    @AfterEach
+    void clearInventory() {
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().clear();
+        Inventory.setLastPartId(0);
+        Inventory.setLastProductId(999);
+    }
+
+    @Test
+    void commitMatchesApplyingChangesOneAtATime() {
+        List<Part> parts = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        for(int i = 0; i < 2000; i++) {
+            Part part = part(Inventory.generatePartId(), "Part " + i);
+            Inventory.addPart(part);
+            parts.add(part);
+        }
+        for(int i = 0; i < 300; i++) {
+            Product product = product(Inventory.generateProductId(), "Product " + i);
+            Inventory.addProduct(product);
+            products.add(product);
+        }
+        for(int round = 0; round < 200; round++) {
+            int changes = round % 4 == 0 ? 1 + random.nextInt(50) : 1 + random.nextInt(5); // large ones replace the whole list
+            InventoryTransaction transaction = Inventory.beginTransaction();
+            List<Part> targets = distinct(parts, changes);
+            for(int k = 0; k < targets.size(); k++) {
+                Part target = targets.get(k);
+                if(k % 3 == 0) {
+                    transaction.deletePart(target);
+                    parts.remove(target);
+                }
+                else {
+                    Part replacement = part(target.getId(), target.getName() + "'");
+                    transaction.updatePart(target, replacement);
+                    parts.set(parts.indexOf(target), replacement);
+                }
+            }
+            for(Product target : distinct(products, 1 + random.nextInt(3))) {
+                Product replacement = product(target.getId(), target.getName() + "'");
+                transaction.updateProduct(target, replacement);
+                products.set(products.indexOf(target), replacement);
+            }
+            for(int k = 0; k < changes / 2; k++) {
+                Part part = part(Inventory.generatePartId(), "New part");
+                transaction.addPart(part);
+                parts.add(part);
+            }
+            transaction.commit();
+
+            assertEquals(parts, Inventory.getAllParts());
+            assertEquals(products, Inventory.getAllProducts());
+        }
+    }
+
+    @Test
+    void rejectedCommitLeavesInventoryUnchanged() {
+        for(int i = 0; i < 10; i++) {
+            Inventory.addPart(part(Inventory.generatePartId(), "Part " + i));
+        }
+        Inventory.addProduct(product(Inventory.generateProductId(), "Bike"));
+        List<Part> parts = new ArrayList<>(Inventory.getAllParts());
+        List<Product> products = new ArrayList<>(Inventory.getAllProducts());
+        Part first = parts.get(0);
+        Part last = parts.get(9);
+        Part missing = part(404, "Missing");
+
+        assertThrows(IllegalArgumentException.class, () -> Inventory.beginTransaction().deletePart(first).updatePart(last, part(last.getId(), " ")).commit());
+        assertThrows(IllegalArgumentException.class, () -> Inventory.beginTransaction().deletePart(first).deletePart(missing).commit());
+        assertThrows(IllegalArgumentException.class, () -> Inventory.beginTransaction().deletePart(first).updatePart(first, part(first.getId(), "Again")).commit());
+        assertThrows(IllegalArgumentException.class, () -> Inventory.beginTransaction().addPart(part(Inventory.generatePartId(), "New")).deleteProduct(product(1, "Missing")).commit());
+
+        assertEquals(parts, Inventory.getAllParts());
+        assertEquals(products, Inventory.getAllProducts());
+    }
+
+    private <T> List<T> distinct(List<T> items, int count) {
+        List<T> chosen = new ArrayList<>();
+        while(chosen.size() < Math.min(count, items.size())) {
+            T item = items.get(random.nextInt(items.size()));
+            if(!chosen.contains(item)) {
+                chosen.add(item);
+            }
+        }
+        return chosen;
+    }
+
+    private static Part part(int id, String name) {
+        return new InHouse(id, name, 5, 10, 0, 100, 1);
+    }
+
+    private static Product product(int id, String name) {
+        return new Product(FXCollections.observableArrayList(), id, name, 50, 1, 0, 10);
+    }
+}
@@ -0,0 +1,79 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NameIndexTest {
+    private static final String[] WORDS = {"Wheel", "Seat", "Bell", "Frame", "Chain", "Brake", "Spoke"};
+    private static final String[] QUERIES = {"", "e", "wh", "ee", "eel", "wheel", "el s", "chain 1", "ake", "spoke 3", "Seat", "xyz", "l 1"};
+
+
+    @Test
+    void matchesContainsScanInListOrder() {
+        Random random = new Random(11);
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        for(int i = 0; i < 50; i++) {
+            parts.add(part(i, random));
+        }
+        NameIndex<Part> index = new NameIndex<>(Part::getName);
+        index.track(parts);
+        int nextId = parts.size();
+        for(int step = 0; step < 3_000; step++) {
+            int choice = random.nextInt(6);
+            if(choice < 2 || parts.isEmpty()) { // mostly appends, with some inserts that reorder
+                int position = random.nextBoolean() ? parts.size() : random.nextInt(parts.size() + 1);
+                parts.add(position, part(nextId++, random));
+            }
+            else if(choice == 2) {
+                parts.remove(random.nextInt(parts.size()));
+            }
+            else if(choice == 3) {
+                int position = random.nextInt(parts.size());
+                parts.set(position, part(parts.get(position).getId(), random));
+            }
+            else if(choice == 4) {
+                int from = random.nextInt(parts.size());
+                parts.remove(from, Math.min(parts.size(), from + random.nextInt(4)));
+            }
+            else if(random.nextInt(10) == 0) {
+                FXCollections.sort(parts, Comparator.comparing(Part::getName));
+            }
+            if(step % 50 == 0) {
+                assertMatchesScan(parts, index);
+            }
+        }
+        assertMatchesScan(parts, index);
+    }
+
+    private static void assertMatchesScan(List<Part> parts, NameIndex<Part> index) {
+        for(String query : QUERIES) {
+            assertEquals(scan(parts, query), index.search(query), "query " + query);
+        }
+    }
+
+    /**
+     * Lookup that the index replaces: lower cases and checks every name.
+     */
+    private static List<Part> scan(List<Part> parts, String query) {
+        List<Part> results = new ArrayList<>();
+        for(Part part : parts) {
+            if(part.getName().toLowerCase().contains(query)) {
+                results.add(part);
+            }
+        }
+        return results;
+    }
+
+    private static Part part(int id, Random random) {
+        String name = WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(40);
+        return new InHouse(id, name, 1, 1, 0, 10, 1);
+    }
+}
@@ -0,0 +1,115 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PartColumnsTest {
+    private static final String[] NAMES = {"Wheel", "Seat", "Bell", "Straße", "ÉCROU", "Chain"};
+    private static final String[] QUERIES = {"", "e", "wh", "eel", "straß", "écrou", "ss", "chain 1", "xyz"};
+    private static final String[] COMPANIES = {"Acme Supply", "Bolt & Co", "Zürich Parts"};
+
+
+    @Test
+    void replacedPartKeepsItsValues() {
+        PartColumns parts = new PartColumns();
+        parts.add(new InHouse(1, "Wheel", 5, 10, 0, 100, 3));
+        Part wheel = parts.get(0);
+
+        parts.set(0, new Outsourced(1, "Front wheel", 6, 8, 0, 50, "Acme Supply"));
+
+        assertEquals("[1 Wheel 5.0 10 0 100 machine 3]", describe(wheel));
+        assertEquals("[1 Front wheel 6.0 8 0 50 company Acme Supply]", describe(parts.lookup(1)));
+    }
+
+    @Test
+    void matchesObjectListThroughCompaction() {
+        Random random = new Random(3);
+        PartColumns parts = new PartColumns();
+        List<Part> expected = new ArrayList<>();
+        int nextId = 1;
+        for(int step = 0; step < 20_000; step++) {
+            int choice = random.nextInt(5);
+            if(choice < 2 || expected.isEmpty()) {
+                int position = random.nextInt(expected.size() + 1);
+                Part part = part(nextId++, random);
+                parts.add(position, part);
+                expected.add(position, part);
+            }
+            else if(choice == 2) {
+                int position = random.nextInt(expected.size());
+                parts.remove(position);
+                expected.remove(position);
+            }
+            else { // replaced parts leave dead slots behind, so the table is compacted along the way
+                int position = random.nextInt(expected.size());
+                Part part = part(expected.get(position).getId(), random);
+                parts.set(position, part);
+                expected.set(position, part);
+            }
+            if(step % 500 == 0) {
+                assertMatches(expected, parts, nextId);
+            }
+        }
+        assertMatches(expected, parts, nextId);
+    }
+
+    private static void assertMatches(List<Part> expected, PartColumns parts, int ids) {
+        assertEquals(describe(expected), describe(parts));
+        for(int i = 0; i < expected.size(); i += 7) {
+            assertEquals(i, parts.indexOf(parts.get(i)));
+            assertEquals(i, parts.indexOf(expected.get(i)));
+        }
+        for(int id = 0; id <= ids; id += 3) {
+            Part part = null;
+            for(Part candidate : expected) {
+                if(candidate.getId() == id) {
+                    part = candidate;
+                }
+            }
+            if(part == null) {
+                assertNull(parts.lookup(id));
+            }
+            else {
+                assertEquals(describe(part), describe(parts.lookup(id)));
+            }
+        }
+        for(String query : QUERIES) {
+            List<Part> matches = new ArrayList<>();
+            for(Part part : expected) {
+                if(part.getName().toLowerCase().contains(query)) {
+                    matches.add(part);
+                }
+            }
+            assertEquals(describe(matches), describe(parts.search(query)), "query " + query);
+        }
+    }
+
+    private static Part part(int id, Random random) {
+        String name = NAMES[random.nextInt(NAMES.length)] + " " + random.nextInt(30);
+        double price = random.nextInt(10_000) / 100.0;
+        int stock = random.nextInt(100);
+        if(random.nextBoolean()) {
+            return new InHouse(id, name, price, stock, 0, 100, random.nextInt(50));
+        }
+        return new Outsourced(id, name, price, stock, 0, 100, COMPANIES[random.nextInt(COMPANIES.length)]);
+    }
+
+    private static String describe(List<Part> parts) {
+        StringBuilder out = new StringBuilder();
+        for(Part part : parts) {
+            out.append(describe(part)).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String describe(Part part) {
+        String extra = part instanceof InHouse ? "machine " + ((InHouse) part).getMachineId() : "company " + ((Outsourced) part).getCompanyName();
+        return "[" + part.getId() + ' ' + part.getName() + ' ' + part.getPrice() + ' ' + part.getStock() + ' ' + part.getMin() + ' ' + part.getMax() + ' ' + extra + "]";
+    }
+}
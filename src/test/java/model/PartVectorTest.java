@@ -0,0 +1,130 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PartVectorTest {
+    private static final Part WHEEL = new InHouse(1, "Wheel", 5, 10, 0, 100, 1);
+    private static final Part SEAT = new InHouse(2, "Seat", 12, 4, 0, 20, 1);
+    private static final Part BELL = new Outsourced(3, "Bell", 2, 30, 0, 50, "Acme Supply");
+
+
+    @Test
+    void storesConsecutiveEqualPartsAsOneRun() {
+        PartVector vector = PartVector.of(List.of(WHEEL, WHEEL, SEAT, SEAT, SEAT, WHEEL));
+
+        assertEquals(6, vector.size());
+        assertEquals(3, vector.runs());
+        assertSame(SEAT, vector.runPart(1));
+        assertEquals(3, vector.runQuantity(1));
+        assertEquals(5, vector.runStart(2));
+        assertEquals(1, vector.runOf(4));
+        assertSame(SEAT, vector.get(4));
+    }
+
+    @Test
+    void groupedMovesListingsUpToFirstListing() {
+        PartVector vector = PartVector.grouped(List.of(WHEEL, SEAT, WHEEL, BELL, SEAT));
+
+        assertEquals(List.of(WHEEL, WHEEL, SEAT, SEAT, BELL), vector.asList());
+        assertEquals(3, vector.runs());
+    }
+
+    @Test
+    void insertNextToEqualPartAddsToItsRun() {
+        PartVector vector = PartVector.of(List.of(WHEEL, SEAT));
+
+        PartVector inserted = vector.insert(1, WHEEL, 2);
+
+        assertEquals(List.of(WHEEL, WHEEL, WHEEL, SEAT), inserted.asList());
+        assertEquals(2, inserted.runs());
+        assertEquals(3, inserted.runQuantity(0));
+        assertEquals(List.of(WHEEL, SEAT), vector.asList()); // original is unchanged
+    }
+
+    @Test
+    void removingPartBetweenEqualRunsMergesThem() {
+        PartVector vector = PartVector.of(List.of(WHEEL, SEAT, WHEEL));
+
+        PartVector removed = vector.remove(1);
+
+        assertEquals(1, removed.runs());
+        assertEquals(2, removed.runQuantity(0));
+    }
+
+    @Test
+    void settingPartInsideRunSplitsIt() {
+        PartVector vector = PartVector.of(List.of(WHEEL, WHEEL, WHEEL));
+
+        PartVector set = vector.set(1, SEAT);
+
+        assertEquals(List.of(WHEEL, SEAT, WHEEL), set.asList());
+        assertEquals(3, set.runs());
+        assertEquals(1, set.findRun(SEAT));
+        assertEquals(-1, set.findRun(BELL));
+    }
+
+    @Test
+    void matchesListThroughSplitsAndMerges() {
+        Random random = new Random(42);
+        Part[] parts = {WHEEL, SEAT, BELL};
+        List<Part> expected = new ArrayList<>();
+        PartVector vector = PartVector.EMPTY;
+        for(int step = 0; step < 20_000; step++) {
+            Part part = parts[random.nextInt(parts.length)];
+            int choice = random.nextInt(5);
+            if(choice < 2 || expected.isEmpty()) { // grow, so leaves and branches split
+                int index = random.nextInt(expected.size() + 1);
+                int quantity = 1 + random.nextInt(3);
+                vector = vector.insert(index, part, quantity);
+                for(int i = 0; i < quantity; i++) {
+                    expected.add(index, part);
+                }
+            }
+            else if(choice == 2) {
+                int index = random.nextInt(expected.size());
+                vector = vector.remove(index);
+                expected.remove(index);
+            }
+            else {
+                int index = random.nextInt(expected.size());
+                vector = vector.set(index, part);
+                expected.set(index, part);
+            }
+            if(step % 500 == 0) {
+                assertMatches(expected, vector);
+            }
+        }
+        assertMatches(expected, vector);
+    }
+
+    /**
+     * Checks vector lists expected, and that its runs account for every listing in order.
+     */
+    private static void assertMatches(List<Part> expected, PartVector vector) {
+        assertEquals(expected, vector.asList());
+        int index = 0;
+        for(int run = 0; run < vector.runs(); run++) {
+            assertEquals(index, vector.runStart(run));
+            for(int i = 0; i < vector.runQuantity(run); i++) {
+                assertSame(expected.get(index), vector.runPart(run));
+                assertEquals(run, vector.runOf(index));
+                index++;
+            }
+        }
+        assertEquals(expected.size(), index);
+        List<Part> runs = new ArrayList<>();
+        vector.forEachRun(0, vector.size(), (part, quantity) -> {
+            for(int i = 0; i < quantity; i++) {
+                runs.add(part);
+            }
+        });
+        assertEquals(expected, runs);
+    }
+}
@@ -0,0 +1,100 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SortedIndexTest {
+    private static final double[] PRICES = {-2.5, -0.0, 0.0, 0.1, 1, 9.99, 10, 1e9};
+    private static final Comparator<Part> BY_PRICE = Comparator.comparingDouble((Part part) -> part.getPrice() + 0.0).thenComparingInt(Part::getId); // + 0.0 counts -0.0 as 0.0, as keyOf() does
+
+    private final Random random = new Random(31);
+
+
+    @Test
+    void keysSortLikeDoubles() {
+        for(int i = 1; i < PRICES.length; i++) {
+            assertTrue(SortedIndex.keyOf(PRICES[i - 1]) <= SortedIndex.keyOf(PRICES[i]));
+        }
+        assertEquals(SortedIndex.keyOf(-0.0), SortedIndex.keyOf(0.0));
+        assertTrue(SortedIndex.keyOf(-2.5) < SortedIndex.keyOf(-1));
+    }
+
+    @Test
+    void matchesSortAndFilterOfList() {
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        int nextId = 0;
+        for(; nextId < 3000; nextId++) { // several chunks
+            parts.add(part(nextId));
+        }
+        SortedIndex<Part> index = new SortedIndex<>(Part::getId, part -> SortedIndex.keyOf(part.getPrice()));
+        index.track(parts);
+        for(int step = 0; step < 5_000; step++) {
+            int choice = random.nextInt(10);
+            if(choice < 3 || parts.isEmpty()) {
+                parts.add(random.nextInt(parts.size() + 1), part(nextId++));
+            }
+            else if(choice < 6) {
+                parts.remove(random.nextInt(parts.size()));
+            }
+            else if(choice < 8) {
+                int position = random.nextInt(parts.size());
+                parts.set(position, part(parts.get(position).getId()));
+            }
+            else if(choice == 8) { // changed in place, as editPart does
+                Part part = parts.get(random.nextInt(parts.size()));
+                Part before = new InHouse(part.getId(), part.getName(), part.getPrice(), 1, 0, 10, 1);
+                part.setPrice(PRICES[random.nextInt(PRICES.length)]);
+                index.edited(before, part);
+            }
+            else if(random.nextInt(50) == 0) { // large enough to refill the index
+                List<Part> added = new ArrayList<>();
+                for(int i = 0; i < 600; i++) {
+                    added.add(part(nextId++));
+                }
+                parts.addAll(added);
+            }
+            if(step % 250 == 0) {
+                assertMatchesSort(parts, index);
+            }
+        }
+        assertMatchesSort(parts, index);
+    }
+
+    private static void assertMatchesSort(List<Part> parts, SortedIndex<Part> index) {
+        List<Part> sorted = new ArrayList<>(parts);
+        sorted.sort(BY_PRICE);
+        assertArrayEquals(ids(sorted), index.ids(false));
+        List<Part> descending = new ArrayList<>(parts);
+        descending.sort(Comparator.comparingDouble((Part part) -> -(part.getPrice() + 0.0)).thenComparingInt(Part::getId));
+        assertArrayEquals(ids(descending), index.ids(true));
+        for(int i = 0; i < PRICES.length; i++) {
+            for(int j = i; j < PRICES.length; j++) {
+                List<Part> inRange = new ArrayList<>();
+                for(Part part : sorted) {
+                    if(part.getPrice() + 0.0 >= PRICES[i] + 0.0 && part.getPrice() + 0.0 <= PRICES[j] + 0.0) {
+                        inRange.add(part);
+                    }
+                }
+                assertArrayEquals(ids(inRange), index.idsBetween(SortedIndex.keyOf(PRICES[i]), SortedIndex.keyOf(PRICES[j])));
+            }
+        }
+    }
+
+    private static int[] ids(List<Part> parts) {
+        return parts.stream().mapToInt(Part::getId).toArray();
+    }
+
+    private Part part(int id) {
+        return new InHouse(id, "Part " + id, PRICES[random.nextInt(PRICES.length)], 1, 0, 10, 1);
+    }
+}
@@ -0,0 +1,117 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StockWatchTest {
+    private final Random random = new Random(21);
+    private final ObservableList<Part> parts = FXCollections.observableArrayList();
+    private final StockWatch<Part> watch = new StockWatch<>(this::find, Part::getId, Part::getStock, Part::getMin, Part::getMax);
+
+
+    @Test
+    void matchesFilterAndSortOfList() {
+        for(int id = 0; id < 100; id++) {
+            parts.add(part(id));
+        }
+        watch.track(parts);
+        int nextId = parts.size();
+        for(int step = 0; step < 5_000; step++) {
+            int choice = random.nextInt(4);
+            if(choice == 0 || parts.isEmpty()) {
+                parts.add(random.nextInt(parts.size() + 1), part(nextId++));
+            }
+            else if(choice == 1) {
+                parts.remove(random.nextInt(parts.size()));
+            }
+            else {
+                int position = random.nextInt(parts.size());
+                parts.set(position, part(parts.get(position).getId()));
+            }
+            if(step % 100 == 0) {
+                assertMatchesFilter();
+            }
+        }
+        assertMatchesFilter();
+    }
+
+    @Test
+    void drainReportsEachItemWhoseLevelEndedDifferent() {
+        for(int id = 0; id < 100; id++) {
+            parts.add(part(id));
+        }
+        watch.track(parts);
+        for(int round = 0; round < 200; round++) {
+            Map<Integer, StockLevel> before = levels();
+            for(int i = random.nextInt(10); i >= 0; i--) { // an item may cross and cross back within a round
+                int position = random.nextInt(parts.size());
+                parts.set(position, part(parts.get(position).getId()));
+            }
+            Set<String> expected = new TreeSet<>();
+            levels().forEach((id, level) -> {
+                if(before.get(id) != level) {
+                    expected.add(id + " " + before.get(id) + " " + level);
+                }
+            });
+            Set<String> reported = new TreeSet<>();
+            watch.drain((part, from, to) -> reported.add(part.getId() + " " + from + " " + to));
+
+            assertEquals(expected, reported);
+        }
+    }
+
+    private void assertMatchesFilter() {
+        List<Part> low = new ArrayList<>();
+        List<Part> over = new ArrayList<>();
+        for(Part part : parts) {
+            StockLevel level = StockLevel.of(part.getStock(), part.getMin(), part.getMax());
+            if(level == StockLevel.LOW) {
+                low.add(part);
+            }
+            else if(level == StockLevel.OVER) {
+                over.add(part);
+            }
+        }
+        low.sort(Comparator.comparingInt((Part part) -> part.getStock() - part.getMin()).thenComparingInt(Part::getId));
+        over.sort(Comparator.comparingInt((Part part) -> part.getMax() - part.getStock()).thenComparingInt(Part::getId));
+        assertEquals(low, watch.low(Integer.MAX_VALUE));
+        assertEquals(over, watch.over(Integer.MAX_VALUE));
+        assertEquals(low.subList(0, Math.min(5, low.size())), watch.low(5));
+        assertEquals(over.subList(0, Math.min(5, over.size())), watch.over(5));
+    }
+
+    private Map<Integer, StockLevel> levels() {
+        Map<Integer, StockLevel> levels = new HashMap<>();
+        for(Part part : parts) {
+            levels.put(part.getId(), StockLevel.of(part.getStock(), part.getMin(), part.getMax()));
+        }
+        return levels;
+    }
+
+    private Part find(int id) {
+        for(Part part : parts) {
+            if(part.getId() == id) {
+                return part;
+            }
+        }
+        return null;
+    }
+
+    private Part part(int id) {
+        int min = random.nextInt(10);
+        int max = min + random.nextInt(10);
+        return new InHouse(id, "Part " + id, 5, random.nextInt(25), min, max, 1);
+    }
+}
@@ -0,0 +1,46 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringDictionaryTest {
+    private static final String[] WORDS = {"Acme", "Bolt & Co", "Zürich", "STRASSE", "straße", "İstanbul", "東京", ""};
+    private static final String[] QUERIES = {"", "a", "acme", "co", "zür", "strasse", "straße", "i̇st", "東", "xyz"};
+
+
+    @Test
+    void matchesListOfDistinctStrings() {
+        Random random = new Random(51);
+        StringDictionary dictionary = new StringDictionary();
+        List<String> strings = new ArrayList<>(); // code -> string, assigned in order
+        Map<String, Integer> codes = new HashMap<>();
+        for(int i = 0; i < 20_000; i++) { // enough to grow the byte array and hash table several times
+            String string = WORDS[random.nextInt(WORDS.length)] + (random.nextBoolean() ? " " + random.nextInt(3000) : "");
+            int expected = codes.computeIfAbsent(string, s -> {
+                strings.add(s);
+                return strings.size() - 1;
+            });
+            assertEquals(expected, dictionary.encode(string));
+        }
+        assertEquals(strings.size(), dictionary.size());
+        for(int code = 0; code < strings.size(); code++) {
+            String string = strings.get(code);
+            assertEquals(string, dictionary.decode(code));
+            assertTrue(dictionary.matches(code, string));
+            assertFalse(dictionary.matches(code, string + "x"));
+            for(String query : QUERIES) {
+                boolean asciiQuery = query.chars().allMatch(c -> c < 0x80);
+                assertEquals(string.toLowerCase().contains(query), dictionary.lowerCaseContains(code, query, asciiQuery), string + " / " + query);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SuppliersTest {
+    @Test
+    void partsFromSameCompanyShareCodeAndName() {
+        Outsourced seat = new Outsourced(1, "Seat", 9.99, 5, 0, 10, new String("Acme Supply"));
+        Outsourced bell = new Outsourced(2, "Bell", 2, 30, 0, 50, new String("Acme Supply"));
+        Outsourced horn = new Outsourced(3, "Horn", 3, 30, 0, 50, "Bolt & Co");
+
+        assertEquals(seat.getSupplierCode(), bell.getSupplierCode());
+        assertSame(seat.getCompanyName(), bell.getCompanyName());
+        assertNotEquals(seat.getSupplierCode(), horn.getSupplierCode());
+        horn.setCompanyName("Acme Supply");
+        assertEquals(seat.getSupplierCode(), horn.getSupplierCode());
+        assertEquals(Suppliers.NONE, Suppliers.code(null));
+        assertNull(Suppliers.name(Suppliers.NONE));
+    }
+
+    @Test
+    void codesFromManyThreadsMatchOneMap() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Map<String, Integer>>> results = new ArrayList<>();
+        try {
+            for(int t = 0; t < threads; t++) {
+                int seed = t;
+                results.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    Map<String, Integer> seen = new HashMap<>();
+                    for(int i = 0; i < 20_000; i++) {
+                        String name = "Supplier " + random.nextInt(3000);
+                        int code = Suppliers.code(name);
+                        Integer previous = seen.putIfAbsent(name, code);
+                        assertEquals(previous == null ? code : previous, code);
+                        assertEquals(name, Suppliers.name(code));
+                    }
+                    return seen;
+                }));
+            }
+            Map<String, Integer> codes = new HashMap<>(); // name -> code, as one shared map would have assigned them
+            for(Future<Map<String, Integer>> result : results) {
+                for(Map.Entry<String, Integer> entry : result.get().entrySet()) {
+                    assertEquals(codes.computeIfAbsent(entry.getKey(), name -> entry.getValue()), entry.getValue());
+                }
+            }
+            assertEquals(codes.size(), codes.values().stream().distinct().count()); // distinct names get distinct codes
+            for(Map.Entry<String, Integer> entry : codes.entrySet()) {
+                assertEquals(entry.getKey(), Suppliers.name(entry.getValue()));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
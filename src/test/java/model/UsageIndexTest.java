@@ -0,0 +1,204 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UsageIndexTest {
+    private static final int PART_IDS = 40;
+
+
+    @Test
+    void matchesScanOfAssociatedParts() {
+        Random random = new Random(9);
+        ObservableList<Product> products = FXCollections.observableArrayList();
+        int nextId = 1000;
+        for(int i = 0; i < 20; i++) {
+            products.add(product(nextId++, random));
+        }
+        UsageIndex index = new UsageIndex(id -> null);
+        index.track(products);
+        for(int step = 0; step < 5_000; step++) {
+            int choice = random.nextInt(6);
+            if(choice == 0 || products.isEmpty()) {
+                products.add(random.nextInt(products.size() + 1), product(nextId++, random));
+            }
+            else if(choice == 1) {
+                products.remove(random.nextInt(products.size()));
+            }
+            else if(choice == 2) { // replaced as updateProduct does, keeping the ID
+                int position = random.nextInt(products.size());
+                products.set(position, product(products.get(position).getId(), random));
+            }
+            else if(choice == 3) { // a new object for a part ID, as after the part is updated
+                products.get(random.nextInt(products.size())).addAssociatedPart(part(random.nextInt(PART_IDS)));
+            }
+            else {
+                Product product = products.get(random.nextInt(products.size()));
+                List<Part> parts = product.getAllAssociatedParts();
+                if(!parts.isEmpty()) {
+                    product.deleteAssociatedPart(parts.get(random.nextInt(parts.size())));
+                }
+            }
+            if(step % 100 == 0) {
+                assertMatchesScan(products, index);
+            }
+        }
+        assertMatchesScan(products, index);
+    }
+
+    @Test
+    void componentCostsMatchSumAtCurrentPrices() {
+        Random random = new Random(13);
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        for(int id = 0; id < PART_IDS; id++) {
+            parts.add(part(id));
+        }
+        ObservableList<Product> products = FXCollections.observableArrayList();
+        int nextId = 1000;
+        for(int i = 0; i < 20; i++) {
+            products.add(product(nextId++, random));
+        }
+        UsageIndex index = new UsageIndex(id -> parts.get(id));
+        index.track(products);
+        index.trackParts(parts);
+        for(int step = 0; step < 5_000; step++) {
+            int choice = random.nextInt(5);
+            if(choice == 0) {
+                int id = random.nextInt(PART_IDS);
+                parts.set(id, new InHouse(id, "Part " + id, random.nextInt(10_000) / 100.0, 10, 0, 100, 1));
+            }
+            else if(choice == 1) {
+                products.set(random.nextInt(products.size()), product(nextId++, random));
+            }
+            else if(choice == 2) { // associated object may be stale; its ID is priced as the part now in inventory
+                products.get(random.nextInt(products.size())).addAssociatedPart(part(random.nextInt(PART_IDS)));
+            }
+            else {
+                Product product = products.get(random.nextInt(products.size()));
+                List<Part> associated = product.getAllAssociatedParts();
+                if(!associated.isEmpty()) {
+                    product.deleteAssociatedPart(associated.get(random.nextInt(associated.size())));
+                }
+            }
+            if(step % 100 == 0) {
+                assertCostsMatchSum(products, parts, index);
+            }
+        }
+        assertCostsMatchSum(products, parts, index);
+    }
+
+    private static void assertCostsMatchSum(List<Product> products, List<Part> parts, UsageIndex index) {
+        double[] costs = index.componentCosts(products);
+        for(int i = 0; i < costs.length; i++) {
+            double sum = 0;
+            for(Part part : products.get(i).getAllAssociatedParts()) {
+                sum += parts.get(part.getId()).getPrice();
+            }
+            assertEquals(sum, costs[i], 1e-6, "product " + products.get(i).getId());
+        }
+    }
+
+    @Test
+    void buildableQuantitiesMatchLeastStockPerUse() {
+        Random random = new Random(17);
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        for(int id = 0; id < PART_IDS; id++) {
+            parts.add(part(id));
+        }
+        ObservableList<Product> products = FXCollections.observableArrayList();
+        for(int i = 0; i < 3000; i++) { // enough to be split across several fork/join tasks
+            products.add(product(1000 + i, random));
+        }
+        UsageIndex index = new UsageIndex(id -> parts.get(id));
+        index.track(products);
+        index.trackParts(parts);
+        for(int step = 0; step < 2_000; step++) {
+            int choice = random.nextInt(4);
+            if(choice < 2) {
+                int id = random.nextInt(PART_IDS);
+                parts.set(id, new InHouse(id, "Part " + id, 5, random.nextInt(30), 0, 100, 1));
+            }
+            else if(choice == 2) {
+                products.get(random.nextInt(products.size())).addAssociatedPart(part(random.nextInt(PART_IDS)));
+            }
+            else {
+                Product product = products.get(random.nextInt(products.size()));
+                List<Part> associated = product.getAllAssociatedParts();
+                if(!associated.isEmpty()) {
+                    product.deleteAssociatedPart(associated.get(random.nextInt(associated.size())));
+                }
+            }
+            if(step % 250 == 0) {
+                assertQuantitiesMatchCount(products, parts, index);
+            }
+        }
+        assertQuantitiesMatchCount(products, parts, index);
+    }
+
+    private static void assertQuantitiesMatchCount(List<Product> products, List<Part> parts, UsageIndex index) {
+        int[] counted = index.buildableQuantities(products);
+        for(int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            int[] uses = new int[PART_IDS];
+            for(Part part : product.getAllAssociatedParts()) {
+                uses[part.getId()]++;
+            }
+            int expected = product.getAllAssociatedParts().isEmpty() ? 0 : Integer.MAX_VALUE;
+            for(int id = 0; id < PART_IDS; id++) {
+                if(uses[id] > 0) {
+                    expected = Math.min(expected, parts.get(id).getStock() / uses[id]);
+                }
+            }
+            assertEquals(expected, index.buildableQuantity(product), "product " + product.getId());
+            assertEquals(expected, counted[i], "product " + product.getId());
+        }
+    }
+
+    private static void assertMatchesScan(List<Product> products, UsageIndex index) {
+        for(int partId = 0; partId < PART_IDS; partId++) {
+            List<Product> expected = scan(products, partId);
+            List<Product> actual = new ArrayList<>(index.productsUsing(partId));
+            actual.sort(Comparator.comparingInt(Product::getId));
+            assertEquals(expected, actual, "part " + partId);
+            assertEquals(!expected.isEmpty(), index.isUsed(partId));
+        }
+    }
+
+    /**
+     * Lookup that the index replaces: checks the associated parts of every product.
+     * @return products using part, in ID order
+     */
+    private static List<Product> scan(List<Product> products, int partId) {
+        List<Product> users = new ArrayList<>();
+        for(Product product : products) {
+            for(Part part : product.getAllAssociatedParts()) {
+                if(part.getId() == partId) {
+                    users.add(product);
+                    break;
+                }
+            }
+        }
+        users.sort(Comparator.comparingInt(Product::getId));
+        return users;
+    }
+
+    private static Product product(int id, Random random) {
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        for(int i = random.nextInt(6); i > 0; i--) {
+            parts.add(part(random.nextInt(PART_IDS)));
+        }
+        return new Product(parts, id, "Product " + id, 50, 1, 0, 10);
+    }
+
+    private static Part part(int id) {
+        return new InHouse(id, "Part " + id, 5, 10, 0, 100, 1);
+    }
+}
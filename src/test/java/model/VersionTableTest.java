@@ -0,0 +1,119 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VersionTableTest {
+    private static final int IDS = 200;
+
+
+    @BeforeEach
+    @AfterEach
+    void clearInventory() {
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().clear();
+        Inventory.setLastPartId(0);
+        Inventory.setLastProductId(999);
+    }
+
+    @Test
+    void versionChangesExactlyWhenItemChanged() {
+        Random random = new Random(41);
+        ObservableList<Part> parts = FXCollections.observableArrayList();
+        VersionTable versions = new VersionTable();
+        versions.track(parts, Part::getId);
+        int[] changes = new int[IDS]; // changes made to each ID, counted directly
+        int[] readVersions = new int[IDS];
+        int[] readChanges = new int[IDS];
+        boolean[] listed = new boolean[IDS];
+        for(int step = 0; step < 20_000; step++) {
+            int id = random.nextInt(IDS);
+            if(!listed[id]) { // new, or added again after being removed
+                parts.add(part(id));
+                listed[id] = true;
+                if(changes[id] > 0) { // a version read while the ID was gone must not match once it is back
+                    changes[id]++;
+                }
+            }
+            else if(random.nextInt(4) == 0) {
+                parts.remove(indexOf(parts, id));
+                listed[id] = false;
+                changes[id]++;
+            }
+            else if(random.nextBoolean()) {
+                parts.set(indexOf(parts, id), part(id));
+                changes[id]++;
+            }
+            else { // changed in place, as by editPart
+                versions.bump(id);
+                changes[id]++;
+            }
+            if(step % 50 == 0) {
+                for(int i = 0; i < IDS; i++) {
+                    assertEquals(changes[i] == readChanges[i], versions.get(i) == readVersions[i], "ID " + i);
+                }
+                int read = random.nextInt(IDS);
+                readVersions[read] = versions.get(read);
+                readChanges[read] = changes[read];
+            }
+        }
+    }
+
+    @Test
+    void concurrentCompareAndUpdatesLoseNoIncrement() throws Exception {
+        Part counter = new InHouse(Inventory.generatePartId(), "Counter", 1, 0, 0, 1_000_000, 1);
+        Inventory.addPart(counter);
+        int threads = 4;
+        int increments = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for(int t = 0; t < threads; t++) {
+                done.add(executor.submit(() -> {
+                    for(int i = 0; i < increments; i++) {
+                        while(true) { // read, then write back only if nothing changed in between
+                            int version = Inventory.getPartVersion(counter.getId());
+                            int stock = Inventory.lookupPart(counter.getId()).getStock();
+                            if(Inventory.compareAndUpdatePart(version, new InHouse(counter.getId(), "Counter", 1, stock + 1, 0, 1_000_000, 1))) {
+                                break;
+                            }
+                        }
+                    }
+                }));
+            }
+            for(Future<?> future : done) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * increments, Inventory.lookupPart(counter.getId()).getStock());
+    }
+
+    private static int indexOf(List<Part> parts, int id) {
+        for(int i = 0; i < parts.size(); i++) {
+            if(parts.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Part part(int id) {
+        return new InHouse(id, "Part " + id, 5, 10, 0, 100, 1);
+    }
+}
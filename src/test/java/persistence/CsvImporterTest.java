@@ -0,0 +1,148 @@
+package persistence;
+
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+import model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvImporterTest {
+    private static final int CHUNK_LINES = 20_000;
+
+
+    @BeforeEach
+    @AfterEach
+    void clearInventory() {
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().clear();
+        Inventory.setLastPartId(0);
+        Inventory.setLastProductId(999);
+    }
+
+    @Test
+    void readsQuotedFieldsWithDoubledQuotes() throws IOException {
+        CsvImporter.Result result = importText(
+                "InHouse,7,\"Wheel, \"\"large\"\"\",12.50,10,1,20,42,\n" +
+                "Outsourced,8,Seat,9.99,5,0,10,\"Acme, \"\"Supply\"\"\",\n" +
+                "InHouse,9,\"Bell\" x,1,1,0,1,1,\n");
+
+        assertEquals(2, result.getParts());
+        assertEquals(List.of("Line 3: Unexpected text after quoted field."), result.getErrors());
+        assertEquals("Wheel, \"large\"", Inventory.lookupPart(7).getName());
+        assertEquals(42, ((InHouse) Inventory.lookupPart(7)).getMachineId());
+        assertEquals("Acme, \"Supply\"", ((Outsourced) Inventory.lookupPart(8)).getCompanyName());
+    }
+
+    @Test
+    void skipsHeaderAfterByteOrderMark() throws IOException {
+        CsvImporter.Result result = importText(
+                "﻿type,id,name,price,stock,min,max,machineId/companyName,associatedPartIds\n" +
+                "InHouse,,Wheel,12.50,10,1,20,42,\n" +
+                "InHouse,,Seat,oops,10,1,20,42,\n");
+
+        assertEquals(1, result.getParts());
+        assertEquals(List.of("Line 3: Price/Cost must be a number."), result.getErrors()); // line numbers still count the header
+        assertEquals(List.of("Wheel"), names());
+    }
+
+    @Test
+    void rejectsIdGivenTwiceInOneChunk() throws IOException {
+        CsvImporter.Result result = importText(
+                "InHouse,7,Wheel,12.50,10,1,20,42,\n" +
+                "InHouse,7,Seat,9.99,5,0,10,3,\n");
+
+        assertEquals(1, result.getParts());
+        assertEquals(List.of("Line 2: Part ID 7 is already in use."), result.getErrors());
+        assertEquals("Wheel", Inventory.lookupPart(7).getName());
+    }
+
+    @Test
+    void rejectsIdGivenAgainInLaterChunk() throws IOException {
+        StringBuilder csv = new StringBuilder("InHouse,5,Wheel,12.50,10,1,20,42,\n");
+        appendFiller(csv, CHUNK_LINES);
+        csv.append("InHouse,5,Seat,9.99,5,0,10,3,\n");
+
+        CsvImporter.Result result = importText(csv.toString());
+
+        assertEquals(CHUNK_LINES + 1, result.getParts());
+        assertEquals(List.of("Line " + (CHUNK_LINES + 2) + ": Part ID 5 is already in use."), result.getErrors());
+        assertEquals("Wheel", Inventory.lookupPart(5).getName());
+    }
+
+    @Test
+    void resolvesProductPartsFromEarlierChunk() throws IOException {
+        StringBuilder csv = new StringBuilder("InHouse,7,Wheel,12.50,10,1,20,42,\n");
+        appendFiller(csv, CHUNK_LINES);
+        csv.append("Product,,Bike,199.00,3,1,5,,7;7\n");
+        csv.append("Product,,Trike,299.00,3,1,5,,7;999999\n");
+
+        CsvImporter.Result result = importText(csv.toString());
+
+        assertEquals(1, result.getProducts());
+        assertEquals(List.of("Line " + (CHUNK_LINES + 3) + ": Associated part ID 999999 not found."), result.getErrors());
+        Product bike = Inventory.getAllProducts().get(0);
+        assertEquals(1000, bike.getId());
+        assertEquals(List.of(7, 7), ids(bike.getAllAssociatedParts()));
+    }
+
+    @Test
+    void generatedIdsSkipGivenIds() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        csv.append("InHouse,,Wheel,12.50,10,1,20,42,\n");
+        csv.append("InHouse,3,Seat,9.99,5,0,10,3,\n");
+        csv.append("InHouse,,Bell,1,1,0,1,1,\n");
+        appendFiller(csv, CHUNK_LINES);
+        csv.append("InHouse,").append(CHUNK_LINES + 10).append(",Horn,1,1,0,1,1,\n"); // given in second chunk, above IDs generated so far
+        csv.append("InHouse,,Chain,1,1,0,1,1,\n");
+
+        CsvImporter.Result result = importText(csv.toString());
+
+        assertEquals(0, result.getErrorCount());
+        List<Integer> ids = ids(Inventory.getAllParts());
+        assertEquals(ids.size(), new HashSet<>(ids).size());
+        assertEquals("Seat", Inventory.lookupPart(3).getName());
+        assertEquals("Horn", Inventory.lookupPart(CHUNK_LINES + 10).getName());
+        int nextId = Inventory.generatePartId();
+        for(int id : ids) {
+            assertTrue(id < nextId); // generator stays ahead of every given and generated ID
+        }
+    }
+
+    private static CsvImporter.Result importText(String csv) throws IOException {
+        return new CsvImporter(2).importFrom(new StringReader(csv));
+    }
+
+    private static void appendFiller(StringBuilder csv, int lines) {
+        for(int i = 0; i < lines; i++) {
+            csv.append("InHouse,,Filler ").append(i).append(",1,1,0,1,1,\n");
+        }
+    }
+
+    private static List<String> names() {
+        List<String> names = new ArrayList<>();
+        for(Part part : Inventory.getAllParts()) {
+            names.add(part.getName());
+        }
+        return names;
+    }
+
+    private static List<Integer> ids(List<Part> parts) {
+        List<Integer> ids = new ArrayList<>();
+        for(Part part : parts) {
+            ids.add(part.getId());
+        }
+        return ids;
+    }
+}
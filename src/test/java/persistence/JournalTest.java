@@ -0,0 +1,255 @@
+package persistence;
+
+import javafx.collections.FXCollections;
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+import model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+    @TempDir
+    Path directory;
+
+
+    @BeforeEach
+    @AfterEach
+    void clearInventory() {
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().clear();
+        Inventory.setLastPartId(0);
+        Inventory.setLastProductId(999);
+    }
+
+    @Test
+    void reopeningRestoresInventory() throws IOException {
+        Journal journal = Journal.open(directory);
+        Part wheel = inHouse("Wheel");
+        Part seat = outsourced("Seat");
+        Inventory.addPart(wheel);
+        Inventory.addPart(seat);
+        Inventory.addProduct(new Product(FXCollections.observableArrayList(wheel, wheel, seat), Inventory.generateProductId(), "Bike", 99.5, 3, 0, 10));
+        journal.close();
+        String expected = describeInventory();
+
+        reopen();
+
+        assertEquals(expected, describeInventory());
+        assertEquals(2, Inventory.getLastPartId());
+        assertEquals(1000, Inventory.getLastProductId());
+    }
+
+    @Test
+    void replaysEditsByIdAfterEarlierChangesMovedParts() throws IOException {
+        Journal journal = Journal.open(directory);
+        Part bell = inHouse("Bell");
+        Part wheel = inHouse("Wheel");
+        Part seat = outsourced("Seat");
+        Inventory.addPart(bell);
+        Inventory.addPart(wheel);
+        Inventory.addPart(seat);
+        Product bike = new Product(FXCollections.observableArrayList(wheel, seat), Inventory.generateProductId(), "Bike", 99.5, 3, 0, 10);
+        Inventory.addProduct(bike);
+        assertTrue(Inventory.deletePart(bell)); // moves wheel and seat down a place
+        Inventory.addPart(inHouse("Horn"));
+        Inventory.updatePart(Inventory.getAllParts().indexOf(seat), new InHouse(seat.getId(), "Saddle", 12, 4, 0, 20, 7)); // different type, so replaced rather than edited
+        Inventory.editPart(wheel, new InHouse(wheel.getId(), "Front wheel", 6, 8, 0, 50, 2));
+        Product tandem = new Product(FXCollections.observableArrayList(wheel, wheel, Inventory.lookupPart(seat.getId())), bike.getId(), "Tandem", 150, 1, 0, 5);
+        Inventory.updateProduct(Inventory.getAllProducts().indexOf(bike), tandem);
+        journal.close();
+        String expected = describeInventory();
+
+        reopen();
+
+        assertEquals(expected, describeInventory());
+        assertNull(Inventory.lookupPart(bell.getId()));
+        assertEquals("Saddle", Inventory.lookupPart(seat.getId()).getName());
+    }
+
+    @Test
+    void stopsReplayingAtTornRecord() throws IOException {
+        Journal journal = Journal.open(directory);
+        Part wheel = inHouse("Wheel");
+        Part seat = inHouse("Seat");
+        Inventory.addPart(wheel);
+        Inventory.addPart(seat);
+        journal.close();
+        truncate(directory.resolve("journal-1.log"), 3); // as if the application crashed while writing the last record
+
+        journal = reopen();
+        assertNotNull(Inventory.lookupPart(wheel.getId()));
+        assertNull(Inventory.lookupPart(seat.getId()));
+        Part bell = inHouse("Bell");
+        Inventory.addPart(bell);
+        journal.close();
+
+        reopen(); // records written after recovery are not lost behind the torn record
+
+        assertEquals(2, Inventory.getAllParts().size());
+        assertNotNull(Inventory.lookupPart(bell.getId()));
+    }
+
+    @Test
+    void stopsReplayingAtRecordWithBadChecksum() throws IOException {
+        Journal journal = Journal.open(directory);
+        Part wheel = inHouse("Wheel");
+        Part seat = inHouse("Seat");
+        Inventory.addPart(wheel);
+        Inventory.addPart(seat);
+        journal.close();
+        Path segment = directory.resolve("journal-1.log");
+        byte[] contents = Files.readAllBytes(segment);
+        contents[contents.length - 1] ^= 1; // last byte of last record
+        Files.write(segment, contents);
+
+        reopen();
+
+        assertNotNull(Inventory.lookupPart(wheel.getId()));
+        assertNull(Inventory.lookupPart(seat.getId()));
+    }
+
+    @Test
+    void dropsTransactionWhoseCommitRecordIsMissing() throws IOException {
+        Journal journal = Journal.open(directory);
+        Part wheel = inHouse("Wheel");
+        Inventory.addPart(wheel);
+        Part seat = inHouse("Seat");
+        Part bell = inHouse("Bell");
+        Inventory.beginTransaction().addPart(seat).addPart(bell).commit();
+        journal.close();
+        truncate(directory.resolve("journal-1.log"), 1);
+
+        reopen();
+
+        assertEquals(1, Inventory.getAllParts().size());
+        assertNotNull(Inventory.lookupPart(wheel.getId()));
+        assertEquals(3, Inventory.getLastPartId()); // IDs generated for the transaction are still not reused
+    }
+
+    @Test
+    void compactionDoesNotReplayChangesTwice() throws IOException {
+        Journal journal = Journal.open(directory);
+        Part wheel = inHouse("Wheel");
+        Inventory.addPart(wheel);
+        Inventory.addProduct(new Product(FXCollections.observableArrayList(wheel), Inventory.generateProductId(), "Unicycle", 40, 1, 0, 5));
+        journal.compact();
+        Inventory.addPart(inHouse("Seat"));
+        journal.close(); // waits for snapshot to be written
+        String expected = describeInventory();
+        assertTrue(Files.exists(directory.resolve("snapshot.bin")));
+        assertFalse(Files.exists(directory.resolve("journal-1.log")));
+
+        reopen();
+
+        assertEquals(expected, describeInventory());
+        assertEquals(2, Inventory.getAllParts().size());
+        assertEquals(1, Inventory.getAllProducts().size());
+    }
+
+    @Test
+    void reportsUnreadableSnapshotOnInventoryThreadWithInventoryEmpty() throws Exception {
+        Journal journal = Journal.open(directory);
+        Part wheel = inHouse("Wheel");
+        Inventory.addPart(wheel);
+        Inventory.addPart(inHouse("Seat"));
+        Inventory.addProduct(new Product(FXCollections.observableArrayList(wheel), Inventory.generateProductId(), "Unicycle", 40, 1, 0, 5));
+        journal.compact();
+        journal.close();
+        Path snapshot = directory.resolve("snapshot.bin");
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        int products = 48 + (contents.getInt(24) + contents.getInt(28)) * 33; // after header and part records
+        contents.putInt(products + 28, 1_000_000); // first association of product, past end of associations
+        Files.write(snapshot, contents.array());
+        clearInventory();
+        ExecutorService inventoryThread = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "inventory"));
+        CountDownLatch attached = new CountDownLatch(1);
+        try {
+            CompletableFuture<Journal> opened = Journal.openInBackground(directory, task -> inventoryThread.execute(() -> {
+                awaitUninterruptibly(attached); // so the future cannot complete before the callback below is attached
+                task.run();
+            }));
+            CompletableFuture<String> reported = opened.handle((openedJournal, exception) -> exception != null ? Thread.currentThread().getName() : "opened");
+            attached.countDown();
+
+            assertEquals("inventory", reported.get(10, TimeUnit.SECONDS));
+            assertEquals(0, Inventory.getAllParts().size()); // parts loaded before the product failed are dropped
+            assertEquals(0, Inventory.getAllProducts().size());
+        }
+        finally {
+            inventoryThread.shutdown();
+        }
+    }
+
+    private Journal reopen() throws IOException {
+        clearInventory();
+        return Journal.open(directory);
+    }
+
+    private static Part inHouse(String name) {
+        return new InHouse(Inventory.generatePartId(), name, 5, 10, 0, 100, 1);
+    }
+
+    private static Part outsourced(String name) {
+        return new Outsourced(Inventory.generatePartId(), name, 9.99, 5, 0, 10, "Acme Supply");
+    }
+
+    private static void truncate(Path file, int bytes) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - bytes);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return every part and product in inventory, one per line, with the IDs of each product's associated parts
+     */
+    static String describeInventory() {
+        StringBuilder out = new StringBuilder();
+        for(Part part : Inventory.getAllParts()) {
+            out.append(describe(part)).append('\n');
+        }
+        for(Product product : Inventory.getAllProducts()) {
+            out.append(product.getId()).append(' ').append(product.getName()).append(' ').append(product.getPrice()).append(' ').append(product.getStock()).append(' ').append(product.getMin()).append(' ').append(product.getMax()).append(" parts");
+            for(Part part : product.getAllAssociatedParts()) {
+                out.append(' ').append(describe(part));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String describe(Part part) {
+        String extra = part instanceof InHouse ? "machine " + ((InHouse) part).getMachineId() : "company " + ((Outsourced) part).getCompanyName();
+        return "[" + part.getId() + ' ' + part.getName() + ' ' + part.getPrice() + ' ' + part.getStock() + ' ' + part.getMin() + ' ' + part.getMax() + ' ' + extra + "]";
+    }
+}
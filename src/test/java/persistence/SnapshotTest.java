@@ -0,0 +1,162 @@
+package persistence;
+
+import javafx.collections.FXCollections;
+import model.AssociatedParts;
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+import model.PartQuantity;
+import model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SnapshotTest {
+    @TempDir
+    Path directory;
+
+
+    @BeforeEach
+    @AfterEach
+    void clearInventory() {
+        Inventory.getAllProducts().clear();
+        Inventory.getAllParts().clear();
+        Inventory.setLastPartId(0);
+        Inventory.setLastProductId(999);
+    }
+
+    @Test
+    void writtenSnapshotRestoresInventory() throws IOException {
+        Part wheel = new InHouse(1, "Wheel", 5, 10, 0, 100, 1);
+        Part seat = new Outsourced(2, "Seat", 12, 4, 0, 20, "Acme Supply");
+        Inventory.addPart(wheel);
+        Inventory.addPart(seat);
+        Inventory.addProduct(new Product(FXCollections.observableArrayList(wheel, wheel, wheel, seat), 1000, "Tricycle", 80, 2, 0, 5));
+        Inventory.setLastPartId(2);
+        Inventory.setLastProductId(1000);
+        String expected = JournalTest.describeInventory();
+        Path file = directory.resolve("snapshot.bin");
+        Snapshot.capture(7).write(file);
+        clearInventory();
+
+        assertEquals(7, Snapshot.restore(file));
+
+        assertEquals(expected, JournalTest.describeInventory());
+        assertEquals(2, Inventory.getLastPartId());
+        assertEquals(1000, Inventory.getLastProductId());
+        Product tricycle = Inventory.lookupProduct(1000);
+        assertEquals(List.of("1 x3", "2 x1"), lines(tricycle));
+        assertSame(Inventory.lookupPart(1), tricycle.getAllAssociatedParts().get(0));
+    }
+
+    @Test
+    void readsVersion2SnapshotListingPartOncePerUnit() throws IOException {
+        Path file = directory.resolve("snapshot.bin");
+        Files.write(file, version2Snapshot());
+
+        assertEquals(4, Snapshot.restore(file));
+
+        assertEquals(2, Inventory.getAllParts().size());
+        assertEquals(3, Inventory.getLastPartId());
+        assertEquals(1000, Inventory.getLastProductId());
+        Part wheel = Inventory.lookupPart(1);
+        Part seat = Inventory.lookupPart(2);
+        assertEquals("Acme Supply", ((Outsourced) seat).getCompanyName());
+        Product bike = Inventory.lookupProduct(1000);
+        assertEquals("Bike", bike.getName());
+        List<Part> parts = bike.getAllAssociatedParts();
+        assertEquals(4, parts.size());
+        assertSame(wheel, parts.get(0)); // listings of wheel moved together, sharing the part in inventory
+        assertSame(wheel, parts.get(1));
+        assertSame(seat, parts.get(2));
+        assertEquals("Horn", parts.get(3).getName()); // held by product only, not in inventory
+        assertEquals(List.of("1 x2", "2 x1", "3 x1"), lines(bike));
+    }
+
+    /**
+     * @return each line of the bill of materials of product as part ID and quantity
+     */
+    private static List<String> lines(Product product) {
+        List<String> lines = new ArrayList<>();
+        for(PartQuantity line : ((AssociatedParts) product.getAllAssociatedParts()).lines()) {
+            lines.add(line.getPart().getId() + " x" + line.getQuantity());
+        }
+        return lines;
+    }
+
+    /**
+     * @return version 2 snapshot holding wheel and seat, an orphaned horn, and a bike listing wheel, seat, wheel, horn, one association per unit
+     */
+    private static byte[] version2Snapshot() throws IOException {
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream stringsOut = new DataOutputStream(strings);
+        int wheelName = string(stringsOut, strings, "Wheel");
+        int seatName = string(stringsOut, strings, "Seat");
+        int company = string(stringsOut, strings, "Acme Supply");
+        int hornName = string(stringsOut, strings, "Horn");
+        int bikeName = string(stringsOut, strings, "Bike");
+        int[] associations = {0, 1, 0, 2};
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x494E5653); // magic
+        out.writeInt(2); // version
+        out.writeLong(4); // last segment
+        out.writeInt(3); // last part ID
+        out.writeInt(1000); // last product ID
+        out.writeInt(2); // parts
+        out.writeInt(1); // orphans
+        out.writeInt(1); // products
+        out.writeInt(associations.length);
+        out.writeLong(48 + 3 * 33 + 36 + associations.length * Integer.BYTES); // strings offset
+        writePart(out, 1, 1, wheelName, 7);
+        writePart(out, 2, 2, seatName, company);
+        writePart(out, 1, 3, hornName, 9);
+        out.writeInt(1000);
+        out.writeInt(bikeName);
+        out.writeDouble(99.5);
+        out.writeInt(3);
+        out.writeInt(0);
+        out.writeInt(10);
+        out.writeInt(0); // first association
+        out.writeInt(associations.length);
+        for(int association : associations) {
+            out.writeInt(association);
+        }
+        strings.writeTo(out);
+        return bytes.toByteArray();
+    }
+
+    private static void writePart(DataOutputStream out, int type, int id, int name, int extra) throws IOException {
+        out.writeByte(type);
+        out.writeInt(id);
+        out.writeInt(name);
+        out.writeDouble(5);
+        out.writeInt(10);
+        out.writeInt(0);
+        out.writeInt(100);
+        out.writeInt(extra);
+    }
+
+    private static int string(DataOutputStream out, ByteArrayOutputStream bytes, String string) throws IOException {
+        int offset = bytes.size();
+        byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+        return offset;
+    }
+}